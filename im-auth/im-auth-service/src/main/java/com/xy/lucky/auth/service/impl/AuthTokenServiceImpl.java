@@ -15,7 +15,14 @@ import lombok.extern.slf4j.Slf4j;
 import org.apache.commons.codec.digest.DigestUtils;
 import org.apache.dubbo.config.annotation.DubboReference;
 import org.springframework.beans.factory.annotation.Qualifier;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
 import org.springframework.core.task.TaskExecutor;
+import org.springframework.data.redis.core.Cursor;
+import org.springframework.data.redis.core.ScanOptions;
+import org.springframework.data.redis.core.StringRedisTemplate;
+import org.springframework.data.redis.core.ZSetOperations;
+import org.springframework.data.redis.core.script.DefaultRedisScript;
 import org.springframework.stereotype.Service;
 import org.springframework.util.StringUtils;
 
@@ -36,21 +43,38 @@ public class AuthTokenServiceImpl implements AuthTokenService {
      */
     private static final String BLACKLIST_KEY = "im:auth:token:blacklist:";
 
+    /**
+     * 撤销令牌：写入黑名单、撤销索引（顺带清理过期项）并广播摘要
+     * KEYS[1] 黑名单 key，KEYS[2] 撤销索引；ARGV[1] 当前毫秒，ARGV[2] 有效期秒，ARGV[3] 令牌摘要，ARGV[4] 广播频道
+     */
+    private static final DefaultRedisScript<Long> REVOKE_SCRIPT = new DefaultRedisScript<>(
+            "local now = tonumber(ARGV[1]) "
+                    + "local ttl = tonumber(ARGV[2]) "
+                    + "redis.call('SET', KEYS[1], ARGV[1], 'EX', ttl) "
+                    + "redis.call('ZADD', KEYS[2], now + ttl * 1000, ARGV[3]) "
+                    + "redis.call('ZREMRANGEBYSCORE', KEYS[2], 0, now) "
+                    + "redis.call('PUBLISH', ARGV[4], ARGV[3]) "
+                    + "return 1",
+            Long.class);
+
     // ==================== 依赖注入 ====================
 
     private final RedisCache redisCache;
     private final SecurityAuthProperties authProperties;
     private final TokenVersionService tokenVersionService;
     private final TaskExecutor taskExecutor;
+    private final StringRedisTemplate stringRedisTemplate;
 
     public AuthTokenServiceImpl(RedisCache redisCache,
                                 SecurityAuthProperties authProperties,
                                 TokenVersionService tokenVersionService,
-                                @Qualifier("taskExecutor") TaskExecutor taskExecutor) {
+                                @Qualifier("taskExecutor") TaskExecutor taskExecutor,
+                                StringRedisTemplate stringRedisTemplate) {
         this.redisCache = redisCache;
         this.authProperties = authProperties;
         this.tokenVersionService = tokenVersionService;
         this.taskExecutor = taskExecutor;
+        this.stringRedisTemplate = stringRedisTemplate;
     }
 
     @DubboReference
@@ -199,7 +223,7 @@ public class AuthTokenServiceImpl implements AuthTokenService {
                     Optional.ofNullable(authProperties.getExpiration()).orElse(30));
         }
 
-        redisCache.set(BLACKLIST_KEY + accessToken, System.currentTimeMillis(), ttlSeconds, TimeUnit.SECONDS);
+        blacklistAndPublish(accessToken, ttlSeconds);
         String userId = JwtUtil.getUsername(accessToken);
         if (StringUtils.hasText(userId)) {
             redisCache.del(USER_TOKEN_META_KEY + userId);
@@ -217,7 +241,7 @@ public class AuthTokenServiceImpl implements AuthTokenService {
                     Optional.ofNullable(authProperties.getRefreshExpiration()).orElse(720));
         }
 
-        redisCache.set(BLACKLIST_KEY + refreshToken, System.currentTimeMillis(), ttlSeconds, TimeUnit.SECONDS);
+        blacklistAndPublish(refreshToken, ttlSeconds);
         String userId = JwtUtil.getUsername(refreshToken);
         if (StringUtils.hasText(userId)) {
             redisCache.del(USER_TOKEN_META_KEY + userId);
@@ -238,7 +262,66 @@ public class AuthTokenServiceImpl implements AuthTokenService {
                     Optional.ofNullable(authProperties.getExpiration()).orElse(30));
         }
 
-        redisCache.set(BLACKLIST_KEY + token, System.currentTimeMillis(), ttlSeconds, TimeUnit.SECONDS);
+        blacklistAndPublish(token, ttlSeconds);
+    }
+
+    /**
+     * 写入黑名单与撤销索引并广播令牌摘要，网关据此维护本地撤销布隆过滤器；
+     * 两者在同一脚本内完成，避免黑名单已生效而索引缺失导致网关漏判，失败直接抛出
+     */
+    private void blacklistAndPublish(String token, long ttlSeconds) {
+        stringRedisTemplate.execute(REVOKE_SCRIPT,
+                List.of(BLACKLIST_KEY + token, IMConstant.TOKEN_REVOKED_INDEX_KEY),
+                String.valueOf(System.currentTimeMillis()),
+                String.valueOf(ttlSeconds),
+                DigestUtils.sha256Hex(token),
+                IMConstant.TOKEN_REVOKED_CHANNEL);
+    }
+
+    /**
+     * 一次性迁移：将撤销索引上线前已存在的黑名单项补入索引，完成后写入标记不再执行
+     * <p>
+     * ZADD 幂等，多实例同时执行或中途失败重跑均无副作用
+     * </p>
+     */
+    @EventListener(ApplicationReadyEvent.class)
+    public void seedRevocationIndex() {
+        taskExecutor.execute(() -> {
+            try {
+                if (Boolean.TRUE.equals(stringRedisTemplate.hasKey(IMConstant.TOKEN_REVOKED_SEEDED_KEY))) {
+                    return;
+                }
+                long now = System.currentTimeMillis();
+                int seeded = 0;
+                Set<ZSetOperations.TypedTuple<String>> batch = new HashSet<>();
+                ScanOptions options = ScanOptions.scanOptions().match(BLACKLIST_KEY + "*").count(500).build();
+                try (Cursor<String> cursor = stringRedisTemplate.scan(options)) {
+                    while (cursor.hasNext()) {
+                        String key = cursor.next();
+                        Long ttlMillis = stringRedisTemplate.getExpire(key, TimeUnit.MILLISECONDS);
+                        if (ttlMillis == null || ttlMillis <= 0) {
+                            // 已过期或无过期时间的异常数据不纳入索引
+                            continue;
+                        }
+                        String digest = DigestUtils.sha256Hex(key.substring(BLACKLIST_KEY.length()));
+                        batch.add(ZSetOperations.TypedTuple.of(digest, (double) (now + ttlMillis)));
+                        if (batch.size() >= 500) {
+                            seeded += batch.size();
+                            stringRedisTemplate.opsForZSet().add(IMConstant.TOKEN_REVOKED_INDEX_KEY, batch);
+                            batch.clear();
+                        }
+                    }
+                }
+                if (!batch.isEmpty()) {
+                    seeded += batch.size();
+                    stringRedisTemplate.opsForZSet().add(IMConstant.TOKEN_REVOKED_INDEX_KEY, batch);
+                }
+                stringRedisTemplate.opsForValue().set(IMConstant.TOKEN_REVOKED_SEEDED_KEY, String.valueOf(now));
+                log.info("撤销令牌索引迁移完成，补入 {} 条", seeded);
+            } catch (Exception e) {
+                log.warn("撤销令牌索引迁移失败，下次启动重试：{}", e.getMessage());
+            }
+        });
     }
 
     /**
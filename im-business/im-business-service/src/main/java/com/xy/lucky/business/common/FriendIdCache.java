@@ -0,0 +1,177 @@
+package com.xy.lucky.business.common;
+
+import jakarta.annotation.PostConstruct;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.data.redis.connection.Message;
+import org.springframework.data.redis.connection.MessageListener;
+import org.springframework.data.redis.core.StringRedisTemplate;
+import org.springframework.data.redis.listener.ChannelTopic;
+import org.springframework.data.redis.listener.RedisMessageListenerContainer;
+import org.springframework.stereotype.Component;
+
+import java.nio.charset.StandardCharsets;
+import java.util.Arrays;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.function.Supplier;
+
+/**
+ * 用户好友 ID 集合本地缓存
+ * <p>
+ * 每个用户的好友 ID 以升序 long[] 保存，判断好友关系走二分查找，每个好友只占 8 字节；
+ * 好友关系变更时本实例立即失效，并通过 Redis 频道广播给其他实例同步失效，广播丢失时由 TTL 兜底。
+ * 用户 ID 不是数字时不缓存，调用方回退到数据库查询。
+ * </p>
+ *
+ * @author xy
+ */
+@Slf4j
+@Component
+@RequiredArgsConstructor
+public class FriendIdCache implements MessageListener {
+
+    /**
+     * 失效广播频道，消息体为逗号分隔的用户ID
+     */
+    private static final String INVALIDATE_CHANNEL = "im:business:friend-cache:invalidate";
+
+    private final Map<String, Entry> cache = new ConcurrentHashMap<>();
+
+    private final StringRedisTemplate stringRedisTemplate;
+
+    private final RedisMessageListenerContainer redisMessageListenerContainer;
+
+    @Value("${relationship.friend-cache.max-size:100000}")
+    private int maxSize;
+
+    @Value("${relationship.friend-cache.ttl-ms:60000}")
+    private long ttlMs;
+
+    @PostConstruct
+    public void subscribe() {
+        redisMessageListenerContainer.addMessageListener(this, new ChannelTopic(INVALIDATE_CHANNEL));
+    }
+
+    /**
+     * 获取用户的好友 ID 集合，未命中或已过期时通过 loader 加载
+     *
+     * @param ownerId 用户ID
+     * @param loader  好友 ID 加载函数
+     * @return 升序好友 ID 数组；无法缓存时返回 null
+     */
+    public long[] get(String ownerId, Supplier<List<String>> loader) {
+        long now = System.currentTimeMillis();
+        Entry entry = cache.get(ownerId);
+        if (entry == null || entry.expireAt() < now) {
+            entry = new Entry(toSortedArray(loader.get()), now + ttlMs);
+            if (cache.size() >= maxSize) {
+                evict(now);
+            }
+            cache.put(ownerId, entry);
+        }
+        return entry.ids();
+    }
+
+    /**
+     * 使指定用户的缓存失效，并广播给其他实例
+     *
+     * @param ownerIds 用户ID
+     */
+    public void invalidate(String... ownerIds) {
+        List<String> targets = Arrays.stream(ownerIds).filter(Objects::nonNull).toList();
+        if (targets.isEmpty()) {
+            return;
+        }
+        targets.forEach(cache::remove);
+        try {
+            stringRedisTemplate.convertAndSend(INVALIDATE_CHANNEL, String.join(",", targets));
+        } catch (Exception e) {
+            log.warn("[FriendIdCache] broadcast invalidation failed, owners={}", targets, e);
+        }
+    }
+
+    /**
+     * 收到其他实例（含本实例）的失效广播
+     */
+    @Override
+    public void onMessage(Message message, byte[] pattern) {
+        String body = new String(message.getBody(), StandardCharsets.UTF_8);
+        for (String ownerId : body.split(",")) {
+            if (!ownerId.isEmpty()) {
+                cache.remove(ownerId);
+            }
+        }
+    }
+
+    /**
+     * 判断好友 ID 是否在集合中
+     *
+     * @param friendIds 升序好友 ID 数组
+     * @param friendId  待判断的用户ID
+     */
+    public static boolean contains(long[] friendIds, String friendId) {
+        Long id = parse(friendId);
+        return id != null && Arrays.binarySearch(friendIds, id) >= 0;
+    }
+
+    /**
+     * 将好友 ID 列表转换为去重后的升序数组，存在非数字 ID 时返回 null
+     */
+    static long[] toSortedArray(List<String> friendIds) {
+        if (friendIds == null || friendIds.isEmpty()) {
+            return new long[0];
+        }
+        long[] ids = new long[friendIds.size()];
+        int size = 0;
+        for (String friendId : friendIds) {
+            Long id = parse(friendId);
+            if (id == null) {
+                return null;
+            }
+            ids[size++] = id;
+        }
+        Arrays.sort(ids, 0, size);
+        int distinct = 0;
+        for (int i = 0; i < size; i++) {
+            if (distinct == 0 || ids[distinct - 1] != ids[i]) {
+                ids[distinct++] = ids[i];
+            }
+        }
+        return distinct == ids.length ? ids : Arrays.copyOf(ids, distinct);
+    }
+
+    private static Long parse(String id) {
+        if (id == null || id.isEmpty()) {
+            return null;
+        }
+        try {
+            return Long.parseLong(id);
+        } catch (NumberFormatException e) {
+            return null;
+        }
+    }
+
+    /**
+     * 容量达到上限时先清理过期条目，仍超限则清空，避免缓存无界增长
+     */
+    private void evict(long now) {
+        Iterator<Map.Entry<String, Entry>> iterator = cache.entrySet().iterator();
+        while (iterator.hasNext()) {
+            if (iterator.next().getValue().expireAt() < now) {
+                iterator.remove();
+            }
+        }
+        if (cache.size() >= maxSize) {
+            log.debug("[FriendIdCache] cache full ({} entries), clearing", cache.size());
+            cache.clear();
+        }
+    }
+
+    private record Entry(long[] ids, long expireAt) {
+    }
+}
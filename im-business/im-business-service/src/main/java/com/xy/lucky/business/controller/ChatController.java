@@ -4,6 +4,7 @@ import com.xy.lucky.business.domain.dto.ChatDto;
 import com.xy.lucky.business.domain.dto.validation.ValidationGroups;
 import com.xy.lucky.business.domain.vo.ChatVo;
 import com.xy.lucky.business.service.ChatService;
+import com.xy.lucky.domain.CursorPage;
 import io.swagger.v3.oas.annotations.Operation;
 import io.swagger.v3.oas.annotations.Parameter;
 import io.swagger.v3.oas.annotations.Parameters;
@@ -58,6 +59,20 @@ public class ChatController {
                 .subscribeOn(getScheduler());
     }
 
+    @PostMapping("/page")
+    @Operation(summary = "分页查询会话列表", description = "按最后消息时间倒序游标分页查询会话列表，返回续页令牌")
+    @ApiResponses(value = {
+            @ApiResponse(responseCode = "200", description = "查询成功",
+                    content = @Content(mediaType = "application/json", schema = @Schema(implementation = CursorPage.class)))
+    })
+    @Parameters({
+            @Parameter(name = "chatDto", description = "查询条件（fromId、pageSize 必填，cursor 为上一页返回的续页令牌）", required = true, in = ParameterIn.DEFAULT)
+    })
+    public Mono<CursorPage<ChatVo>> page(@RequestBody @Validated(ValidationGroups.Page.class) ChatDto chatDto) {
+        return Mono.fromCallable(() -> chatService.page(chatDto))
+                .subscribeOn(getScheduler());
+    }
+
     @PostMapping("/read")
     @Operation(summary = "标记已读", description = "标记会话消息为已读")
     @ApiResponses(value = {
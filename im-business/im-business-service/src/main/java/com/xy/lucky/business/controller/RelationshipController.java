@@ -3,6 +3,7 @@ package com.xy.lucky.business.controller;
 import com.xy.lucky.business.domain.dto.FriendDto;
 import com.xy.lucky.business.domain.dto.FriendRequestDto;
 import com.xy.lucky.business.domain.dto.validation.ValidationGroups;
+import com.xy.lucky.business.domain.vo.ContactDeltaVo;
 import com.xy.lucky.business.domain.vo.FriendVo;
 import com.xy.lucky.business.service.RelationshipService;
 import io.swagger.v3.oas.annotations.Operation;
@@ -53,6 +54,19 @@ public class RelationshipController {
                 .subscribeOn(getScheduler());
     }
 
+    @GetMapping("/contacts/delta")
+    @Operation(summary = "增量同步好友列表", description = "返回版本号之后新增、变更与删除的好友，以及新的版本号")
+    @Parameters({
+            @Parameter(name = "userId", description = "用户ID", required = true, in = ParameterIn.QUERY),
+            @Parameter(name = "version", description = "客户端已同步的版本号，首次同步不传", required = false, in = ParameterIn.QUERY)
+    })
+    public Mono<ContactDeltaVo> contactsDelta(
+            @RequestParam("userId") @NotBlank(message = "{validation.user_id.required}") String userId,
+            @RequestParam(value = "version", required = false) Long version) {
+        return Mono.fromCallable(() -> relationshipService.contactsDelta(userId, version))
+                .subscribeOn(getScheduler());
+    }
+
     @GetMapping("/groups/list")
     @Operation(summary = "查询群组列表", description = "获取用户加入的群组列表")
     @Parameters({
@@ -2,6 +2,8 @@ package com.xy.lucky.business.domain.dto;
 
 import com.xy.lucky.business.domain.dto.validation.ValidationGroups;
 import io.swagger.v3.oas.annotations.media.Schema;
+import jakarta.validation.constraints.Max;
+import jakarta.validation.constraints.Min;
 import jakarta.validation.constraints.NotBlank;
 import jakarta.validation.constraints.NotNull;
 import jakarta.validation.constraints.Size;
@@ -34,7 +36,7 @@ public class ChatDto implements Serializable {
     @Schema(description = "会话类型 (1: 单聊, 2: 群聊)")
     private Integer chatType;
 
-    @NotBlank(message = "{validation.from_id.required}", groups = {ValidationGroups.Create.class, ValidationGroups.Query.class})
+    @NotBlank(message = "{validation.from_id.required}", groups = {ValidationGroups.Create.class, ValidationGroups.Query.class, ValidationGroups.Page.class})
     @Size(max = 64, message = "{validation.from_id.size}")
     @Schema(description = "发送人ID")
     private String fromId;
@@ -52,4 +54,13 @@ public class ChatDto implements Serializable {
 
     @Schema(description = "消息序列号（用于增量查询）")
     private Long sequence;
+
+    @Schema(description = "续页令牌（首页不传）")
+    private String cursor;
+
+    @NotNull(message = "{validation.page_size.required}", groups = {ValidationGroups.Page.class})
+    @Min(value = 1, message = "{validation.page_size.range}", groups = {ValidationGroups.Page.class})
+    @Max(value = 500, message = "{validation.page_size.range}", groups = {ValidationGroups.Page.class})
+    @Schema(description = "页大小")
+    private Integer pageSize;
 }
@@ -34,6 +34,12 @@ public interface ValidationGroups {
     interface Query {
     }
 
+    /**
+     * 游标分页查询
+     */
+    interface Page {
+    }
+
     /**
      * 审批操作
      */
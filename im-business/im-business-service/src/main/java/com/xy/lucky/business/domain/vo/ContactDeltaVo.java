@@ -0,0 +1,30 @@
+package com.xy.lucky.business.domain.vo;
+
+import com.fasterxml.jackson.annotation.JsonInclude;
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+import lombok.experimental.Accessors;
+
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * 联系人增量同步结果
+ */
+@Data
+@Accessors(chain = true)
+@NoArgsConstructor
+@AllArgsConstructor
+@JsonInclude(JsonInclude.Include.NON_NULL)
+public class ContactDeltaVo {
+
+    // 本次同步后的版本号，客户端下次同步时回传
+    private Long version;
+
+    // 新增或变更的好友
+    private List<FriendVo> friends = new ArrayList<>();
+
+    // 已删除的好友ID
+    private List<String> removed = new ArrayList<>();
+}
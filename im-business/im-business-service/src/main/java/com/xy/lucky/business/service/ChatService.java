@@ -2,6 +2,7 @@ package com.xy.lucky.business.service;
 
 import com.xy.lucky.business.domain.dto.ChatDto;
 import com.xy.lucky.business.domain.vo.ChatVo;
+import com.xy.lucky.domain.CursorPage;
 
 import java.util.List;
 
@@ -9,6 +10,8 @@ public interface ChatService {
 
     List<ChatVo> list(ChatDto chatDto);
 
+    CursorPage<ChatVo> page(ChatDto chatDto);
+
     void read(ChatDto chatDto);
 
     ChatVo create(ChatDto ChatDto);
@@ -3,6 +3,7 @@ package com.xy.lucky.business.service;
 
 import com.xy.lucky.business.domain.dto.FriendDto;
 import com.xy.lucky.business.domain.dto.FriendRequestDto;
+import com.xy.lucky.business.domain.vo.ContactDeltaVo;
 import com.xy.lucky.business.domain.vo.FriendVo;
 
 import java.util.List;
@@ -11,6 +12,8 @@ public interface RelationshipService {
 
     List<?> contacts(String userId, Long sequence);
 
+    ContactDeltaVo contactsDelta(String userId, Long version);
+
     List<?> groups(String userId);
 
     List<?> newFriends(String userId);
@@ -11,9 +11,9 @@ import com.xy.lucky.core.enums.IMStatus;
 import com.xy.lucky.core.enums.IMessageReadStatus;
 import com.xy.lucky.core.enums.IMessageType;
 import com.xy.lucky.general.response.service.I18nService;
+import com.xy.lucky.domain.CursorPage;
 import com.xy.lucky.domain.po.ImChatPo;
 import com.xy.lucky.domain.po.ImGroupPo;
-import com.xy.lucky.domain.po.ImGroupMessagePo;
 import com.xy.lucky.domain.po.ImGroupMessageStatusPo;
 import com.xy.lucky.domain.po.ImSingleMessagePo;
 import com.xy.lucky.domain.po.ImUserDataPo;
@@ -133,6 +133,25 @@ public class ChatServiceImpl implements ChatService {
                 .toList();
     }
 
+    /**
+     * 按最后消息时间倒序游标分页查询会话列表
+     *
+     * @param dto 查询条件（已在 Controller 层校验）
+     * @return 会话分页结果
+     */
+    @Override
+    public CursorPage<ChatVo> page(ChatDto dto) {
+        CursorPage<ImChatPo> page = chatDubboService.queryPage(dto.getFromId(), dto.getCursor(), dto.getPageSize());
+        if (page == null || CollectionUtils.isEmpty(page.getRecords())) {
+            return new CursorPage<>();
+        }
+        ChatBuildContext context = buildContext(page.getRecords(), dto.getFromId());
+        List<ChatVo> records = page.getRecords().stream()
+                .map(chatPo -> buildChatVo(chatPo, context))
+                .toList();
+        return new CursorPage<>(records, page.getNextCursor(), page.isHasMore());
+    }
+
     // ==================== 私有方法 ====================
 
     /**
@@ -186,19 +205,8 @@ public class ChatServiceImpl implements ChatService {
         String ownerId = vo.getOwnerId();
         String toId = vo.getToId();
 
-        // 获取最后一条消息
-        ImSingleMessagePo lastMsg = singleMessageDubboService.queryLast(ownerId, toId);
-        Optional.ofNullable(lastMsg)
-                .map(ImSingleMessagePo::getMessageId)
-                .ifPresentOrElse(messageId -> {
-                    vo.setMessage(lastMsg.getMessageBody());
-                    vo.setMessageContentType(lastMsg.getMessageContentType());
-                    vo.setMessageTime(lastMsg.getMessageTime());
-                }, () -> vo.setMessageTime(0L));
-
-        // 获取未读数
-        Integer unread = singleMessageDubboService.queryReadStatus(toId, ownerId, IMessageReadStatus.UNREAD.getCode());
-        vo.setUnread(Optional.ofNullable(unread).orElse(0));
+        // 最后一条消息与未读数来自会话投影
+        applyProjection(vo, chatPo);
 
         // 获取用户信息
         String targetUserId = ownerId.equals(toId) ? ownerId : toId;
@@ -222,21 +230,10 @@ public class ChatServiceImpl implements ChatService {
      */
     private ChatVo buildGroupChatVo(ImChatPo chatPo, ChatBuildContext context) {
         ChatVo vo = chatBeanMapper.toChatVo(chatPo);
-        String ownerId = vo.getOwnerId();
         String groupId = vo.getToId();
 
-        // 获取最后一条消息
-        ImGroupMessagePo lastMsg = groupMessageDubboService.queryLast(groupId, ownerId);
-        Optional.ofNullable(lastMsg)
-                .map(ImGroupMessagePo::getMessageId)
-                .ifPresentOrElse(messageId -> {
-                    vo.setMessage(lastMsg.getMessageBody());
-                    vo.setMessageTime(lastMsg.getMessageTime());
-                }, () -> vo.setMessageTime(0L));
-
-        // 获取未读数
-        Integer unread = groupMessageDubboService.queryReadStatus(groupId, ownerId, IMessageReadStatus.UNREAD.getCode());
-        vo.setUnread(Optional.ofNullable(unread).orElse(0));
+        // 最后一条消息与未读数来自会话投影
+        applyProjection(vo, chatPo);
 
         // 获取群信息
         ImGroupPo groupPo = Optional.ofNullable(context)
@@ -253,6 +250,16 @@ public class ChatServiceImpl implements ChatService {
         return vo;
     }
 
+    /**
+     * 由会话投影填充最后一条消息与未读数
+     */
+    private void applyProjection(ChatVo vo, ImChatPo chatPo) {
+        vo.setMessage(chatPo.getLastMessage());
+        vo.setMessageContentType(chatPo.getLastMessageContentType());
+        vo.setMessageTime(Optional.ofNullable(chatPo.getLastMessageTime()).orElse(0L));
+        vo.setUnread(Optional.ofNullable(chatPo.getUnreadCount()).orElse(0));
+    }
+
     /**
      * 构建会话列表上下文，避免在 list 场景对用户/群信息进行 N+1 查询
      */
@@ -332,6 +339,7 @@ public class ChatServiceImpl implements ChatService {
                 .setFromId(dto.getFromId())
                 .setToId(dto.getToId());
         singleMessageDubboService.modifyReadStatus(updatePo);
+        chatDubboService.clearUnread(dto.getFromId(), dto.getToId(), IMessageType.SINGLE_MESSAGE.getCode());
     }
 
     /**
@@ -343,5 +351,6 @@ public class ChatServiceImpl implements ChatService {
                 .setGroupId(dto.getToId())
                 .setToId(dto.getFromId());
         groupMessageDubboService.modifyReadStatus(updatePo);
+        chatDubboService.clearUnread(dto.getFromId(), dto.getToId(), IMessageType.GROUP_MESSAGE.getCode());
     }
 }
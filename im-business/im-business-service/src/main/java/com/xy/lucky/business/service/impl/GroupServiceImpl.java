@@ -405,8 +405,7 @@ public class GroupServiceImpl implements GroupService {
      * 更新群信息并发送通知
      */
     private void updateGroupInfoAndNotify(String groupId, String inviterId, String userId) {
-        List<ImGroupMemberPo> members = groupMemberDubboService.queryList(groupId);
-        if (Optional.ofNullable(members).map(List::size).orElse(0) < 10) {
+        if (Optional.ofNullable(groupMemberDubboService.countByGroupId(groupId)).orElse(0L) < 10) {
             generateGroupAvatar(groupId);
         }
         sendJoinNotification(groupId, inviterId, userId);
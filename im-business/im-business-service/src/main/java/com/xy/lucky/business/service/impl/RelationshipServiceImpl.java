@@ -1,11 +1,13 @@
 package com.xy.lucky.business.service.impl;
 
+import com.xy.lucky.business.common.FriendIdCache;
 import com.xy.lucky.business.common.LockExecutor;
 import com.xy.lucky.business.domain.dto.FriendDto;
 import com.xy.lucky.business.domain.dto.FriendRequestDto;
 import com.xy.lucky.business.domain.mapper.FriendRequestBeanMapper;
 import com.xy.lucky.business.domain.mapper.GroupBeanMapper;
 import com.xy.lucky.business.domain.mapper.UserDataBeanMapper;
+import com.xy.lucky.business.domain.vo.ContactDeltaVo;
 import com.xy.lucky.business.domain.vo.FriendVo;
 import com.xy.lucky.business.domain.vo.FriendshipRequestVo;
 import com.xy.lucky.business.exception.BusinessResultCode;
@@ -49,11 +51,8 @@ public class RelationshipServiceImpl implements RelationshipService {
      * 分布式锁前缀
      */
     private static final String LOCK_PREFIX = "lock:relationship:";
-    /**
-     * 批量查询大小
-     */
-    private static final int BATCH_SIZE = 500;
     private final LockExecutor lockExecutor;
+    private final FriendIdCache friendIdCache;
     @DubboReference
     private ImFriendshipDubboService friendshipDubboService;
     @DubboReference
@@ -94,7 +93,7 @@ public class RelationshipServiceImpl implements RelationshipService {
                 return Collections.emptyList();
             }
 
-            Map<String, ImUserDataPo> userMap = batchQueryUserMap(friendIds);
+            Map<String, ImUserDataPo> userMap = queryUserMap(friendIds);
             if (userMap.isEmpty()) {
                 return Collections.emptyList();
             }
@@ -103,6 +102,43 @@ public class RelationshipServiceImpl implements RelationshipService {
         });
     }
 
+    /**
+     * 联系人增量同步：只返回客户端版本号之后变更的好友关系，新增/变更的好友一次批量补全资料
+     *
+     * @param ownerId 所有者ID（已在 Controller 层校验）
+     * @param version 客户端已同步的版本号，为空时全量同步
+     * @return 增量结果
+     */
+    @Override
+    public ContactDeltaVo contactsDelta(String ownerId, Long version) {
+        long since = Optional.ofNullable(version).orElse(0L);
+        List<ImFriendshipPo> changes = Optional.ofNullable(friendshipDubboService.queryList(ownerId, since))
+                .orElse(Collections.emptyList());
+
+        ContactDeltaVo delta = new ContactDeltaVo().setVersion(since);
+        List<ImFriendshipPo> upserts = new ArrayList<>();
+        for (ImFriendshipPo change : changes) {
+            if (change == null || change.getToId() == null) {
+                continue;
+            }
+            Optional.ofNullable(change.getSequence())
+                    .filter(sequence -> sequence > delta.getVersion())
+                    .ifPresent(delta::setVersion);
+            if (IMStatus.NO.getCode().equals(change.getDelFlag())) {
+                delta.getRemoved().add(change.getToId());
+            } else {
+                upserts.add(change);
+            }
+        }
+        if (upserts.isEmpty()) {
+            return delta;
+        }
+
+        List<String> friendIds = upserts.stream().map(ImFriendshipPo::getToId).distinct().toList();
+        delta.setFriends(buildFriendVoList(upserts, queryUserMap(friendIds), ownerId));
+        return delta;
+    }
+
     /**
      * 获取群组列表
      *
@@ -171,7 +207,10 @@ public class RelationshipServiceImpl implements RelationshipService {
         FriendVo vo = userDataBeanMapper.toFriendVo(userData);
         vo.setUserId(ownerId).setFriendId(userData.getUserId());
 
-        ImFriendshipPo friendship = friendshipDubboService.queryOne(ownerId, toId);
+        long[] friendIds = loadFriendIds(ownerId);
+        ImFriendshipPo friendship = friendIds == null || FriendIdCache.contains(friendIds, toId)
+                ? friendshipDubboService.queryOne(ownerId, toId)
+                : null;
         if (friendship != null) {
             vo.setFlag(IMStatus.YES.getCode());
             Optional.ofNullable(friendship.getBlack()).ifPresent(vo::setBlack);
@@ -270,6 +309,7 @@ public class RelationshipServiceImpl implements RelationshipService {
 
             if (IMApproveStatus.APPROVED.getCode().equals(dto.getApproveStatus())) {
                 createBidirectionalFriendship(request.getFromId(), request.getToId(), dto.getRemark());
+                friendIdCache.invalidate(request.getFromId(), request.getToId());
                 log.info(I18nService.getMessage("log.friend.relation_create",
                         new Object[]{request.getFromId(), request.getToId()}));
             }
@@ -288,6 +328,7 @@ public class RelationshipServiceImpl implements RelationshipService {
         String lockKey = LOCK_PREFIX + "delete:" + dto.getFromId() + ":" + dto.getToId();
         lockExecutor.execute(lockKey, () -> {
             friendshipDubboService.removeOne(dto.getFromId(), dto.getToId());
+            friendIdCache.invalidate(dto.getFromId());
             log.info(I18nService.getMessage("log.friend.delete",
                     new Object[]{dto.getFromId(), dto.getToId()}));
         });
@@ -322,35 +363,20 @@ public class RelationshipServiceImpl implements RelationshipService {
     // ==================== 私有方法 ====================
 
     /**
-     * 批量查询用户信息
+     * 加载用户的好友 ID 集合（本地缓存），无法缓存时返回 null
      */
-    private Map<String, ImUserDataPo> batchQueryUserMap(List<String> userIds) {
-        List<ImUserDataPo> allUsers = new ArrayList<>();
-
-        for (int i = 0; i < userIds.size(); i += BATCH_SIZE) {
-            int end = Math.min(i + BATCH_SIZE, userIds.size());
-            List<String> batch = userIds.subList(i, end);
-            try {
-                List<ImUserDataPo> users = userDataDubboService.queryListByIds(batch);
-                if (!CollectionUtils.isEmpty(users)) {
-                    allUsers.addAll(users);
-                }
-            } catch (Exception e) {
-                log.error(I18nService.getMessage("log.friend.batch_query_user_failed",
-                        new Object[]{i, batch.size()}), e);
-            }
+    private long[] loadFriendIds(String ownerId) {
+        try {
+            return friendIdCache.get(ownerId, () -> friendshipDubboService.queryFriendIds(ownerId));
+        } catch (Exception e) {
+            log.warn(I18nService.getMessage("log.friend.load_friend_ids_failed",
+                    new Object[]{ownerId}), e);
+            return null;
         }
-
-        return allUsers.stream()
-                .filter(Objects::nonNull)
-                .collect(Collectors.toMap(
-                        ImUserDataPo::getUserId,
-                        Function.identity(),
-                        (existing, replacement) -> existing));
     }
 
     /**
-     * 查询用户信息映射
+     * 查询用户信息映射（数据库侧按块执行 IN 查询，这里只需一次调用）
      */
     private Map<String, ImUserDataPo> queryUserMap(List<String> userIds) {
         List<ImUserDataPo> users = userDataDubboService.queryListByIds(userIds);
@@ -368,9 +394,18 @@ public class RelationshipServiceImpl implements RelationshipService {
     /**
      * 查询好友关系映射
      */
-    private Map<String, ImFriendshipPo> queryFriendshipMap(String ownerId, List<String> userIds) {
+    private Map<String, ImFriendshipPo> queryFriendshipMap(String ownerId, List<String> candidateIds) {
         Map<String, ImFriendshipPo> result = new HashMap<>();
 
+        // 先用好友 ID 集合过滤掉非好友，只为真正的好友查询关系详情
+        long[] friendIds = loadFriendIds(ownerId);
+        List<String> userIds = friendIds == null
+                ? candidateIds
+                : candidateIds.stream().filter(id -> FriendIdCache.contains(friendIds, id)).toList();
+        if (userIds.isEmpty()) {
+            return result;
+        }
+
         try {
             List<ImFriendshipPo> friendships = friendshipDubboService.queryListByIds(ownerId, userIds);
             Optional.ofNullable(friendships)
@@ -64,6 +64,11 @@ public class NettyProperties {
      */
     private Boolean multiDeviceEnabled = false;
 
+    /**
+     * 节点连接统计上报 Redis 的间隔（毫秒）
+     */
+    private long statsReportIntervalMs = 1000L;
+
     /**
      * TCP 配置
      */
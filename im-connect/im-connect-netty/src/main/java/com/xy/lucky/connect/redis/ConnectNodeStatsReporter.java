@@ -0,0 +1,108 @@
+package com.xy.lucky.connect.redis;
+
+import com.xy.lucky.connect.channel.UserChannelMap;
+import com.xy.lucky.connect.config.LogConstant;
+import com.xy.lucky.connect.config.properties.NettyProperties;
+import com.xy.lucky.core.constants.IMConstant;
+import com.xy.lucky.core.model.IMConnectNodeStats;
+import com.xy.lucky.core.utils.StringUtils;
+import com.xy.lucky.spring.annotations.core.Autowired;
+import com.xy.lucky.spring.annotations.core.Component;
+import com.xy.lucky.spring.annotations.core.PostConstruct;
+import com.xy.lucky.spring.annotations.core.PreDestroy;
+import com.xy.lucky.spring.annotations.core.Value;
+import lombok.extern.slf4j.Slf4j;
+
+import java.lang.management.ManagementFactory;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * 节点连接统计上报
+ * <p>
+ * 周期将本节点连接数、在线用户数、CPU 使用率写入 {@link IMConstant#CONNECT_NODE_STATS_KEY} 的 brokerId 字段，
+ * 消费方一次 HGETALL 即可汇总全集群，无需 SCAN 用户路由 key；下线时删除本节点字段。
+ * </p>
+ */
+@Slf4j(topic = LogConstant.Redis)
+@Component
+public class ConnectNodeStatsReporter {
+
+    /**
+     * 整个 Hash 的兜底过期倍数：所有节点都停止上报后自动清理
+     */
+    private static final int KEY_TTL_MULTIPLIER = 10;
+
+    @Value("${brokerId:}")
+    private String brokerId;
+
+    @Autowired
+    private NettyProperties nettyProperties;
+
+    @Autowired
+    private UserChannelMap userChannelMap;
+
+    @Autowired
+    private RedisTemplate redisTemplate;
+
+    private ScheduledExecutorService scheduler;
+
+    @PostConstruct
+    public void start() {
+        if (!StringUtils.hasText(brokerId)) {
+            log.warn("brokerId 为空，跳过节点连接统计上报");
+            return;
+        }
+        long interval = Math.max(1000L, nettyProperties.getStatsReportIntervalMs());
+        scheduler = Executors.newSingleThreadScheduledExecutor(r -> {
+            Thread t = new Thread(r, "im-node-stats-reporter");
+            t.setDaemon(true);
+            return t;
+        });
+        scheduler.scheduleAtFixedRate(this::report, 0, interval, TimeUnit.MILLISECONDS);
+        log.info("节点连接统计上报已启动: brokerId={}, intervalMs={}", brokerId, interval);
+    }
+
+    @PreDestroy
+    public void shutdown() {
+        if (scheduler == null) {
+            return;
+        }
+        scheduler.shutdownNow();
+        try {
+            redisTemplate.hdel(IMConstant.CONNECT_NODE_STATS_KEY, brokerId);
+        } catch (Exception e) {
+            log.warn("删除节点连接统计失败: brokerId={}", brokerId, e);
+        }
+    }
+
+    /**
+     * 上报本节点当前统计
+     */
+    void report() {
+        try {
+            IMConnectNodeStats stats = new IMConnectNodeStats()
+                    .setBrokerId(brokerId)
+                    .setConnections(userChannelMap.getTotalConnectionCount())
+                    .setUsers(userChannelMap.getOnlineUserCount())
+                    .setReportedAt(System.currentTimeMillis())
+                    .setCpuLoad(cpuLoad());
+            long ttlSeconds = Math.max(1L, nettyProperties.getStatsReportIntervalMs() * KEY_TTL_MULTIPLIER / 1000L);
+            redisTemplate.hsetEx(IMConstant.CONNECT_NODE_STATS_KEY, brokerId, stats.encode(), ttlSeconds);
+        } catch (Exception e) {
+            log.debug("节点连接统计上报失败: brokerId={}", brokerId, e);
+        }
+    }
+
+    /**
+     * 系统 CPU 使用率（0~1），不可用时返回 -1
+     */
+    private double cpuLoad() {
+        if (ManagementFactory.getOperatingSystemMXBean() instanceof com.sun.management.OperatingSystemMXBean os) {
+            double load = os.getCpuLoad();
+            return load < 0 ? -1 : Math.round(load * 1000) / 1000.0;
+        }
+        return -1;
+    }
+}
@@ -301,6 +301,25 @@ public class RedisTemplate {
         return execute(jedis -> jedis.hmset(key, map));
     }
 
+    /**
+     * 设置 Hash 单个字段并刷新整个 key 的过期时间（同一 pipeline 提交）
+     */
+    public void hsetEx(String key, String field, String value, long expireSeconds) {
+        executeVoid(jedis -> {
+            Pipeline pipeline = jedis.pipelined();
+            pipeline.hset(key, field, value);
+            pipeline.expire(key, (int) expireSeconds);
+            pipeline.sync();
+        });
+    }
+
+    /**
+     * 删除 Hash 字段
+     */
+    public long hdel(String key, String... fields) {
+        return execute(jedis -> jedis.hdel(key, fields));
+    }
+
     // ======================== SortedSet 有序集合 ========================
 
     /**
@@ -0,0 +1,120 @@
+package com.xy.lucky.domain;
+
+import io.swagger.v3.oas.annotations.media.Schema;
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+import lombok.experimental.Accessors;
+
+import java.io.Serial;
+import java.io.Serializable;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.Base64;
+import java.util.List;
+import java.util.function.Function;
+
+/**
+ * 基于 (message_time, message_id) 游标的分页结果。
+ * <p>
+ * 续页令牌为最后一条记录的 "时间:ID" 经 URL 安全 Base64 编码，客户端原样回传即可拉取下一页。
+ * </p>
+ *
+ * @param <T> 记录类型
+ */
+@Data
+@Accessors(chain = true)
+@NoArgsConstructor
+@AllArgsConstructor
+@Schema(description = "游标分页结果")
+public class CursorPage<T> implements Serializable {
+
+    @Serial
+    private static final long serialVersionUID = 1L;
+
+    /**
+     * 单页最大条数
+     */
+    public static final int MAX_PAGE_SIZE = 500;
+
+    /**
+     * 未传页大小时的默认条数
+     */
+    public static final int DEFAULT_PAGE_SIZE = 20;
+
+    private static final char SEPARATOR = ':';
+
+    @Schema(description = "本页记录")
+    private List<T> records = new ArrayList<>();
+
+    @Schema(description = "续页令牌，无更多数据时为空")
+    private String nextCursor;
+
+    @Schema(description = "是否还有更多数据")
+    private boolean hasMore;
+
+    /**
+     * 规范化页大小到 [1, MAX_PAGE_SIZE]，未传时取 DEFAULT_PAGE_SIZE；
+     * 入口已按 Page 分组校验，这里只兜底内部调用，不抛异常
+     */
+    public static int normalizePageSize(Integer pageSize) {
+        if (pageSize == null) {
+            return DEFAULT_PAGE_SIZE;
+        }
+        return Math.max(1, Math.min(pageSize, MAX_PAGE_SIZE));
+    }
+
+    /**
+     * 编码续页令牌
+     */
+    public static String encodeCursor(long messageTime, String messageId) {
+        String raw = messageTime + String.valueOf(SEPARATOR) + messageId;
+        return Base64.getUrlEncoder().withoutPadding().encodeToString(raw.getBytes(StandardCharsets.UTF_8));
+    }
+
+    /**
+     * 解码续页令牌，令牌为空时返回 null
+     */
+    public static Cursor decodeCursor(String cursor) {
+        if (cursor == null || cursor.isBlank()) {
+            return null;
+        }
+        try {
+            String raw = new String(Base64.getUrlDecoder().decode(cursor), StandardCharsets.UTF_8);
+            int index = raw.indexOf(SEPARATOR);
+            return new Cursor(Long.parseLong(raw.substring(0, index)), raw.substring(index + 1));
+        } catch (RuntimeException e) {
+            throw new IllegalArgumentException("invalid cursor: " + cursor, e);
+        }
+    }
+
+    /**
+     * 由多取一条的查询结果构建分页：多出的一条只用于判断是否还有下一页。
+     *
+     * @param fetched     按 (message_time, message_id) 升序、最多 pageSize + 1 条的查询结果
+     * @param pageSize    页大小
+     * @param timeGetter  消息时间
+     * @param idGetter    消息 ID
+     */
+    public static <T> CursorPage<T> of(List<T> fetched, int pageSize,
+                                       Function<T, Long> timeGetter, Function<T, String> idGetter) {
+        List<T> rows = fetched == null ? new ArrayList<>() : fetched;
+        boolean hasMore = rows.size() > pageSize;
+        List<T> records = hasMore ? new ArrayList<>(rows.subList(0, pageSize)) : new ArrayList<>(rows);
+        String nextCursor = null;
+        if (hasMore) {
+            T last = records.get(records.size() - 1);
+            nextCursor = encodeCursor(timeGetter.apply(last), idGetter.apply(last));
+        }
+        return new CursorPage<>(records, nextCursor, hasMore);
+    }
+
+    /**
+     * 游标位置
+     *
+     * @param messageTime 消息时间
+     * @param messageId   消息 ID
+     */
+    public record Cursor(long messageTime, String messageId) implements Serializable {
+    }
+}
@@ -3,6 +3,7 @@ package com.xy.lucky.domain.po;
 import com.baomidou.mybatisplus.annotation.TableField;
 import com.baomidou.mybatisplus.annotation.TableId;
 import com.baomidou.mybatisplus.annotation.TableName;
+import com.baomidou.mybatisplus.extension.handlers.JacksonTypeHandler;
 import com.xy.lucky.domain.BasePo;
 import io.swagger.v3.oas.annotations.media.Schema;
 import lombok.AllArgsConstructor;
@@ -17,7 +18,7 @@ import lombok.experimental.Accessors;
 @NoArgsConstructor
 @AllArgsConstructor
 @Schema(description = "用户聊天会话信息")
-@TableName(value = "im_chat")
+@TableName(value = "im_chat", autoResultMap = true)
 public class ImChatPo extends BasePo {
 
     /**
@@ -60,5 +61,30 @@ public class ImChatPo extends BasePo {
      */
     @TableField(value = "read_sequence")
     private Long readSequence;
+    /**
+     * 最后一条消息ID
+     */
+    @TableField(value = "last_message_id")
+    private String lastMessageId;
+    /**
+     * 最后一条消息内容
+     */
+    @TableField(value = "last_message", typeHandler = JacksonTypeHandler.class)
+    private Object lastMessage;
+    /**
+     * 最后一条消息内容类型
+     */
+    @TableField(value = "last_message_content_type")
+    private Integer lastMessageContentType;
+    /**
+     * 最后一条消息时间
+     */
+    @TableField(value = "last_message_time")
+    private Long lastMessageTime;
+    /**
+     * 未读消息数；作为投影增量写入时表示本次增加的未读数
+     */
+    @TableField(value = "unread_count")
+    private Integer unreadCount;
 
 }
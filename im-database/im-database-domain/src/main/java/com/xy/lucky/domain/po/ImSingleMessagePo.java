@@ -1,5 +1,6 @@
 package com.xy.lucky.domain.po;
 
+import com.baomidou.mybatisplus.annotation.FieldFill;
 import com.baomidou.mybatisplus.annotation.TableField;
 import com.baomidou.mybatisplus.annotation.TableId;
 import com.baomidou.mybatisplus.annotation.TableName;
@@ -38,6 +39,11 @@ public class ImSingleMessagePo extends BasePo implements Serializable {
      */
     @TableField(value = "to_id")
     private String toId;
+    /**
+     * 会话键：双方用户ID按字典序拼接，同一对用户的往来消息共用一个键
+     */
+    @TableField(value = "conversation_key", fill = FieldFill.INSERT)
+    private String conversationKey;
     /**
      * 消息内容
      */
@@ -74,4 +80,15 @@ public class ImSingleMessagePo extends BasePo implements Serializable {
      */
     @TableField(value = "message_random")
     private String messageRandom;
+
+    /**
+     * 计算两个用户之间的会话键，与参数顺序无关
+     *
+     * @param userId 用户ID
+     * @param peerId 对方用户ID
+     * @return 会话键
+     */
+    public static String conversationKeyOf(String userId, String peerId) {
+        return userId.compareTo(peerId) <= 0 ? userId + ":" + peerId : peerId + ":" + userId;
+    }
 }
@@ -1,5 +1,6 @@
 package com.xy.lucky.database.rpc.api.database.message;
 
+import com.xy.lucky.domain.CursorPage;
 import com.xy.lucky.domain.po.ImGroupMessagePo;
 import com.xy.lucky.domain.po.ImGroupMessageStatusPo;
 import reactor.core.publisher.Flux;
@@ -26,6 +27,17 @@ public interface ImGroupMessageDubboService {
      */
     Flux<ImGroupMessagePo> queryList(String userId, Long sequence);
 
+    /**
+     * 按 (message_time, message_id) 游标分页查询群聊消息
+     *
+     * @param userId   用户 ID
+     * @param sequence 起始消息时间（不含），仅首页生效
+     * @param cursor   续页令牌，首页传空
+     * @param pageSize 页大小，必填，超过上限时按上限截断
+     * @return 消息分页结果 Mono
+     */
+    Mono<CursorPage<ImGroupMessagePo>> queryPage(String userId, Long sequence, String cursor, Integer pageSize);
+
     /**
      * 根据消息 ID 查询消息
      *
@@ -1,5 +1,6 @@
 package com.xy.lucky.database.rpc.api.database.message;
 
+import com.xy.lucky.domain.CursorPage;
 import com.xy.lucky.domain.po.ImSingleMessagePo;
 import reactor.core.publisher.Flux;
 import reactor.core.publisher.Mono;
@@ -33,6 +34,17 @@ public interface ImSingleMessageDubboService {
      */
     Flux<ImSingleMessagePo> queryList(String userId, Long sequence);
 
+    /**
+     * 按 (message_time, message_id) 游标分页查询单聊消息
+     *
+     * @param userId   用户 ID
+     * @param sequence 起始消息时间（不含），仅首页生效
+     * @param cursor   续页令牌，首页传空
+     * @param pageSize 页大小，必填，超过上限时按上限截断
+     * @return 消息分页结果 Mono
+     */
+    Mono<CursorPage<ImSingleMessagePo>> queryPage(String userId, Long sequence, String cursor, Integer pageSize);
+
     /**
      * 查询两人之间的最后一条消息
      *
@@ -1,5 +1,6 @@
 package com.xy.lucky.rpc.api.database.chat;
 
+import com.xy.lucky.domain.CursorPage;
 import com.xy.lucky.domain.po.ImChatPo;
 
 import java.util.List;
@@ -66,4 +67,74 @@ public interface ImChatDubboService {
      * @return 是否执行成功
      */
     Boolean upsertSequence(String ownerId, String toId, Integer chatType, Long sequence, String defaultId);
+
+    /**
+     * 批量插入会话，按配置的块大小分批提交
+     *
+     * @param list 会话列表
+     * @return 是否成功
+     */
+    Boolean batchInsert(List<ImChatPo> list);
+
+    /**
+     * 批量插入或更新会话：主键已存在的按主键更新，不存在的插入
+     *
+     * @param list 会话列表
+     * @return 是否成功
+     */
+    Boolean batchUpsert(List<ImChatPo> list);
+
+    /**
+     * 按会话ID批量查询会话
+     *
+     * @param ids 会话ID列表
+     * @return 会话列表，不保证与入参顺序一致
+     */
+    List<ImChatPo> batchQueryByIds(List<String> ids);
+
+    /**
+     * 批量按 ownerId + toId + chatType 进行会话时序 UPSERT，语义同 {@link #upsertSequence}。
+     * 每条记录需携带 ownerId、toId、chatType、sequence 与记录不存在时使用的 chatId。
+     *
+     * @param list 会话时序列表
+     * @return 是否执行成功
+     */
+    Boolean batchUpsertSequence(List<ImChatPo> list);
+
+    /**
+     * 按最后消息时间倒序游标分页查询会话列表，记录携带最后一条消息与未读数，无需逐会话查询消息表
+     *
+     * @param ownerId  所属用户id
+     * @param cursor   续页令牌，首页为空
+     * @param pageSize 页大小
+     * @return 会话分页结果
+     */
+    CursorPage<ImChatPo> queryPage(String ownerId, String cursor, Integer pageSize);
+
+    /**
+     * 批量增量更新会话投影：按 ownerId + toId + chatType UPSERT，
+     * 最后一条消息在 lastMessageTime 不早于当前值时覆盖，unreadCount 作为未读增量累加。
+     *
+     * @param list 会话投影增量列表
+     * @return 是否执行成功
+     */
+    Boolean batchUpsertProjection(List<ImChatPo> list);
+
+    /**
+     * 清零会话未读数，并将已读序列推进到当前时序
+     *
+     * @param ownerId  会话所属用户
+     * @param toId     会话目标
+     * @param chatType 会话类型
+     * @return 是否更新到会话
+     */
+    Boolean clearUnread(String ownerId, String toId, Integer chatType);
+
+    /**
+     * 从消息表重算用户全部会话的最后一条消息与未读数
+     *
+     * @param ownerId 会话所属用户
+     * @return 重算的会话数
+     */
+    Integer rebuildProjection(String ownerId);
 }
@@ -10,13 +10,22 @@ import java.util.List;
 public interface ImFriendshipDubboService {
 
     /**
-     * 根据时间序列查询好友
+     * 根据时间序列查询好友关系变更，sequence 为版本号：返回版本号之后新增、修改与删除（delFlag 为 0）的关系
      *
-     * @param ownerId 用户id
+     * @param ownerId  用户id
+     * @param sequence 客户端已同步的版本号，为空时返回全部
      * @return 用户好友信息列表
      */
     List<ImFriendshipPo> queryList(String ownerId, Long sequence);
 
+    /**
+     * 查询用户全部有效好友的 ID
+     *
+     * @param ownerId 用户ID
+     * @return 好友ID列表
+     */
+    List<String> queryFriendIds(String ownerId);
+
     /**
      * 根据用户和好友id查询
      *
@@ -98,4 +98,28 @@ public interface ImGroupMemberDubboService {
      * @return 成员数量
      */
     Long countByGroupId(String groupId);
+
+    /**
+     * 批量插入群成员，按配置的块大小分批提交
+     *
+     * @param list 群成员列表
+     * @return 是否成功
+     */
+    Boolean batchInsert(List<ImGroupMemberPo> list);
+
+    /**
+     * 批量插入或更新群成员：主键已存在的按主键更新，不存在的插入
+     *
+     * @param list 群成员列表
+     * @return 是否成功
+     */
+    Boolean batchUpsert(List<ImGroupMemberPo> list);
+
+    /**
+     * 按群成员ID批量查询群成员
+     *
+     * @param ids 群成员ID列表
+     * @return 群成员列表，不保证与入参顺序一致
+     */
+    List<ImGroupMemberPo> batchQueryByIds(List<String> ids);
 }
@@ -1,5 +1,6 @@
 package com.xy.lucky.rpc.api.database.message;
 
+import com.xy.lucky.domain.CursorPage;
 import com.xy.lucky.domain.po.ImGroupMessagePo;
 import com.xy.lucky.domain.po.ImGroupMessageStatusPo;
 
@@ -16,6 +17,17 @@ public interface ImGroupMessageDubboService {
      */
     List<ImGroupMessagePo> queryList(String groupId, Long sequence);
 
+    /**
+     * 按 (message_time, message_id) 游标分页查询群组消息
+     *
+     * @param userId   用户ID
+     * @param sequence 起始消息时间（不含），仅首页生效
+     * @param cursor   续页令牌，首页传空
+     * @param pageSize 页大小，必填，超过上限时按上限截断
+     * @return 群组消息分页结果
+     */
+    CursorPage<ImGroupMessagePo> queryPage(String userId, Long sequence, String cursor, Integer pageSize);
+
     /**
      * 查询群组消息
      *
@@ -83,4 +95,20 @@ public interface ImGroupMessageDubboService {
      * @return 群组消息阅读状态
      */
     Integer queryReadStatus(String groupId, String ownerId, Integer code);
+
+    /**
+     * 按消息ID批量查询群组消息
+     *
+     * @param ids 消息ID列表
+     * @return 群组消息列表，不保证与入参顺序一致
+     */
+    List<ImGroupMessagePo> batchQueryByIds(List<String> ids);
+
+    /**
+     * 批量插入或更新群消息状态，(group_id, message_id, to_id) 已存在时覆盖已读状态
+     *
+     * @param list 群消息状态列表
+     * @return 是否成功
+     */
+    boolean batchUpsertStatus(List<ImGroupMessageStatusPo> list);
 }
@@ -1,5 +1,6 @@
 package com.xy.lucky.rpc.api.database.message;
 
+import com.xy.lucky.domain.CursorPage;
 import com.xy.lucky.domain.po.ImSingleMessagePo;
 
 import java.util.List;
@@ -15,6 +16,17 @@ public interface ImSingleMessageDubboService {
      */
     List<ImSingleMessagePo> queryList(String userId, Long sequence);
 
+    /**
+     * 按 (message_time, message_id) 游标分页查询单聊消息
+     *
+     * @param userId   用户ID
+     * @param sequence 起始消息时间（不含），仅首页生效
+     * @param cursor   续页令牌，首页传空
+     * @param pageSize 页大小，必填，超过上限时按上限截断
+     * @return 单聊消息分页结果
+     */
+    CursorPage<ImSingleMessagePo> queryPage(String userId, Long sequence, String cursor, Integer pageSize);
+
     /**
      * 查询单聊消息
      *
@@ -83,4 +95,27 @@ public interface ImSingleMessageDubboService {
      */
     Integer queryReadStatus(String fromId, String toId, Integer code);
 
+    /**
+     * 批量插入单聊消息，按配置的块大小分批提交
+     *
+     * @param list 单聊消息列表
+     * @return 是否成功
+     */
+    Boolean batchInsert(List<ImSingleMessagePo> list);
+
+    /**
+     * 批量插入或更新单聊消息：主键已存在的按主键更新，不存在的插入
+     *
+     * @param list 单聊消息列表
+     * @return 是否成功
+     */
+    Boolean batchUpsert(List<ImSingleMessagePo> list);
+
+    /**
+     * 按消息ID批量查询单聊消息
+     *
+     * @param ids 消息ID列表
+     * @return 单聊消息列表，不保证与入参顺序一致
+     */
+    List<ImSingleMessagePo> batchQueryByIds(List<String> ids);
 }
@@ -114,4 +114,24 @@ public interface IMOutboxDubboService {
      * @return 是否存在记录被更新
      */
     Boolean modifyStatusByMessageId(String messageId, String fromStatus, String targetStatus, Long updatedAt);
+
+    /**
+     * 按状态守卫批量更新 Outbox 记录：仅当记录当前状态处于 fromStatuses 中时才写入，避免先查后写。
+     *
+     * @param list         待更新记录（需包含 id、status、attempts、updatedAt，nextTryAt/lastError 可选）
+     * @param fromStatuses 允许的当前状态集合
+     * @return 是否执行成功
+     */
+    Boolean modifyStatusBatch(List<IMOutboxPo> list, List<String> fromStatuses);
+
+    /**
+     * 按业务消息 ID 批量原子更新 Outbox 状态。
+     *
+     * @param messageIds   业务消息 ID 列表
+     * @param fromStatus   期望的当前状态
+     * @param targetStatus 目标状态
+     * @param updatedAt    更新时间戳
+     * @return 是否存在记录被更新
+     */
+    Boolean modifyStatusByMessageIds(List<String> messageIds, String fromStatus, String targetStatus, Long updatedAt);
 }
@@ -11,8 +11,10 @@ import io.swagger.v3.oas.annotations.tags.Tag;
 import jakarta.annotation.Resource;
 import jakarta.validation.Valid;
 import jakarta.validation.constraints.*;
+import org.springframework.http.MediaType;
 import org.springframework.validation.annotation.Validated;
 import org.springframework.web.bind.annotation.*;
+import reactor.core.publisher.Flux;
 import reactor.core.publisher.Mono;
 
 import java.util.List;
@@ -93,7 +95,7 @@ public class IMOutboxReactiveController {
                     content = @Content(mediaType = "application/json",
                             schema = @Schema(implementation = IMOutboxPo.class)))
     })
-    public Mono<List<IMOutboxPo>> listOutboxMessagesByStatus(@RequestParam("status") @NotBlank @Pattern(regexp = "PENDING|SENT|DELIVERED|FAILED") String status,
+    public Mono<List<IMOutboxPo>> listOutboxMessagesByStatus(@RequestParam("status") @NotBlank @Pattern(regexp = "PENDING|SENT|DELIVERED|FAILED|DLX") String status,
                                                              @RequestParam("limit") @NotNull @Positive @Max(1000) Integer limit) {
         return imOutboxService.queryByStatus(status, limit).collectList();
     }
@@ -104,7 +106,7 @@ public class IMOutboxReactiveController {
             @ApiResponse(responseCode = "200", description = "更新成功")
     })
     public Mono<Boolean> updateOutboxStatus(@RequestParam("id") @NotNull @Positive Long id,
-                                            @RequestParam("status") @NotBlank @Pattern(regexp = "PENDING|SENT|DELIVERED|FAILED") String status,
+                                            @RequestParam("status") @NotBlank @Pattern(regexp = "PENDING|SENT|DELIVERED|FAILED|DLX") String status,
                                             @RequestParam("attempts") @NotNull @PositiveOrZero @Max(1000) Integer attempts) {
         return imOutboxService.modifyStatus(id, status, attempts);
     }
@@ -119,4 +121,16 @@ public class IMOutboxReactiveController {
                                                  @RequestParam("attempts") @NotNull @PositiveOrZero @Max(1000) Integer attempts) {
         return imOutboxService.modifyToFailed(id, lastError, attempts);
     }
+
+    @GetMapping(value = "/replay", produces = MediaType.APPLICATION_NDJSON_VALUE)
+    @Operation(summary = "流式重放 Outbox 消息", description = "按 ID 升序以 NDJSON 流式返回指定状态的消息，可从上次中断的 ID 继续")
+    @ApiResponses(value = {
+            @ApiResponse(responseCode = "200", description = "成功",
+                    content = @Content(mediaType = MediaType.APPLICATION_NDJSON_VALUE,
+                            schema = @Schema(implementation = IMOutboxPo.class)))
+    })
+    public Flux<IMOutboxPo> replayOutboxMessages(@RequestParam("status") @NotBlank @Pattern(regexp = "PENDING|SENT|DELIVERED|FAILED|DLX") String status,
+                                                 @RequestParam(value = "afterId", defaultValue = "0") @PositiveOrZero Long afterId) {
+        return imOutboxService.streamReplay(status, afterId);
+    }
 }
@@ -11,8 +11,10 @@ import io.swagger.v3.oas.annotations.tags.Tag;
 import jakarta.annotation.Resource;
 import jakarta.validation.Valid;
 import jakarta.validation.constraints.*;
+import org.springframework.http.MediaType;
 import org.springframework.validation.annotation.Validated;
 import org.springframework.web.bind.annotation.*;
+import reactor.core.publisher.Flux;
 import reactor.core.publisher.Mono;
 
 import java.util.List;
@@ -91,5 +93,15 @@ public class ImFriendshipReactiveController {
                                           @RequestParam("friendId") @NotBlank @Size(max = 64) String friendId) {
         return imFriendshipService.removeOne(ownerId, friendId);
     }
-}
 
+    @GetMapping(value = "/stream", produces = MediaType.APPLICATION_NDJSON_VALUE)
+    @Operation(summary = "流式获取好友关系", description = "以 NDJSON 流式返回用户全部好友关系")
+    @ApiResponses(value = {
+            @ApiResponse(responseCode = "200", description = "成功",
+                    content = @Content(mediaType = MediaType.APPLICATION_NDJSON_VALUE,
+                            schema = @Schema(implementation = ImFriendshipPo.class)))
+    })
+    public Flux<ImFriendshipPo> streamFriendships(@RequestParam("ownerId") @NotBlank @Size(max = 64) String ownerId) {
+        return imFriendshipService.streamFriends(ownerId);
+    }
+}
@@ -13,8 +13,10 @@ import jakarta.validation.Valid;
 import jakarta.validation.constraints.NotBlank;
 import jakarta.validation.constraints.NotEmpty;
 import jakarta.validation.constraints.Size;
+import org.springframework.http.MediaType;
 import org.springframework.validation.annotation.Validated;
 import org.springframework.web.bind.annotation.*;
+import reactor.core.publisher.Flux;
 import reactor.core.publisher.Mono;
 
 import java.util.List;
@@ -97,5 +99,15 @@ public class ImGroupMemberReactiveController {
     public Mono<List<String>> listNineAvatars(@RequestParam("groupId") @NotBlank @Size(max = 64) String groupId) {
         return imGroupMemberService.queryNinePeopleAvatar(groupId);
     }
-}
 
+    @GetMapping(value = "/stream", produces = MediaType.APPLICATION_NDJSON_VALUE)
+    @Operation(summary = "流式获取群成员", description = "以 NDJSON 流式返回群组全部成员，适用于超大群")
+    @ApiResponses(value = {
+            @ApiResponse(responseCode = "200", description = "成功",
+                    content = @Content(mediaType = MediaType.APPLICATION_NDJSON_VALUE,
+                            schema = @Schema(implementation = ImGroupMemberPo.class)))
+    })
+    public Flux<ImGroupMemberPo> streamGroupMembers(@RequestParam("groupId") @NotBlank @Size(max = 64) String groupId) {
+        return imGroupMemberService.streamMembers(groupId);
+    }
+}
@@ -12,8 +12,10 @@ import io.swagger.v3.oas.annotations.tags.Tag;
 import jakarta.annotation.Resource;
 import jakarta.validation.Valid;
 import jakarta.validation.constraints.*;
+import org.springframework.http.MediaType;
 import org.springframework.validation.annotation.Validated;
 import org.springframework.web.bind.annotation.*;
+import reactor.core.publisher.Flux;
 import reactor.core.publisher.Mono;
 
 import java.util.List;
@@ -106,4 +108,17 @@ public class ImGroupMessageReactiveController {
     public Mono<Integer> getGroupMessageReadStatus(@RequestParam("groupId") @NotBlank @Size(max = 64) String groupId, @RequestParam("toId") @NotBlank @Size(max = 64) String toId, @RequestParam("code") @NotNull @Min(0) Integer code) {
         return imGroupMessageService.queryReadStatus(groupId, toId, code);
     }
+
+    @GetMapping(value = "/export", produces = MediaType.APPLICATION_NDJSON_VALUE)
+    @Operation(summary = "流式导出群聊历史", description = "按 (消息时间, 消息ID) 升序以 NDJSON 流式返回群消息，可从上次导出的最后一条消息继续")
+    @ApiResponses(value = {
+            @ApiResponse(responseCode = "200", description = "成功",
+                    content = @Content(mediaType = MediaType.APPLICATION_NDJSON_VALUE,
+                            schema = @Schema(implementation = ImGroupMessagePo.class)))
+    })
+    public Flux<ImGroupMessagePo> exportGroupMessages(@RequestParam("groupId") @NotBlank @Size(max = 64) String groupId,
+                                                      @RequestParam(value = "afterTime", defaultValue = "0") @PositiveOrZero Long afterTime,
+                                                      @RequestParam(value = "afterId", required = false) @Size(max = 512) String afterId) {
+        return imGroupMessageService.exportGroup(groupId, afterTime, afterId);
+    }
 }
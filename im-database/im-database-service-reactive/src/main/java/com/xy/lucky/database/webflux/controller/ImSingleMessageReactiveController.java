@@ -11,8 +11,10 @@ import io.swagger.v3.oas.annotations.tags.Tag;
 import jakarta.annotation.Resource;
 import jakarta.validation.Valid;
 import jakarta.validation.constraints.*;
+import org.springframework.http.MediaType;
 import org.springframework.validation.annotation.Validated;
 import org.springframework.web.bind.annotation.*;
+import reactor.core.publisher.Flux;
 import reactor.core.publisher.Mono;
 
 import java.util.List;
@@ -114,4 +116,18 @@ public class ImSingleMessageReactiveController {
     public Mono<Boolean> updateSingleMessage(@RequestBody @Valid ImSingleMessagePo messagePo) {
         return imSingleMessageService.modify(messagePo);
     }
+
+    @GetMapping(value = "/export", produces = MediaType.APPLICATION_NDJSON_VALUE)
+    @Operation(summary = "流式导出单聊会话历史", description = "按 (消息时间, 消息ID) 升序以 NDJSON 流式返回双方会话消息，可从上次导出的最后一条消息继续")
+    @ApiResponses(value = {
+            @ApiResponse(responseCode = "200", description = "成功",
+                    content = @Content(mediaType = MediaType.APPLICATION_NDJSON_VALUE,
+                            schema = @Schema(implementation = ImSingleMessagePo.class)))
+    })
+    public Flux<ImSingleMessagePo> exportConversation(@RequestParam("userId") @NotBlank @Size(max = 64) String userId,
+                                                      @RequestParam("peerId") @NotBlank @Size(max = 64) String peerId,
+                                                      @RequestParam(value = "afterTime", defaultValue = "0") @PositiveOrZero Long afterTime,
+                                                      @RequestParam(value = "afterId", required = false) @Size(max = 512) String afterId) {
+        return imSingleMessageService.exportConversation(userId, peerId, afterTime, afterId);
+    }
 }
@@ -50,6 +50,26 @@ public class ImChatEntity {
     @Column("read_sequence")
     private Long readSequence;
 
+    @Schema(description = "最后一条消息ID")
+    @Column("last_message_id")
+    private String lastMessageId;
+
+    @Schema(description = "最后一条消息内容")
+    @Column("last_message")
+    private String lastMessage;
+
+    @Schema(description = "最后一条消息内容类型")
+    @Column("last_message_content_type")
+    private Integer lastMessageContentType;
+
+    @Schema(description = "最后一条消息时间")
+    @Column("last_message_time")
+    private Long lastMessageTime;
+
+    @Schema(description = "未读消息数")
+    @Column("unread_count")
+    private Integer unreadCount;
+
     @Schema(description = "创建时间")
     @Column("create_time")
     private Long createTime;
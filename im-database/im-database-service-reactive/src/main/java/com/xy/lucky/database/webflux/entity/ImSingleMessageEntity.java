@@ -30,6 +30,10 @@ public class ImSingleMessageEntity {
     @Column("to_id")
     private String toId;
 
+    @Schema(description = "会话键")
+    @Column("conversation_key")
+    private String conversationKey;
+
     @Schema(description = "消息体")
     @Column("message_body")
     private String messageBody;
@@ -13,10 +13,14 @@ public interface ImGroupMemberRepository extends ReactiveCrudRepository<ImGroupM
 
     @Query("""
             SELECT iud.avatar
-            FROM im_group_member igm
-            JOIN im_user_data iud ON igm.member_id = iud.user_id
-            WHERE igm.group_id = :groupId
-            ORDER BY RANDOM() LIMIT 9
+            FROM (SELECT member_id, join_time
+                  FROM im_group_member
+                  WHERE group_id = :groupId
+                    AND del_flag = 1
+                  ORDER BY join_time, member_id
+                  LIMIT 9) igm
+            JOIN im_user_data iud ON iud.user_id = igm.member_id
+            ORDER BY igm.join_time, igm.member_id
             """)
     Flux<String> selectNinePeopleAvatar(String groupId);
 
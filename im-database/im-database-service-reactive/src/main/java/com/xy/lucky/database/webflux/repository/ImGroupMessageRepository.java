@@ -7,6 +7,19 @@ import reactor.core.publisher.Flux;
 import reactor.core.publisher.Mono;
 
 public interface ImGroupMessageRepository extends ReactiveCrudRepository<ImGroupMessageEntity, String> {
+
+    /**
+     * 热表与归档表共有的全部列，UNION ALL 按列名对齐，与 Mapper XML 中的 Source_Column_List 保持一致
+     */
+    String SOURCE_COLUMNS = "message_id, group_id, from_id, message_body, message_time, message_content_type, "
+            + "extra, del_flag, sequence, message_random, create_time, update_time, version, reply_to";
+
+    /**
+     * 热表 + 冷数据归档表
+     */
+    String MESSAGE_SOURCE = "(select " + SOURCE_COLUMNS + " from im_group_message"
+            + " union all select " + SOURCE_COLUMNS + " from im_group_message_archive)";
+
     @Query("""
             select igm.*, igms.read_status
             from im_group_message igm
@@ -19,6 +32,31 @@ public interface ImGroupMessageRepository extends ReactiveCrudRepository<ImGroup
             """)
     Flux<ImGroupMessageEntity> findListByUserIdAndSequence(String userId, String groupId, Long sequence);
 
+    @Query("""
+            select igm.*, igms.read_status
+            from im_group_message igm
+            inner join im_group_message_status igms
+              on igm.message_id = igms.message_id and igm.group_id = igms.group_id
+            where igms.to_id = :userId
+              and igm.message_time > :afterTime
+            order by igm.message_time, igm.message_id
+            limit :limit
+            """)
+    Flux<ImGroupMessageEntity> findFirstPage(String userId, Long afterTime, int limit);
+
+    @Query("""
+            select igm.*, igms.read_status
+            from im_group_message igm
+            inner join im_group_message_status igms
+              on igm.message_id = igms.message_id and igm.group_id = igms.group_id
+            where igms.to_id = :userId
+              and (igm.message_time > :afterTime
+                   or (igm.message_time = :afterTime and igm.message_id > :afterId))
+            order by igm.message_time, igm.message_id
+            limit :limit
+            """)
+    Flux<ImGroupMessageEntity> findPageAfter(String userId, Long afterTime, String afterId, int limit);
+
     @Query("""
             select igm.*, igms.read_status
             from im_group_message igm
@@ -30,4 +68,37 @@ public interface ImGroupMessageRepository extends ReactiveCrudRepository<ImGroup
             limit 1
             """)
     Mono<ImGroupMessageEntity> findLastByGroupIdAndUserId(String groupId, String userId);
+
+    @Query("select * from im_group_message_archive where message_id = :messageId limit 1")
+    Mono<ImGroupMessageEntity> findArchivedById(String messageId);
+
+    @Query("select igm.*, igms.read_status from " + MESSAGE_SOURCE + " igm"
+            + " inner join im_group_message_status igms"
+            + " on igm.message_id = igms.message_id and igm.group_id = igms.group_id"
+            + " where igms.group_id = :groupId and igms.to_id = :userId and igm.message_time > :sequence"
+            + " order by igm.message_time")
+    Flux<ImGroupMessageEntity> findListByUserIdAndSequenceWithArchive(String userId, String groupId, Long sequence);
+
+    @Query("select igm.*, igms.read_status from " + MESSAGE_SOURCE + " igm"
+            + " inner join im_group_message_status igms"
+            + " on igm.message_id = igms.message_id and igm.group_id = igms.group_id"
+            + " where igms.to_id = :userId and igm.message_time > :afterTime"
+            + " order by igm.message_time, igm.message_id limit :limit")
+    Flux<ImGroupMessageEntity> findFirstPageWithArchive(String userId, Long afterTime, int limit);
+
+    @Query("select igm.*, igms.read_status from " + MESSAGE_SOURCE + " igm"
+            + " inner join im_group_message_status igms"
+            + " on igm.message_id = igms.message_id and igm.group_id = igms.group_id"
+            + " where igms.to_id = :userId"
+            + " and (igm.message_time > :afterTime"
+            + " or (igm.message_time = :afterTime and igm.message_id > :afterId))"
+            + " order by igm.message_time, igm.message_id limit :limit")
+    Flux<ImGroupMessageEntity> findPageAfterWithArchive(String userId, Long afterTime, String afterId, int limit);
+
+    @Query("select igm.*, igms.read_status from " + MESSAGE_SOURCE + " igm"
+            + " inner join im_group_message_status igms"
+            + " on igm.message_id = igms.message_id and igm.group_id = igms.group_id"
+            + " where igms.group_id = :groupId and igms.to_id = :userId"
+            + " order by igm.message_time desc limit 1")
+    Mono<ImGroupMessageEntity> findLastByGroupIdAndUserIdWithArchive(String groupId, String userId);
 }
@@ -7,12 +7,106 @@ import reactor.core.publisher.Flux;
 import reactor.core.publisher.Mono;
 
 public interface ImSingleMessageRepository extends ReactiveCrudRepository<ImSingleMessageEntity, String> {
-    @Query("select * from im_single_message where (from_id = :fromId and to_id = :toId) or (from_id = :toId and to_id = :fromId) order by message_time desc limit 1")
-    Mono<ImSingleMessageEntity> findLastBetween(String fromId, String toId);
+
+    /**
+     * 热表与归档表共有的全部列，UNION ALL 按列名对齐，与 Mapper XML 中的 Source_Column_List 保持一致
+     */
+    String SOURCE_COLUMNS = "message_id, from_id, to_id, conversation_key, message_body, message_time, "
+            + "message_content_type, read_status, extra, del_flag, sequence, message_random, "
+            + "create_time, update_time, version, reply_to";
+
+    /**
+     * 热表 + 冷数据归档表
+     */
+    String MESSAGE_SOURCE = "(select " + SOURCE_COLUMNS + " from im_single_message"
+            + " union all select " + SOURCE_COLUMNS + " from im_single_message_archive)";
+
+    /**
+     * 会话键尚未回填的历史消息回退到双向 (from_id, to_id) 匹配，回填完成后该分支只命中空的部分索引
+     */
+    @Query("""
+            select * from im_single_message
+            where conversation_key = :conversationKey
+               or (conversation_key is null
+                   and ((from_id = :fromId and to_id = :toId) or (from_id = :toId and to_id = :fromId)))
+            order by message_time desc limit 1
+            """)
+    Mono<ImSingleMessageEntity> findLastBetween(String conversationKey, String fromId, String toId);
 
     @Query("select count(1) from im_single_message where from_id = :fromId and to_id = :toId and read_status = :status")
     Mono<Integer> countReadStatus(String fromId, String toId, Integer status);
 
     @Query("select * from im_single_message where (from_id = :userId or to_id = :userId) and message_time > :sequence order by message_time")
     Flux<ImSingleMessageEntity> findListByUserIdAndSequence(String userId, Long sequence);
+
+    @Query("""
+            select * from (
+              (select * from im_single_message
+               where from_id = :userId and message_time > :afterTime
+               order by message_time, message_id limit :limit)
+              union all
+              (select * from im_single_message
+               where to_id = :userId and from_id <> :userId and message_time > :afterTime
+               order by message_time, message_id limit :limit)
+            ) page
+            order by message_time, message_id
+            limit :limit
+            """)
+    Flux<ImSingleMessageEntity> findFirstPage(String userId, Long afterTime, int limit);
+
+    @Query("""
+            select * from (
+              (select * from im_single_message
+               where from_id = :userId
+                 and (message_time > :afterTime or (message_time = :afterTime and message_id > :afterId))
+               order by message_time, message_id limit :limit)
+              union all
+              (select * from im_single_message
+               where to_id = :userId and from_id <> :userId
+                 and (message_time > :afterTime or (message_time = :afterTime and message_id > :afterId))
+               order by message_time, message_id limit :limit)
+            ) page
+            order by message_time, message_id
+            limit :limit
+            """)
+    Flux<ImSingleMessageEntity> findPageAfter(String userId, Long afterTime, String afterId, int limit);
+
+    @Query("select * from im_single_message_archive where message_id = :messageId limit 1")
+    Mono<ImSingleMessageEntity> findArchivedById(String messageId);
+
+    @Query("select * from " + MESSAGE_SOURCE + " m"
+            + " where conversation_key = :conversationKey"
+            + " or (conversation_key is null"
+            + " and ((from_id = :fromId and to_id = :toId) or (from_id = :toId and to_id = :fromId)))"
+            + " order by message_time desc limit 1")
+    Mono<ImSingleMessageEntity> findLastBetweenWithArchive(String conversationKey, String fromId, String toId);
+
+    @Query("select * from " + MESSAGE_SOURCE + " m"
+            + " where (from_id = :userId or to_id = :userId) and message_time > :sequence"
+            + " order by message_time")
+    Flux<ImSingleMessageEntity> findListByUserIdAndSequenceWithArchive(String userId, Long sequence);
+
+    @Query("select * from ("
+            + "(select * from " + MESSAGE_SOURCE + " m"
+            + " where from_id = :userId and message_time > :afterTime"
+            + " order by message_time, message_id limit :limit)"
+            + " union all"
+            + " (select * from " + MESSAGE_SOURCE + " m"
+            + " where to_id = :userId and from_id <> :userId and message_time > :afterTime"
+            + " order by message_time, message_id limit :limit)"
+            + ") page order by message_time, message_id limit :limit")
+    Flux<ImSingleMessageEntity> findFirstPageWithArchive(String userId, Long afterTime, int limit);
+
+    @Query("select * from ("
+            + "(select * from " + MESSAGE_SOURCE + " m"
+            + " where from_id = :userId"
+            + " and (message_time > :afterTime or (message_time = :afterTime and message_id > :afterId))"
+            + " order by message_time, message_id limit :limit)"
+            + " union all"
+            + " (select * from " + MESSAGE_SOURCE + " m"
+            + " where to_id = :userId and from_id <> :userId"
+            + " and (message_time > :afterTime or (message_time = :afterTime and message_id > :afterId))"
+            + " order by message_time, message_id limit :limit)"
+            + ") page order by message_time, message_id limit :limit")
+    Flux<ImSingleMessageEntity> findPageAfterWithArchive(String userId, Long afterTime, String afterId, int limit);
 }
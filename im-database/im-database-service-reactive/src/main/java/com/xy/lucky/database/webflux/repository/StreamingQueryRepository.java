@@ -0,0 +1,48 @@
+package com.xy.lucky.database.webflux.repository;
+
+import lombok.RequiredArgsConstructor;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.data.r2dbc.convert.R2dbcConverter;
+import org.springframework.r2dbc.core.DatabaseClient;
+import org.springframework.stereotype.Repository;
+import reactor.core.publisher.Flux;
+
+import java.util.Map;
+
+/**
+ * 大结果集流式查询
+ * <p>
+ * 通过 Statement#fetchSize 让驱动以游标方式分批拉取行，下游按需请求（limitRate 限制预取），
+ * 结果集大小不影响内存占用；适用于历史导出、超大群成员列表、Outbox 重放等场景。
+ * </p>
+ */
+@Repository
+@RequiredArgsConstructor
+public class StreamingQueryRepository {
+
+    private final DatabaseClient databaseClient;
+    private final R2dbcConverter converter;
+
+    @Value("${database.stream.fetch-size:500}")
+    private int fetchSize;
+
+    @Value("${database.stream.prefetch:256}")
+    private int prefetch;
+
+    /**
+     * 以游标方式执行查询并将每行映射为实体
+     *
+     * @param sql    命名参数 SQL
+     * @param params 参数
+     * @param type   实体类型
+     * @return 背压受控的实体流
+     */
+    public <T> Flux<T> stream(String sql, Map<String, Object> params, Class<T> type) {
+        return databaseClient.sql(sql)
+                .bindValues(params)
+                .filter(statement -> statement.fetchSize(Math.max(1, fetchSize)))
+                .map((row, metadata) -> converter.read(type, row, metadata))
+                .all()
+                .limitRate(Math.max(1, prefetch));
+    }
+}
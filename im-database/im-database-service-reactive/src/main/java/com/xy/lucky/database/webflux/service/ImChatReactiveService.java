@@ -4,6 +4,7 @@ import com.xy.lucky.database.webflux.entity.ImChatEntity;
 import com.xy.lucky.database.webflux.repository.ImChatRepository;
 import com.xy.lucky.domain.po.ImChatPo;
 import com.xy.lucky.database.rpc.api.database.chat.ImChatDubboService;
+import com.xy.lucky.utils.json.JacksonUtils;
 import lombok.RequiredArgsConstructor;
 import org.apache.dubbo.config.annotation.DubboService;
 import org.springframework.stereotype.Service;
@@ -59,6 +60,13 @@ public class ImChatReactiveService implements ImChatDubboService {
         p.setIsTop(e.getIsTop());
         p.setSequence(e.getSequence());
         p.setReadSequence(e.getReadSequence());
+        p.setLastMessageId(e.getLastMessageId());
+        if (e.getLastMessage() != null) {
+            p.setLastMessage(JacksonUtils.parseObject(e.getLastMessage(), Object.class));
+        }
+        p.setLastMessageContentType(e.getLastMessageContentType());
+        p.setLastMessageTime(e.getLastMessageTime());
+        p.setUnreadCount(e.getUnreadCount());
         p.setCreateTime(e.getCreateTime());
         p.setUpdateTime(e.getUpdateTime());
         p.setDelFlag(e.getDelFlag());
@@ -76,6 +84,13 @@ public class ImChatReactiveService implements ImChatDubboService {
         e.setIsTop(p.getIsTop());
         e.setSequence(p.getSequence());
         e.setReadSequence(p.getReadSequence());
+        e.setLastMessageId(p.getLastMessageId());
+        if (p.getLastMessage() != null) {
+            e.setLastMessage(JacksonUtils.toJSONString(p.getLastMessage()));
+        }
+        e.setLastMessageContentType(p.getLastMessageContentType());
+        e.setLastMessageTime(p.getLastMessageTime() != null ? p.getLastMessageTime() : 0L);
+        e.setUnreadCount(p.getUnreadCount() != null ? p.getUnreadCount() : 0);
         e.setCreateTime(p.getCreateTime());
         e.setUpdateTime(p.getUpdateTime());
         e.setDelFlag(p.getDelFlag());
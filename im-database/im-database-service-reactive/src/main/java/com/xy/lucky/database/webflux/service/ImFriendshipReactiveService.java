@@ -2,6 +2,7 @@ package com.xy.lucky.database.webflux.service;
 
 import com.xy.lucky.database.webflux.entity.ImFriendshipEntity;
 import com.xy.lucky.database.webflux.repository.ImFriendshipRepository;
+import com.xy.lucky.database.webflux.repository.StreamingQueryRepository;
 import com.xy.lucky.domain.po.ImFriendshipPo;
 import com.xy.lucky.database.rpc.api.database.friend.ImFriendshipDubboService;
 import lombok.RequiredArgsConstructor;
@@ -11,6 +12,7 @@ import reactor.core.publisher.Flux;
 import reactor.core.publisher.Mono;
 
 import java.util.List;
+import java.util.Map;
 
 @Service
 @DubboService
@@ -18,6 +20,7 @@ import java.util.List;
 public class ImFriendshipReactiveService implements ImFriendshipDubboService {
 
     private final ImFriendshipRepository repository;
+    private final StreamingQueryRepository streamingQueryRepository;
 
     @Override
     public Mono<ImFriendshipPo> queryOne(String fromId, String toId) {
@@ -29,6 +32,21 @@ public class ImFriendshipReactiveService implements ImFriendshipDubboService {
         return repository.selectFriendList(ownerId, sequence).map(this::toPo);
     }
 
+    /**
+     * 流式读取用户的全部好友关系
+     *
+     * @param ownerId 用户 ID
+     */
+    public Flux<ImFriendshipPo> streamFriends(String ownerId) {
+        return streamingQueryRepository.stream("""
+                        select * from im_friendship
+                        where owner_id = :ownerId
+                        order by to_id
+                        """,
+                Map.of("ownerId", ownerId),
+                ImFriendshipEntity.class).map(this::toPo);
+    }
+
     @Override
     public Flux<ImFriendshipPo> queryListByIds(String ownerId, List<String> ids) {
         return repository.selectByOwnerIdAndToIds(ownerId, ids).map(this::toPo);
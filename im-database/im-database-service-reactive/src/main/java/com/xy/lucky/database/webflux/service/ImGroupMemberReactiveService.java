@@ -2,6 +2,7 @@ package com.xy.lucky.database.webflux.service;
 
 import com.xy.lucky.database.webflux.entity.ImGroupMemberEntity;
 import com.xy.lucky.database.webflux.repository.ImGroupMemberRepository;
+import com.xy.lucky.database.webflux.repository.StreamingQueryRepository;
 import com.xy.lucky.domain.po.ImGroupMemberPo;
 import com.xy.lucky.database.rpc.api.database.group.ImGroupMemberDubboService;
 import lombok.RequiredArgsConstructor;
@@ -11,6 +12,7 @@ import reactor.core.publisher.Flux;
 import reactor.core.publisher.Mono;
 
 import java.util.List;
+import java.util.Map;
 
 @Service
 @DubboService
@@ -18,12 +20,28 @@ import java.util.List;
 public class ImGroupMemberReactiveService implements ImGroupMemberDubboService {
 
     private final ImGroupMemberRepository repository;
+    private final StreamingQueryRepository streamingQueryRepository;
 
     @Override
     public Flux<ImGroupMemberPo> queryList(String groupId) {
         return repository.findByGroupId(groupId).map(this::toPo);
     }
 
+    /**
+     * 流式读取超大群的全部成员
+     *
+     * @param groupId 群组 ID
+     */
+    public Flux<ImGroupMemberPo> streamMembers(String groupId) {
+        return streamingQueryRepository.stream("""
+                        select * from im_group_member
+                        where group_id = :groupId
+                        order by group_member_id
+                        """,
+                Map.of("groupId", groupId),
+                ImGroupMemberEntity.class).map(this::toPo);
+    }
+
     @Override
     public Mono<ImGroupMemberPo> queryOne(String groupId, String memberId) {
         return repository.findFirstByGroupIdAndMemberId(groupId, memberId).map(this::toPo);
@@ -6,6 +6,8 @@ import com.xy.lucky.database.webflux.entity.ImGroupMessageEntity;
 import com.xy.lucky.database.webflux.entity.ImGroupMessageStatusEntity;
 import com.xy.lucky.database.webflux.repository.ImGroupMessageRepository;
 import com.xy.lucky.database.webflux.repository.ImGroupMessageStatusRepository;
+import com.xy.lucky.database.webflux.repository.StreamingQueryRepository;
+import com.xy.lucky.domain.CursorPage;
 import com.xy.lucky.domain.po.ImGroupMessagePo;
 import com.xy.lucky.domain.po.ImGroupMessageStatusPo;
 import com.xy.lucky.database.rpc.api.database.message.ImGroupMessageDubboService;
@@ -15,7 +17,9 @@ import org.springframework.stereotype.Service;
 import reactor.core.publisher.Flux;
 import reactor.core.publisher.Mono;
 
+import java.util.HashMap;
 import java.util.List;
+import java.util.Map;
 
 @Service
 @DubboService
@@ -23,16 +27,72 @@ import java.util.List;
 public class ImGroupMessageReactiveService implements ImGroupMessageDubboService {
     private final ImGroupMessageRepository repository;
     private final ImGroupMessageStatusRepository statusRepository;
+    private final StreamingQueryRepository streamingQueryRepository;
+    private final MessageArchiveWindow archiveWindow;
     private final ObjectMapper objectMapper;
 
     @Override
     public Flux<ImGroupMessagePo> queryList(String userId, Long sequence) {
-        return repository.findListByUserIdAndSequence(userId, userId, sequence).map(this::toPo);
+        Flux<ImGroupMessageEntity> rows = archiveWindow.includesArchive(sequence)
+                ? repository.findListByUserIdAndSequenceWithArchive(userId, userId, sequence)
+                : repository.findListByUserIdAndSequence(userId, userId, sequence);
+        return rows.map(this::toPo);
+    }
+
+    /**
+     * 流式导出群聊历史（含已归档消息），按 (message_time, message_id) 升序
+     *
+     * @param groupId   群组 ID
+     * @param afterTime 起始消息时间（不含）
+     * @param afterId   上次导出的最后一条消息 ID，为空时只按 afterTime 过滤
+     */
+    public Flux<ImGroupMessagePo> exportGroup(String groupId, long afterTime, String afterId) {
+        Map<String, Object> params = new HashMap<>();
+        params.put("groupId", groupId);
+        params.put("afterTime", afterTime);
+        String cursor = "message_time > :afterTime";
+        if (afterId != null && !afterId.isEmpty()) {
+            cursor = "(message_time > :afterTime or (message_time = :afterTime and message_id > :afterId))";
+            params.put("afterId", afterId);
+        }
+        // 起点早于热窗口时在同一条语句里读取热表与归档表，归档任务并发搬移的行不会被重复或遗漏
+        String source = archiveWindow.includesArchive(afterTime)
+                ? ImGroupMessageRepository.MESSAGE_SOURCE : "im_group_message";
+        return streamingQueryRepository.stream("""
+                        select * from %s m
+                        where group_id = :groupId and %s
+                        order by message_time, message_id
+                        """.formatted(source, cursor),
+                params, ImGroupMessageEntity.class).map(this::toPo);
+    }
+
+    @Override
+    public Mono<CursorPage<ImGroupMessagePo>> queryPage(String userId, Long sequence, String cursor, Integer pageSize) {
+        return Mono.fromCallable(() -> CursorPage.normalizePageSize(pageSize))
+                .flatMap(size -> {
+                    CursorPage.Cursor position = CursorPage.decodeCursor(cursor);
+                    Long afterTime = position != null ? position.messageTime() : (sequence != null ? sequence : 0L);
+                    boolean includeArchive = archiveWindow.includesArchive(afterTime);
+                    Flux<ImGroupMessageEntity> rows;
+                    if (position != null) {
+                        rows = includeArchive
+                                ? repository.findPageAfterWithArchive(userId, afterTime, position.messageId(), size + 1)
+                                : repository.findPageAfter(userId, afterTime, position.messageId(), size + 1);
+                    } else {
+                        rows = includeArchive
+                                ? repository.findFirstPageWithArchive(userId, afterTime, size + 1)
+                                : repository.findFirstPage(userId, afterTime, size + 1);
+                    }
+                    return rows.map(this::toPo).collectList()
+                            .map(fetched -> CursorPage.of(fetched, size, ImGroupMessagePo::getMessageTime, ImGroupMessagePo::getMessageId));
+                });
     }
 
     @Override
     public Mono<ImGroupMessagePo> queryOne(String messageId) {
-        return repository.findById(messageId).map(this::toPo);
+        return repository.findById(messageId)
+                .switchIfEmpty(Mono.defer(() -> repository.findArchivedById(messageId)))
+                .map(this::toPo);
     }
 
     @Override
@@ -58,7 +118,10 @@ public class ImGroupMessageReactiveService implements ImGroupMessageDubboService
 
     @Override
     public Mono<ImGroupMessagePo> queryLast(String groupId, String userId) {
-        return repository.findLastByGroupIdAndUserId(groupId, userId).map(this::toPo);
+        // 热表没有记录时群的最后一条消息可能已被归档
+        return repository.findLastByGroupIdAndUserId(groupId, userId)
+                .switchIfEmpty(Mono.defer(() -> repository.findLastByGroupIdAndUserIdWithArchive(groupId, userId)))
+                .map(this::toPo);
     }
 
     @Override
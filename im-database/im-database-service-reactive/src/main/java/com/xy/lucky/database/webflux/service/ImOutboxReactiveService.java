@@ -4,6 +4,7 @@ import com.fasterxml.jackson.core.JsonProcessingException;
 import com.fasterxml.jackson.databind.ObjectMapper;
 import com.xy.lucky.database.webflux.entity.ImOutboxEntity;
 import com.xy.lucky.database.webflux.repository.ImOutboxRepository;
+import com.xy.lucky.database.webflux.repository.StreamingQueryRepository;
 import com.xy.lucky.domain.po.IMOutboxPo;
 import com.xy.lucky.database.rpc.api.database.outbox.ImOutboxDubboService;
 import lombok.RequiredArgsConstructor;
@@ -13,12 +14,14 @@ import reactor.core.publisher.Flux;
 import reactor.core.publisher.Mono;
 
 import java.util.List;
+import java.util.Map;
 
 @Service
 @DubboService
 @RequiredArgsConstructor
 public class ImOutboxReactiveService implements ImOutboxDubboService {
     private final ImOutboxRepository repository;
+    private final StreamingQueryRepository streamingQueryRepository;
     private final ObjectMapper objectMapper;
 
     @Override
@@ -59,6 +62,22 @@ public class ImOutboxReactiveService implements ImOutboxDubboService {
         return repository.findByStatusLimit(s, lim).map(this::toPo);
     }
 
+    /**
+     * 流式重放指定状态的 Outbox 消息，按 ID 升序，可从上次中断的位置继续
+     *
+     * @param status  消息状态
+     * @param afterId 起始 ID（不含）
+     */
+    public Flux<IMOutboxPo> streamReplay(String status, long afterId) {
+        return streamingQueryRepository.stream("""
+                        select * from im_outbox
+                        where status = :status and id > :afterId
+                        order by id
+                        """,
+                Map.of("status", status.trim().toUpperCase(), "afterId", afterId),
+                ImOutboxEntity.class).map(this::toPo);
+    }
+
     @Override
     public Mono<Boolean> modifyStatus(Long id, String status, Integer attempts) {
         return repository.findById(id)
@@ -2,6 +2,8 @@ package com.xy.lucky.database.webflux.service;
 
 import com.xy.lucky.database.webflux.entity.ImSingleMessageEntity;
 import com.xy.lucky.database.webflux.repository.ImSingleMessageRepository;
+import com.xy.lucky.database.webflux.repository.StreamingQueryRepository;
+import com.xy.lucky.domain.CursorPage;
 import com.xy.lucky.domain.po.ImSingleMessagePo;
 import com.xy.lucky.database.rpc.api.database.message.ImSingleMessageDubboService;
 import com.xy.lucky.utils.json.JacksonUtils;
@@ -11,27 +13,95 @@ import org.springframework.stereotype.Service;
 import reactor.core.publisher.Flux;
 import reactor.core.publisher.Mono;
 
+import java.util.HashMap;
 import java.util.List;
+import java.util.Map;
 
 @Service
 @DubboService
 @RequiredArgsConstructor
 public class ImSingleMessageReactiveService implements ImSingleMessageDubboService {
     private final ImSingleMessageRepository repository;
+    private final StreamingQueryRepository streamingQueryRepository;
+    private final MessageArchiveWindow archiveWindow;
 
     @Override
     public Mono<ImSingleMessagePo> queryOne(String messageId) {
-        return repository.findById(messageId).map(this::toPo);
+        return repository.findById(messageId)
+                .switchIfEmpty(Mono.defer(() -> repository.findArchivedById(messageId)))
+                .map(this::toPo);
     }
 
     @Override
     public Flux<ImSingleMessagePo> queryList(String userId, Long sequence) {
-        return repository.findListByUserIdAndSequence(userId, sequence).map(this::toPo);
+        Flux<ImSingleMessageEntity> rows = archiveWindow.includesArchive(sequence)
+                ? repository.findListByUserIdAndSequenceWithArchive(userId, sequence)
+                : repository.findListByUserIdAndSequence(userId, sequence);
+        return rows.map(this::toPo);
+    }
+
+    /**
+     * 流式导出两人之间的会话历史（含已归档消息），按 (message_time, message_id) 升序
+     *
+     * @param userId    用户 ID
+     * @param peerId    对方用户 ID
+     * @param afterTime 起始消息时间（不含）
+     * @param afterId   上次导出的最后一条消息 ID，为空时只按 afterTime 过滤
+     */
+    public Flux<ImSingleMessagePo> exportConversation(String userId, String peerId, long afterTime, String afterId) {
+        Map<String, Object> params = new HashMap<>();
+        params.put("conversationKey", ImSingleMessagePo.conversationKeyOf(userId, peerId));
+        params.put("userId", userId);
+        params.put("peerId", peerId);
+        params.put("afterTime", afterTime);
+        String cursor = "message_time > :afterTime";
+        if (afterId != null && !afterId.isEmpty()) {
+            cursor = "(message_time > :afterTime or (message_time = :afterTime and message_id > :afterId))";
+            params.put("afterId", afterId);
+        }
+        // 起点早于热窗口时在同一条语句里读取热表与归档表，归档任务并发搬移的行不会被重复或遗漏
+        String source = archiveWindow.includesArchive(afterTime)
+                ? ImSingleMessageRepository.MESSAGE_SOURCE : "im_single_message";
+        return streamingQueryRepository.stream("""
+                        select * from %s m
+                        where (conversation_key = :conversationKey
+                               or (conversation_key is null
+                                   and ((from_id = :userId and to_id = :peerId) or (from_id = :peerId and to_id = :userId))))
+                          and %s
+                        order by message_time, message_id
+                        """.formatted(source, cursor),
+                params, ImSingleMessageEntity.class).map(this::toPo);
+    }
+
+    @Override
+    public Mono<CursorPage<ImSingleMessagePo>> queryPage(String userId, Long sequence, String cursor, Integer pageSize) {
+        return Mono.fromCallable(() -> CursorPage.normalizePageSize(pageSize))
+                .flatMap(size -> {
+                    CursorPage.Cursor position = CursorPage.decodeCursor(cursor);
+                    Long afterTime = position != null ? position.messageTime() : (sequence != null ? sequence : 0L);
+                    boolean includeArchive = archiveWindow.includesArchive(afterTime);
+                    Flux<ImSingleMessageEntity> rows;
+                    if (position != null) {
+                        rows = includeArchive
+                                ? repository.findPageAfterWithArchive(userId, afterTime, position.messageId(), size + 1)
+                                : repository.findPageAfter(userId, afterTime, position.messageId(), size + 1);
+                    } else {
+                        rows = includeArchive
+                                ? repository.findFirstPageWithArchive(userId, afterTime, size + 1)
+                                : repository.findFirstPage(userId, afterTime, size + 1);
+                    }
+                    return rows.map(this::toPo).collectList()
+                            .map(fetched -> CursorPage.of(fetched, size, ImSingleMessagePo::getMessageTime, ImSingleMessagePo::getMessageId));
+                });
     }
 
     @Override
     public Mono<ImSingleMessagePo> queryLast(String fromId, String toId) {
-        return repository.findLastBetween(fromId, toId).map(this::toPo);
+        String conversationKey = ImSingleMessagePo.conversationKeyOf(fromId, toId);
+        // 热表没有记录时会话的最后一条消息可能已被归档
+        return repository.findLastBetween(conversationKey, fromId, toId)
+                .switchIfEmpty(Mono.defer(() -> repository.findLastBetweenWithArchive(conversationKey, fromId, toId)))
+                .map(this::toPo);
     }
 
     @Override
@@ -70,6 +140,7 @@ public class ImSingleMessageReactiveService implements ImSingleMessageDubboServi
         p.setMessageId(e.getMessageId());
         p.setFromId(e.getFromId());
         p.setToId(e.getToId());
+        p.setConversationKey(e.getConversationKey());
         if (e.getMessageBody() != null) {
             p.setMessageBody(JacksonUtils.parseObject(e.getMessageBody(), Object.class));
         }
@@ -93,6 +164,8 @@ public class ImSingleMessageReactiveService implements ImSingleMessageDubboServi
         e.setMessageId(p.getMessageId());
         e.setFromId(p.getFromId());
         e.setToId(p.getToId());
+        e.setConversationKey(p.getConversationKey() != null
+                ? p.getConversationKey() : ImSingleMessagePo.conversationKeyOf(p.getFromId(), p.getToId()));
         if (p.getMessageBody() != null) {
             e.setMessageBody(JacksonUtils.toJSONString(p.getMessageBody()));
         }
@@ -0,0 +1,37 @@
+package com.xy.lucky.database.webflux.service;
+
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * 消息冷热分离的热窗口
+ * <p>
+ * 归档任务（im-database-service 的 MessageArchiveService）把早于 hot-days 天的消息移入
+ * im_single_message_archive / im_group_message_archive，响应式读路径按同一配置判断查询起点是否落在热窗口之外，
+ * 落在窗口外时同时查询归档表。
+ * </p>
+ */
+@Component
+public class MessageArchiveWindow {
+
+    @Value("${message.archive.hot-days:180}")
+    private int hotDays;
+
+    /**
+     * 热表与归档表的分界时间，早于该时间的消息可能已被归档
+     */
+    public long hotBoundary() {
+        return System.currentTimeMillis() - TimeUnit.DAYS.toMillis(Math.max(1, hotDays));
+    }
+
+    /**
+     * 从指定时间起的查询是否需要同时读取归档表
+     *
+     * @param fromTime 查询起始消息时间，为空表示从头查询
+     */
+    public boolean includesArchive(Long fromTime) {
+        return fromTime == null || fromTime < hotBoundary();
+    }
+}
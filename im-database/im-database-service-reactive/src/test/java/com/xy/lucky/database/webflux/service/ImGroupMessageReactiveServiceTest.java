@@ -0,0 +1,152 @@
+package com.xy.lucky.database.webflux.service;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.xy.lucky.database.webflux.entity.ImGroupMessageEntity;
+import com.xy.lucky.database.webflux.repository.ImGroupMessageRepository;
+import com.xy.lucky.database.webflux.repository.ImGroupMessageStatusRepository;
+import com.xy.lucky.database.webflux.repository.StreamingQueryRepository;
+import com.xy.lucky.domain.CursorPage;
+import com.xy.lucky.domain.po.ImGroupMessagePo;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.mockito.ArgumentCaptor;
+import org.springframework.data.r2dbc.repository.Query;
+import org.springframework.test.util.ReflectionTestUtils;
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
+
+import java.lang.reflect.Method;
+import java.util.Arrays;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.ArgumentMatchers.anyInt;
+import static org.mockito.ArgumentMatchers.anyLong;
+import static org.mockito.ArgumentMatchers.anyMap;
+import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+class ImGroupMessageReactiveServiceTest {
+
+    private static final long ARCHIVED_TIME = System.currentTimeMillis() - TimeUnit.DAYS.toMillis(365);
+
+    private ImGroupMessageRepository repository;
+    private StreamingQueryRepository streamingQueryRepository;
+    private ImGroupMessageReactiveService service;
+
+    @BeforeEach
+    void setUp() {
+        streamingQueryRepository = mock(StreamingQueryRepository.class);
+        repository = mock(ImGroupMessageRepository.class);
+        MessageArchiveWindow archiveWindow = new MessageArchiveWindow();
+        ReflectionTestUtils.setField(archiveWindow, "hotDays", 180);
+        service = new ImGroupMessageReactiveService(repository, mock(ImGroupMessageStatusRepository.class),
+                streamingQueryRepository, archiveWindow, new ObjectMapper());
+    }
+
+    @Test
+    void queryOneShouldFallBackToArchive() {
+        when(repository.findById("m1")).thenReturn(Mono.empty());
+        when(repository.findArchivedById("m1")).thenReturn(Mono.just(archived("m1")));
+
+        ImGroupMessagePo message = service.queryOne("m1").block();
+
+        assertThat(message).isNotNull();
+        assertThat(message.getMessageId()).isEqualTo("m1");
+        assertThat(message.getMessageTime()).isEqualTo(ARCHIVED_TIME);
+    }
+
+    @Test
+    void queryLastShouldFallBackToArchive() {
+        when(repository.findLastByGroupIdAndUserId("g1", "u1")).thenReturn(Mono.empty());
+        when(repository.findLastByGroupIdAndUserIdWithArchive("g1", "u1")).thenReturn(Mono.just(archived("m1")));
+
+        ImGroupMessagePo message = service.queryLast("g1", "u1").block();
+
+        assertThat(message).isNotNull();
+        assertThat(message.getMessageId()).isEqualTo("m1");
+    }
+
+    @Test
+    void queryPageFromBeforeHotWindowShouldReturnArchivedMessages() {
+        when(repository.findFirstPageWithArchive("u1", 0L, 21)).thenReturn(Flux.just(archived("m1")));
+
+        CursorPage<ImGroupMessagePo> page = service.queryPage("u1", 0L, null, null).block();
+
+        assertThat(page).isNotNull();
+        assertThat(page.getRecords()).extracting(ImGroupMessagePo::getMessageId).containsExactly("m1");
+        verify(repository, never()).findFirstPage(anyString(), anyLong(), anyInt());
+    }
+
+    @Test
+    void queryPageInsideHotWindowShouldReadHotTableOnly() {
+        long recent = System.currentTimeMillis() - TimeUnit.DAYS.toMillis(1);
+        when(repository.findFirstPage("u1", recent, 21)).thenReturn(Flux.empty());
+
+        service.queryPage("u1", recent, null, null).block();
+
+        verify(repository, never()).findFirstPageWithArchive(anyString(), anyLong(), anyInt());
+    }
+
+    @Test
+    void exportFromBeforeHotWindowShouldStreamArchivedThenHotRowsInOneStatement() {
+        ImGroupMessageEntity hot = archived("m2");
+        hot.setMessageTime(System.currentTimeMillis());
+        when(streamingQueryRepository.stream(anyString(), anyMap(), eq(ImGroupMessageEntity.class)))
+                .thenReturn(Flux.just(archived("m1"), hot));
+
+        List<ImGroupMessagePo> exported = service.exportGroup("g1", 0L, null).collectList().block();
+
+        assertThat(exported).extracting(ImGroupMessagePo::getMessageId).containsExactly("m1", "m2");
+        ArgumentCaptor<String> sql = ArgumentCaptor.forClass(String.class);
+        verify(streamingQueryRepository).stream(sql.capture(), anyMap(), eq(ImGroupMessageEntity.class));
+        assertThat(sql.getValue())
+                .contains("from im_group_message union all")
+                .contains("from im_group_message_archive)")
+                .contains("order by message_time, message_id");
+    }
+
+    @Test
+    void exportInsideHotWindowShouldReadHotTableOnly() {
+        when(streamingQueryRepository.stream(anyString(), anyMap(), eq(ImGroupMessageEntity.class))).thenReturn(Flux.empty());
+
+        service.exportGroup("g1", System.currentTimeMillis() - TimeUnit.DAYS.toMillis(1), null).collectList().block();
+
+        ArgumentCaptor<String> sql = ArgumentCaptor.forClass(String.class);
+        verify(streamingQueryRepository).stream(sql.capture(), anyMap(), eq(ImGroupMessageEntity.class));
+        assertThat(sql.getValue()).contains("from im_group_message m").doesNotContain("im_group_message_archive");
+    }
+
+    @Test
+    void archiveQueriesShouldUnionHotAndArchiveTables() {
+        List<Method> methods = Arrays.stream(ImGroupMessageRepository.class.getDeclaredMethods())
+                .filter(method -> method.getName().endsWith("WithArchive"))
+                .toList();
+
+        assertThat(methods).hasSize(4);
+        for (Method method : methods) {
+            String sql = method.getAnnotation(Query.class).value();
+            assertThat(sql).as(method.getName())
+                    .contains("from im_group_message union all")
+                    .contains("from im_group_message_archive)");
+        }
+    }
+
+    private static ImGroupMessageEntity archived(String messageId) {
+        ImGroupMessageEntity entity = new ImGroupMessageEntity();
+        entity.setMessageId(messageId);
+        entity.setGroupId("g1");
+        entity.setFromId("u2");
+        entity.setMessageTime(ARCHIVED_TIME);
+        entity.setMessageContentType(1);
+        entity.setReadStatus(0);
+        entity.setDelFlag(1);
+        entity.setSequence(ARCHIVED_TIME);
+        return entity;
+    }
+}
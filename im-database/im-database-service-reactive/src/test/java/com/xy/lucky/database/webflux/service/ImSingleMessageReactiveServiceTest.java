@@ -0,0 +1,178 @@
+package com.xy.lucky.database.webflux.service;
+
+import com.xy.lucky.database.webflux.entity.ImSingleMessageEntity;
+import com.xy.lucky.database.webflux.repository.ImSingleMessageRepository;
+import com.xy.lucky.database.webflux.repository.StreamingQueryRepository;
+import com.xy.lucky.domain.CursorPage;
+import com.xy.lucky.domain.po.ImSingleMessagePo;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.mockito.ArgumentCaptor;
+import org.springframework.data.r2dbc.repository.Query;
+import org.springframework.test.util.ReflectionTestUtils;
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
+
+import java.lang.reflect.Method;
+import java.util.Arrays;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.ArgumentMatchers.anyInt;
+import static org.mockito.ArgumentMatchers.anyLong;
+import static org.mockito.ArgumentMatchers.anyMap;
+import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+class ImSingleMessageReactiveServiceTest {
+
+    private static final long ARCHIVED_TIME = System.currentTimeMillis() - TimeUnit.DAYS.toMillis(365);
+
+    private ImSingleMessageRepository repository;
+    private StreamingQueryRepository streamingQueryRepository;
+    private ImSingleMessageReactiveService service;
+
+    @BeforeEach
+    void setUp() {
+        streamingQueryRepository = mock(StreamingQueryRepository.class);
+        repository = mock(ImSingleMessageRepository.class);
+        MessageArchiveWindow archiveWindow = new MessageArchiveWindow();
+        ReflectionTestUtils.setField(archiveWindow, "hotDays", 180);
+        service = new ImSingleMessageReactiveService(repository, streamingQueryRepository, archiveWindow);
+    }
+
+    @Test
+    void queryOneShouldFallBackToArchive() {
+        when(repository.findById("m1")).thenReturn(Mono.empty());
+        when(repository.findArchivedById("m1")).thenReturn(Mono.just(archived("m1")));
+
+        ImSingleMessagePo message = service.queryOne("m1").block();
+
+        assertThat(message).isNotNull();
+        assertThat(message.getMessageId()).isEqualTo("m1");
+        assertThat(message.getMessageTime()).isEqualTo(ARCHIVED_TIME);
+    }
+
+    @Test
+    void queryOneShouldNotReadArchiveWhenHotRowExists() {
+        when(repository.findById("m1")).thenReturn(Mono.just(archived("m1").setMessageTime(System.currentTimeMillis())));
+
+        assertThat(service.queryOne("m1").block()).isNotNull();
+        verify(repository, never()).findArchivedById(anyString());
+    }
+
+    @Test
+    void queryLastShouldFallBackToArchive() {
+        String key = ImSingleMessagePo.conversationKeyOf("u1", "u2");
+        when(repository.findLastBetween(key, "u1", "u2")).thenReturn(Mono.empty());
+        when(repository.findLastBetweenWithArchive(key, "u1", "u2")).thenReturn(Mono.just(archived("m1")));
+
+        ImSingleMessagePo message = service.queryLast("u1", "u2").block();
+
+        assertThat(message).isNotNull();
+        assertThat(message.getMessageId()).isEqualTo("m1");
+    }
+
+    @Test
+    void queryListFromBeforeHotWindowShouldIncludeArchive() {
+        when(repository.findListByUserIdAndSequenceWithArchive("u1", 0L)).thenReturn(Flux.just(archived("m1")));
+
+        List<ImSingleMessagePo> messages = service.queryList("u1", 0L).collectList().block();
+
+        assertThat(messages).extracting(ImSingleMessagePo::getMessageId).containsExactly("m1");
+        verify(repository, never()).findListByUserIdAndSequence(anyString(), anyLong());
+    }
+
+    @Test
+    void queryListInsideHotWindowShouldReadHotTableOnly() {
+        long recent = System.currentTimeMillis() - TimeUnit.DAYS.toMillis(1);
+        when(repository.findListByUserIdAndSequence("u1", recent)).thenReturn(Flux.empty());
+
+        service.queryList("u1", recent).collectList().block();
+
+        verify(repository, never()).findListByUserIdAndSequenceWithArchive(anyString(), anyLong());
+    }
+
+    @Test
+    void queryPageShouldReturnArchivedMessagesAndKeepReadingArchiveAfterCursor() {
+        when(repository.findFirstPageWithArchive("u1", 0L, 2)).thenReturn(Flux.just(archived("m1"), archived("m2")));
+
+        CursorPage<ImSingleMessagePo> first = service.queryPage("u1", 0L, null, 1).block();
+
+        assertThat(first).isNotNull();
+        assertThat(first.getRecords()).extracting(ImSingleMessagePo::getMessageId).containsExactly("m1");
+        assertThat(first.getNextCursor()).isNotNull();
+
+        when(repository.findPageAfterWithArchive(eq("u1"), eq(ARCHIVED_TIME), eq("m1"), anyInt()))
+                .thenReturn(Flux.just(archived("m2")));
+
+        CursorPage<ImSingleMessagePo> second = service.queryPage("u1", 0L, first.getNextCursor(), 1).block();
+
+        assertThat(second).isNotNull();
+        assertThat(second.getRecords()).extracting(ImSingleMessagePo::getMessageId).containsExactly("m2");
+        verify(repository, never()).findFirstPage(anyString(), anyLong(), anyInt());
+        verify(repository, never()).findPageAfter(anyString(), anyLong(), anyString(), anyInt());
+    }
+
+    @Test
+    void exportFromBeforeHotWindowShouldStreamArchivedThenHotRowsInOneStatement() {
+        ImSingleMessageEntity hot = archived("m2");
+        hot.setMessageTime(System.currentTimeMillis());
+        when(streamingQueryRepository.stream(anyString(), anyMap(), eq(ImSingleMessageEntity.class)))
+                .thenReturn(Flux.just(archived("m1"), hot));
+
+        List<ImSingleMessagePo> exported = service.exportConversation("u1", "u2", 0L, null).collectList().block();
+
+        assertThat(exported).extracting(ImSingleMessagePo::getMessageId).containsExactly("m1", "m2");
+        ArgumentCaptor<String> sql = ArgumentCaptor.forClass(String.class);
+        verify(streamingQueryRepository).stream(sql.capture(), anyMap(), eq(ImSingleMessageEntity.class));
+        assertThat(sql.getValue())
+                .contains("from im_single_message union all")
+                .contains("from im_single_message_archive)")
+                .contains("order by message_time, message_id");
+    }
+
+    @Test
+    void exportInsideHotWindowShouldReadHotTableOnly() {
+        when(streamingQueryRepository.stream(anyString(), anyMap(), eq(ImSingleMessageEntity.class))).thenReturn(Flux.empty());
+
+        service.exportConversation("u1", "u2", System.currentTimeMillis() - TimeUnit.DAYS.toMillis(1), null).collectList().block();
+
+        ArgumentCaptor<String> sql = ArgumentCaptor.forClass(String.class);
+        verify(streamingQueryRepository).stream(sql.capture(), anyMap(), eq(ImSingleMessageEntity.class));
+        assertThat(sql.getValue()).contains("from im_single_message m").doesNotContain("im_single_message_archive");
+    }
+
+    @Test
+    void archiveQueriesShouldUnionHotAndArchiveTables() {
+        List<Method> methods = Arrays.stream(ImSingleMessageRepository.class.getDeclaredMethods())
+                .filter(method -> method.getName().endsWith("WithArchive"))
+                .toList();
+
+        assertThat(methods).hasSize(4);
+        for (Method method : methods) {
+            String sql = method.getAnnotation(Query.class).value();
+            assertThat(sql).as(method.getName())
+                    .contains("from im_single_message union all")
+                    .contains("from im_single_message_archive)");
+        }
+    }
+
+    private static ImSingleMessageEntity archived(String messageId) {
+        return new ImSingleMessageEntity()
+                .setMessageId(messageId)
+                .setFromId("u1")
+                .setToId("u2")
+                .setConversationKey(ImSingleMessagePo.conversationKeyOf("u1", "u2"))
+                .setMessageTime(ARCHIVED_TIME)
+                .setMessageContentType(1)
+                .setReadStatus(0)
+                .setDelFlag(1)
+                .setSequence(ARCHIVED_TIME);
+    }
+}
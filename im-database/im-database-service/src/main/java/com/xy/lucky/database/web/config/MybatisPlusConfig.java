@@ -3,11 +3,15 @@ package com.xy.lucky.database.web.config;
 import com.baomidou.mybatisplus.core.handlers.MetaObjectHandler;
 import com.baomidou.mybatisplus.extension.plugins.MybatisPlusInterceptor;
 import com.xy.lucky.database.web.utils.DateTimeUtils;
+import com.xy.lucky.domain.po.IMOutboxPo;
+import com.xy.lucky.domain.po.ImSingleMessagePo;
 import org.apache.ibatis.mapping.DatabaseIdProvider;
 import org.apache.ibatis.mapping.VendorDatabaseIdProvider;
 import org.apache.ibatis.reflection.MetaObject;
 import org.springframework.context.annotation.Bean;
 import org.springframework.context.annotation.Configuration;
+import org.springframework.core.Ordered;
+import org.springframework.core.annotation.Order;
 
 import java.util.Properties;
 
@@ -34,7 +38,11 @@ public class MybatisPlusConfig implements MetaObjectHandler {
     }
 
 
+    /**
+     * 先于 SqlMetricsInterceptor 织入（位于内层），语句指标覆盖插件自身耗时
+     */
     @Bean
+    @Order(Ordered.HIGHEST_PRECEDENCE)
     public MybatisPlusInterceptor mybatisPlusInterceptor() {
         MybatisPlusInterceptor interceptor = new MybatisPlusInterceptor();
         // ✅ 让 SQL 带参数
@@ -47,6 +55,14 @@ public class MybatisPlusConfig implements MetaObjectHandler {
         setFieldValByName("createTime", DateTimeUtils.getUTCDateTime(), metaObject);
         setFieldValByName("updateTime", DateTimeUtils.getUTCDateTime(), metaObject);
         //setFieldValByName("delFlag", IMStatus.NO.getCode(), metaObject);
+        if (metaObject.getOriginalObject() instanceof ImSingleMessagePo po
+                && po.getConversationKey() == null && po.getFromId() != null && po.getToId() != null) {
+            setFieldValByName("conversationKey", ImSingleMessagePo.conversationKeyOf(po.getFromId(), po.getToId()), metaObject);
+        }
+        // im_outbox 以 created_at 作为分区键，缺失时补齐以落入对应日分区
+        if (metaObject.getOriginalObject() instanceof IMOutboxPo po && po.getCreatedAt() == null) {
+            setFieldValByName("createdAt", DateTimeUtils.getUTCDateTime(), metaObject);
+        }
     }
 
     @Override
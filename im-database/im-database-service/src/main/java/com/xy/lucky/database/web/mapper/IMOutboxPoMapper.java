@@ -3,6 +3,9 @@ package com.xy.lucky.database.web.mapper;
 import com.baomidou.mybatisplus.core.mapper.BaseMapper;
 import com.xy.lucky.domain.po.IMOutboxPo;
 import org.apache.ibatis.annotations.Mapper;
+import org.apache.ibatis.annotations.Param;
+
+import java.util.List;
 
 
 /**
@@ -10,4 +13,6 @@ import org.apache.ibatis.annotations.Mapper;
  */
 @Mapper
 public interface IMOutboxPoMapper extends BaseMapper<IMOutboxPo> {
-}
\ No newline at end of file
+
+    int updateStatusIfMatch(@Param("po") IMOutboxPo po, @Param("fromStatuses") List<String> fromStatuses);
+}
@@ -19,7 +19,32 @@ public interface ImChatMapper extends BaseMapper<ImChatPo> {
                        @Param("chatType") Integer chatType,
                        @Param("sequence") Long sequence,
                        @Param("chatId") String chatId);
-}
 
+    List<ImChatPo> selectChatPage(@Param("ownerId") String ownerId,
+                                  @Param("beforeTime") Long beforeTime,
+                                  @Param("beforeId") String beforeId,
+                                  @Param("limit") int limit);
+
+    int upsertProjection(@Param("chat") ImChatPo chat);
+
+    int clearUnread(@Param("ownerId") String ownerId,
+                    @Param("toId") String toId,
+                    @Param("chatType") Integer chatType);
 
+    List<String> selectOwnerIdsAfter(@Param("afterOwnerId") String afterOwnerId,
+                                     @Param("limit") int limit);
 
+    int rebuildSingleProjection(@Param("ownerId") String ownerId,
+                                @Param("chatType") Integer chatType,
+                                @Param("unreadStatus") Integer unreadStatus,
+                                @Param("conversationKeyReady") boolean conversationKeyReady);
+
+    int rebuildGroupProjection(@Param("ownerId") String ownerId,
+                               @Param("chatType") Integer chatType,
+                               @Param("unreadStatus") Integer unreadStatus);
+
+    /**
+     * 按主键插入或更新，空字段保留原值
+     */
+    int upsert(ImChatPo chatPo);
+}
@@ -12,6 +12,8 @@ import java.util.List;
 public interface ImFriendshipMapper extends BaseMapper<ImFriendshipPo> {
 
     List<ImFriendshipPo> selectFriendList(@Param("ownerId") String ownerId, @Param("sequence") Long sequence);
+
+    List<String> selectFriendIds(@Param("ownerId") String ownerId);
 }
 
 
@@ -16,4 +16,9 @@ import java.util.List;
 public interface ImGroupMemberMapper extends BaseMapper<ImGroupMemberPo> {
 
     List<String> selectNinePeopleAvatar(@Param("groupId") String groupId);
+
+    /**
+     * 按主键插入或更新，空字段保留原值
+     */
+    int upsert(ImGroupMemberPo memberPo);
 }
@@ -15,11 +15,26 @@ import java.util.List;
 @Mapper
 public interface ImGroupMessageMapper extends BaseMapper<ImGroupMessagePo> {
 
-    List<ImGroupMessagePo> selectGroupMessageByGroupId(@Param("userId") String userId, @Param("groupId") String groupId, @Param("sequence") Long sequence);
-
-    List<ImGroupMessagePo> selectGroupMessage(@Param("userId") String userId, @Param("sequence") Long sequence);
-
-    ImGroupMessagePo selectLastGroupMessage(@Param("userId") String userId, @Param("groupId") String groupId);
+    List<ImGroupMessagePo> selectGroupMessageByGroupId(@Param("userId") String userId, @Param("groupId") String groupId, @Param("sequence") Long sequence,
+                                                       @Param("includeArchive") boolean includeArchive);
+
+    List<ImGroupMessagePo> selectGroupMessage(@Param("userId") String userId, @Param("sequence") Long sequence,
+                                              @Param("includeArchive") boolean includeArchive);
+
+    /**
+     * 按 (message_time, message_id) 游标分页查询用户消息，afterId 为空时表示首页（仅按 afterTime 过滤）
+     */
+    List<ImGroupMessagePo> selectGroupMessagePage(@Param("userId") String userId, @Param("afterTime") Long afterTime,
+                                                  @Param("afterId") String afterId, @Param("limit") int limit,
+                                                  @Param("includeArchive") boolean includeArchive);
+
+    ImGroupMessagePo selectLastGroupMessage(@Param("userId") String userId, @Param("groupId") String groupId,
+                                            @Param("includeArchive") boolean includeArchive);
+
+    /**
+     * 从冷数据归档表中按消息 ID 查询
+     */
+    ImGroupMessagePo selectArchivedGroupMessage(@Param("messageId") String messageId);
 
     Integer selectReadStatus(@Param("groupId") String groupId, @Param("toId") String toId, @Param("status") Integer code);
 
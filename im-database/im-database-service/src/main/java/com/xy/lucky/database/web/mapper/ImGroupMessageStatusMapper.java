@@ -12,6 +12,10 @@ import org.apache.ibatis.annotations.Mapper;
 @Mapper
 public interface ImGroupMessageStatusMapper extends BaseMapper<ImGroupMessageStatusPo> {
 
+    /**
+     * 按 (group_id, message_id, to_id) 插入或覆盖已读状态
+     */
+    int upsert(ImGroupMessageStatusPo statusPo);
 }
 
 
@@ -15,15 +15,52 @@ import java.util.List;
 @Mapper
 public interface ImSingleMessageMapper extends BaseMapper<ImSingleMessagePo> {
 
-    List<ImSingleMessagePo> selectSingleMessageByToId(@Param("fromId") String fromId, @Param("toId") String toId, @Param("sequence") Long sequence);
+    List<ImSingleMessagePo> selectSingleMessageByToId(@Param("fromId") String fromId, @Param("toId") String toId, @Param("sequence") Long sequence,
+                                                       @Param("conversationKeyReady") boolean conversationKeyReady,
+                                                      @Param("includeArchive") boolean includeArchive);
 
-    List<ImSingleMessagePo> selectSingleMessage(@Param("userId") String userId, @Param("sequence") Long sequence);
+    List<ImSingleMessagePo> selectSingleMessage(@Param("userId") String userId, @Param("sequence") Long sequence,
+                                                @Param("includeArchive") boolean includeArchive);
 
-    ImSingleMessagePo selectLastSingleMessage(@Param("fromId") String fromId, @Param("toId") String toId);
+    /**
+     * 按 (message_time, message_id) 游标分页查询用户消息，afterId 为空时表示首页（仅按 afterTime 过滤）
+     */
+    List<ImSingleMessagePo> selectSingleMessagePage(@Param("userId") String userId, @Param("afterTime") Long afterTime,
+                                                    @Param("afterId") String afterId, @Param("limit") int limit,
+                                                    @Param("includeArchive") boolean includeArchive);
 
-    Integer selectReadStatus(@Param("fromId") String fromId, @Param("toId") String toId, @Param("status") Integer code);
-}
+    /**
+     * @param conversationKeyReady 会话键是否已回填完成，未完成时按双向 (from_id, to_id) 匹配
+     */
+    ImSingleMessagePo selectLastSingleMessage(@Param("fromId") String fromId, @Param("toId") String toId,
+                                              @Param("includeArchive") boolean includeArchive,
+                                              @Param("conversationKeyReady") boolean conversationKeyReady);
 
+    /**
+     * 从冷数据归档表中按消息 ID 查询
+     */
+    ImSingleMessagePo selectArchivedSingleMessage(@Param("messageId") String messageId);
 
+    Integer selectReadStatus(@Param("fromId") String fromId, @Param("toId") String toId, @Param("status") Integer code);
 
+    /**
+     * 为缺少会话键的历史消息回填 conversation_key
+     *
+     * @param table 热表或归档表，由 {@link com.xy.lucky.database.web.service.MessageArchiveService} 常量给出
+     * @param limit 单批最大行数
+     * @return 本批更新行数
+     */
+    int backfillConversationKey(@Param("table") String table, @Param("limit") int limit);
 
+    /**
+     * 表中是否仍有会话键为空的消息
+     *
+     * @return 存在时返回 1，否则返回 null
+     */
+    Integer existsNullConversationKey(@Param("table") String table);
+
+    /**
+     * 按主键插入或更新，空字段保留原值
+     */
+    int upsert(ImSingleMessagePo messagePo);
+}
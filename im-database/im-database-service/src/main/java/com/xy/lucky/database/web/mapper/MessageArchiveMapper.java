@@ -0,0 +1,39 @@
+package com.xy.lucky.database.web.mapper;
+
+import org.apache.ibatis.annotations.Mapper;
+import org.apache.ibatis.annotations.Param;
+
+/**
+ * 消息冷热分离归档 Mapper
+ * <p>
+ * 表名、列名与分区名均由 {@link com.xy.lucky.database.web.service.MessageArchiveService} 内部常量拼接，不接受外部输入。
+ * </p>
+ */
+@Mapper
+public interface MessageArchiveMapper {
+
+    /**
+     * 查询热表中早于指定时间的最早消息时间
+     */
+    Long selectOldestMessageTime(@Param("table") String table, @Param("before") long before);
+
+    /**
+     * 创建月度归档分区（已存在则跳过）
+     */
+    void createPartition(@Param("archiveTable") String archiveTable, @Param("partition") String partition,
+                         @Param("from") long from, @Param("to") long to);
+
+    /**
+     * 为归档分区的大字段设置压缩算法
+     */
+    void compressPartition(@Param("partition") String partition, @Param("compression") String compression);
+
+    /**
+     * 将热表中早于指定时间的一批消息移入归档表
+     *
+     * @param columns 两表共有的列名，逗号分隔
+     * @return 本批移动行数
+     */
+    int moveMessages(@Param("table") String table, @Param("archiveTable") String archiveTable,
+                     @Param("columns") String columns, @Param("before") long before, @Param("limit") int limit);
+}
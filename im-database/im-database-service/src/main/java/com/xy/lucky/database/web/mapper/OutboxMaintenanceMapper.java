@@ -0,0 +1,77 @@
+package com.xy.lucky.database.web.mapper;
+
+import org.apache.ibatis.annotations.Mapper;
+import org.apache.ibatis.annotations.Param;
+
+import java.util.List;
+
+/**
+ * Outbox 分区维护 Mapper
+ * <p>
+ * 表名与分区名均由 {@link com.xy.lucky.database.web.service.OutboxMaintenanceService} 内部常量拼接，不接受外部输入。
+ * </p>
+ */
+@Mapper
+public interface OutboxMaintenanceMapper {
+
+    /**
+     * 查询分区表当前挂载的全部分区名
+     */
+    List<String> selectPartitions(@Param("table") String table);
+
+    /**
+     * 创建日分区（已存在则跳过）
+     */
+    void createPartition(@Param("table") String table, @Param("partition") String partition,
+                         @Param("from") long from, @Param("to") long to);
+
+    /**
+     * 默认分区中是否存在落在指定区间内的记录
+     */
+    boolean existsInRange(@Param("partition") String partition, @Param("from") long from, @Param("to") long to);
+
+    /**
+     * 以分区表结构创建独立表，用于承接默认分区中的数据后再挂载
+     */
+    void createDetachedPartition(@Param("table") String table, @Param("partition") String partition);
+
+    /**
+     * 将默认分区中指定区间的记录移入独立表
+     *
+     * @return 移动行数
+     */
+    int moveFromDefault(@Param("defaultPartition") String defaultPartition, @Param("partition") String partition,
+                        @Param("from") long from, @Param("to") long to);
+
+    /**
+     * 将独立表挂载为分区
+     */
+    void attachPartition(@Param("table") String table, @Param("partition") String partition,
+                         @Param("from") long from, @Param("to") long to);
+
+    /**
+     * 分区内是否仍有在途记录
+     */
+    boolean existsLive(@Param("partition") String partition);
+
+    /**
+     * 删除分区
+     */
+    void dropPartition(@Param("partition") String partition);
+
+    /**
+     * 将早于指定时间的一批失败/死信记录移入归档表
+     *
+     * @return 本批移动行数
+     */
+    int moveDeadRecords(@Param("table") String table, @Param("archiveTable") String archiveTable,
+                        @Param("before") long before, @Param("limit") int limit);
+
+    /**
+     * 删除默认分区中早于指定时间的一批已完成记录，在途与失败/死信记录不受影响
+     *
+     * @return 本批删除行数
+     */
+    int deleteExpiredFromDefault(@Param("partition") String partition, @Param("before") long before,
+                                 @Param("limit") int limit);
+}
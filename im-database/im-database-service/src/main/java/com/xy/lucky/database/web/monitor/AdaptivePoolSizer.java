@@ -0,0 +1,90 @@
+package com.xy.lucky.database.web.monitor;
+
+import com.zaxxer.hikari.HikariConfigMXBean;
+import com.zaxxer.hikari.HikariPoolMXBean;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+
+/**
+ * 连接池自适应容量调整（默认关闭）
+ * <p>
+ * 每个周期综合两个信号调整各连接池的 maximumPoolSize，结果限制在 [min-size, max-size]：
+ * <ul>
+ *     <li>语句平均耗时超过 db-slow-ms：数据库已成为瓶颈，增加连接只会加剧排队，按 step 收缩；</li>
+ *     <li>数据库正常但有线程等待连接或平均获取等待超过 wait-high-ms：连接池是瓶颈，按 step 扩容；</li>
+ *     <li>活跃连接低于当前上限的 idle-ratio 且获取无等待：逐个收缩，释放数据库侧连接。</li>
+ * </ul>
+ * 语句耗时来自 {@link SqlMetricsInterceptor} 的全局窗口，分库场景下无法归属到具体连接池。
+ * </p>
+ */
+@Slf4j
+@Component
+@RequiredArgsConstructor
+public class AdaptivePoolSizer {
+
+    private final HikariPoolMonitor hikariPoolMonitor;
+    private final SqlMetricsInterceptor sqlMetricsInterceptor;
+
+    @Value("${database.pool.adaptive.enabled:false}")
+    private boolean enabled;
+    @Value("${database.pool.adaptive.min-size:10}")
+    private int minSize;
+    @Value("${database.pool.adaptive.max-size:100}")
+    private int maxSize;
+    @Value("${database.pool.adaptive.step:5}")
+    private int step;
+    @Value("${database.pool.adaptive.wait-high-ms:10}")
+    private double waitHighMs;
+    @Value("${database.pool.adaptive.db-slow-ms:50}")
+    private double dbSlowMs;
+    @Value("${database.pool.adaptive.idle-ratio:0.5}")
+    private double idleRatio;
+
+    @Scheduled(fixedDelayString = "${database.pool.adaptive.interval-ms:30000}",
+            initialDelayString = "${database.pool.adaptive.initial-delay-ms:60000}")
+    public void adjust() {
+        if (!enabled) {
+            return;
+        }
+        double dbMs = sqlMetricsInterceptor.takeWindowMeanMillis();
+        for (HikariPoolMonitor.PoolHandle handle : hikariPoolMonitor.pools()) {
+            try {
+                adjust(handle, dbMs);
+            } catch (Exception e) {
+                log.warn("[AdaptivePoolSizer] adjust pool {} failed", handle.name(), e);
+            }
+        }
+    }
+
+    private void adjust(HikariPoolMonitor.PoolHandle handle, double dbMs) {
+        HikariPoolMXBean pool = handle.pool();
+        HikariConfigMXBean config = handle.config();
+        int current = config.getMaximumPoolSize();
+        double waitMs = handle.takeWindowAcquireMillis();
+        int pending = pool.getThreadsAwaitingConnection();
+        int active = pool.getActiveConnections();
+
+        int target = current;
+        if (dbMs > dbSlowMs) {
+            target = current - step;
+        } else if (pending > 0 || waitMs > waitHighMs) {
+            target = current + step;
+        } else if (active < current * idleRatio) {
+            target = current - 1;
+        }
+        int lower = Math.max(1, minSize);
+        target = Math.max(lower, Math.min(Math.max(lower, maxSize), target));
+        if (target == current) {
+            return;
+        }
+        if (config.getMinimumIdle() > target) {
+            config.setMinimumIdle(target);
+        }
+        config.setMaximumPoolSize(target);
+        log.info("[AdaptivePoolSizer] pool {} max size {} -> {} (acquire={}ms, pending={}, active={}, db={}ms)",
+                handle.name(), current, target, String.format("%.2f", waitMs), pending, active, String.format("%.2f", dbMs));
+    }
+}
@@ -0,0 +1,145 @@
+package com.xy.lucky.database.web.monitor;
+
+import com.zaxxer.hikari.HikariConfigMXBean;
+import com.zaxxer.hikari.HikariDataSource;
+import com.zaxxer.hikari.HikariPoolMXBean;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Tags;
+import io.micrometer.core.instrument.Timer;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.ObjectProvider;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+
+import javax.management.JMX;
+import javax.management.MBeanServer;
+import javax.management.ObjectName;
+import javax.sql.DataSource;
+import java.lang.management.ManagementFactory;
+import java.util.Collection;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.TimeUnit;
+import java.util.function.ToDoubleFunction;
+
+/**
+ * Hikari 连接池监控
+ * <p>
+ * 同时覆盖两类连接池：Spring 容器中的 HikariDataSource，以及 ShardingSphere 按 YAML 自行创建、
+ * 不在容器中的各物理数据源连接池（需在 YAML 中配置 poolName 与 registerMbeans，经 JMX 发现）。
+ * 每个连接池注册 im_db_pool_* 指标，按 pool 标签区分；获取连接等待时间取自 hikaricp.connections.acquire，
+ * 仅容器内连接池有该指标，ShardingSphere 连接池以等待线程数近似。
+ * </p>
+ */
+@Slf4j
+@Component
+@RequiredArgsConstructor
+public class HikariPoolMonitor {
+
+    private static final String POOL_MBEAN_PREFIX = "com.zaxxer.hikari:type=Pool (";
+
+    private final MeterRegistry meterRegistry;
+    private final ObjectProvider<DataSource> dataSources;
+
+    private final Map<String, PoolHandle> pools = new ConcurrentHashMap<>();
+
+    public Collection<PoolHandle> pools() {
+        return pools.values();
+    }
+
+    /**
+     * 发现新建的连接池；ShardingSphere 连接池在首次初始化后才注册 MBean，因此周期性执行
+     */
+    @Scheduled(fixedDelayString = "${database.metrics.pool.discover-interval-ms:60000}",
+            initialDelayString = "${database.metrics.pool.discover-initial-delay-ms:5000}")
+    public void discover() {
+        dataSources.orderedStream().forEach(dataSource -> {
+            if (dataSource instanceof HikariDataSource hikari && hikari.getHikariPoolMXBean() != null) {
+                register(hikari.getPoolName(), hikari.getHikariPoolMXBean(), hikari.getHikariConfigMXBean());
+            }
+        });
+        try {
+            MBeanServer server = ManagementFactory.getPlatformMBeanServer();
+            for (ObjectName name : server.queryNames(new ObjectName(POOL_MBEAN_PREFIX + "*"), null)) {
+                String canonical = name.getKeyProperty("type");
+                String poolName = canonical.substring("Pool (".length(), canonical.length() - 1);
+                if (pools.containsKey(poolName)) {
+                    continue;
+                }
+                ObjectName configName = new ObjectName("com.zaxxer.hikari:type=PoolConfig (" + poolName + ")");
+                register(poolName,
+                        JMX.newMXBeanProxy(server, name, HikariPoolMXBean.class),
+                        JMX.newMXBeanProxy(server, configName, HikariConfigMXBean.class));
+            }
+        } catch (Exception e) {
+            log.warn("[HikariPoolMonitor] discover pools via JMX failed", e);
+        }
+    }
+
+    private void register(String poolName, HikariPoolMXBean pool, HikariConfigMXBean config) {
+        pools.computeIfAbsent(poolName, name -> {
+            Tags tags = Tags.of("pool", name);
+            gauge("im_db_pool_active", "active connections", tags, pool, HikariPoolMXBean::getActiveConnections);
+            gauge("im_db_pool_idle", "idle connections", tags, pool, HikariPoolMXBean::getIdleConnections);
+            gauge("im_db_pool_pending", "threads awaiting a connection", tags, pool, HikariPoolMXBean::getThreadsAwaitingConnection);
+            gauge("im_db_pool_max", "configured maximum pool size", tags, config, HikariConfigMXBean::getMaximumPoolSize);
+            log.info("[HikariPoolMonitor] monitoring pool {}", name);
+            return new PoolHandle(name, pool, config);
+        });
+    }
+
+    private <T> void gauge(String metric, String description, Tags tags, T target, ToDoubleFunction<T> value) {
+        Gauge.builder(metric, target, value).description(description).tags(tags).register(meterRegistry);
+    }
+
+    /**
+     * 单个连接池的监控句柄，保存获取连接耗时的上一次快照以计算窗口均值
+     */
+    public final class PoolHandle {
+
+        private final String name;
+        private final HikariPoolMXBean pool;
+        private final HikariConfigMXBean config;
+        private long lastAcquireCount;
+        private double lastAcquireNanos;
+
+        private PoolHandle(String name, HikariPoolMXBean pool, HikariConfigMXBean config) {
+            this.name = name;
+            this.pool = pool;
+            this.config = config;
+        }
+
+        public String name() {
+            return name;
+        }
+
+        public HikariPoolMXBean pool() {
+            return pool;
+        }
+
+        public HikariConfigMXBean config() {
+            return config;
+        }
+
+        /**
+         * 取出自上次调用以来获取连接的平均等待时间
+         *
+         * @return 平均等待（毫秒）；无 acquire 指标或窗口内无获取时返回 -1
+         */
+        public synchronized double takeWindowAcquireMillis() {
+            Timer timer = meterRegistry.find("hikaricp.connections.acquire").tag("pool", name).timer();
+            if (timer == null) {
+                return -1;
+            }
+            long count = timer.count();
+            double nanos = timer.totalTime(TimeUnit.NANOSECONDS);
+            long deltaCount = count - lastAcquireCount;
+            double deltaNanos = nanos - lastAcquireNanos;
+            lastAcquireCount = count;
+            lastAcquireNanos = nanos;
+            return deltaCount <= 0 ? -1 : deltaNanos / deltaCount / 1_000_000d;
+        }
+    }
+}
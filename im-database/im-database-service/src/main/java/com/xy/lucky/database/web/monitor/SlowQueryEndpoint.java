@@ -0,0 +1,30 @@
+package com.xy.lucky.database.web.monitor;
+
+import lombok.RequiredArgsConstructor;
+import org.springframework.boot.actuate.endpoint.annotation.DeleteOperation;
+import org.springframework.boot.actuate.endpoint.annotation.Endpoint;
+import org.springframework.boot.actuate.endpoint.annotation.ReadOperation;
+import org.springframework.stereotype.Component;
+
+import java.util.List;
+
+/**
+ * 慢查询样本端点：GET /actuator/slowqueries 查看，DELETE 清空
+ */
+@Component
+@RequiredArgsConstructor
+@Endpoint(id = "slowqueries")
+public class SlowQueryEndpoint {
+
+    private final SlowQuerySampler slowQuerySampler;
+
+    @ReadOperation
+    public List<SlowQuerySampler.SlowQuery> samples() {
+        return slowQuerySampler.recent();
+    }
+
+    @DeleteOperation
+    public void clear() {
+        slowQuerySampler.clear();
+    }
+}
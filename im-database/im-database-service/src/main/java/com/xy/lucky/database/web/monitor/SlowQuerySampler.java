@@ -0,0 +1,156 @@
+package com.xy.lucky.database.web.monitor;
+
+import lombok.extern.slf4j.Slf4j;
+import org.apache.ibatis.mapping.BoundSql;
+import org.apache.ibatis.mapping.MappedStatement;
+import org.apache.ibatis.mapping.ParameterMapping;
+import org.apache.ibatis.reflection.MetaObject;
+import org.apache.ibatis.session.Configuration;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentLinkedDeque;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * 慢查询采样器
+ * <p>
+ * 耗时超过阈值的语句按 statement 限频采样，记录带参数的 SQL、耗时与行数，保留最近 capacity 条，
+ * 通过 actuator 端点 slowqueries 查看。参数渲染在采样命中后才执行，正常路径只有一次阈值比较。
+ * 告警日志只记语句 id、耗时与行数，带参数的 SQL 仅在 DEBUG 级别输出，完整内容从端点获取。
+ * </p>
+ */
+@Slf4j
+@Component
+public class SlowQuerySampler {
+
+    private final ConcurrentLinkedDeque<SlowQuery> samples = new ConcurrentLinkedDeque<>();
+    private final AtomicInteger size = new AtomicInteger();
+    private final Map<String, Long> lastSampledAt = new ConcurrentHashMap<>();
+
+    @Value("${database.metrics.slow-query.enabled:true}")
+    private boolean enabled;
+    @Value("${database.metrics.slow-query.threshold-ms:500}")
+    private long thresholdMs;
+    /**
+     * 同一语句两次采样的最小间隔，避免慢查询风暴时日志与内存被同一条语句占满
+     */
+    @Value("${database.metrics.slow-query.min-interval-ms:10000}")
+    private long minIntervalMs;
+    @Value("${database.metrics.slow-query.capacity:200}")
+    private int capacity;
+    @Value("${database.metrics.slow-query.max-param-length:256}")
+    private int maxParamLength;
+
+    /**
+     * 提交一次语句执行结果，未超过阈值或处于限频窗口内时直接返回
+     */
+    public void offer(MappedStatement statement, Object parameter, long elapsedNanos, long rows) {
+        if (!enabled || elapsedNanos < TimeUnit.MILLISECONDS.toNanos(thresholdMs)) {
+            return;
+        }
+        long now = System.currentTimeMillis();
+        String id = statement.getId();
+        Long last = lastSampledAt.get(id);
+        if (last != null && now - last < minIntervalMs) {
+            return;
+        }
+        lastSampledAt.put(id, now);
+
+        long elapsedMs = TimeUnit.NANOSECONDS.toMillis(elapsedNanos);
+        String sql;
+        try {
+            sql = render(statement, parameter);
+        } catch (Exception e) {
+            sql = "<render failed: " + e.getMessage() + ">";
+        }
+        samples.addFirst(new SlowQuery(id, elapsedMs, rows, sql, now));
+        if (size.incrementAndGet() > Math.max(1, capacity) && samples.pollLast() != null) {
+            size.decrementAndGet();
+        }
+        log.warn("[SlowQuerySampler] {} took {}ms, rows={}", id, elapsedMs, rows);
+        if (log.isDebugEnabled()) {
+            log.debug("[SlowQuerySampler] {} sql: {}", id, sql);
+        }
+    }
+
+    /**
+     * 最近的慢查询样本，按时间倒序
+     */
+    public List<SlowQuery> recent() {
+        return new ArrayList<>(samples);
+    }
+
+    public void clear() {
+        samples.clear();
+        size.set(0);
+        lastSampledAt.clear();
+    }
+
+    /**
+     * 将占位符替换为实际参数，超长参数（如消息体 JSON）截断
+     */
+    private String render(MappedStatement statement, Object parameter) {
+        BoundSql boundSql = statement.getBoundSql(parameter);
+        String sql = boundSql.getSql().replaceAll("\\s+", " ");
+        List<ParameterMapping> mappings = boundSql.getParameterMappings();
+        if (mappings == null || mappings.isEmpty()) {
+            return sql;
+        }
+        Configuration configuration = statement.getConfiguration();
+        MetaObject metaObject = parameter == null ? null : configuration.newMetaObject(parameter);
+        StringBuilder builder = new StringBuilder(sql.length() + mappings.size() * 16);
+        int from = 0;
+        for (ParameterMapping mapping : mappings) {
+            int index = sql.indexOf('?', from);
+            if (index < 0) {
+                break;
+            }
+            builder.append(sql, from, index).append(format(valueOf(mapping.getProperty(), parameter, boundSql, metaObject, configuration)));
+            from = index + 1;
+        }
+        return builder.append(sql, from, sql.length()).toString();
+    }
+
+    private static Object valueOf(String property, Object parameter, BoundSql boundSql, MetaObject metaObject,
+                                  Configuration configuration) {
+        if (boundSql.hasAdditionalParameter(property)) {
+            return boundSql.getAdditionalParameter(property);
+        }
+        if (parameter == null) {
+            return null;
+        }
+        if (configuration.getTypeHandlerRegistry().hasTypeHandler(parameter.getClass())) {
+            return parameter;
+        }
+        return metaObject.hasGetter(property) ? metaObject.getValue(property) : null;
+    }
+
+    private String format(Object value) {
+        if (value == null) {
+            return "NULL";
+        }
+        String text = String.valueOf(value);
+        if (text.length() > maxParamLength) {
+            text = text.substring(0, maxParamLength) + "...(" + text.length() + " chars)";
+        }
+        return value instanceof Number || value instanceof Boolean ? text : "'" + text + "'";
+    }
+
+    /**
+     * 慢查询样本
+     *
+     * @param statement Mapper 语句 id
+     * @param elapsedMs 耗时（毫秒）
+     * @param rows      返回/影响行数，未知为 -1
+     * @param sql       带参数的 SQL
+     * @param sampledAt 采样时间
+     */
+    public record SlowQuery(String statement, long elapsedMs, long rows, String sql, long sampledAt) {
+    }
+}
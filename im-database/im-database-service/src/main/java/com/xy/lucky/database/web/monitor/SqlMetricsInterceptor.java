@@ -0,0 +1,129 @@
+package com.xy.lucky.database.web.monitor;
+
+import io.micrometer.core.instrument.DistributionSummary;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import lombok.RequiredArgsConstructor;
+import org.apache.ibatis.cache.CacheKey;
+import org.apache.ibatis.executor.Executor;
+import org.apache.ibatis.mapping.BoundSql;
+import org.apache.ibatis.mapping.MappedStatement;
+import org.apache.ibatis.plugin.Interceptor;
+import org.apache.ibatis.plugin.Intercepts;
+import org.apache.ibatis.plugin.Invocation;
+import org.apache.ibatis.plugin.Signature;
+import org.apache.ibatis.session.ResultHandler;
+import org.apache.ibatis.session.RowBounds;
+import org.springframework.core.Ordered;
+import org.springframework.core.annotation.Order;
+import org.springframework.stereotype.Component;
+
+import java.time.Duration;
+import java.util.Collection;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Mapper 语句级指标拦截器
+ * <p>
+ * 按 MappedStatement id 记录执行耗时（im_db_statement_latency）与影响/返回行数（im_db_statement_rows），
+ * 分桶使用固定 SLO 边界而非百分位直方图，控制时间序列数量；超过阈值的语句交给 {@link SlowQuerySampler} 采样。
+ * 同时累计全局耗时窗口，供 {@link AdaptivePoolSizer} 判断数据库响应是否变慢。
+ * 同时拦截 6 参数的 query：MybatisPlusInterceptor 包装执行器后以该重载调用被包装对象，
+ * 本拦截器排在最外层（最低优先级最后织入），内外层顺序固定，任一层都不会漏记或重复记录。
+ * </p>
+ */
+@Component
+@RequiredArgsConstructor
+@Order(Ordered.LOWEST_PRECEDENCE)
+@Intercepts({
+        @Signature(type = Executor.class, method = "query", args = {
+                MappedStatement.class, Object.class, RowBounds.class, ResultHandler.class}),
+        @Signature(type = Executor.class, method = "query", args = {
+                MappedStatement.class, Object.class, RowBounds.class, ResultHandler.class, CacheKey.class, BoundSql.class}),
+        @Signature(type = Executor.class, method = "update", args = {
+                MappedStatement.class, Object.class})
+})
+public class SqlMetricsInterceptor implements Interceptor {
+
+    private static final Duration[] LATENCY_SLO = {
+            Duration.ofMillis(1), Duration.ofMillis(5), Duration.ofMillis(10), Duration.ofMillis(25),
+            Duration.ofMillis(50), Duration.ofMillis(100), Duration.ofMillis(250), Duration.ofMillis(500),
+            Duration.ofSeconds(1), Duration.ofSeconds(2), Duration.ofSeconds(5)
+    };
+    private static final double[] ROWS_SLO = {1, 10, 100, 1000, 10000};
+
+    private final MeterRegistry meterRegistry;
+    private final SlowQuerySampler slowQuerySampler;
+
+    private final Map<String, Timer> timers = new ConcurrentHashMap<>();
+    private final Map<String, DistributionSummary> rowSummaries = new ConcurrentHashMap<>();
+
+    private final LongAdder windowNanos = new LongAdder();
+    private final LongAdder windowCount = new LongAdder();
+
+    @Override
+    public Object intercept(Invocation invocation) throws Throwable {
+        MappedStatement statement = (MappedStatement) invocation.getArgs()[0];
+        long start = System.nanoTime();
+        Object result = null;
+        try {
+            result = invocation.proceed();
+            return result;
+        } finally {
+            long elapsed = System.nanoTime() - start;
+            windowNanos.add(elapsed);
+            windowCount.increment();
+            timerOf(statement).record(elapsed, TimeUnit.NANOSECONDS);
+            long rows = rowsOf(result);
+            if (rows >= 0) {
+                rowsOf(statement).record(rows);
+            }
+            slowQuerySampler.offer(statement, invocation.getArgs()[1], elapsed, rows);
+        }
+    }
+
+    /**
+     * 取出自上次调用以来的平均语句耗时并重置窗口
+     *
+     * @return 平均耗时（毫秒），窗口内无语句执行时返回 -1
+     */
+    public double takeWindowMeanMillis() {
+        long count = windowCount.sumThenReset();
+        long nanos = windowNanos.sumThenReset();
+        return count == 0 ? -1 : nanos / (double) count / 1_000_000d;
+    }
+
+    private Timer timerOf(MappedStatement statement) {
+        return timers.computeIfAbsent(statement.getId(), id -> Timer.builder("im_db_statement_latency")
+                .description("mapper statement latency")
+                .tag("statement", id)
+                .tag("type", statement.getSqlCommandType().name())
+                .serviceLevelObjectives(LATENCY_SLO)
+                .register(meterRegistry));
+    }
+
+    private DistributionSummary rowsOf(MappedStatement statement) {
+        return rowSummaries.computeIfAbsent(statement.getId(), id -> DistributionSummary.builder("im_db_statement_rows")
+                .description("mapper statement returned or affected rows")
+                .tag("statement", id)
+                .tag("type", statement.getSqlCommandType().name())
+                .serviceLevelObjectives(ROWS_SLO)
+                .register(meterRegistry));
+    }
+
+    /**
+     * 查询取结果集大小，更新取影响行数；批量执行器返回的占位值为负数，不计入
+     */
+    private static long rowsOf(Object result) {
+        if (result instanceof Collection<?> collection) {
+            return collection.size();
+        }
+        if (result instanceof Integer affected) {
+            return affected;
+        }
+        return -1;
+    }
+}
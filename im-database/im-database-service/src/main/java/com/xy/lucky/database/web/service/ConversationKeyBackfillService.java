@@ -0,0 +1,106 @@
+package com.xy.lucky.database.web.service;
+
+import com.xy.lucky.database.web.mapper.ImSingleMessageMapper;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.redisson.api.RBucket;
+import org.redisson.api.RLock;
+import org.redisson.api.RedissonClient;
+import org.redisson.client.codec.StringCodec;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+
+/**
+ * 单聊消息会话键（conversation_key）回填
+ * <p>
+ * - 历史消息的 conversation_key 为空，由定时任务分批回填热表与归档表；回填在分布式锁内执行，同一时刻只有一个实例在跑
+ * - 热表与归档表均无空值后在 Redis 写入完成标记，各实例据此切换到按会话键查询；
+ * 完成前读路径使用 (from_id, to_id) 双向条件，回填过程中不会漏查历史消息
+ * - 完成后仍按轮回填热表，走部分索引的空查询，兜底未经自动填充写入的行
+ * </p>
+ */
+@Slf4j
+@Service
+@RequiredArgsConstructor
+public class ConversationKeyBackfillService {
+
+    private static final String BACKFILL_LOCK_KEY = "im:database:single:conversation-key:backfill:lock";
+
+    private static final String BACKFILL_DONE_KEY = "im:database:single:conversation-key:backfill:done";
+
+    private final ImSingleMessageMapper imSingleMessageMapper;
+
+    private final RedissonClient redissonClient;
+
+    @Value("${single.message.conversation-key.backfill.enabled:true}")
+    private boolean backfillEnabled;
+    @Value("${single.message.conversation-key.backfill.batch-size:5000}")
+    private int backfillBatchSize;
+
+    /**
+     * 本实例是否已确认回填完成，完成后不再变化
+     */
+    private volatile boolean ready;
+
+    /**
+     * 读路径能否只按 conversation_key 过滤
+     */
+    public boolean isReady() {
+        return ready;
+    }
+
+    /**
+     * 分批回填历史消息的会话键；未抢到锁的实例只同步完成标记
+     */
+    @Scheduled(
+            fixedDelayString = "${single.message.conversation-key.backfill.fixed-delay-ms:600000}",
+            initialDelayString = "${single.message.conversation-key.backfill.initial-delay-ms:30000}"
+    )
+    public void backfill() {
+        RBucket<String> done = redissonClient.getBucket(BACKFILL_DONE_KEY, StringCodec.INSTANCE);
+        if (!ready && done.isExists()) {
+            ready = true;
+            log.info("[ConversationKeyBackfill] backfill completed, switched to conversation_key predicates");
+        }
+        if (!backfillEnabled) {
+            return;
+        }
+        RLock lock = redissonClient.getLock(BACKFILL_LOCK_KEY);
+        if (!lock.tryLock()) {
+            return;
+        }
+        try {
+            long hot = backfillTable(MessageArchiveService.SINGLE_MESSAGE_TABLE);
+            if (ready) {
+                return;
+            }
+            long archived = backfillTable(MessageArchiveService.SINGLE_MESSAGE_ARCHIVE_TABLE);
+            // 两表都已回填完，且本轮期间没有新的空值写入
+            if (imSingleMessageMapper.existsNullConversationKey(MessageArchiveService.SINGLE_MESSAGE_TABLE) == null
+                    && imSingleMessageMapper.existsNullConversationKey(MessageArchiveService.SINGLE_MESSAGE_ARCHIVE_TABLE) == null) {
+                done.set(String.valueOf(System.currentTimeMillis()));
+                ready = true;
+                log.info("[ConversationKeyBackfill] backfill completed, hot={}, archived={}", hot, archived);
+            }
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    private long backfillTable(String table) {
+        int batchSize = Math.max(100, backfillBatchSize);
+        long total = 0;
+        while (true) {
+            int updated = imSingleMessageMapper.backfillConversationKey(table, batchSize);
+            total += updated;
+            if (updated < batchSize) {
+                break;
+            }
+        }
+        if (total > 0) {
+            log.info("[ConversationKeyBackfill] backfilled conversation_key for {} rows in {}", total, table);
+        }
+        return total;
+    }
+}
@@ -4,19 +4,29 @@ import com.baomidou.mybatisplus.core.conditions.Wrapper;
 import com.baomidou.mybatisplus.core.toolkit.Wrappers;
 import com.baomidou.mybatisplus.extension.service.impl.ServiceImpl;
 import com.xy.lucky.database.web.mapper.IMOutboxPoMapper;
+import com.xy.lucky.database.web.utils.MybatisBatchExecutor;
 import com.xy.lucky.domain.po.IMOutboxPo;
 import com.xy.lucky.rpc.api.database.outbox.IMOutboxDubboService;
 import lombok.RequiredArgsConstructor;
 import org.apache.dubbo.config.annotation.DubboService;
+import org.springframework.util.CollectionUtils;
 
 import java.util.List;
+import java.util.Objects;
+import java.util.Set;
 
 
 @DubboService
 @RequiredArgsConstructor
 public class IMOutboxService extends ServiceImpl<IMOutboxPoMapper, IMOutboxPo> implements IMOutboxDubboService {
 
+    /**
+     * 在途状态，与部分索引 idx_outbox_live_next_try_at 的谓词保持一致
+     */
+    private static final Set<String> LIVE_STATUSES = Set.of("PENDING", "SENT");
+
     private final IMOutboxPoMapper imOutboxPoMapper;
+    private final MybatisBatchExecutor batchExecutor;
 
     @Override
     public List<IMOutboxPo> queryList() {
@@ -83,8 +93,10 @@ public class IMOutboxService extends ServiceImpl<IMOutboxPoMapper, IMOutboxPo> i
         int lim = limit == null ? 100 : limit;
         lim = Math.max(1, Math.min(lim, 1000));
 
+        // 在途状态按 next_try_at 排序，命中部分索引 idx_outbox_live_next_try_at，最早到期的记录优先
         Wrapper<IMOutboxPo> updateWrapper = Wrappers.<IMOutboxPo>lambdaQuery()
                 .eq(IMOutboxPo::getStatus, s)
+                .orderByAsc(LIVE_STATUSES.contains(s), IMOutboxPo::getNextTryAt, IMOutboxPo::getId)
                 .last("limit " + lim);
         return super.list(updateWrapper);
     }
@@ -119,4 +131,54 @@ public class IMOutboxService extends ServiceImpl<IMOutboxPoMapper, IMOutboxPo> i
         return super.update(updateWrapper);
     }
 
+    @Override
+    public Boolean modifyStatusBatch(List<IMOutboxPo> list, List<String> fromStatuses) {
+        if (CollectionUtils.isEmpty(list) || CollectionUtils.isEmpty(fromStatuses)) {
+            return false;
+        }
+        List<String> from = fromStatuses.stream()
+                .filter(Objects::nonNull)
+                .map(s -> s.trim().toUpperCase())
+                .distinct()
+                .toList();
+        List<IMOutboxPo> updates = list.stream()
+                .filter(po -> po != null && po.getId() != null && po.getStatus() != null)
+                .map(po -> po.setStatus(po.getStatus().trim().toUpperCase())
+                        .setAttempts(po.getAttempts() == null ? 0 : Math.max(0, po.getAttempts()))
+                        .setLastError(trimError(po.getLastError())))
+                .toList();
+        if (updates.isEmpty() || from.isEmpty()) {
+            return false;
+        }
+        batchExecutor.batchSave(updates, IMOutboxPoMapper.class,
+                (mapper, po) -> mapper.updateStatusIfMatch(po, from));
+        return true;
+    }
+
+    @Override
+    public Boolean modifyStatusByMessageIds(List<String> messageIds, String fromStatus, String targetStatus, Long updatedAt) {
+        if (CollectionUtils.isEmpty(messageIds)) {
+            return false;
+        }
+        List<String> messages = messageIds.stream()
+                .filter(Objects::nonNull)
+                .map(String::trim)
+                .distinct()
+                .toList();
+        String from = fromStatus == null ? null : fromStatus.trim().toUpperCase();
+        String target = targetStatus == null ? null : targetStatus.trim().toUpperCase();
+        if (messages.isEmpty() || from == null || target == null) {
+            return false;
+        }
+        Wrapper<IMOutboxPo> updateWrapper = Wrappers.<IMOutboxPo>lambdaUpdate()
+                .in(IMOutboxPo::getMessageId, messages)
+                .eq(IMOutboxPo::getStatus, from)
+                .set(IMOutboxPo::getStatus, target)
+                .set(IMOutboxPo::getUpdatedAt, updatedAt);
+        return super.update(updateWrapper);
+    }
+
+    private String trimError(String lastError) {
+        return lastError == null ? null : (lastError.length() > 1024 ? lastError.substring(0, 1024) : lastError);
+    }
 }
@@ -3,12 +3,23 @@ package com.xy.lucky.database.web.service;
 import com.baomidou.mybatisplus.core.conditions.query.LambdaQueryWrapper;
 import com.baomidou.mybatisplus.core.toolkit.Wrappers;
 import com.baomidou.mybatisplus.extension.service.impl.ServiceImpl;
+import com.xy.lucky.core.enums.IMessageReadStatus;
+import com.xy.lucky.core.enums.IMessageType;
 import com.xy.lucky.database.web.mapper.ImChatMapper;
+import com.xy.lucky.database.web.utils.MybatisBatchExecutor;
+import com.xy.lucky.domain.CursorPage;
 import com.xy.lucky.domain.po.ImChatPo;
 import com.xy.lucky.rpc.api.database.chat.ImChatDubboService;
 import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
 import org.apache.dubbo.config.annotation.DubboService;
+import org.redisson.api.RBucket;
+import org.redisson.api.RLock;
+import org.redisson.api.RedissonClient;
+import org.redisson.client.codec.StringCodec;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.util.CollectionUtils;
 
 import java.util.List;
 import java.util.Objects;
@@ -21,8 +32,29 @@ import java.util.UUID;
 public class ImChatService extends ServiceImpl<ImChatMapper, ImChatPo>
         implements ImChatDubboService {
 
+    /**
+     * 投影校正任务锁，多实例部署时每轮只由一个实例执行
+     */
+    private static final String REBUILD_LOCK_KEY = "im:database:chat:projection:rebuild:lock";
+
+    /**
+     * 投影校正任务的遍历位置，按 owner_id 顺序逐轮推进，遍历完一遍后从头开始；存于 Redis，由各实例接力推进
+     */
+    private static final String REBUILD_CURSOR_KEY = "im:database:chat:projection:rebuild:cursor";
+
     private final ImChatMapper imChatMapper;
 
+    private final MybatisBatchExecutor batchExecutor;
+
+    private final RedissonClient redissonClient;
+
+    private final ConversationKeyBackfillService conversationKeyBackfillService;
+
+    @Value("${chat.projection.rebuild.enabled:true}")
+    private boolean rebuildEnabled;
+    @Value("${chat.projection.rebuild.owners-per-round:200}")
+    private int rebuildOwnersPerRound;
+
     @Override
     public List<ImChatPo> queryList(String ownerId, Long sequence) {
         return imChatMapper.getChatList(ownerId, sequence);
@@ -65,6 +97,123 @@ public class ImChatService extends ServiceImpl<ImChatMapper, ImChatPo>
         return imChatMapper.upsertSequence(ownerId, toId, chatType, sequence, chatId) > 0;
     }
 
+    @Override
+    public Boolean batchInsert(List<ImChatPo> list) {
+        if (CollectionUtils.isEmpty(list)) {
+            return false;
+        }
+        batchExecutor.batchSave(list, ImChatMapper.class, ImChatMapper::insert);
+        return true;
+    }
+
+    @Override
+    public Boolean batchUpsert(List<ImChatPo> list) {
+        if (CollectionUtils.isEmpty(list)) {
+            return false;
+        }
+        batchExecutor.batchSave(list, ImChatMapper.class, ImChatMapper::upsert);
+        return true;
+    }
+
+    @Override
+    public List<ImChatPo> batchQueryByIds(List<String> ids) {
+        return batchExecutor.queryInChunks(ids, super::listByIds);
+    }
+
+    @Override
+    public Boolean batchUpsertSequence(List<ImChatPo> list) {
+        if (CollectionUtils.isEmpty(list)) {
+            return false;
+        }
+        batchExecutor.batchSave(list, ImChatMapper.class, (mapper, chat) -> mapper.upsertSequence(
+                chat.getOwnerId(), chat.getToId(), chat.getChatType(), chat.getSequence(),
+                (chat.getChatId() == null || chat.getChatId().isBlank()) ? UUID.randomUUID().toString() : chat.getChatId()));
+        return true;
+    }
+
+    @Override
+    public CursorPage<ImChatPo> queryPage(String ownerId, String cursor, Integer pageSize) {
+        int size = CursorPage.normalizePageSize(pageSize);
+        CursorPage.Cursor position = CursorPage.decodeCursor(cursor);
+        Long beforeTime = position != null ? position.messageTime() : null;
+        String beforeId = position != null ? position.messageId() : null;
+        List<ImChatPo> fetched = imChatMapper.selectChatPage(ownerId, beforeTime, beforeId, size + 1);
+        return CursorPage.of(fetched, size, ImChatPo::getLastMessageTime, ImChatPo::getChatId);
+    }
+
+    @Override
+    public Boolean batchUpsertProjection(List<ImChatPo> list) {
+        if (CollectionUtils.isEmpty(list)) {
+            return false;
+        }
+        batchExecutor.batchSave(list, ImChatMapper.class, (mapper, chat) -> {
+            if (chat.getChatId() == null || chat.getChatId().isBlank()) {
+                chat.setChatId(UUID.randomUUID().toString());
+            }
+            if (chat.getLastMessageTime() == null) {
+                chat.setLastMessageTime(0L);
+            }
+            if (chat.getUnreadCount() == null) {
+                chat.setUnreadCount(0);
+            }
+            mapper.upsertProjection(chat);
+        });
+        return true;
+    }
+
+    @Override
+    public Boolean clearUnread(String ownerId, String toId, Integer chatType) {
+        return imChatMapper.clearUnread(ownerId, toId, chatType) > 0;
+    }
+
+    @Override
+    public Integer rebuildProjection(String ownerId) {
+        Integer unread = IMessageReadStatus.UNREAD.getCode();
+        return imChatMapper.rebuildSingleProjection(ownerId, IMessageType.SINGLE_MESSAGE.getCode(), unread,
+                conversationKeyBackfillService.isReady())
+                + imChatMapper.rebuildGroupProjection(ownerId, IMessageType.GROUP_MESSAGE.getCode(), unread);
+    }
+
+    /**
+     * 会话投影校正：每轮按 owner_id 顺序从消息表重算一批用户的最后消息与未读数，修正增量更新丢失或重复造成的漂移
+     */
+    @Scheduled(
+            fixedDelayString = "${chat.projection.rebuild.fixed-delay-ms:60000}",
+            initialDelayString = "${chat.projection.rebuild.initial-delay-ms:60000}"
+    )
+    public void rebuildProjections() {
+        if (!rebuildEnabled) {
+            return;
+        }
+        RLock lock = redissonClient.getLock(REBUILD_LOCK_KEY);
+        if (!lock.tryLock()) {
+            return;
+        }
+        try {
+            RBucket<String> cursor = redissonClient.getBucket(REBUILD_CURSOR_KEY, StringCodec.INSTANCE);
+            int limit = Math.max(1, rebuildOwnersPerRound);
+            List<String> owners = imChatMapper.selectOwnerIdsAfter(cursor.get(), limit);
+            int rows = 0;
+            for (String ownerId : owners) {
+                try {
+                    rows += rebuildProjection(ownerId);
+                } catch (Exception e) {
+                    log.error("[ImChatService] rebuild chat projection failed, ownerId={}", ownerId, e);
+                }
+            }
+            if (owners.size() < limit) {
+                cursor.delete();
+            } else {
+                cursor.set(owners.get(owners.size() - 1));
+            }
+            if (rows > 0) {
+                log.debug("[ImChatService] rebuilt chat projection for {} owners, {} chats", owners.size(), rows);
+            }
+        } finally {
+            lock.unlock();
+        }
+    }
+
 
 //     
 //    public void read(ChatDto chatDto) {
@@ -25,6 +25,11 @@ public class ImFriendshipService extends ServiceImpl<ImFriendshipMapper, ImFrien
         return imFriendshipMapper.selectFriendList(ownerId, sequence);
     }
 
+    @Override
+    public List<String> queryFriendIds(String ownerId) {
+        return imFriendshipMapper.selectFriendIds(ownerId);
+    }
+
     @Override
     public List<ImFriendshipPo> queryListByIds(String ownerId, List<String> ids) {
         Wrapper<ImFriendshipPo> queryWrapper = Wrappers.<ImFriendshipPo>lambdaQuery()
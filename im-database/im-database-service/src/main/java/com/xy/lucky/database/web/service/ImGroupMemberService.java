@@ -4,10 +4,12 @@ import com.baomidou.mybatisplus.core.conditions.Wrapper;
 import com.baomidou.mybatisplus.core.toolkit.Wrappers;
 import com.baomidou.mybatisplus.extension.service.impl.ServiceImpl;
 import com.xy.lucky.database.web.mapper.ImGroupMemberMapper;
+import com.xy.lucky.database.web.utils.MybatisBatchExecutor;
 import com.xy.lucky.domain.po.ImGroupMemberPo;
 import com.xy.lucky.rpc.api.database.group.ImGroupMemberDubboService;
 import lombok.RequiredArgsConstructor;
 import org.apache.dubbo.config.annotation.DubboService;
+import org.springframework.util.CollectionUtils;
 
 import java.util.List;
 
@@ -23,6 +25,8 @@ public class ImGroupMemberService extends ServiceImpl<ImGroupMemberMapper, ImGro
 
     private final ImGroupMemberMapper imGroupMemberMapper;
 
+    private final MybatisBatchExecutor batchExecutor;
+
     @Override
     public List<ImGroupMemberPo> queryList(String groupId) {
         Wrapper<ImGroupMemberPo> queryWrapper = Wrappers.<ImGroupMemberPo>lambdaQuery()
@@ -71,6 +75,29 @@ public class ImGroupMemberService extends ServiceImpl<ImGroupMemberMapper, ImGro
         return super.saveOrUpdateBatch(groupMemberList);
     }
 
+    @Override
+    public Boolean batchInsert(List<ImGroupMemberPo> list) {
+        if (CollectionUtils.isEmpty(list)) {
+            return false;
+        }
+        batchExecutor.batchSave(list, ImGroupMemberMapper.class, ImGroupMemberMapper::insert);
+        return true;
+    }
+
+    @Override
+    public Boolean batchUpsert(List<ImGroupMemberPo> list) {
+        if (CollectionUtils.isEmpty(list)) {
+            return false;
+        }
+        batchExecutor.batchSave(list, ImGroupMemberMapper.class, ImGroupMemberMapper::upsert);
+        return true;
+    }
+
+    @Override
+    public List<ImGroupMemberPo> batchQueryByIds(List<String> ids) {
+        return batchExecutor.queryInChunks(ids, super::listByIds);
+    }
+
     @Override
     public Boolean removeOne(String memberId) {
         return super.removeById(memberId);
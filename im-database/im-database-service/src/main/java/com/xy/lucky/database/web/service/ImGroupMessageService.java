@@ -4,11 +4,14 @@ import com.baomidou.mybatisplus.core.conditions.update.LambdaUpdateWrapper;
 import com.baomidou.mybatisplus.extension.service.impl.ServiceImpl;
 import com.xy.lucky.database.web.mapper.ImGroupMessageMapper;
 import com.xy.lucky.database.web.mapper.ImGroupMessageStatusMapper;
+import com.xy.lucky.database.web.utils.MybatisBatchExecutor;
+import com.xy.lucky.domain.CursorPage;
 import com.xy.lucky.domain.po.ImGroupMessagePo;
 import com.xy.lucky.domain.po.ImGroupMessageStatusPo;
 import com.xy.lucky.rpc.api.database.message.ImGroupMessageDubboService;
 import lombok.RequiredArgsConstructor;
 import org.apache.dubbo.config.annotation.DubboService;
+import org.springframework.util.CollectionUtils;
 
 import java.util.List;
 
@@ -19,16 +22,32 @@ public class ImGroupMessageService extends ServiceImpl<ImGroupMessageMapper, ImG
 
     private final ImGroupMessageMapper imGroupMessageMapper;
 
+    private final MessageArchiveService messageArchiveService;
+
     private final ImGroupMessageStatusMapper imGroupMessageStatusMapper;
 
+    private final MybatisBatchExecutor batchExecutor;
+
     @Override
     public List<ImGroupMessagePo> queryList(String userId, Long sequence) {
-        return imGroupMessageMapper.selectGroupMessage(userId, sequence);
+        return imGroupMessageMapper.selectGroupMessage(userId, sequence, messageArchiveService.includesArchive(sequence));
+    }
+
+    @Override
+    public CursorPage<ImGroupMessagePo> queryPage(String userId, Long sequence, String cursor, Integer pageSize) {
+        int size = CursorPage.normalizePageSize(pageSize);
+        CursorPage.Cursor position = CursorPage.decodeCursor(cursor);
+        Long afterTime = position != null ? position.messageTime() : (sequence != null ? sequence : 0L);
+        String afterId = position != null ? position.messageId() : null;
+        List<ImGroupMessagePo> fetched = imGroupMessageMapper.selectGroupMessagePage(userId, afterTime, afterId, size + 1,
+                messageArchiveService.includesArchive(afterTime));
+        return CursorPage.of(fetched, size, ImGroupMessagePo::getMessageTime, ImGroupMessagePo::getMessageId);
     }
 
     @Override
     public ImGroupMessagePo queryOne(String messageId) {
-        return super.getById(messageId);
+        ImGroupMessagePo messagePo = super.getById(messageId);
+        return messagePo != null ? messagePo : imGroupMessageMapper.selectArchivedGroupMessage(messageId);
     }
 
     @Override
@@ -41,6 +60,20 @@ public class ImGroupMessageService extends ServiceImpl<ImGroupMessageMapper, ImG
         return !imGroupMessageStatusMapper.insert(groupMessagePoList).isEmpty();
     }
 
+    @Override
+    public List<ImGroupMessagePo> batchQueryByIds(List<String> ids) {
+        return batchExecutor.queryInChunks(ids, super::listByIds);
+    }
+
+    @Override
+    public boolean batchUpsertStatus(List<ImGroupMessageStatusPo> list) {
+        if (CollectionUtils.isEmpty(list)) {
+            return false;
+        }
+        batchExecutor.batchSave(list, ImGroupMessageStatusMapper.class, ImGroupMessageStatusMapper::upsert);
+        return true;
+    }
+
     @Override
     public boolean modify(ImGroupMessagePo groupMessagePo) {
         return super.updateById(groupMessagePo);
@@ -62,7 +95,8 @@ public class ImGroupMessageService extends ServiceImpl<ImGroupMessageMapper, ImG
 
     @Override
     public ImGroupMessagePo queryLast(String userId, String groupId) {
-        return imGroupMessageMapper.selectLastGroupMessage(userId, groupId);
+        ImGroupMessagePo messagePo = imGroupMessageMapper.selectLastGroupMessage(userId, groupId, false);
+        return messagePo != null ? messagePo : imGroupMessageMapper.selectLastGroupMessage(userId, groupId, true);
     }
 
 
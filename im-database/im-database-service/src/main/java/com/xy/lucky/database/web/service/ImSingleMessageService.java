@@ -3,10 +3,13 @@ package com.xy.lucky.database.web.service;
 import com.baomidou.mybatisplus.core.conditions.update.LambdaUpdateWrapper;
 import com.baomidou.mybatisplus.extension.service.impl.ServiceImpl;
 import com.xy.lucky.database.web.mapper.ImSingleMessageMapper;
+import com.xy.lucky.database.web.utils.MybatisBatchExecutor;
+import com.xy.lucky.domain.CursorPage;
 import com.xy.lucky.domain.po.ImSingleMessagePo;
 import com.xy.lucky.rpc.api.database.message.ImSingleMessageDubboService;
 import lombok.RequiredArgsConstructor;
 import org.apache.dubbo.config.annotation.DubboService;
+import org.springframework.util.CollectionUtils;
 
 import java.util.List;
 
@@ -17,15 +20,33 @@ public class ImSingleMessageService extends ServiceImpl<ImSingleMessageMapper, I
 
     private final ImSingleMessageMapper imSingleMessageMapper;
 
+    private final MybatisBatchExecutor batchExecutor;
+
+    private final MessageArchiveService messageArchiveService;
+
+    private final ConversationKeyBackfillService conversationKeyBackfillService;
+
 
     @Override
     public List<ImSingleMessagePo> queryList(String userId, Long sequence) {
-        return imSingleMessageMapper.selectSingleMessage(userId, sequence);
+        return imSingleMessageMapper.selectSingleMessage(userId, sequence, messageArchiveService.includesArchive(sequence));
+    }
+
+    @Override
+    public CursorPage<ImSingleMessagePo> queryPage(String userId, Long sequence, String cursor, Integer pageSize) {
+        int size = CursorPage.normalizePageSize(pageSize);
+        CursorPage.Cursor position = CursorPage.decodeCursor(cursor);
+        Long afterTime = position != null ? position.messageTime() : (sequence != null ? sequence : 0L);
+        String afterId = position != null ? position.messageId() : null;
+        List<ImSingleMessagePo> fetched = imSingleMessageMapper.selectSingleMessagePage(userId, afterTime, afterId, size + 1,
+                messageArchiveService.includesArchive(afterTime));
+        return CursorPage.of(fetched, size, ImSingleMessagePo::getMessageTime, ImSingleMessagePo::getMessageId);
     }
 
     @Override
     public ImSingleMessagePo queryOne(String messageId) {
-        return super.getById(messageId);
+        ImSingleMessagePo messagePo = super.getById(messageId);
+        return messagePo != null ? messagePo : imSingleMessageMapper.selectArchivedSingleMessage(messageId);
     }
 
     @Override
@@ -45,13 +66,17 @@ public class ImSingleMessageService extends ServiceImpl<ImSingleMessageMapper, I
 
     @Override
     public Boolean modifyReadStatus(ImSingleMessagePo singleMessagePo) {
+        String fromId = singleMessagePo.getFromId();
+        String toId = singleMessagePo.getToId();
         LambdaUpdateWrapper<ImSingleMessagePo> updateWrapper = new LambdaUpdateWrapper<>();
-        updateWrapper.eq(ImSingleMessagePo::getFromId, singleMessagePo.getFromId())
-                .eq(ImSingleMessagePo::getToId, singleMessagePo.getToId()).or(
-                        wrapper -> wrapper.eq(ImSingleMessagePo::getFromId, singleMessagePo.getToId())
-                                .eq(ImSingleMessagePo::getToId, singleMessagePo.getFromId())
-                )
-                .set(ImSingleMessagePo::getReadStatus, singleMessagePo.getReadStatus());
+        if (conversationKeyBackfillService.isReady()) {
+            updateWrapper.eq(ImSingleMessagePo::getConversationKey, ImSingleMessagePo.conversationKeyOf(fromId, toId));
+        } else {
+            // 会话键回填完成前按双向 (from_id, to_id) 匹配
+            updateWrapper.and(w -> w.eq(ImSingleMessagePo::getFromId, fromId).eq(ImSingleMessagePo::getToId, toId)
+                    .or(o -> o.eq(ImSingleMessagePo::getFromId, toId).eq(ImSingleMessagePo::getToId, fromId)));
+        }
+        updateWrapper.set(ImSingleMessagePo::getReadStatus, singleMessagePo.getReadStatus());
         return super.update(updateWrapper);
     }
 
@@ -62,7 +87,10 @@ public class ImSingleMessageService extends ServiceImpl<ImSingleMessageMapper, I
 
     @Override
     public ImSingleMessagePo queryLast(String fromId, String toId) {
-        return imSingleMessageMapper.selectLastSingleMessage(fromId, toId);
+        ImSingleMessagePo messagePo = imSingleMessageMapper.selectLastSingleMessage(fromId, toId, false,
+                conversationKeyBackfillService.isReady());
+        return messagePo != null ? messagePo : imSingleMessageMapper.selectLastSingleMessage(fromId, toId, true,
+                conversationKeyBackfillService.isReady());
     }
 
     @Override
@@ -70,4 +98,26 @@ public class ImSingleMessageService extends ServiceImpl<ImSingleMessageMapper, I
         return imSingleMessageMapper.selectReadStatus(fromId, toId, code);
     }
 
+    @Override
+    public Boolean batchInsert(List<ImSingleMessagePo> list) {
+        if (CollectionUtils.isEmpty(list)) {
+            return false;
+        }
+        batchExecutor.batchSave(list, ImSingleMessageMapper.class, ImSingleMessageMapper::insert);
+        return true;
+    }
+
+    @Override
+    public Boolean batchUpsert(List<ImSingleMessagePo> list) {
+        if (CollectionUtils.isEmpty(list)) {
+            return false;
+        }
+        batchExecutor.batchSave(list, ImSingleMessageMapper.class, ImSingleMessageMapper::upsert);
+        return true;
+    }
+
+    @Override
+    public List<ImSingleMessagePo> batchQueryByIds(List<String> ids) {
+        return batchExecutor.queryInChunks(ids, super::listByIds);
+    }
 }
@@ -4,6 +4,7 @@ import com.baomidou.mybatisplus.core.conditions.Wrapper;
 import com.baomidou.mybatisplus.core.toolkit.Wrappers;
 import com.baomidou.mybatisplus.extension.service.impl.ServiceImpl;
 import com.xy.lucky.database.web.mapper.ImUserDataMapper;
+import com.xy.lucky.database.web.utils.MybatisBatchExecutor;
 import com.xy.lucky.domain.po.ImUserDataPo;
 import com.xy.lucky.rpc.api.database.user.ImUserDataDubboService;
 import lombok.RequiredArgsConstructor;
@@ -18,6 +19,8 @@ public class ImUserDataService extends ServiceImpl<ImUserDataMapper, ImUserDataP
 
     private final ImUserDataMapper imUserDataMapper;
 
+    private final MybatisBatchExecutor batchExecutor;
+
     public List<ImUserDataPo> queryList() {
         return super.list();
     }
@@ -38,7 +41,7 @@ public class ImUserDataService extends ServiceImpl<ImUserDataMapper, ImUserDataP
 
     @Override
     public List<ImUserDataPo> queryListByIds(List<String> userIdList) {
-        return imUserDataMapper.selectByIds(userIdList);
+        return batchExecutor.queryInChunks(userIdList, imUserDataMapper::selectByIds);
     }
 
 
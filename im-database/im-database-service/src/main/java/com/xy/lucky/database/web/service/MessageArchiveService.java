@@ -0,0 +1,139 @@
+package com.xy.lucky.database.web.service;
+
+import com.xy.lucky.database.web.mapper.MessageArchiveMapper;
+import com.xy.lucky.database.web.utils.DateTimeUtils;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+
+import java.time.Instant;
+import java.time.YearMonth;
+import java.time.ZoneOffset;
+import java.time.format.DateTimeFormatter;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * 消息冷热分离
+ * <p>
+ * 热表只保留最近 hot-days 天的消息，更早的消息由定时任务按月移入按 message_time 分区的归档表，
+ * 热表索引与缓冲池占用不再随总数据量增长。读路径通过 {@link #includesArchive(Long)} 判断查询起点是否落在热窗口之外，
+ * 落在窗口外时同时查询归档表。
+ * </p>
+ */
+@Slf4j
+@Service
+@RequiredArgsConstructor
+public class MessageArchiveService {
+
+    public static final String SINGLE_MESSAGE_TABLE = "im_single_message";
+    public static final String SINGLE_MESSAGE_ARCHIVE_TABLE = "im_single_message_archive";
+    public static final String GROUP_MESSAGE_TABLE = "im_group_message";
+    public static final String GROUP_MESSAGE_ARCHIVE_TABLE = "im_group_message_archive";
+
+    /**
+     * 归档时搬移的列，与 Mapper XML 中的 Source_Column_List 保持一致
+     */
+    private static final String SINGLE_MESSAGE_COLUMNS = "message_id, from_id, to_id, conversation_key, message_body, "
+            + "message_time, message_content_type, read_status, extra, del_flag, sequence, message_random, "
+            + "create_time, update_time, version, reply_to";
+    private static final String GROUP_MESSAGE_COLUMNS = "message_id, group_id, from_id, message_body, message_time, "
+            + "message_content_type, extra, del_flag, sequence, message_random, create_time, update_time, version, reply_to";
+
+    private static final DateTimeFormatter PARTITION_SUFFIX = DateTimeFormatter.ofPattern("yyyyMM");
+
+    private final MessageArchiveMapper messageArchiveMapper;
+
+    /**
+     * 本进程已确认存在的分区，避免每轮重复执行 DDL
+     */
+    private final Set<String> knownPartitions = ConcurrentHashMap.newKeySet();
+
+    @Value("${message.archive.enabled:true}")
+    private boolean archiveEnabled;
+    @Value("${message.archive.hot-days:180}")
+    private int hotDays;
+    @Value("${message.archive.batch-size:2000}")
+    private int batchSize;
+    /**
+     * 归档分区大字段压缩算法（lz4 需 PostgreSQL 14+），为空则沿用默认 pglz
+     */
+    @Value("${message.archive.compression:lz4}")
+    private String compression;
+
+    /**
+     * 热窗口下界，早于该时间的消息可能已被归档
+     */
+    public long hotBoundary() {
+        return DateTimeUtils.getUTCDateTime() - TimeUnit.DAYS.toMillis(Math.max(1, hotDays));
+    }
+
+    /**
+     * 从指定时间起的查询是否需要同时读取归档表
+     *
+     * @param fromTime 查询起始消息时间，为空表示从头查询
+     */
+    public boolean includesArchive(Long fromTime) {
+        return fromTime == null || fromTime < hotBoundary();
+    }
+
+    @Scheduled(cron = "${message.archive.cron:0 30 3 * * ?}")
+    public void archive() {
+        if (!archiveEnabled) {
+            return;
+        }
+        long boundary = hotBoundary();
+        archiveTable(SINGLE_MESSAGE_TABLE, SINGLE_MESSAGE_ARCHIVE_TABLE, SINGLE_MESSAGE_COLUMNS, boundary);
+        archiveTable(GROUP_MESSAGE_TABLE, GROUP_MESSAGE_ARCHIVE_TABLE, GROUP_MESSAGE_COLUMNS, boundary);
+    }
+
+    /**
+     * 逐月归档：每次取热表中最早的月份，确保对应分区存在后分批移动，直到热表中没有早于边界的数据
+     */
+    private void archiveTable(String table, String archiveTable, String columns, long boundary) {
+        int limit = Math.max(100, batchSize);
+        long total = 0;
+        try {
+            Long oldest;
+            while ((oldest = messageArchiveMapper.selectOldestMessageTime(table, boundary)) != null) {
+                YearMonth month = YearMonth.from(Instant.ofEpochMilli(oldest).atZone(ZoneOffset.UTC));
+                long monthStart = month.atDay(1).atStartOfDay().toInstant(ZoneOffset.UTC).toEpochMilli();
+                long monthEnd = month.plusMonths(1).atDay(1).atStartOfDay().toInstant(ZoneOffset.UTC).toEpochMilli();
+                ensurePartition(archiveTable, archiveTable + "_" + month.format(PARTITION_SUFFIX), monthStart, monthEnd);
+
+                long before = Math.min(monthEnd, boundary);
+                long monthMoved = 0;
+                int moved;
+                do {
+                    moved = messageArchiveMapper.moveMessages(table, archiveTable, columns, before, limit);
+                    monthMoved += moved;
+                } while (moved >= limit);
+                total += monthMoved;
+                if (monthMoved == 0) {
+                    // 剩余行被其他事务锁定，留到下一轮
+                    break;
+                }
+            }
+        } catch (Exception e) {
+            log.error("[MessageArchiveService] archive {} failed after moving {} rows", table, total, e);
+            return;
+        }
+        if (total > 0) {
+            log.info("[MessageArchiveService] archived {} rows from {} into {}", total, table, archiveTable);
+        }
+    }
+
+    private void ensurePartition(String archiveTable, String partition, long from, long to) {
+        if (knownPartitions.contains(partition)) {
+            return;
+        }
+        messageArchiveMapper.createPartition(archiveTable, partition, from, to);
+        if ("lz4".equals(compression) || "pglz".equals(compression)) {
+            messageArchiveMapper.compressPartition(partition, compression);
+        }
+        knownPartitions.add(partition);
+    }
+}
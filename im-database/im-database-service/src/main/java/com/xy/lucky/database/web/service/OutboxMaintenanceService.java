@@ -0,0 +1,216 @@
+package com.xy.lucky.database.web.service;
+
+import com.xy.lucky.database.web.mapper.OutboxMaintenanceMapper;
+import com.xy.lucky.database.web.utils.DateTimeUtils;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.redisson.api.RLock;
+import org.redisson.api.RedissonClient;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.time.Instant;
+import java.time.LocalDate;
+import java.time.ZoneOffset;
+import java.time.format.DateTimeFormatter;
+import java.time.format.DateTimeParseException;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Outbox 生命周期维护
+ * <p>
+ * im_outbox 按 created_at 日分区：定时任务提前创建未来若干天的分区；超出保留期的分区先将失败/死信记录批量移入
+ * im_outbox_archive，再整体删除分区，已完成记录不再逐行 DELETE，表与索引大小只与保留天数相关。
+ * 仍有在途记录的分区会被保留并告警，等待投递流程收敛后在下一轮删除。
+ * 默认分区不会被删除，其中超出保留期的已完成记录按批删除。多实例部署时通过分布式锁保证同一时刻只有一个实例执行维护。
+ * </p>
+ */
+@Slf4j
+@Service
+@RequiredArgsConstructor
+public class OutboxMaintenanceService {
+
+    public static final String OUTBOX_TABLE = "im_outbox";
+    public static final String OUTBOX_DEFAULT_PARTITION = "im_outbox_default";
+    public static final String OUTBOX_ARCHIVE_TABLE = "im_outbox_archive";
+
+    private static final String MAINTENANCE_LOCK_KEY = "im:database:outbox:maintenance:lock";
+
+    private static final DateTimeFormatter PARTITION_SUFFIX = DateTimeFormatter.ofPattern("yyyyMMdd");
+
+    private final OutboxMaintenanceMapper outboxMaintenanceMapper;
+    private final TransactionTemplate transactionTemplate;
+    private final RedissonClient redissonClient;
+
+    /**
+     * 本进程已确认存在的分区，避免每轮重复执行 DDL
+     */
+    private final Set<String> knownPartitions = ConcurrentHashMap.newKeySet();
+
+    @Value("${outbox.maintenance.enabled:true}")
+    private boolean maintenanceEnabled;
+    /**
+     * 提前创建的分区天数（含当天）
+     */
+    @Value("${outbox.maintenance.precreate-days:3}")
+    private int precreateDays;
+    /**
+     * 分区保留天数，早于该天数的分区在归档失败记录后删除
+     */
+    @Value("${outbox.maintenance.retention-days:7}")
+    private int retentionDays;
+    @Value("${outbox.maintenance.archive-batch-size:2000}")
+    private int archiveBatchSize;
+
+    @Scheduled(fixedDelayString = "${outbox.maintenance.interval-ms:3600000}",
+            initialDelayString = "${outbox.maintenance.initial-delay-ms:10000}")
+    public void maintain() {
+        if (!maintenanceEnabled) {
+            return;
+        }
+        RLock lock = redissonClient.getLock(MAINTENANCE_LOCK_KEY);
+        if (!lock.tryLock()) {
+            return;
+        }
+        try {
+            maintainOnce();
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    private void maintainOnce() {
+        LocalDate today = Instant.ofEpochMilli(DateTimeUtils.getUTCDateTime()).atZone(ZoneOffset.UTC).toLocalDate();
+        try {
+            for (int i = 0; i < Math.max(1, precreateDays); i++) {
+                ensurePartition(today.plusDays(i));
+            }
+        } catch (Exception e) {
+            log.error("[OutboxMaintenanceService] create partition failed", e);
+        }
+
+        LocalDate retainFrom = today.minusDays(Math.max(1, retentionDays));
+        long boundary = startOf(retainFrom);
+        if (archiveDeadRecords(boundary)) {
+            dropExpiredPartitions(retainFrom);
+            sweepDefaultPartition(boundary);
+        }
+    }
+
+    /**
+     * 分批将保留期外的失败/死信记录移入归档表
+     *
+     * @return 是否全部移动完成，未完成时本轮不删除分区
+     */
+    private boolean archiveDeadRecords(long before) {
+        int limit = Math.max(100, archiveBatchSize);
+        long total = 0;
+        try {
+            int moved;
+            do {
+                moved = outboxMaintenanceMapper.moveDeadRecords(OUTBOX_TABLE, OUTBOX_ARCHIVE_TABLE, before, limit);
+                total += moved;
+            } while (moved >= limit);
+        } catch (Exception e) {
+            log.error("[OutboxMaintenanceService] archive dead records failed after moving {} rows", total, e);
+            return false;
+        }
+        if (total > 0) {
+            log.info("[OutboxMaintenanceService] archived {} dead outbox records", total);
+        }
+        return true;
+    }
+
+    private void dropExpiredPartitions(LocalDate retainFrom) {
+        List<String> partitions = outboxMaintenanceMapper.selectPartitions(OUTBOX_TABLE);
+        for (String partition : partitions) {
+            LocalDate day = dayOf(partition);
+            if (day == null || !day.isBefore(retainFrom)) {
+                continue;
+            }
+            try {
+                if (outboxMaintenanceMapper.existsLive(partition)) {
+                    log.warn("[OutboxMaintenanceService] partition {} still holds in-flight records, skip dropping", partition);
+                    continue;
+                }
+                outboxMaintenanceMapper.dropPartition(partition);
+                knownPartitions.remove(partition);
+                log.info("[OutboxMaintenanceService] dropped expired partition {}", partition);
+            } catch (Exception e) {
+                log.error("[OutboxMaintenanceService] drop partition {} failed", partition, e);
+            }
+        }
+    }
+
+    /**
+     * 分批删除默认分区中保留期外的已完成记录；失败/死信记录此前已移入归档表，在途记录保留到投递流程收敛
+     */
+    private void sweepDefaultPartition(long before) {
+        int limit = Math.max(100, archiveBatchSize);
+        long total = 0;
+        try {
+            int deleted;
+            do {
+                deleted = outboxMaintenanceMapper.deleteExpiredFromDefault(OUTBOX_DEFAULT_PARTITION, before, limit);
+                total += deleted;
+            } while (deleted >= limit);
+        } catch (Exception e) {
+            log.error("[OutboxMaintenanceService] sweep default partition failed after deleting {} rows", total, e);
+            return;
+        }
+        if (total > 0) {
+            log.info("[OutboxMaintenanceService] deleted {} expired records from {}", total, OUTBOX_DEFAULT_PARTITION);
+        }
+    }
+
+    /**
+     * 确保指定日期的分区存在；默认分区中已有该日数据时，在同一事务内建独立表、迁入数据后挂载，
+     * 直接 CREATE ... PARTITION OF 会因默认分区约束冲突而失败
+     */
+    private void ensurePartition(LocalDate day) {
+        String partition = OUTBOX_TABLE + "_" + day.format(PARTITION_SUFFIX);
+        if (knownPartitions.contains(partition)) {
+            return;
+        }
+        long from = startOf(day);
+        long to = startOf(day.plusDays(1));
+        if (!outboxMaintenanceMapper.selectPartitions(OUTBOX_TABLE).contains(partition)) {
+            if (outboxMaintenanceMapper.existsInRange(OUTBOX_DEFAULT_PARTITION, from, to)) {
+                Integer moved = transactionTemplate.execute(status -> {
+                    outboxMaintenanceMapper.createDetachedPartition(OUTBOX_TABLE, partition);
+                    int rows = outboxMaintenanceMapper.moveFromDefault(OUTBOX_DEFAULT_PARTITION, partition, from, to);
+                    outboxMaintenanceMapper.attachPartition(OUTBOX_TABLE, partition, from, to);
+                    return rows;
+                });
+                log.warn("[OutboxMaintenanceService] partition {} attached with {} rows drained from default partition",
+                        partition, moved);
+            } else {
+                outboxMaintenanceMapper.createPartition(OUTBOX_TABLE, partition, from, to);
+            }
+        }
+        knownPartitions.add(partition);
+    }
+
+    private static long startOf(LocalDate day) {
+        return day.atStartOfDay().toInstant(ZoneOffset.UTC).toEpochMilli();
+    }
+
+    /**
+     * 从分区名解析日期，默认分区等非日分区返回 null
+     */
+    private static LocalDate dayOf(String partition) {
+        String prefix = OUTBOX_TABLE + "_";
+        if (partition == null || !partition.startsWith(prefix)) {
+            return null;
+        }
+        try {
+            return LocalDate.parse(partition.substring(prefix.length()), PARTITION_SUFFIX);
+        } catch (DateTimeParseException e) {
+            return null;
+        }
+    }
+}
@@ -6,16 +6,26 @@ import org.apache.ibatis.session.ExecutorType;
 import org.apache.ibatis.session.SqlSession;
 import org.apache.ibatis.session.SqlSessionFactory;
 import org.mybatis.spring.SqlSessionTemplate;
+import org.springframework.beans.factory.annotation.Value;
 import org.springframework.stereotype.Component;
 import org.springframework.util.CollectionUtils;
 
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.LinkedHashSet;
 import java.util.List;
+import java.util.Objects;
 import java.util.function.BiConsumer;
+import java.util.function.Function;
 
 /**
  * MyBatis 批量执行器，用于执行批量插入/更新操作。
  * <p>
  * 使用示例：  batchExecutor.batchSave(users, UserMapper.class, UserMapper::insert);
+ * <p>
+ * 写入按 mybatis.batch.chunk-size 分块 flush，配合驱动端的批量改写（PostgreSQL reWriteBatchedInserts、
+ * MySQL rewriteBatchedStatements）把一块内的同构语句合并为多值 INSERT，一次网络往返写入一块。
  */
 @Slf4j
 @Component
@@ -24,6 +34,9 @@ public class MybatisBatchExecutor {
     @Resource
     private SqlSessionTemplate sqlSessionTemplate;
 
+    @Value("${mybatis.batch.chunk-size:500}")
+    private int chunkSize;
+
     /**
      * 通用批量保存方法
      *
@@ -34,18 +47,38 @@ public class MybatisBatchExecutor {
      * @param <T>        实体类型
      */
     public <M, T> void batchSave(List<T> list, Class<M> mapperType, BiConsumer<M, T> biConsumer) {
+        batchSave(list, mapperType, biConsumer, chunkSize);
+    }
+
+    /**
+     * 通用批量保存方法，按指定块大小 flush
+     *
+     * @param list       要保存的数据列表
+     * @param mapperType MyBatis Mapper 接口类型
+     * @param biConsumer lambda 表达式，定义 mapper 和单条数据的执行逻辑
+     * @param chunkSize  每块语句数
+     * @param <M>        Mapper 类型（接口）
+     * @param <T>        实体类型
+     */
+    public <M, T> void batchSave(List<T> list, Class<M> mapperType, BiConsumer<M, T> biConsumer, int chunkSize) {
         if (CollectionUtils.isEmpty(list)) {
             log.warn("待保存数据为空，跳过批量操作");
             return;
         }
+        int flushSize = Math.max(1, chunkSize);
 
         SqlSessionFactory sqlSessionFactory = sqlSessionTemplate.getSqlSessionFactory();
         try (SqlSession session = sqlSessionFactory.openSession(ExecutorType.BATCH, false)) {
 
             M mapper = session.getMapper(mapperType);
 
+            int pending = 0;
             for (T item : list) {
                 biConsumer.accept(mapper, item);
+                if (++pending >= flushSize) {
+                    session.flushStatements();
+                    pending = 0;
+                }
             }
 
             session.commit();
@@ -57,4 +90,38 @@ public class MybatisBatchExecutor {
             throw new RuntimeException("MyBatis 批量操作失败", e);
         }
     }
+
+    /**
+     * 按块执行 IN 查询并合并结果，避免超长 IN 列表与单次超大结果集
+     *
+     * @param ids   查询键，空值与重复值会被忽略
+     * @param query 单块查询
+     * @param <I>   键类型
+     * @param <T>   结果类型
+     * @return 合并后的结果
+     */
+    public <I, T> List<T> queryInChunks(Collection<I> ids, Function<List<I>, List<T>> query) {
+        if (CollectionUtils.isEmpty(ids)) {
+            return Collections.emptyList();
+        }
+        List<I> distinct = new ArrayList<>(new LinkedHashSet<>(ids));
+        distinct.removeIf(Objects::isNull);
+        List<T> result = new ArrayList<>(distinct.size());
+        for (List<I> chunk : partition(distinct, chunkSize)) {
+            List<T> rows = query.apply(chunk);
+            if (rows != null) {
+                result.addAll(rows);
+            }
+        }
+        return result;
+    }
+
+    private static <I> List<List<I>> partition(List<I> list, int size) {
+        int step = Math.max(1, size);
+        List<List<I>> chunks = new ArrayList<>((list.size() + step - 1) / step);
+        for (int from = 0; from < list.size(); from += step) {
+            chunks.add(list.subList(from, Math.min(list.size(), from + step)));
+        }
+        return chunks;
+    }
 }
@@ -64,6 +64,11 @@ CREATE TABLE "public"."im_chat" (
   "is_top" int2 NOT NULL,
   "sequence" int8,
   "read_sequence" int8,
+  "last_message_id" varchar(50) COLLATE "pg_catalog"."default",
+  "last_message" text COLLATE "pg_catalog"."default",
+  "last_message_content_type" int4,
+  "last_message_time" int8 NOT NULL DEFAULT 0,
+  "unread_count" int4 NOT NULL DEFAULT 0,
   "create_time" int8,
   "update_time" int8,
   "del_flag" int2,
@@ -78,6 +83,11 @@ COMMENT ON COLUMN "public"."im_chat"."is_mute" IS '是否免打扰（1免打扰
 COMMENT ON COLUMN "public"."im_chat"."is_top" IS '是否置顶（1置顶）';
 COMMENT ON COLUMN "public"."im_chat"."sequence" IS '消息序列号';
 COMMENT ON COLUMN "public"."im_chat"."read_sequence" IS '已读消息序列';
+COMMENT ON COLUMN "public"."im_chat"."last_message_id" IS '最后一条消息ID';
+COMMENT ON COLUMN "public"."im_chat"."last_message" IS '最后一条消息内容';
+COMMENT ON COLUMN "public"."im_chat"."last_message_content_type" IS '最后一条消息内容类型';
+COMMENT ON COLUMN "public"."im_chat"."last_message_time" IS '最后一条消息时间';
+COMMENT ON COLUMN "public"."im_chat"."unread_count" IS '未读消息数';
 COMMENT ON COLUMN "public"."im_chat"."create_time" IS '创建时间';
 COMMENT ON COLUMN "public"."im_chat"."update_time" IS '更新时间';
 COMMENT ON COLUMN "public"."im_chat"."del_flag" IS '删除标识（1正常，0删除）';
@@ -440,10 +450,10 @@ CREATE TABLE "public"."im_outbox" (
   "attempts" int4 NOT NULL DEFAULT 0,
   "status" varchar(20) COLLATE "pg_catalog"."default" NOT NULL DEFAULT 'PENDING'::character varying,
   "last_error" text COLLATE "pg_catalog"."default",
-  "created_at" int8,
+  "created_at" int8 NOT NULL DEFAULT ((extract(epoch from now()) * 1000)::int8),
   "updated_at" int8,
   "next_try_at" int8
-)
+) PARTITION BY RANGE ("created_at")
 ;
 COMMENT ON COLUMN "public"."im_outbox"."id" IS '主键';
 COMMENT ON COLUMN "public"."im_outbox"."message_id" IS '业务消息 ID（用于回溯/去重/关联业务数据）';
@@ -457,6 +467,22 @@ COMMENT ON COLUMN "public"."im_outbox"."created_at" IS '创建时间';
 COMMENT ON COLUMN "public"."im_outbox"."updated_at" IS '更新时间';
 COMMENT ON COLUMN "public"."im_outbox"."next_try_at" IS '下一次重试时间（用以调度延迟重试）';
 COMMENT ON TABLE "public"."im_outbox" IS 'Outbox table: 持久化要投递到 MQ 的消息，支持重试/幂等/确认回写';
+-- 按 created_at 日分区，日分区由 OutboxMaintenanceService 提前创建并在保留期后整体删除；
+-- 默认分区兜底维护任务未及时建分区时的写入，建分区时会将其中对应日期的数据迁入新分区
+CREATE TABLE "public"."im_outbox_default" PARTITION OF "public"."im_outbox" DEFAULT;
+
+-- ----------------------------
+-- Table structure for im_outbox_archive
+-- 失败/死信投递记录归档表：日分区删除前由维护任务批量迁入，供人工排查与补偿
+-- ----------------------------
+DROP TABLE IF EXISTS "public"."im_outbox_archive";
+CREATE TABLE "public"."im_outbox_archive" (
+  LIKE "public"."im_outbox" INCLUDING COMMENTS,
+  "archived_at" int8 NOT NULL DEFAULT ((extract(epoch from now()) * 1000)::int8)
+)
+;
+COMMENT ON COLUMN "public"."im_outbox_archive"."archived_at" IS '归档时间';
+COMMENT ON TABLE "public"."im_outbox_archive" IS 'Outbox 失败/死信记录归档';
 
 -- ----------------------------
 -- Table structure for im_single_message
@@ -466,6 +492,7 @@ CREATE TABLE "public"."im_single_message" (
   "message_id" varchar(512) COLLATE "pg_catalog"."default" NOT NULL,
   "from_id" varchar(20) COLLATE "pg_catalog"."default" NOT NULL,
   "to_id" varchar(20) COLLATE "pg_catalog"."default" NOT NULL,
+  "conversation_key" varchar(41) COLLATE "pg_catalog"."default",
   "message_body" text COLLATE "pg_catalog"."default" NOT NULL,
   "message_time" int8 NOT NULL,
   "message_content_type" int4 NOT NULL,
@@ -483,6 +510,7 @@ CREATE TABLE "public"."im_single_message" (
 COMMENT ON COLUMN "public"."im_single_message"."message_id" IS '消息ID';
 COMMENT ON COLUMN "public"."im_single_message"."from_id" IS '发送者用户ID';
 COMMENT ON COLUMN "public"."im_single_message"."to_id" IS '接收者用户ID';
+COMMENT ON COLUMN "public"."im_single_message"."conversation_key" IS '会话键（双方用户ID按字典序以冒号拼接）';
 COMMENT ON COLUMN "public"."im_single_message"."message_body" IS '消息内容';
 COMMENT ON COLUMN "public"."im_single_message"."message_time" IS '发送时间';
 COMMENT ON COLUMN "public"."im_single_message"."message_content_type" IS '消息类型';
@@ -580,9 +608,15 @@ ALTER TABLE "public"."id_meta_info" ADD CONSTRAINT "id_meta_info_pkey" PRIMARY K
 -- ----------------------------
 -- Indexes structure for table im_chat
 -- ----------------------------
-CREATE INDEX "idx_chat_owner_to" ON "public"."im_chat" USING btree (
+CREATE UNIQUE INDEX "uk_chat_owner_to_type" ON "public"."im_chat" USING btree (
   "owner_id" COLLATE "pg_catalog"."default" "pg_catalog"."text_ops" ASC NULLS LAST,
-  "to_id" COLLATE "pg_catalog"."default" "pg_catalog"."text_ops" ASC NULLS LAST
+  "to_id" COLLATE "pg_catalog"."default" "pg_catalog"."text_ops" ASC NULLS LAST,
+  "chat_type" ASC NULLS LAST
+);
+CREATE INDEX "idx_chat_owner_last_time" ON "public"."im_chat" USING btree (
+  "owner_id" COLLATE "pg_catalog"."default" "pg_catalog"."text_ops" ASC NULLS LAST,
+  "last_message_time" DESC NULLS LAST,
+  "chat_id" COLLATE "pg_catalog"."default" "pg_catalog"."text_ops" DESC NULLS LAST
 );
 
 -- ----------------------------
@@ -594,6 +628,10 @@ ALTER TABLE "public"."im_chat" ADD CONSTRAINT "im_chat_pkey" PRIMARY KEY ("chat_
 -- Primary Key structure for table im_friendship
 -- ----------------------------
 ALTER TABLE "public"."im_friendship" ADD CONSTRAINT "im_friendship_pkey" PRIMARY KEY ("owner_id", "to_id");
+CREATE INDEX "idx_friendship_owner_sequence" ON "public"."im_friendship" USING btree (
+  "owner_id" COLLATE "pg_catalog"."default" "pg_catalog"."text_ops" ASC NULLS LAST,
+  "sequence" ASC NULLS LAST
+);
 
 -- ----------------------------
 -- Indexes structure for table im_friendship_group
@@ -648,8 +686,10 @@ ALTER TABLE "public"."im_group_invite_request" ADD CONSTRAINT "im_group_invite_r
 -- ----------------------------
 -- Indexes structure for table im_group_member
 -- ----------------------------
-CREATE INDEX "idx_group_id" ON "public"."im_group_member" USING btree (
-  "group_id" COLLATE "pg_catalog"."default" "pg_catalog"."text_ops" ASC NULLS LAST
+CREATE INDEX "idx_group_member_join" ON "public"."im_group_member" USING btree (
+  "group_id" COLLATE "pg_catalog"."default" "pg_catalog"."text_ops" ASC NULLS LAST,
+  "join_time" ASC NULLS LAST,
+  "member_id" COLLATE "pg_catalog"."default" "pg_catalog"."text_ops" ASC NULLS LAST
 );
 CREATE INDEX "idx_igm_member_group" ON "public"."im_group_member" USING btree (
   "member_id" COLLATE "pg_catalog"."default" "pg_catalog"."text_ops" ASC NULLS LAST,
@@ -670,6 +710,10 @@ ALTER TABLE "public"."im_group_member" ADD CONSTRAINT "im_group_member_pkey" PRI
 CREATE INDEX "idx_group_msg_group" ON "public"."im_group_message" USING btree (
   "group_id" COLLATE "pg_catalog"."default" "pg_catalog"."text_ops" ASC NULLS LAST
 );
+CREATE INDEX "idx_group_msg_time_id" ON "public"."im_group_message" USING btree (
+  "message_time" ASC NULLS LAST,
+  "message_id" COLLATE "pg_catalog"."default" "pg_catalog"."text_ops" ASC NULLS LAST
+);
 
 -- ----------------------------
 -- Primary Key structure for table im_group_message
@@ -729,40 +773,59 @@ ALTER TABLE "public"."im_offline_message"
 -- ----------------------------
 -- Indexes structure for table im_outbox
 -- ----------------------------
-CREATE INDEX "idx_outbox_message_id" ON "public"."im_outbox" USING btree (
-  "message_id" COLLATE "pg_catalog"."default" "pg_catalog"."text_ops" ASC NULLS LAST
-);
 CREATE INDEX "idx_outbox_message_status" ON "public"."im_outbox" USING btree (
     "message_id" COLLATE "pg_catalog"."default" "pg_catalog"."text_ops" ASC NULLS LAST,
     "status" COLLATE "pg_catalog"."default" "pg_catalog"."text_ops" ASC NULLS LAST
     );
-CREATE INDEX "idx_outbox_status_next_try_at" ON "public"."im_outbox" USING btree (
+-- 部分索引只收录在途记录（待投递/待确认），轮询扫描量与历史数据量无关
+CREATE INDEX "idx_outbox_live_next_try_at" ON "public"."im_outbox" USING btree (
     "status" COLLATE "pg_catalog"."default" "pg_catalog"."text_ops" ASC NULLS LAST,
-    "next_try_at" ASC NULLS LAST
-    );
-CREATE INDEX "idx_outbox_status_updated_at" ON "public"."im_outbox" USING btree (
-    "status" COLLATE "pg_catalog"."default" "pg_catalog"."text_ops" ASC NULLS LAST,
-    "updated_at" ASC NULLS LAST
-    );
+    "next_try_at" ASC NULLS LAST,
+    "id" ASC NULLS LAST
+    ) WHERE "status" IN ('PENDING', 'SENT');
+CREATE INDEX "idx_outbox_dead_created_at" ON "public"."im_outbox" USING btree (
+    "created_at" ASC NULLS LAST
+    ) WHERE "status" IN ('FAILED', 'DLX');
 
 -- ----------------------------
 -- Primary Key structure for table im_outbox
 -- ----------------------------
-ALTER TABLE "public"."im_outbox" ADD CONSTRAINT "outbox_pkey" PRIMARY KEY ("id");
+ALTER TABLE "public"."im_outbox" ADD CONSTRAINT "outbox_pkey" PRIMARY KEY ("id", "created_at");
+
+-- ----------------------------
+-- Indexes structure for table im_outbox_archive
+-- ----------------------------
+ALTER TABLE "public"."im_outbox_archive" ADD CONSTRAINT "outbox_archive_pkey" PRIMARY KEY ("id", "created_at");
+CREATE INDEX "idx_outbox_archive_message_id" ON "public"."im_outbox_archive" USING btree (
+    "message_id" COLLATE "pg_catalog"."default" "pg_catalog"."text_ops" ASC NULLS LAST
+    );
+CREATE INDEX "idx_outbox_archive_archived_at" ON "public"."im_outbox_archive" USING btree (
+    "archived_at" ASC NULLS LAST
+    );
 
 -- ----------------------------
 -- Indexes structure for table im_single_message
 -- ----------------------------
-CREATE INDEX "idx_private_from" ON "public"."im_single_message" USING btree (
-  "from_id" COLLATE "pg_catalog"."default" "pg_catalog"."text_ops" ASC NULLS LAST
-);
-CREATE INDEX "idx_private_to" ON "public"."im_single_message" USING btree (
-  "to_id" COLLATE "pg_catalog"."default" "pg_catalog"."text_ops" ASC NULLS LAST
-);
-CREATE INDEX "idx_single_msg_pair_time" ON "public"."im_single_message" USING btree (
+CREATE INDEX "idx_single_msg_from_time_id" ON "public"."im_single_message" USING btree (
   "from_id" COLLATE "pg_catalog"."default" "pg_catalog"."text_ops" ASC NULLS LAST,
+  "message_time" ASC NULLS LAST,
+  "message_id" COLLATE "pg_catalog"."default" "pg_catalog"."text_ops" ASC NULLS LAST
+);
+CREATE INDEX "idx_single_msg_to_time_id" ON "public"."im_single_message" USING btree (
   "to_id" COLLATE "pg_catalog"."default" "pg_catalog"."text_ops" ASC NULLS LAST,
-  "message_time" DESC
+  "message_time" ASC NULLS LAST,
+  "message_id" COLLATE "pg_catalog"."default" "pg_catalog"."text_ops" ASC NULLS LAST
+);
+CREATE INDEX "idx_single_msg_conversation_time" ON "public"."im_single_message" USING btree (
+  "conversation_key" COLLATE "pg_catalog"."default" "pg_catalog"."text_ops" ASC NULLS LAST,
+  "message_time" ASC NULLS LAST,
+  "message_id" COLLATE "pg_catalog"."default" "pg_catalog"."text_ops" ASC NULLS LAST
+);
+CREATE INDEX "idx_single_msg_conversation_pending" ON "public"."im_single_message" USING btree (
+  "message_id" COLLATE "pg_catalog"."default" "pg_catalog"."text_ops" ASC NULLS LAST
+) WHERE "conversation_key" IS NULL;
+CREATE INDEX "idx_single_msg_time" ON "public"."im_single_message" USING btree (
+  "message_time" ASC NULLS LAST
 );
 CREATE INDEX "idx_single_msg_to_read_from" ON "public"."im_single_message" USING btree (
   "to_id" COLLATE "pg_catalog"."default" "pg_catalog"."text_ops" ASC NULLS LAST,
@@ -838,3 +901,42 @@ CREATE UNIQUE INDEX "uniq_refresh_hash" ON "public"."im_auth_token" USING btree
 CREATE INDEX "idx_access_hash" ON "public"."im_auth_token" USING btree ("access_token_hash");
 CREATE INDEX "idx_token_family" ON "public"."im_auth_token" USING btree ("token_family_id");
 CREATE INDEX "idx_user_id" ON "public"."im_auth_token" USING btree ("user_id");
+
+-- ----------------------------
+-- Archive tables for im_single_message / im_group_message
+-- 冷数据归档表：与热表列结构一致，按 message_time 月度分区，分区由归档任务按需创建
+-- ----------------------------
+DROP TABLE IF EXISTS "public"."im_single_message_archive";
+CREATE TABLE "public"."im_single_message_archive" (
+  LIKE "public"."im_single_message" INCLUDING DEFAULTS INCLUDING COMMENTS
+) PARTITION BY RANGE ("message_time");
+ALTER TABLE "public"."im_single_message_archive" ADD CONSTRAINT "im_single_message_archive_pkey" PRIMARY KEY ("message_id", "message_time");
+CREATE INDEX "idx_single_msg_archive_conversation_time" ON "public"."im_single_message_archive" USING btree (
+  "conversation_key" COLLATE "pg_catalog"."default" "pg_catalog"."text_ops" ASC NULLS LAST,
+  "message_time" ASC NULLS LAST,
+  "message_id" COLLATE "pg_catalog"."default" "pg_catalog"."text_ops" ASC NULLS LAST
+);
+CREATE INDEX "idx_single_msg_archive_from_time_id" ON "public"."im_single_message_archive" USING btree (
+  "from_id" COLLATE "pg_catalog"."default" "pg_catalog"."text_ops" ASC NULLS LAST,
+  "message_time" ASC NULLS LAST,
+  "message_id" COLLATE "pg_catalog"."default" "pg_catalog"."text_ops" ASC NULLS LAST
+);
+CREATE INDEX "idx_single_msg_archive_to_time_id" ON "public"."im_single_message_archive" USING btree (
+  "to_id" COLLATE "pg_catalog"."default" "pg_catalog"."text_ops" ASC NULLS LAST,
+  "message_time" ASC NULLS LAST,
+  "message_id" COLLATE "pg_catalog"."default" "pg_catalog"."text_ops" ASC NULLS LAST
+);
+
+DROP TABLE IF EXISTS "public"."im_group_message_archive";
+CREATE TABLE "public"."im_group_message_archive" (
+  LIKE "public"."im_group_message" INCLUDING DEFAULTS INCLUDING COMMENTS
+) PARTITION BY RANGE ("message_time");
+ALTER TABLE "public"."im_group_message_archive" ADD CONSTRAINT "im_group_message_archive_pkey" PRIMARY KEY ("message_id", "message_time");
+CREATE INDEX "idx_group_msg_archive_group_time" ON "public"."im_group_message_archive" USING btree (
+  "group_id" COLLATE "pg_catalog"."default" "pg_catalog"."text_ops" ASC NULLS LAST,
+  "message_time" ASC NULLS LAST
+);
+CREATE INDEX "idx_group_msg_archive_time_id" ON "public"."im_group_message_archive" USING btree (
+  "message_time" ASC NULLS LAST,
+  "message_id" COLLATE "pg_catalog"."default" "pg_catalog"."text_ops" ASC NULLS LAST
+);
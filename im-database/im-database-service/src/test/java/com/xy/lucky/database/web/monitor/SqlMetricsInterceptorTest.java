@@ -0,0 +1,106 @@
+package com.xy.lucky.database.web.monitor;
+
+import com.xy.lucky.database.web.config.MybatisPlusConfig;
+import io.micrometer.core.instrument.Timer;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.apache.ibatis.builder.StaticSqlSource;
+import org.apache.ibatis.cache.CacheKey;
+import org.apache.ibatis.executor.Executor;
+import org.apache.ibatis.mapping.BoundSql;
+import org.apache.ibatis.mapping.MappedStatement;
+import org.apache.ibatis.mapping.SqlCommandType;
+import org.apache.ibatis.plugin.Interceptor;
+import org.apache.ibatis.session.Configuration;
+import org.apache.ibatis.session.ResultHandler;
+import org.apache.ibatis.session.RowBounds;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import java.util.List;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyLong;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+class SqlMetricsInterceptorTest {
+
+    private static final String STATEMENT_ID = "com.xy.lucky.database.web.mapper.ImChatMapper.selectPage";
+
+    private SimpleMeterRegistry meterRegistry;
+    private SlowQuerySampler slowQuerySampler;
+    private SqlMetricsInterceptor metricsInterceptor;
+    private MappedStatement statement;
+    private Executor executor;
+
+    @BeforeEach
+    void setUp() throws Exception {
+        meterRegistry = new SimpleMeterRegistry();
+        slowQuerySampler = mock(SlowQuerySampler.class);
+        metricsInterceptor = new SqlMetricsInterceptor(meterRegistry, slowQuerySampler);
+        Configuration configuration = new Configuration();
+        statement = new MappedStatement.Builder(configuration, STATEMENT_ID,
+                new StaticSqlSource(configuration, "select chat_id from im_chat order by chat_id"), SqlCommandType.SELECT)
+                .build();
+        executor = mock(Executor.class);
+        when(executor.query(any(MappedStatement.class), any(), any(RowBounds.class), any(), any(), any(BoundSql.class)))
+                .thenReturn(List.of("c1", "c2"));
+    }
+
+    /**
+     * 指标拦截器在内层：MybatisPlusInterceptor 以 6 参数 query 调用被包装的执行器
+     */
+    @Test
+    void paginatedSelectShouldBeRecordedWhenMetricsPluginIsInner() throws Exception {
+        Executor wrapped = wrap(metricsInterceptor, new MybatisPlusConfig().mybatisPlusInterceptor());
+
+        List<Object> rows = wrapped.query(statement, null, new RowBounds(0, 10), Executor.NO_RESULT_HANDLER);
+
+        assertThat(rows).hasSize(2);
+        assertRecordedOnce();
+    }
+
+    @Test
+    void paginatedSelectShouldBeRecordedOnceWhenMetricsPluginIsOuter() throws Exception {
+        Executor wrapped = wrap(new MybatisPlusConfig().mybatisPlusInterceptor(), metricsInterceptor);
+
+        wrapped.query(statement, null, new RowBounds(0, 10), Executor.NO_RESULT_HANDLER);
+
+        assertRecordedOnce();
+    }
+
+    @Test
+    void directSixArgumentQueryShouldBeRecorded() throws Exception {
+        Executor wrapped = wrap(metricsInterceptor);
+        BoundSql boundSql = statement.getBoundSql(null);
+
+        wrapped.query(statement, null, new RowBounds(0, 10), (ResultHandler<?>) Executor.NO_RESULT_HANDLER,
+                new CacheKey(), boundSql);
+
+        assertRecordedOnce();
+    }
+
+    private void assertRecordedOnce() {
+        Timer timer = meterRegistry.find("im_db_statement_latency").tag("statement", STATEMENT_ID).timer();
+        assertThat(timer).isNotNull();
+        assertThat(timer.count()).isEqualTo(1);
+        assertThat(meterRegistry.find("im_db_statement_rows").tag("statement", STATEMENT_ID).summary().totalAmount())
+                .isEqualTo(2);
+        verify(slowQuerySampler, times(1)).offer(eq(statement), any(), anyLong(), eq(2L));
+    }
+
+    /**
+     * 与 InterceptorChain.pluginAll 相同：靠前的插件在内层
+     */
+    private Executor wrap(Interceptor... interceptors) {
+        Object target = executor;
+        for (Interceptor interceptor : interceptors) {
+            target = interceptor.plugin(target);
+        }
+        return (Executor) target;
+    }
+}
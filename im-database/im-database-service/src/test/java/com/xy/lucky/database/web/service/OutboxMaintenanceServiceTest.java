@@ -0,0 +1,80 @@
+package com.xy.lucky.database.web.service;
+
+import com.xy.lucky.database.web.mapper.OutboxMaintenanceMapper;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.redisson.api.RLock;
+import org.redisson.api.RedissonClient;
+import org.springframework.test.util.ReflectionTestUtils;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.util.List;
+
+import static org.mockito.ArgumentMatchers.anyInt;
+import static org.mockito.ArgumentMatchers.anyLong;
+import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.verifyNoInteractions;
+import static org.mockito.Mockito.when;
+
+class OutboxMaintenanceServiceTest {
+
+    private static final int BATCH = 100;
+
+    private OutboxMaintenanceMapper mapper;
+    private RLock lock;
+    private OutboxMaintenanceService service;
+
+    @BeforeEach
+    void setUp() {
+        mapper = mock(OutboxMaintenanceMapper.class);
+        lock = mock(RLock.class);
+        RedissonClient redissonClient = mock(RedissonClient.class);
+        when(redissonClient.getLock(anyString())).thenReturn(lock);
+        service = new OutboxMaintenanceService(mapper, mock(TransactionTemplate.class), redissonClient);
+        ReflectionTestUtils.setField(service, "maintenanceEnabled", true);
+        ReflectionTestUtils.setField(service, "precreateDays", 1);
+        ReflectionTestUtils.setField(service, "retentionDays", 7);
+        ReflectionTestUtils.setField(service, "archiveBatchSize", BATCH);
+        when(mapper.selectPartitions(OutboxMaintenanceService.OUTBOX_TABLE)).thenReturn(List.of());
+    }
+
+    @Test
+    void shouldSkipWhenAnotherInstanceHoldsTheLock() {
+        when(lock.tryLock()).thenReturn(false);
+
+        service.maintain();
+
+        verifyNoInteractions(mapper);
+        verify(lock, never()).unlock();
+    }
+
+    @Test
+    void shouldSweepExpiredRowsFromDefaultPartitionInBatches() {
+        when(lock.tryLock()).thenReturn(true);
+        when(mapper.deleteExpiredFromDefault(eq(OutboxMaintenanceService.OUTBOX_DEFAULT_PARTITION), anyLong(), eq(BATCH)))
+                .thenReturn(BATCH, BATCH, 3);
+
+        service.maintain();
+
+        verify(mapper, times(3))
+                .deleteExpiredFromDefault(eq(OutboxMaintenanceService.OUTBOX_DEFAULT_PARTITION), anyLong(), eq(BATCH));
+        verify(lock).unlock();
+    }
+
+    @Test
+    void shouldNotSweepWhenArchivingDeadRecordsFails() {
+        when(lock.tryLock()).thenReturn(true);
+        when(mapper.moveDeadRecords(anyString(), anyString(), anyLong(), anyInt()))
+                .thenThrow(new IllegalStateException("db down"));
+
+        service.maintain();
+
+        verify(mapper, never()).deleteExpiredFromDefault(anyString(), anyLong(), anyInt());
+        verify(lock).unlock();
+    }
+}
@@ -32,6 +32,22 @@ public final class IMConstant {
      * Redis 中存储在线用户信息的 key 前缀
      */
     public static final String USER_CACHE_PREFIX = "IM-USER-";
+    /**
+     * Redis 中各连接节点统计信息的 Hash key（field 为 brokerId）
+     */
+    public static final String CONNECT_NODE_STATS_KEY = "IM-CONNECT-NODE-STATS";
+    /**
+     * 已撤销令牌索引（ZSet，member 为令牌 SHA-256 十六进制摘要，score 为令牌过期时间戳毫秒）
+     */
+    public static final String TOKEN_REVOKED_INDEX_KEY = "IM-TOKEN-REVOKED";
+    /**
+     * 令牌撤销广播频道，消息为令牌 SHA-256 十六进制摘要
+     */
+    public static final String TOKEN_REVOKED_CHANNEL = "IM-TOKEN-REVOKED-CHANNEL";
+    /**
+     * 撤销令牌索引迁移完成标记，由 im-auth 补齐历史黑名单后写入；标记存在前索引不完整，不能据此跳过黑名单查询
+     */
+    public static final String TOKEN_REVOKED_SEEDED_KEY = "im:auth:token:revoked:seeded";
 
     // ------------------------------------------------------------------------
     // 用户缓存、消息队列相关
@@ -0,0 +1,84 @@
+package com.xy.lucky.core.model;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+import lombok.experimental.Accessors;
+
+import java.io.Serial;
+import java.io.Serializable;
+
+/**
+ * 连接节点统计快照，由各连接节点周期写入 Redis Hash（field 为 brokerId），
+ * 读取方通过一次 HGETALL 即可汇总全集群连接数，无需 SCAN 用户路由 key。
+ * <p>
+ * 编码为 {@code connections,users,reportedAt,cpuLoad} 的紧凑文本，避免不同服务 Redis 序列化配置不一致；
+ * 兼容旧节点上报的三段格式（cpuLoad 视为未知）。
+ * </p>
+ */
+@Data
+@Accessors(chain = true)
+@NoArgsConstructor
+@AllArgsConstructor
+public class IMConnectNodeStats implements Serializable {
+
+    @Serial
+    private static final long serialVersionUID = 1L;
+
+    private static final String SEPARATOR = ",";
+
+    /**
+     * 节点 brokerId
+     */
+    private String brokerId;
+
+    /**
+     * 节点当前连接数（多端登录时每个设备计一次）
+     */
+    private int connections;
+
+    /**
+     * 节点当前在线用户数
+     */
+    private int users;
+
+    /**
+     * 上报时间（毫秒）
+     */
+    private long reportedAt;
+
+    /**
+     * 节点 CPU 使用率（0~1），小于 0 表示未知
+     */
+    private double cpuLoad = -1;
+
+    /**
+     * 编码为 Hash field 值
+     */
+    public String encode() {
+        return connections + SEPARATOR + users + SEPARATOR + reportedAt + SEPARATOR + cpuLoad;
+    }
+
+    /**
+     * 从 Hash field/value 解码，格式不合法时返回 null
+     */
+    public static IMConnectNodeStats decode(String brokerId, String value) {
+        if (value == null || value.isEmpty()) {
+            return null;
+        }
+        String[] parts = value.split(SEPARATOR);
+        if (parts.length < 3) {
+            return null;
+        }
+        try {
+            return new IMConnectNodeStats()
+                    .setBrokerId(brokerId)
+                    .setConnections(Integer.parseInt(parts[0].trim()))
+                    .setUsers(Integer.parseInt(parts[1].trim()))
+                    .setReportedAt(Long.parseLong(parts[2].trim()))
+                    .setCpuLoad(parts.length > 3 ? Double.parseDouble(parts[3].trim()) : -1);
+        } catch (NumberFormatException e) {
+            return null;
+        }
+    }
+}
@@ -0,0 +1,89 @@
+package com.xy.lucky.gateway.auth;
+
+import java.util.concurrent.atomic.AtomicLongArray;
+
+/**
+ * 已撤销令牌的本地布隆过滤器
+ * <p>
+ * 元素为令牌的 SHA-256 摘要，摘要本身已均匀分布，直接取前 16 字节作为两个 64 位哈希做双重哈希，
+ * 不再二次计算哈希。位数组基于 AtomicLongArray，put 与 mightContain 可并发调用。
+ * 只增不删：过期元素在定期重建时自然淘汰。
+ * </p>
+ */
+public final class TokenBloomFilter {
+
+    private final AtomicLongArray bits;
+    private final long bitSize;
+    private final int hashCount;
+
+    private TokenBloomFilter(long bitSize, int hashCount) {
+        int words = (int) Math.min(Integer.MAX_VALUE - 8, (bitSize + 63) >>> 6);
+        this.bits = new AtomicLongArray(words);
+        this.bitSize = (long) words << 6;
+        this.hashCount = hashCount;
+    }
+
+    /**
+     * 按预期元素数量与误判率创建
+     *
+     * @param expectedInsertions 预期元素数量
+     * @param fpp                期望误判率 (0, 1)
+     */
+    public static TokenBloomFilter create(long expectedInsertions, double fpp) {
+        long n = Math.max(1, expectedInsertions);
+        double p = Math.min(Math.max(fpp, 1e-9), 0.5);
+        long m = (long) Math.ceil(-n * Math.log(p) / (Math.log(2) * Math.log(2)));
+        int k = Math.max(1, (int) Math.round((double) m / n * Math.log(2)));
+        return new TokenBloomFilter(Math.max(64, m), k);
+    }
+
+    /**
+     * 加入一个令牌摘要
+     *
+     * @param digest SHA-256 摘要（至少 16 字节）
+     */
+    public void put(byte[] digest) {
+        long h1 = readLong(digest, 0);
+        long h2 = readLong(digest, 8);
+        for (int i = 0; i < hashCount; i++) {
+            long index = ((h1 + i * h2) & Long.MAX_VALUE) % bitSize;
+            int word = (int) (index >>> 6);
+            long mask = 1L << index;
+            long current = bits.get(word);
+            while ((current & mask) == 0 && !bits.compareAndSet(word, current, current | mask)) {
+                current = bits.get(word);
+            }
+        }
+    }
+
+    /**
+     * 是否可能已撤销；返回 false 时一定未撤销
+     */
+    public boolean mightContain(byte[] digest) {
+        long h1 = readLong(digest, 0);
+        long h2 = readLong(digest, 8);
+        for (int i = 0; i < hashCount; i++) {
+            long index = ((h1 + i * h2) & Long.MAX_VALUE) % bitSize;
+            if ((bits.get((int) (index >>> 6)) & (1L << index)) == 0) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    public long getBitSize() {
+        return bitSize;
+    }
+
+    public int getHashCount() {
+        return hashCount;
+    }
+
+    private static long readLong(byte[] bytes, int offset) {
+        long value = 0;
+        for (int i = 0; i < 8; i++) {
+            value = (value << 8) | (bytes[offset + i] & 0xFFL);
+        }
+        return value;
+    }
+}
@@ -0,0 +1,37 @@
+package com.xy.lucky.gateway.auth;
+
+import java.nio.charset.StandardCharsets;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.HexFormat;
+
+/**
+ * 令牌摘要工具，与 im-auth 广播撤销时使用的 SHA-256 十六进制摘要保持一致
+ */
+public final class TokenDigest {
+
+    private static final ThreadLocal<MessageDigest> SHA256 = ThreadLocal.withInitial(() -> {
+        try {
+            return MessageDigest.getInstance("SHA-256");
+        } catch (NoSuchAlgorithmException e) {
+            throw new IllegalStateException(e);
+        }
+    });
+
+    private TokenDigest() {
+    }
+
+    public static byte[] sha256(String token) {
+        MessageDigest md = SHA256.get();
+        md.reset();
+        return md.digest(token.getBytes(StandardCharsets.UTF_8));
+    }
+
+    public static String toHex(byte[] digest) {
+        return HexFormat.of().formatHex(digest);
+    }
+
+    public static byte[] fromHex(String hex) {
+        return HexFormat.of().parseHex(hex);
+    }
+}
@@ -0,0 +1,194 @@
+package com.xy.lucky.gateway.auth;
+
+import com.xy.lucky.core.constants.IMConstant;
+import com.xy.lucky.gateway.config.GatewayAuthProperties;
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.data.domain.Range;
+import org.springframework.data.redis.core.ReactiveStringRedisTemplate;
+import org.springframework.stereotype.Component;
+import reactor.core.Disposable;
+import reactor.core.Disposables;
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
+import reactor.util.retry.Retry;
+
+import java.time.Duration;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+/**
+ * 已撤销令牌的本地镜像
+ * <p>
+ * - im-auth 撤销令牌时写入 {@link IMConstant#TOKEN_REVOKED_INDEX_KEY} 并在 {@link IMConstant#TOKEN_REVOKED_CHANNEL} 广播摘要
+ * - 订阅广播实时加入布隆过滤器；订阅建立及每隔 revocationRebuildSeconds 从索引全量重建，补齐断线期间漏收的消息并淘汰过期项
+ * - 布隆过滤器未命中即可确定未撤销，命中时由调用方回 Redis 确认
+ * - 首次重建完成前视为"全部可能命中"，退化为每次查询 Redis
+ * - 索引只有在 im-auth 补齐历史黑名单（写入 {@link IMConstant#TOKEN_REVOKED_SEEDED_KEY}）后才完整：
+ * 每次重建先检查该标记，标记不存在时丢弃过滤器并保持查询 Redis
+ * - 收到撤销广播时同时淘汰已验签令牌缓存中的对应条目
+ * </p>
+ */
+@Slf4j
+@Component
+@RequiredArgsConstructor
+public class TokenRevocationRegistry {
+
+    private final GatewayAuthProperties properties;
+    private final ReactiveStringRedisTemplate reactiveStringRedisTemplate;
+    private final VerifiedTokenCache verifiedTokenCache;
+
+    private final Disposable.Composite disposables = Disposables.composite();
+
+    /**
+     * 当前生效的过滤器，首次重建完成前为 null
+     */
+    private volatile TokenBloomFilter filter;
+
+    /**
+     * 重建中的过滤器，重建期间收到的广播同时写入，避免切换时丢失
+     */
+    private volatile TokenBloomFilter building;
+
+    private final AtomicBoolean rebuilding = new AtomicBoolean();
+    private volatile boolean rebuildRequested;
+
+    @PostConstruct
+    public void start() {
+        GatewayAuthProperties.Auth config = properties.getAuth();
+        if (!config.isLocalCacheEnabled() || !config.isCheckBlacklistEnabled()) {
+            return;
+        }
+        disposables.add(reactiveStringRedisTemplate.listenToChannel(IMConstant.TOKEN_REVOKED_CHANNEL)
+                .doOnSubscribe(s -> rebuild().subscribe())
+                .doOnNext(message -> onRevoked(message.getMessage()))
+                .retryWhen(Retry.backoff(Long.MAX_VALUE, Duration.ofSeconds(1)).maxBackoff(Duration.ofSeconds(30)))
+                .subscribe());
+        Duration interval = Duration.ofSeconds(Math.max(10, config.getRevocationRebuildSeconds()));
+        disposables.add(Flux.interval(interval, interval)
+                .onBackpressureDrop()
+                .concatMap(tick -> rebuild())
+                .subscribe());
+    }
+
+    @PreDestroy
+    public void stop() {
+        disposables.dispose();
+    }
+
+    /**
+     * 令牌是否可能已撤销；返回 false 时无需查询 Redis
+     *
+     * @param digest 令牌 SHA-256 摘要
+     */
+    public boolean mightBeRevoked(byte[] digest) {
+        TokenBloomFilter current = filter;
+        return current == null || current.mightContain(digest);
+    }
+
+    /**
+     * 从撤销索引全量重建过滤器并整体替换
+     * <p>
+     * 重建串行执行：已有重建进行中时只登记请求，由进行中的重建结束后再补跑一轮，
+     * 保证最终生效的过滤器读取索引的时间晚于所有重建请求，且重建期间的广播都写入了同一个 building
+     * </p>
+     */
+    Mono<Void> rebuild() {
+        return Mono.defer(() -> {
+            rebuildRequested = true;
+            if (!rebuilding.compareAndSet(false, true)) {
+                return Mono.empty();
+            }
+            return Mono.defer(() -> {
+                        rebuildRequested = false;
+                        return rebuildOnce();
+                    })
+                    .repeat(() -> rebuildRequested)
+                    .doFinally(signal -> {
+                        rebuilding.set(false);
+                        if (rebuildRequested) {
+                            // 登记发生在最后一轮判断之后、标记清除之前
+                            rebuild().subscribe();
+                        }
+                    })
+                    .then();
+        });
+    }
+
+    private Mono<Void> rebuildOnce() {
+        return reactiveStringRedisTemplate.hasKey(IMConstant.TOKEN_REVOKED_SEEDED_KEY)
+                .flatMap(seeded -> {
+                    if (!Boolean.TRUE.equals(seeded)) {
+                        // 历史黑名单尚未补入索引，过滤器可能漏判，继续逐次查询 Redis
+                        filter = null;
+                        log.debug("撤销令牌索引尚未迁移完成，暂不启用过滤器");
+                        return Mono.empty();
+                    }
+                    return buildFromIndex();
+                })
+                .onErrorResume(ex -> {
+                    log.warn("撤销令牌过滤器重建失败：{}", ex.getMessage());
+                    return Mono.empty();
+                })
+                .then();
+    }
+
+    private Mono<Long> buildFromIndex() {
+        return Mono.defer(() -> {
+            GatewayAuthProperties.Auth config = properties.getAuth();
+            TokenBloomFilter next = TokenBloomFilter.create(config.getRevocationBloomCapacity(),
+                    config.getRevocationBloomErrorRate());
+            building = next;
+            long now = System.currentTimeMillis();
+            return reactiveStringRedisTemplate.opsForZSet()
+                    .rangeByScore(IMConstant.TOKEN_REVOKED_INDEX_KEY, Range.rightUnbounded(Range.Bound.inclusive((double) now)))
+                    .doOnNext(digest -> putQuietly(next, digest))
+                    .count()
+                    .doOnNext(count -> {
+                        if (count > config.getRevocationBloomCapacity()) {
+                            log.warn("已撤销令牌数量 {} 超过布隆过滤器容量 {}，误判率将升高", count,
+                                    config.getRevocationBloomCapacity());
+                        }
+                        filter = next;
+                        log.debug("撤销令牌过滤器已重建，元素数={}", count);
+                    })
+                    .doFinally(signal -> building = null);
+        });
+    }
+
+    void onRevoked(String digest) {
+        byte[] bytes = parseDigest(digest);
+        if (bytes == null) {
+            log.warn("忽略非法的撤销令牌摘要：{}", digest);
+            return;
+        }
+        verifiedTokenCache.invalidate(bytes);
+        TokenBloomFilter current = filter;
+        if (current != null) {
+            current.put(bytes);
+        }
+        TokenBloomFilter next = building;
+        if (next != null) {
+            next.put(bytes);
+        }
+    }
+
+    private void putQuietly(TokenBloomFilter target, String digest) {
+        byte[] bytes = parseDigest(digest);
+        if (bytes != null) {
+            target.put(bytes);
+            return;
+        }
+        log.warn("忽略非法的撤销令牌摘要：{}", digest);
+    }
+
+    private static byte[] parseDigest(String digest) {
+        try {
+            byte[] bytes = TokenDigest.fromHex(digest);
+            return bytes.length >= 16 ? bytes : null;
+        } catch (IllegalArgumentException | NullPointerException e) {
+            return null;
+        }
+    }
+}
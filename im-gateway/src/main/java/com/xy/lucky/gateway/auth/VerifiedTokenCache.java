@@ -0,0 +1,88 @@
+package com.xy.lucky.gateway.auth;
+
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import com.github.benmanes.caffeine.cache.Expiry;
+import com.xy.lucky.core.utils.JwtUtil;
+import com.xy.lucky.gateway.config.GatewayAuthProperties;
+import org.springframework.stereotype.Component;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * 已验签令牌的本地缓存
+ * <p>
+ * 以令牌 SHA-256 摘要为键，缓存验签与解析结果，条目按令牌自身的 exp 过期；
+ * 命中时只比较过期时间，避免每个请求重复解析 JWT 与计算 HMAC。撤销状态不在此缓存，由黑名单校验负责；
+ * 收到撤销广播或黑名单命中时淘汰对应条目，已撤销令牌不再走缓存。
+ * </p>
+ */
+@Component
+public class VerifiedTokenCache {
+
+    private final Cache<String, VerifiedToken> cache;
+
+    public VerifiedTokenCache(GatewayAuthProperties properties) {
+        this.cache = Caffeine.newBuilder()
+                .maximumSize(properties.getAuth().getTokenCacheMaxSize())
+                .expireAfter(new Expiry<String, VerifiedToken>() {
+                    @Override
+                    public long expireAfterCreate(String key, VerifiedToken value, long currentTime) {
+                        long remaining = value.expiresAtMillis() - System.currentTimeMillis();
+                        return TimeUnit.MILLISECONDS.toNanos(Math.max(0, remaining));
+                    }
+
+                    @Override
+                    public long expireAfterUpdate(String key, VerifiedToken value, long currentTime, long currentDuration) {
+                        return expireAfterCreate(key, value, currentTime);
+                    }
+
+                    @Override
+                    public long expireAfterRead(String key, VerifiedToken value, long currentTime, long currentDuration) {
+                        return currentDuration;
+                    }
+                })
+                .build();
+    }
+
+    /**
+     * 查询已验签的令牌
+     *
+     * @param digest 令牌 SHA-256 摘要
+     * @return 用户ID，未缓存或已过期时返回 null
+     */
+    public String get(byte[] digest) {
+        VerifiedToken cached = cache.getIfPresent(TokenDigest.toHex(digest));
+        return cached != null && cached.expiresAtMillis() > System.currentTimeMillis() ? cached.userId() : null;
+    }
+
+    /**
+     * 缓存验签通过的令牌，过期时间取自令牌 exp
+     *
+     * @param digest 令牌 SHA-256 摘要
+     * @param token  令牌
+     * @param userId 用户ID
+     */
+    public void put(byte[] digest, String token, String userId) {
+        long remaining = JwtUtil.getRemainingMillis(token);
+        if (remaining > 0) {
+            cache.put(TokenDigest.toHex(digest), new VerifiedToken(userId, System.currentTimeMillis() + remaining));
+        }
+    }
+
+    /**
+     * 淘汰已撤销的令牌
+     *
+     * @param digest 令牌 SHA-256 摘要
+     */
+    public void invalidate(byte[] digest) {
+        cache.invalidate(TokenDigest.toHex(digest));
+    }
+
+    public long size() {
+        return cache.estimatedSize();
+    }
+
+    private record VerifiedToken(String userId, long expiresAtMillis) {
+    }
+}
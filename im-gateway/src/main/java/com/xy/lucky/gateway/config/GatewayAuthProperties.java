@@ -57,7 +57,16 @@ public class GatewayAuthProperties {
          * 令牌黑名单校验（对接 Redis）
          */
         private boolean checkBlacklistEnabled = true;
-        private String blacklistKeyPrefix = "auth:token:blacklist:";
+        private String blacklistKeyPrefix = "im:auth:token:blacklist:";
+
+        /**
+         * 本地验签缓存与撤销令牌布隆过滤器
+         */
+        private boolean localCacheEnabled = true;
+        private long tokenCacheMaxSize = 100_000;
+        private long revocationBloomCapacity = 1_000_000;
+        private double revocationBloomErrorRate = 0.001;
+        private long revocationRebuildSeconds = 300;
 
         /**
          * 防重放保护
@@ -76,6 +85,14 @@ public class GatewayAuthProperties {
         private long maxRequests = 20;
         private long banSeconds = 600;
 
+        /**
+         * 进程内令牌桶预过滤（先于 Redis，拦截明显的突发流量）
+         */
+        private boolean localLimitEnabled = false;
+        private long localBurst = 100;
+        private double localRatePerSecond = 50;
+        private long localMaxEntries = 100_000;
+
         /**
          * 布隆过滤器配置（用于超大规模黑名单快速过滤）
          */
@@ -95,6 +112,44 @@ public class GatewayAuthProperties {
         private boolean enabled = false;
         private long expireTimeSeconds = 300;
         private String secretKeyPrefix = "auth:sign:secret:";
+
+        /**
+         * 验签模式：FIELDS 解析请求参数与 JSON Body 字段签名；STREAMING 对规范化请求头与 Body 摘要签名，Body 流式校验不缓冲
+         */
+        private Mode mode = Mode.FIELDS;
+
+        /**
+         * STREAMING 模式请求头，签名算法为 HMAC-SHA256（十六进制）
+         */
+        private String appIdHeader = "X-App-Id";
+        private String timestampHeader = "X-Timestamp";
+        private String nonceHeader = "X-Nonce";
+        private String signatureHeader = "X-Signature";
+        private String contentSha256Header = "X-Content-SHA256";
+
+        /**
+         * STREAMING 模式额外参与签名的请求头（小写）
+         */
+        private List<String> signedHeaders = new ArrayList<>(List.of("content-type"));
+
+        /**
+         * 应用密钥本地缓存
+         */
+        private long secretCacheSeconds = 300;
+        private long secretRefreshSeconds = 60;
+        private long secretCacheMaxSize = 10_000;
+
+        /**
+         * 本地 nonce 分桶缓存，先于 Redis 判重
+         */
+        private boolean localNonceEnabled = true;
+        private long nonceBucketSeconds = 10;
+        private long nonceBucketMaxSize = 100_000;
+
+        public enum Mode {
+            FIELDS,
+            STREAMING
+        }
     }
 }
 
@@ -0,0 +1,63 @@
+package com.xy.lucky.gateway.config;
+
+import com.xy.lucky.gateway.utils.PathPatternTrie;
+import lombok.RequiredArgsConstructor;
+import org.springframework.stereotype.Component;
+import org.springframework.util.AntPathMatcher;
+
+import java.util.List;
+
+/**
+ * 安全校验白名单匹配
+ * <p>
+ * 白名单编译为不可变的 {@link PathPatternTrie}，按请求逐段查找。配置刷新时属性重新绑定会替换
+ * ignore 列表实例，据此检测变化并整体重建、原子替换快照；查找路径上无锁、无对象分配。
+ * 无法编译的模式回退为 AntPathMatcher 逐个匹配。
+ * </p>
+ */
+@Component
+@RequiredArgsConstructor
+public class IgnorePathMatcher {
+
+    private static final AntPathMatcher PATH_MATCHER = new AntPathMatcher();
+
+    private final GatewayAuthProperties properties;
+
+    private volatile Snapshot snapshot = new Snapshot(null, PathPatternTrie.empty());
+
+    /**
+     * 路径是否在白名单内
+     */
+    public boolean isIgnored(String path) {
+        PathPatternTrie trie = current().trie;
+        if (trie.matches(path)) {
+            return true;
+        }
+        List<String> fallback = trie.getFallbackPatterns();
+        for (int i = 0; i < fallback.size(); i++) {
+            if (PATH_MATCHER.match(fallback.get(i), path)) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    private Snapshot current() {
+        List<String> ignore = properties.getIgnore();
+        Snapshot current = snapshot;
+        if (current.source == ignore) {
+            return current;
+        }
+        synchronized (this) {
+            current = snapshot;
+            if (current.source != ignore) {
+                current = new Snapshot(ignore, PathPatternTrie.compile(ignore == null ? List.of() : List.copyOf(ignore)));
+                snapshot = current;
+            }
+            return current;
+        }
+    }
+
+    private record Snapshot(List<String> source, PathPatternTrie trie) {
+    }
+}
@@ -2,6 +2,8 @@ package com.xy.lucky.gateway.filter;
 
 import com.alibaba.nacos.common.utils.JacksonUtils;
 import com.xy.lucky.gateway.config.GatewayAuthProperties;
+import com.xy.lucky.gateway.guard.LocalNonceCache;
+import com.xy.lucky.gateway.guard.SignSecretCache;
 import com.xy.lucky.gateway.utils.ResponseUtil;
 import com.xy.lucky.gateway.utils.SignUtils;
 import lombok.RequiredArgsConstructor;
@@ -11,6 +13,7 @@ import org.springframework.cloud.gateway.filter.GlobalFilter;
 import org.springframework.core.io.buffer.DataBuffer;
 import org.springframework.core.io.buffer.DataBufferUtils;
 import org.springframework.data.redis.core.ReactiveStringRedisTemplate;
+import org.springframework.http.HttpHeaders;
 import org.springframework.http.HttpMethod;
 import org.springframework.http.HttpStatus;
 import org.springframework.http.MediaType;
@@ -20,14 +23,22 @@ import org.springframework.core.Ordered;
 import org.springframework.stereotype.Component;
 import org.springframework.util.CollectionUtils;
 import org.springframework.util.StringUtils;
+import org.springframework.web.server.ResponseStatusException;
 import org.springframework.web.server.ServerWebExchange;
 import reactor.core.publisher.Flux;
 import reactor.core.publisher.Mono;
 
 import java.nio.charset.StandardCharsets;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
 import java.time.Duration;
 import java.util.HashMap;
+import java.util.HexFormat;
+import java.util.Locale;
 import java.util.Map;
+import java.util.SortedMap;
+import java.util.TreeMap;
+import java.util.concurrent.atomic.AtomicReference;
 
 @Slf4j
 @Component
@@ -37,6 +48,8 @@ public class ApiSignFilter implements GlobalFilter, Ordered {
 
     private final GatewayAuthProperties properties;
     private final ReactiveStringRedisTemplate reactiveStringRedisTemplate;
+    private final SignSecretCache signSecretCache;
+    private final LocalNonceCache localNonceCache;
 
     @Override
     public int getOrder() {
@@ -55,6 +68,10 @@ public class ApiSignFilter implements GlobalFilter, Ordered {
             return chain.filter(exchange);
         }
 
+        if (config.getMode() == GatewayAuthProperties.ApiSign.Mode.STREAMING) {
+            return verifyStreaming(exchange, chain);
+        }
+
         return DataBufferUtils.join(request.getBody())
                 .defaultIfEmpty(exchange.getResponse().bufferFactory().wrap(new byte[0]))
                 .flatMap(dataBuffer -> {
@@ -111,15 +128,12 @@ public class ApiSignFilter implements GlobalFilter, Ordered {
             return Mono.just(false);
         }
 
-        String nonceKey = "gw:sign:nonce:" + appId + ":" + nonce;
-        return reactiveStringRedisTemplate.opsForValue()
-                .setIfAbsent(nonceKey, "1", Duration.ofSeconds(properties.getSign().getExpireTimeSeconds()))
-                .flatMap(saved -> {
-                    if (Boolean.FALSE.equals(saved)) {
-                        log.warn("重复请求：Nonce 已存在 - {}", nonce);
+        return checkNonce(appId, nonce)
+                .flatMap(fresh -> {
+                    if (Boolean.FALSE.equals(fresh)) {
                         return Mono.just(false);
                     }
-                    return getSecret(appId).map(secret -> {
+                    return signSecretCache.get(appId).map(secret -> {
                         if (!StringUtils.hasText(secret)) {
                             return false;
                         }
@@ -129,9 +143,152 @@ public class ApiSignFilter implements GlobalFilter, Ordered {
                 });
     }
 
-    private Mono<String> getSecret(String appId) {
-        String key = properties.getSign().getSecretKeyPrefix() + appId;
-        return reactiveStringRedisTemplate.opsForValue().get(key).defaultIfEmpty("");
+    /**
+     * 流式验签：先校验请求头签名（覆盖客户端声明的 Body 摘要），再在 Body 转发过程中逐块计算摘要，
+     * 流结束时与声明值比对，不一致则以错误终止 Body 流，下游收到的请求被中断。内存占用与 Body 大小无关。
+     */
+    private Mono<Void> verifyStreaming(ServerWebExchange exchange, GatewayFilterChain chain) {
+        GatewayAuthProperties.ApiSign config = properties.getSign();
+        ServerHttpRequest request = exchange.getRequest();
+        HttpHeaders headers = request.getHeaders();
+        String appId = headers.getFirst(config.getAppIdHeader());
+        String sign = headers.getFirst(config.getSignatureHeader());
+        String nonce = headers.getFirst(config.getNonceHeader());
+        String timestampStr = headers.getFirst(config.getTimestampHeader());
+        String contentSha256 = headers.getFirst(config.getContentSha256Header());
+        if (!StringUtils.hasText(appId) || !StringUtils.hasText(sign) || !StringUtils.hasText(nonce)
+                || !StringUtils.hasText(contentSha256)) {
+            return ResponseUtil.writeJson(exchange, HttpStatus.BAD_REQUEST, "SIGNATURE_INVALID");
+        }
+
+        byte[] expectedDigest = parseDigest(contentSha256);
+        if (expectedDigest == null) {
+            return ResponseUtil.writeJson(exchange, HttpStatus.BAD_REQUEST, "SIGNATURE_INVALID");
+        }
+
+        long now = System.currentTimeMillis() / 1000L;
+        if (Math.abs(now - parseLong(timestampStr)) > config.getExpireTimeSeconds()) {
+            log.warn("签名失效：时间戳超时 - {}", timestampStr);
+            return ResponseUtil.writeJson(exchange, HttpStatus.BAD_REQUEST, "SIGNATURE_INVALID");
+        }
+
+        String canonical = SignUtils.canonicalRequest(request.getMethod().name(), request.getPath().value(),
+                request.getQueryParams(), signedHeaders(headers), contentSha256.toLowerCase(Locale.ROOT));
+
+        return checkNonce(appId, nonce)
+                .flatMap(fresh -> Boolean.FALSE.equals(fresh)
+                        ? Mono.just(false)
+                        : signSecretCache.get(appId).map(secret -> StringUtils.hasText(secret)
+                        && MessageDigest.isEqual(
+                        SignUtils.hmacSha256Hex(canonical, secret).getBytes(StandardCharsets.US_ASCII),
+                        sign.toLowerCase(Locale.ROOT).getBytes(StandardCharsets.US_ASCII))))
+                .flatMap(valid -> {
+                    if (Boolean.FALSE.equals(valid)) {
+                        return ResponseUtil.writeJson(exchange, HttpStatus.BAD_REQUEST, "SIGNATURE_INVALID");
+                    }
+                    ServerHttpRequest mutatedRequest = new ServerHttpRequestDecorator(request) {
+                        @Override
+                        public Flux<DataBuffer> getBody() {
+                            return digestingBody(super.getBody(), expectedDigest);
+                        }
+                    };
+                    return chain.filter(exchange.mutate().request(mutatedRequest).build());
+                });
+    }
+
+    /**
+     * 边转发边计算 Body 摘要：始终扣留最近一块 Buffer，直到 Body 结束且摘要校验通过才放行，
+     * 摘要不一致时释放扣留的 Buffer 并以 400 终止，下游永远拿不到完整的篡改 Body
+     */
+    static Flux<DataBuffer> digestingBody(Flux<DataBuffer> body, byte[] expectedDigest) {
+        // 每次订阅独立计算，兼容重试等重复读取 Body 的场景
+        return Flux.defer(() -> {
+            MessageDigest digest = newSha256();
+            AtomicReference<DataBuffer> held = new AtomicReference<>();
+            return body
+                    .<DataBuffer>handle((buffer, sink) -> {
+                        try (DataBuffer.ByteBufferIterator it = buffer.readableByteBuffers()) {
+                            it.forEachRemaining(digest::update);
+                        }
+                        DataBuffer previous = held.getAndSet(buffer);
+                        if (previous != null) {
+                            sink.next(previous);
+                        }
+                    })
+                    .concatWith(Mono.defer(() -> {
+                        DataBuffer last = held.getAndSet(null);
+                        if (MessageDigest.isEqual(digest.digest(), expectedDigest)) {
+                            return Mono.justOrEmpty(last);
+                        }
+                        if (last != null) {
+                            DataBufferUtils.release(last);
+                        }
+                        log.warn("签名失败：Body 摘要与声明不一致");
+                        return Mono.error(new ResponseStatusException(HttpStatus.BAD_REQUEST, "BODY_DIGEST_MISMATCH"));
+                    }))
+                    .doFinally(signal -> {
+                        DataBuffer last = held.getAndSet(null);
+                        if (last != null) {
+                            DataBufferUtils.release(last);
+                        }
+                    });
+        });
+    }
+
+    private SortedMap<String, String> signedHeaders(HttpHeaders headers) {
+        GatewayAuthProperties.ApiSign config = properties.getSign();
+        SortedMap<String, String> signed = new TreeMap<>();
+        for (String name : new String[]{config.getAppIdHeader(), config.getTimestampHeader(),
+                config.getNonceHeader(), config.getContentSha256Header()}) {
+            putHeader(signed, headers, name);
+        }
+        for (String name : config.getSignedHeaders()) {
+            putHeader(signed, headers, name);
+        }
+        return signed;
+    }
+
+    private void putHeader(SortedMap<String, String> signed, HttpHeaders headers, String name) {
+        String value = headers.getFirst(name);
+        signed.put(name.toLowerCase(Locale.ROOT), value == null ? "" : value.trim());
+    }
+
+    /**
+     * nonce 判重：本地分桶缓存命中直接拒绝，未命中再由 Redis SETNX 做跨实例判重
+     */
+    private Mono<Boolean> checkNonce(String appId, String nonce) {
+        GatewayAuthProperties.ApiSign config = properties.getSign();
+        String nonceKey = "gw:sign:nonce:" + appId + ":" + nonce;
+        if (config.isLocalNonceEnabled() && !localNonceCache.add(nonceKey)) {
+            log.warn("重复请求：Nonce 已存在 - {}", nonce);
+            return Mono.just(false);
+        }
+        return reactiveStringRedisTemplate.opsForValue()
+                .setIfAbsent(nonceKey, "1", Duration.ofSeconds(config.getExpireTimeSeconds()))
+                .map(saved -> {
+                    if (Boolean.FALSE.equals(saved)) {
+                        log.warn("重复请求：Nonce 已存在 - {}", nonce);
+                        return false;
+                    }
+                    return true;
+                });
+    }
+
+    private byte[] parseDigest(String hex) {
+        try {
+            byte[] digest = HexFormat.of().parseHex(hex);
+            return digest.length == 32 ? digest : null;
+        } catch (IllegalArgumentException e) {
+            return null;
+        }
+    }
+
+    private static MessageDigest newSha256() {
+        try {
+            return MessageDigest.getInstance("SHA-256");
+        } catch (NoSuchAlgorithmException e) {
+            throw new IllegalStateException(e);
+        }
     }
 
     private boolean isJsonRequest(ServerHttpRequest request) {
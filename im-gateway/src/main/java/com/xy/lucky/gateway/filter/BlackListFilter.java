@@ -1,6 +1,8 @@
 package com.xy.lucky.gateway.filter;
 
 import com.xy.lucky.gateway.config.GatewayAuthProperties;
+import com.xy.lucky.gateway.config.IgnorePathMatcher;
+import com.xy.lucky.gateway.guard.LocalRateLimiter;
 import com.xy.lucky.gateway.utils.IPAddressUtil;
 import com.xy.lucky.gateway.utils.ResponseUtil;
 import lombok.RequiredArgsConstructor;
@@ -8,15 +10,15 @@ import lombok.extern.slf4j.Slf4j;
 import org.springframework.cloud.gateway.filter.GatewayFilterChain;
 import org.springframework.cloud.gateway.filter.GlobalFilter;
 import org.springframework.data.redis.core.ReactiveStringRedisTemplate;
+import org.springframework.data.redis.core.script.DefaultRedisScript;
 import org.springframework.core.Ordered;
 import org.springframework.http.HttpStatus;
 import org.springframework.stereotype.Component;
-import org.springframework.util.AntPathMatcher;
 import org.springframework.util.StringUtils;
 import org.springframework.web.server.ServerWebExchange;
 import reactor.core.publisher.Mono;
 
-import java.time.Duration;
+import java.util.List;
 
 @Slf4j
 @Component
@@ -24,11 +26,42 @@ import java.time.Duration;
 public class BlackListFilter implements GlobalFilter, Ordered {
 
     private static final String KEY_PREFIX = "im-gateway:ip:guard:";
-    private static final AntPathMatcher PATH_MATCHER = new AntPathMatcher();
     private static final int ORDER = -200;
 
+    private static final long BANNED = -1L;
+    private static final long RATE_LIMITED = -2L;
+
+    /**
+     * 封禁检查 + 滑动窗口计数 + 过期设置 + 超限封禁，一次往返内原子完成
+     * <p>
+     * KEYS[1] 封禁键，KEYS[2] 当前窗口计数，KEYS[3] 上一窗口计数；
+     * ARGV[1] 窗口毫秒，ARGV[2] 最大请求数，ARGV[3] 封禁秒数，ARGV[4] 上一窗口计数的权重（剩余占比）。
+     * 估算值 = 上一窗口计数 * 权重 + 当前窗口计数。返回 -1 已封禁，-2 本次超限并封禁，否则为当前窗口计数。
+     * </p>
+     */
+    static final DefaultRedisScript<Long> GUARD_SCRIPT = new DefaultRedisScript<>(
+            """
+                    if redis.call('EXISTS', KEYS[1]) == 1 then
+                      return -1
+                    end
+                    local current = redis.call('INCR', KEYS[2])
+                    if current == 1 then
+                      redis.call('PEXPIRE', KEYS[2], tonumber(ARGV[1]) * 2)
+                    end
+                    local previous = tonumber(redis.call('GET', KEYS[3]) or '0')
+                    if previous * tonumber(ARGV[4]) + current > tonumber(ARGV[2]) then
+                      redis.call('SET', KEYS[1], '1', 'EX', tonumber(ARGV[3]))
+                      return -2
+                    end
+                    return current
+                    """,
+            Long.class
+    );
+
     private final GatewayAuthProperties properties;
+    private final IgnorePathMatcher ignorePathMatcher;
     private final ReactiveStringRedisTemplate reactiveStringRedisTemplate;
+    private final LocalRateLimiter localRateLimiter;
 
     @Override
     public int getOrder() {
@@ -52,17 +85,20 @@ public class BlackListFilter implements GlobalFilter, Ordered {
             return chain.filter(exchange);
         }
 
-        String banKey = KEY_PREFIX + "ban:" + ip;
-        return reactiveStringRedisTemplate.hasKey(banKey)
-                .flatMap(banned -> {
-                    if (Boolean.TRUE.equals(banned)) {
+        if (!localRateLimiter.tryAcquire(ip)) {
+            return ResponseUtil.writeJson(exchange, HttpStatus.TOO_MANY_REQUESTS, "RATE_LIMITED");
+        }
+
+        return checkRateLimit(ip, path)
+                .flatMap(result -> {
+                    if (result == BANNED) {
                         log.warn("拒绝访问：IP 已被封禁 - {}", ip);
                         return ResponseUtil.writeJson(exchange, HttpStatus.FORBIDDEN, "IP_BANNED");
                     }
-                    return checkRateLimit(ip, path)
-                            .flatMap(blocked -> Boolean.TRUE.equals(blocked)
-                                    ? ResponseUtil.writeJson(exchange, HttpStatus.TOO_MANY_REQUESTS, "RATE_LIMITED")
-                                    : chain.filter(exchange));
+                    if (result == RATE_LIMITED) {
+                        return ResponseUtil.writeJson(exchange, HttpStatus.TOO_MANY_REQUESTS, "RATE_LIMITED");
+                    }
+                    return chain.filter(exchange);
                 })
                 .onErrorResume(ex -> {
                     log.error("IP 频控校验异常: {}", ex.getMessage());
@@ -70,32 +106,30 @@ public class BlackListFilter implements GlobalFilter, Ordered {
                 });
     }
 
-    private Mono<Boolean> checkRateLimit(String ip, String path) {
+    private Mono<Long> checkRateLimit(String ip, String path) {
+        return checkRateLimit(ip, path, System.currentTimeMillis());
+    }
+
+    Mono<Long> checkRateLimit(String ip, String path, long now) {
         GatewayAuthProperties.IpGuard config = properties.getIpGuard();
+        long windowMillis = Math.max(1, config.getWindowSeconds()) * 1000L;
+        long window = now / windowMillis;
+        double previousWeight = 1D - (double) (now % windowMillis) / windowMillis;
+
+        // {ip} 作为 hash tag，保证集群模式下三个键落在同一槽位
+        String tag = "{" + ip + "}";
         String safePath = path.replace('/', ':');
-        String counterKey = KEY_PREFIX + "cnt:" + ip + ":" + safePath;
-        String banKey = KEY_PREFIX + "ban:" + ip;
-
-        return reactiveStringRedisTemplate.opsForValue().increment(counterKey)
-                .defaultIfEmpty(1L)
-                .flatMap(current -> {
-                    if (current != null && current == 1L) {
-                        return reactiveStringRedisTemplate.expire(counterKey, Duration.ofSeconds(config.getWindowSeconds()))
-                                .thenReturn(current);
-                    }
-                    return Mono.just(current);
-                })
-                .flatMap(current -> {
-                    if (current != null && current > config.getMaxRequests()) {
-                        return reactiveStringRedisTemplate.opsForValue()
-                                .set(banKey, "1", Duration.ofSeconds(config.getBanSeconds()))
-                                .thenReturn(true);
-                    }
-                    return Mono.just(false);
-                });
+        String counterKey = KEY_PREFIX + "cnt:" + tag + ":" + safePath + ":";
+        List<String> keys = List.of(KEY_PREFIX + "ban:" + tag, counterKey + window, counterKey + (window - 1));
+
+        return reactiveStringRedisTemplate.execute(GUARD_SCRIPT, keys,
+                        List.of(String.valueOf(windowMillis), String.valueOf(config.getMaxRequests()),
+                                String.valueOf(config.getBanSeconds()), String.valueOf(previousWeight)))
+                .next()
+                .defaultIfEmpty(0L);
     }
 
     private boolean isIgnored(String path) {
-        return properties.getIgnore().stream().anyMatch(pattern -> PATH_MATCHER.match(pattern, path));
+        return ignorePathMatcher.isIgnored(path);
     }
 }
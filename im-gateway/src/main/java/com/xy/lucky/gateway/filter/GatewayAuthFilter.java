@@ -1,7 +1,11 @@
 package com.xy.lucky.gateway.filter;
 
 import com.xy.lucky.core.utils.JwtUtil;
+import com.xy.lucky.gateway.auth.TokenDigest;
+import com.xy.lucky.gateway.auth.TokenRevocationRegistry;
+import com.xy.lucky.gateway.auth.VerifiedTokenCache;
 import com.xy.lucky.gateway.config.GatewayAuthProperties;
+import com.xy.lucky.gateway.config.IgnorePathMatcher;
 import com.xy.lucky.gateway.utils.ResponseUtil;
 import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
@@ -12,7 +16,6 @@ import org.springframework.http.HttpStatus;
 import org.springframework.http.server.reactive.ServerHttpRequest;
 import org.springframework.core.Ordered;
 import org.springframework.stereotype.Component;
-import org.springframework.util.AntPathMatcher;
 import org.springframework.util.StringUtils;
 import org.springframework.web.server.ServerWebExchange;
 import reactor.core.publisher.Mono;
@@ -24,11 +27,13 @@ import java.time.Duration;
 @RequiredArgsConstructor
 public class GatewayAuthFilter implements GlobalFilter, Ordered {
 
-    private static final AntPathMatcher PATH_MATCHER = new AntPathMatcher();
     private static final int ORDER = -150;
 
     private final GatewayAuthProperties properties;
+    private final IgnorePathMatcher ignorePathMatcher;
     private final ReactiveStringRedisTemplate reactiveStringRedisTemplate;
+    private final VerifiedTokenCache verifiedTokenCache;
+    private final TokenRevocationRegistry revocationRegistry;
 
     @Override
     public int getOrder() {
@@ -52,27 +57,40 @@ public class GatewayAuthFilter implements GlobalFilter, Ordered {
             return ResponseUtil.writeJson(exchange, HttpStatus.UNAUTHORIZED, "MISSING_TOKEN");
         }
 
-        if (!JwtUtil.validate(token)) {
-            return ResponseUtil.writeJson(exchange, HttpStatus.UNAUTHORIZED, "INVALID_TOKEN");
-        }
+        byte[] digest = config.isLocalCacheEnabled() ? TokenDigest.sha256(token) : null;
+        String userId = digest != null ? verifiedTokenCache.get(digest) : null;
+        if (userId == null) {
+            if (!JwtUtil.validate(token)) {
+                return ResponseUtil.writeJson(exchange, HttpStatus.UNAUTHORIZED, "INVALID_TOKEN");
+            }
 
-        String userId = JwtUtil.getUsername(token);
-        if (!StringUtils.hasText(userId)) {
-            return ResponseUtil.writeJson(exchange, HttpStatus.UNAUTHORIZED, "INVALID_TOKEN_USER");
+            userId = JwtUtil.getUsername(token);
+            if (!StringUtils.hasText(userId)) {
+                return ResponseUtil.writeJson(exchange, HttpStatus.UNAUTHORIZED, "INVALID_TOKEN_USER");
+            }
+            if (digest != null) {
+                verifiedTokenCache.put(digest, token, userId);
+            }
         }
 
+        // 布隆过滤器未命中即确定未撤销，跳过 Redis 查询
         Mono<Boolean> blacklistCheck = config.isCheckBlacklistEnabled()
+                && (digest == null || revocationRegistry.mightBeRevoked(digest))
                 ? reactiveStringRedisTemplate.hasKey(config.getBlacklistKeyPrefix() + token)
                 : Mono.just(false);
 
+        String verifiedUserId = userId;
         return blacklistCheck.flatMap(blacklisted -> {
             if (Boolean.TRUE.equals(blacklisted)) {
+                if (digest != null) {
+                    verifiedTokenCache.invalidate(digest);
+                }
                 return ResponseUtil.writeJson(exchange, HttpStatus.UNAUTHORIZED, "TOKEN_REVOKED");
             }
-            return enforceReplayProtection(exchange, userId)
+            return enforceReplayProtection(exchange, verifiedUserId)
                     .then(Mono.defer(() -> {
                         ServerHttpRequest mutated = exchange.getRequest().mutate()
-                                .header(config.getUserHeader(), userId)
+                                .header(config.getUserHeader(), verifiedUserId)
                                 .build();
                         return chain.filter(exchange.mutate().request(mutated).build());
                     }));
@@ -141,6 +159,6 @@ public class GatewayAuthFilter implements GlobalFilter, Ordered {
     }
 
     private boolean isIgnored(String path) {
-        return properties.getIgnore().stream().anyMatch(pattern -> PATH_MATCHER.match(pattern, path));
+        return ignorePathMatcher.isIgnored(path);
     }
 }
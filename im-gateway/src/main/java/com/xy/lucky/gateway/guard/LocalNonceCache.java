@@ -0,0 +1,83 @@
+package com.xy.lucky.gateway.guard;
+
+import com.xy.lucky.gateway.config.GatewayAuthProperties;
+import org.springframework.stereotype.Component;
+
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicReferenceArray;
+
+/**
+ * 按时间分桶的本地 nonce 缓存
+ * <p>
+ * 每 nonceBucketSeconds 一个桶，共保留覆盖 expireTimeSeconds 的桶数；过期桶在被复用时整体丢弃，无需逐条清理。
+ * 本实例内的重放直接拒绝，未命中时仍由 Redis SETNX 做跨实例判重。单桶超过 nonceBucketMaxSize 后不再写入，
+ * 只退化为 Redis 判重，内存有上界。
+ * </p>
+ */
+@Component
+public class LocalNonceCache {
+
+    private final GatewayAuthProperties properties;
+    private final long bucketMillis;
+    private final AtomicReferenceArray<Bucket> buckets;
+
+    public LocalNonceCache(GatewayAuthProperties properties) {
+        this.properties = properties;
+        GatewayAuthProperties.ApiSign config = properties.getSign();
+        long bucketSeconds = Math.max(1, config.getNonceBucketSeconds());
+        this.bucketMillis = bucketSeconds * 1000L;
+        // 多保留一个桶，保证窗口边界上的 nonce 不会提前淘汰
+        int count = (int) ((Math.max(1, config.getExpireTimeSeconds()) + bucketSeconds - 1) / bucketSeconds) + 1;
+        this.buckets = new AtomicReferenceArray<>(count);
+    }
+
+    /**
+     * 记录 nonce
+     *
+     * @param key appId 与 nonce 组合
+     * @return false 表示本实例在有效期内已见过该 nonce
+     */
+    public boolean add(String key) {
+        long id = System.currentTimeMillis() / bucketMillis;
+        int n = buckets.length();
+        for (int i = 0; i < n; i++) {
+            Bucket bucket = buckets.get(index(id - i));
+            if (bucket != null && bucket.id == id - i && bucket.nonces.contains(key)) {
+                return false;
+            }
+        }
+        Bucket current = current(id);
+        if (current.nonces.size() >= properties.getSign().getNonceBucketMaxSize()) {
+            return true;
+        }
+        return current.nonces.add(key);
+    }
+
+    private Bucket current(long id) {
+        int index = index(id);
+        while (true) {
+            Bucket bucket = buckets.get(index);
+            if (bucket != null && bucket.id == id) {
+                return bucket;
+            }
+            Bucket fresh = new Bucket(id);
+            if (buckets.compareAndSet(index, bucket, fresh)) {
+                return fresh;
+            }
+        }
+    }
+
+    private int index(long id) {
+        return (int) Math.floorMod(id, (long) buckets.length());
+    }
+
+    private static final class Bucket {
+        final long id;
+        final Set<String> nonces = ConcurrentHashMap.newKeySet();
+
+        Bucket(long id) {
+            this.id = id;
+        }
+    }
+}
@@ -0,0 +1,72 @@
+package com.xy.lucky.gateway.guard;
+
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import com.xy.lucky.gateway.config.GatewayAuthProperties;
+import org.springframework.stereotype.Component;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * 进程内按 IP 的令牌桶预过滤
+ * <p>
+ * 位于 Redis 频控之前，只拦截明显超出 localBurst / localRatePerSecond 的突发流量，
+ * 正常流量的精确限流与封禁仍以 Redis 为准。桶在空闲 1 分钟后淘汰，条目数受 localMaxEntries 限制。
+ * </p>
+ */
+@Component
+public class LocalRateLimiter {
+
+    private final GatewayAuthProperties properties;
+    private final Cache<String, TokenBucket> buckets;
+
+    public LocalRateLimiter(GatewayAuthProperties properties) {
+        this.properties = properties;
+        this.buckets = Caffeine.newBuilder()
+                .maximumSize(properties.getIpGuard().getLocalMaxEntries())
+                .expireAfterAccess(1, TimeUnit.MINUTES)
+                .build();
+    }
+
+    /**
+     * 尝试获取一个令牌
+     *
+     * @param ip 客户端 IP
+     * @return false 表示本地桶已空，应直接拒绝
+     */
+    public boolean tryAcquire(String ip) {
+        GatewayAuthProperties.IpGuard config = properties.getIpGuard();
+        if (!config.isLocalLimitEnabled()) {
+            return true;
+        }
+        return buckets.get(ip, k -> new TokenBucket(config.getLocalBurst(), config.getLocalRatePerSecond()))
+                .tryAcquire(System.nanoTime());
+    }
+
+    static final class TokenBucket {
+        private final double capacity;
+        private final double tokensPerNano;
+        private double tokens;
+        private long lastRefillNanos;
+
+        TokenBucket(long capacity, double ratePerSecond) {
+            this.capacity = Math.max(1, capacity);
+            this.tokensPerNano = Math.max(0, ratePerSecond) / TimeUnit.SECONDS.toNanos(1);
+            this.tokens = this.capacity;
+            this.lastRefillNanos = System.nanoTime();
+        }
+
+        synchronized boolean tryAcquire(long nowNanos) {
+            long elapsed = nowNanos - lastRefillNanos;
+            if (elapsed > 0) {
+                tokens = Math.min(capacity, tokens + elapsed * tokensPerNano);
+                lastRefillNanos = nowNanos;
+            }
+            if (tokens >= 1) {
+                tokens -= 1;
+                return true;
+            }
+            return false;
+        }
+    }
+}
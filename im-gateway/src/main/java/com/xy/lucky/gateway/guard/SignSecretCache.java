@@ -0,0 +1,50 @@
+package com.xy.lucky.gateway.guard;
+
+import com.github.benmanes.caffeine.cache.AsyncLoadingCache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import com.xy.lucky.gateway.config.GatewayAuthProperties;
+import org.springframework.data.redis.core.ReactiveStringRedisTemplate;
+import org.springframework.stereotype.Component;
+import reactor.core.publisher.Mono;
+
+import java.time.Duration;
+
+/**
+ * 应用签名密钥的本地缓存
+ * <p>
+ * 超过 secretRefreshSeconds 的条目在下次访问时后台异步刷新，刷新期间继续返回旧值；
+ * 超过 secretCacheSeconds 未刷新成功则过期，回源 Redis。不存在的 appId 缓存为空串，同样按上述周期刷新。
+ * </p>
+ */
+@Component
+public class SignSecretCache {
+
+    private final AsyncLoadingCache<String, String> cache;
+
+    public SignSecretCache(GatewayAuthProperties properties, ReactiveStringRedisTemplate reactiveStringRedisTemplate) {
+        GatewayAuthProperties.ApiSign config = properties.getSign();
+        long expireSeconds = Math.max(1, config.getSecretCacheSeconds());
+        long refreshSeconds = Math.min(expireSeconds, Math.max(1, config.getSecretRefreshSeconds()));
+        Caffeine<Object, Object> builder = Caffeine.newBuilder()
+                .maximumSize(config.getSecretCacheMaxSize())
+                .expireAfterWrite(Duration.ofSeconds(expireSeconds));
+        if (refreshSeconds < expireSeconds) {
+            builder.refreshAfterWrite(Duration.ofSeconds(refreshSeconds));
+        }
+        this.cache = builder.buildAsync((appId, executor) -> reactiveStringRedisTemplate.opsForValue()
+                .get(config.getSecretKeyPrefix() + appId)
+                .defaultIfEmpty("")
+                .toFuture());
+    }
+
+    /**
+     * 获取应用密钥
+     *
+     * @param appId 应用ID
+     * @return 密钥，不存在时为空串
+     */
+    public Mono<String> get(String appId) {
+        // 取消订阅不取消共享的加载任务
+        return Mono.fromFuture(() -> cache.get(appId), true);
+    }
+}
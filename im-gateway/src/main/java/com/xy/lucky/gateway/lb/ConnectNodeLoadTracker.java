@@ -0,0 +1,139 @@
+package com.xy.lucky.gateway.lb;
+
+import com.xy.lucky.core.constants.IMConstant;
+import com.xy.lucky.core.model.IMConnectNodeStats;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.data.redis.core.ReactiveStringRedisTemplate;
+
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * im-connect 节点实时负载视图
+ * <p>
+ * - 连接节点每秒将连接数与 CPU 写入 {@link IMConstant#CONNECT_NODE_STATS_KEY}；本类按 refreshMs 异步 HGETALL 刷新快照，
+ * 刷新由选路请求触发，不占用常驻线程
+ * - 两次上报之间，本网关分配给某节点的连接计入 pending，避免同一份旧快照下的请求集中涌向同一节点；节点上报更新后清零
+ * - 记录节点上线时间用于慢启动：取本网关首次在实例列表中看到该节点、或节点（重新）开始上报中较晚的时刻；
+ *   网关启动时已存在的节点不参与慢启动，之后新出现（含重启）的节点从出现时刻开始预热
+ * </p>
+ */
+@Slf4j
+class ConnectNodeLoadTracker {
+
+    private final ReactiveStringRedisTemplate reactiveStringRedisTemplate;
+    private final long refreshMs;
+    private final long staleMs;
+
+    private final AtomicBoolean refreshing = new AtomicBoolean();
+    private final Map<String, AtomicInteger> pending = new ConcurrentHashMap<>();
+    private final Map<String, Long> onlineSince = new ConcurrentHashMap<>();
+
+    private volatile Map<String, IMConnectNodeStats> snapshot = Map.of();
+    private volatile long lastRefreshAt;
+    private volatile boolean loaded;
+    private volatile boolean observed;
+
+    ConnectNodeLoadTracker(ReactiveStringRedisTemplate reactiveStringRedisTemplate, long refreshMs, long staleMs) {
+        this.reactiveStringRedisTemplate = reactiveStringRedisTemplate;
+        this.refreshMs = Math.max(100, refreshMs);
+        this.staleMs = Math.max(this.refreshMs, staleMs);
+    }
+
+    /**
+     * 节点最新统计，不存在或已过期时返回 null
+     */
+    IMConnectNodeStats stats(String brokerId) {
+        IMConnectNodeStats stats = snapshot.get(brokerId);
+        if (stats == null || System.currentTimeMillis() - stats.getReportedAt() > staleMs) {
+            return null;
+        }
+        return stats;
+    }
+
+    int pending(String brokerId) {
+        AtomicInteger count = pending.get(brokerId);
+        return count == null ? 0 : count.get();
+    }
+
+    /**
+     * 记录本网关向节点分配了一个连接
+     */
+    void assigned(String brokerId) {
+        pending.computeIfAbsent(brokerId, k -> new AtomicInteger()).incrementAndGet();
+    }
+
+    /**
+     * 节点上线时间（本网关观察到的），网关启动时已存在的节点视为早已上线
+     *
+     * @return 既未出现在实例列表、也未上报过的节点返回 null
+     */
+    Long onlineSince(String brokerId) {
+        return onlineSince.get(brokerId);
+    }
+
+    /**
+     * 记录实例列表中首次出现的节点，并清理已下线节点的上线时间；
+     * 首次调用时列表中的节点视为早已上线，之后新出现的节点从当前时刻开始预热
+     */
+    void observe(Collection<String> brokerIds) {
+        long since = observed ? System.currentTimeMillis() : 0L;
+        Set<String> present = new HashSet<>(brokerIds.size() * 2);
+        for (String brokerId : brokerIds) {
+            present.add(brokerId);
+            onlineSince.putIfAbsent(brokerId, since);
+        }
+        onlineSince.keySet().retainAll(present);
+        observed = true;
+    }
+
+    /**
+     * 快照过期时触发一次异步刷新，调用方继续使用当前快照
+     */
+    void refreshIfNeeded() {
+        long now = System.currentTimeMillis();
+        if (now - lastRefreshAt < refreshMs || !refreshing.compareAndSet(false, true)) {
+            return;
+        }
+        lastRefreshAt = now;
+        reactiveStringRedisTemplate.<String, String>opsForHash()
+                .entries(IMConstant.CONNECT_NODE_STATS_KEY)
+                .collectMap(Map.Entry::getKey, Map.Entry::getValue)
+                .doFinally(signal -> refreshing.set(false))
+                .subscribe(this::apply, ex -> log.debug("刷新节点负载失败: {}", ex.getMessage()));
+    }
+
+    private void apply(Map<String, String> entries) {
+        Map<String, IMConnectNodeStats> previous = snapshot;
+        long since = loaded ? System.currentTimeMillis() : 0L;
+        Map<String, IMConnectNodeStats> next = new HashMap<>(entries.size() * 2);
+        entries.forEach((brokerId, value) -> {
+            IMConnectNodeStats stats = IMConnectNodeStats.decode(brokerId, value);
+            if (stats == null) {
+                return;
+            }
+            next.put(brokerId, stats);
+            IMConnectNodeStats old = previous.get(brokerId);
+            if (old == null) {
+                // 新节点或重启后重新上报的节点，从（重新）上报时刻开始预热
+                onlineSince.merge(brokerId, since, Math::max);
+            }
+            if (old == null || old.getReportedAt() != stats.getReportedAt()) {
+                // 新上报已包含此前分配的连接
+                AtomicInteger count = pending.get(brokerId);
+                if (count != null) {
+                    count.set(0);
+                }
+            }
+        });
+        pending.keySet().retainAll(next.keySet());
+        snapshot = Map.copyOf(next);
+        loaded = true;
+    }
+}
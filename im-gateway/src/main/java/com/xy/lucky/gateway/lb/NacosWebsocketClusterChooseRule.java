@@ -1,23 +1,29 @@
 package com.xy.lucky.gateway.lb;
 
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import com.xy.lucky.core.model.IMConnectNodeStats;
 import lombok.extern.slf4j.Slf4j;
 import org.springframework.beans.factory.ObjectProvider;
+import org.springframework.beans.factory.annotation.Value;
 import org.springframework.cloud.client.ServiceInstance;
 import org.springframework.cloud.client.loadbalancer.*;
 import org.springframework.cloud.loadbalancer.core.NoopServiceInstanceListSupplier;
 import org.springframework.cloud.loadbalancer.core.ReactorServiceInstanceLoadBalancer;
 import org.springframework.cloud.loadbalancer.core.ServiceInstanceListSupplier;
 import org.springframework.data.redis.core.ReactiveRedisTemplate;
+import org.springframework.data.redis.core.ReactiveStringRedisTemplate;
 import org.springframework.util.StringUtils;
 import reactor.core.publisher.Mono;
 
 import java.net.URLDecoder;
 import java.nio.charset.StandardCharsets;
-import java.util.Comparator;
+import java.time.Duration;
 import java.util.LinkedHashMap;
 import java.util.List;
+import java.util.Objects;
 import java.util.Optional;
-import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.ThreadLocalRandom;
 
 
 /**
@@ -30,6 +36,13 @@ import java.util.concurrent.atomic.AtomicInteger;
  * @LoadBalancerClient(value = "im-connect", configuration = {NacosWebsocketClusterChooseRule.class})
  * <p>
  * 配置开启负载均衡
+ * <p>
+ * 选路策略：
+ * - uid 已绑定节点时粘滞到该节点，绑定关系本地缓存 sticky-cache-ttl-ms
+ * - 否则 P2C（随机取两个实例选负载低者）加权最少连接：负载 = (上报连接数 + 本网关未计入的分配数) / (权重 * CPU 余量)，
+ *   连接数取自节点每秒上报的 Redis Hash，过期时退回 Nacos metadata
+ * - 新实例在 slow-start-ms 内按已上线时长比例接受流量，避免扩容后新节点被瞬间打满
+ * </p>
  */
 @Slf4j
 public class NacosWebsocketClusterChooseRule implements ReactorServiceInstanceLoadBalancer {
@@ -43,16 +56,39 @@ public class NacosWebsocketClusterChooseRule implements ReactorServiceInstanceLo
     // metadata 中的连接数
     private static final String CONNECTION_COUNT = "connection_count";
 
-    // 轮询计数器
-    private final AtomicInteger position = new AtomicInteger(0);
+    // Nacos 实例权重
+    private static final String NACOS_WEIGHT = "nacos.weight";
+
+    // CPU 余量下限，避免高负载节点的分母趋近 0
+    private static final double MIN_CPU_HEADROOM = 0.05;
+
+    // 慢启动期间的最低流量比例
+    private static final double MIN_WARMUP_FACTOR = 0.1;
 
     private final ObjectProvider<ServiceInstanceListSupplier> serviceInstanceListSupplierProvider;
 
     private final ReactiveRedisTemplate<String, Object> reactiveRedisTemplate;
 
-    public NacosWebsocketClusterChooseRule(ObjectProvider<ServiceInstanceListSupplier> serviceInstanceListSupplierProvider, ReactiveRedisTemplate<String, Object> reactiveRedisTemplate) {
+    private final ConnectNodeLoadTracker loadTracker;
+
+    private final Cache<String, String> stickyCache;
+
+    @Value("${lucky.gateway.lb.slow-start-ms:10000}")
+    private long slowStartMs = 10_000L;
+
+    public NacosWebsocketClusterChooseRule(ObjectProvider<ServiceInstanceListSupplier> serviceInstanceListSupplierProvider,
+                                           ReactiveRedisTemplate<String, Object> reactiveRedisTemplate,
+                                           ReactiveStringRedisTemplate reactiveStringRedisTemplate,
+                                           @Value("${lucky.gateway.lb.stats-refresh-ms:1000}") long statsRefreshMs,
+                                           @Value("${lucky.gateway.lb.stats-stale-ms:5000}") long statsStaleMs,
+                                           @Value("${lucky.gateway.lb.sticky-cache-ttl-ms:2000}") long stickyCacheTtlMs) {
         this.serviceInstanceListSupplierProvider = serviceInstanceListSupplierProvider;
         this.reactiveRedisTemplate = reactiveRedisTemplate;
+        this.loadTracker = new ConnectNodeLoadTracker(reactiveStringRedisTemplate, statsRefreshMs, statsStaleMs);
+        this.stickyCache = Caffeine.newBuilder()
+                .maximumSize(100_000)
+                .expireAfterWrite(Duration.ofMillis(Math.max(1, stickyCacheTtlMs)))
+                .build();
     }
 
     @Override
@@ -75,6 +111,11 @@ public class NacosWebsocketClusterChooseRule implements ReactorServiceInstanceLo
                 return Mono.just(new EmptyResponse());
             }
 
+            loadTracker.refreshIfNeeded();
+            loadTracker.observe(instances.stream()
+                    .map(i -> i.getMetadata().get(IM_BROKER))
+                    .filter(Objects::nonNull)
+                    .toList());
             return getUserBroker(uid).map(brokerId -> {
                 if (StringUtils.hasText(brokerId)) {
                     Optional<ServiceInstance> match = instances.stream()
@@ -84,24 +125,86 @@ public class NacosWebsocketClusterChooseRule implements ReactorServiceInstanceLo
                         return (Response<ServiceInstance>) new DefaultResponse(match.get());
                     }
                 }
-                return chooseByLeastConnection(instances);
+                return chooseByPowerOfTwo(instances);
             });
         });
     }
 
     /**
-     * 最少连接数负载均衡算法
+     * P2C 加权最少连接：随机取两个不同实例，选有效负载低者；慢启动中的实例按预热比例让出
      */
-    private Response<ServiceInstance> chooseByLeastConnection(List<ServiceInstance> instances) {
-        ServiceInstance instance = instances.stream()
-                .min(Comparator.comparingInt(this::getConnectionCount))
-                .orElse(instances.get(Math.abs(position.incrementAndGet()) % instances.size()));
+    private Response<ServiceInstance> chooseByPowerOfTwo(List<ServiceInstance> instances) {
+        ServiceInstance instance;
+        int size = instances.size();
+        if (size == 1) {
+            instance = instances.get(0);
+        } else {
+            ThreadLocalRandom random = ThreadLocalRandom.current();
+            int first = random.nextInt(size);
+            int second = random.nextInt(size - 1);
+            if (second >= first) {
+                second++;
+            }
+            ServiceInstance a = instances.get(first);
+            ServiceInstance b = instances.get(second);
+            long now = System.currentTimeMillis();
+            ServiceInstance winner = load(a) <= load(b) ? a : b;
+            ServiceInstance loser = winner == a ? b : a;
+            instance = random.nextDouble() < warmupFactor(winner, now) ? winner : loser;
+        }
 
-        log.info("负载均衡结果：已选实例 {}, 当前连接数 {}", instance.getMetadata().get(IM_BROKER), getConnectionCount(instance));
+        String brokerId = instance.getMetadata().get(IM_BROKER);
+        if (brokerId != null) {
+            loadTracker.assigned(brokerId);
+        }
+        log.debug("负载均衡结果：已选实例 {}, 当前连接数 {}", brokerId, getConnectionCount(instance));
         return new DefaultResponse(instance);
     }
 
-    private Integer getConnectionCount(ServiceInstance instance) {
+    /**
+     * 有效负载 = 连接数 / (权重 * CPU 余量)
+     */
+    private double load(ServiceInstance instance) {
+        double connections = getConnectionCount(instance) + 1;
+        double capacity = getWeight(instance);
+        String brokerId = instance.getMetadata().get(IM_BROKER);
+        IMConnectNodeStats stats = brokerId == null ? null : loadTracker.stats(brokerId);
+        if (stats != null && stats.getCpuLoad() >= 0) {
+            capacity *= Math.max(MIN_CPU_HEADROOM, 1 - stats.getCpuLoad());
+        }
+        return connections / capacity;
+    }
+
+    /**
+     * 慢启动预热比例：节点上线后线性增长到 1，尚无上线记录的节点视为刚上线
+     */
+    double warmupFactor(ServiceInstance instance, long now) {
+        String brokerId = instance.getMetadata().get(IM_BROKER);
+        if (brokerId == null || slowStartMs <= 0) {
+            return 1;
+        }
+        Long since = loadTracker.onlineSince(brokerId);
+        long age = since == null ? 0 : now - since;
+        if (age >= slowStartMs) {
+            return 1;
+        }
+        return Math.max(MIN_WARMUP_FACTOR, (double) age / slowStartMs);
+    }
+
+    /**
+     * 连接数：优先取节点实时上报，过期时退回 Nacos metadata；加上本网关尚未体现在上报中的分配数
+     */
+    private int getConnectionCount(ServiceInstance instance) {
+        String brokerId = instance.getMetadata().get(IM_BROKER);
+        if (brokerId == null) {
+            return getMetadataConnectionCount(instance);
+        }
+        IMConnectNodeStats stats = loadTracker.stats(brokerId);
+        int reported = stats != null ? stats.getConnections() : getMetadataConnectionCount(instance);
+        return Math.max(0, reported) + loadTracker.pending(brokerId);
+    }
+
+    private int getMetadataConnectionCount(ServiceInstance instance) {
         try {
             String count = instance.getMetadata().get(CONNECTION_COUNT);
             return count != null ? Integer.parseInt(count) : 0;
@@ -110,10 +213,24 @@ public class NacosWebsocketClusterChooseRule implements ReactorServiceInstanceLo
         }
     }
 
+    private double getWeight(ServiceInstance instance) {
+        try {
+            String weight = instance.getMetadata().get(NACOS_WEIGHT);
+            double value = weight != null ? Double.parseDouble(weight) : 1;
+            return value > 0 ? value : 1;
+        } catch (Exception e) {
+            return 1;
+        }
+    }
+
     /**
-     * 异步从 Redis 获取用户绑定的 brokerId
+     * 异步从 Redis 获取用户绑定的 brokerId，结果本地短暂缓存（未绑定同样缓存）
      */
     private Mono<String> getUserBroker(String uid) {
+        String cached = stickyCache.getIfPresent(uid);
+        if (cached != null) {
+            return Mono.just(cached);
+        }
         return reactiveRedisTemplate.opsForValue().get(IM_USER_PREFIX + uid)
                 .map(userObj -> {
                     if (userObj instanceof LinkedHashMap<?, ?> map) {
@@ -122,7 +239,8 @@ public class NacosWebsocketClusterChooseRule implements ReactorServiceInstanceLo
                     }
                     return "";
                 })
-                .defaultIfEmpty("");
+                .defaultIfEmpty("")
+                .doOnNext(brokerId -> stickyCache.put(uid, brokerId));
     }
 
     private String extractQueryParam(String query, String param) {
@@ -0,0 +1,304 @@
+package com.xy.lucky.gateway.utils;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.List;
+
+/**
+ * 预编译的 Ant 风格路径模式集合（按路径段组织的前缀树）
+ * <p>
+ * 构建后不可变，可在多线程间共享。匹配时按下标在原始路径上逐段推进，不做切分、不创建对象；
+ * 字面量段二分查找，单段通配 *、多段通配 ** 与段内通配（如 *.js、v?）作为独立分支。
+ * 语义与 AntPathMatcher 一致：忽略空段，首尾分隔符须与模式一致（含 ** 段的模式不限制结尾分隔符）。
+ * 含正则变量（{name:regex}）或变量与文本混排的模式无法按段编译，放入 {@link #getFallbackPatterns()} 由调用方逐个匹配。
+ * </p>
+ */
+public final class PathPatternTrie {
+
+    private static final char SEPARATOR = '/';
+    private static final PathPatternTrie EMPTY = compile(Collections.emptyList());
+
+    private final Node root;
+    private final List<String> fallbackPatterns;
+
+    private PathPatternTrie(Node root, List<String> fallbackPatterns) {
+        this.root = root;
+        this.fallbackPatterns = fallbackPatterns;
+    }
+
+    public static PathPatternTrie empty() {
+        return EMPTY;
+    }
+
+    /**
+     * 编译模式集合
+     *
+     * @param patterns Ant 风格模式
+     */
+    public static PathPatternTrie compile(Collection<String> patterns) {
+        Builder root = new Builder();
+        List<String> fallback = new ArrayList<>();
+        for (String pattern : patterns) {
+            if (pattern == null) {
+                continue;
+            }
+            if (!add(root, pattern)) {
+                fallback.add(pattern);
+            }
+        }
+        return new PathPatternTrie(root.build(), List.copyOf(fallback));
+    }
+
+    /**
+     * 是否被任一已编译模式匹配（不含回退模式）
+     */
+    public boolean matches(String path) {
+        int end = path.length();
+        int flag = endFlag(path.startsWith("/"), end > 0 && path.charAt(end - 1) == SEPARATOR);
+        return match(root, path, skipSeparators(path, 0), flag);
+    }
+
+    public List<String> getFallbackPatterns() {
+        return fallbackPatterns;
+    }
+
+    private static int endFlag(boolean leadingSlash, boolean trailingSlash) {
+        return 1 << ((leadingSlash ? 2 : 0) | (trailingSlash ? 1 : 0));
+    }
+
+    private static boolean add(Builder root, String pattern) {
+        boolean leading = pattern.startsWith("/");
+        boolean trailing = pattern.endsWith("/");
+        boolean doubleStar = false;
+        Builder node = root;
+        Builder parent = null;
+        String last = null;
+        for (String segment : pattern.split("/")) {
+            if (segment.isEmpty()) {
+                continue;
+            }
+            last = segment;
+            if (segment.indexOf('{') >= 0) {
+                if (!isPlainVariable(segment)) {
+                    return false;
+                }
+                segment = "*";
+            }
+            doubleStar |= "**".equals(segment);
+            parent = node;
+            node = node.child(segment);
+        }
+        if (doubleStar) {
+            // 含 ** 的模式不要求结尾分隔符一致
+            node.terminalMask |= endFlag(leading, false) | endFlag(leading, true);
+        } else {
+            node.terminalMask |= endFlag(leading, trailing);
+            if ("*".equals(last)) {
+                // AntPathMatcher：/a/* 匹配 /a/
+                parent.slashOnlyMask |= endFlag(leading, true);
+            }
+        }
+        return true;
+    }
+
+    private static boolean isPlainVariable(String segment) {
+        return segment.length() > 2 && segment.charAt(0) == '{' && segment.charAt(segment.length() - 1) == '}'
+                && segment.indexOf(':') < 0 && segment.indexOf('{', 1) < 0 && segment.indexOf('}') == segment.length() - 1;
+    }
+
+    private static boolean match(Node node, String path, int from, int flag) {
+        int end = path.length();
+        if (from >= end) {
+            if ((node.terminalMask & flag) != 0 || (node.slashOnlyMask & flag) != 0) {
+                return true;
+            }
+            return node.doubleStar != null && match(node.doubleStar, path, from, flag);
+        }
+        int segEnd = path.indexOf(SEPARATOR, from);
+        if (segEnd < 0) {
+            segEnd = end;
+        }
+        int next = skipSeparators(path, segEnd);
+
+        Node literal = node.findLiteral(path, from, segEnd);
+        if (literal != null && match(literal, path, next, flag)) {
+            return true;
+        }
+        for (int i = 0; i < node.globs.length; i++) {
+            if (globMatches(node.globs[i], path, from, segEnd) && match(node.globNodes[i], path, next, flag)) {
+                return true;
+            }
+        }
+        if (node.single != null && match(node.single, path, next, flag)) {
+            return true;
+        }
+        return node.doubleStar != null && matchDoubleStar(node.doubleStar, path, from, flag);
+    }
+
+    /**
+     * ** 节点：依次尝试吞掉 0..n 段后继续匹配后续模式段
+     */
+    private static boolean matchDoubleStar(Node node, String path, int from, int flag) {
+        int end = path.length();
+        int pos = from;
+        while (true) {
+            if (match(node, path, pos, flag)) {
+                return true;
+            }
+            if (pos >= end) {
+                return false;
+            }
+            int segEnd = path.indexOf(SEPARATOR, pos);
+            pos = skipSeparators(path, segEnd < 0 ? end : segEnd);
+        }
+    }
+
+    private static int skipSeparators(String path, int from) {
+        int end = path.length();
+        while (from < end && path.charAt(from) == SEPARATOR) {
+            from++;
+        }
+        return from;
+    }
+
+    /**
+     * 段内通配匹配：* 匹配任意字符序列，? 匹配单个字符
+     */
+    private static boolean globMatches(String glob, String path, int from, int to) {
+        int g = 0;
+        int p = from;
+        int starG = -1;
+        int starP = -1;
+        int gl = glob.length();
+        while (p < to) {
+            if (g < gl && (glob.charAt(g) == '?' || glob.charAt(g) == path.charAt(p))) {
+                g++;
+                p++;
+            } else if (g < gl && glob.charAt(g) == '*') {
+                starG = g++;
+                starP = p;
+            } else if (starG >= 0) {
+                g = starG + 1;
+                p = ++starP;
+            } else {
+                return false;
+            }
+        }
+        while (g < gl && glob.charAt(g) == '*') {
+            g++;
+        }
+        return g == gl;
+    }
+
+    private static int compareRegion(String literal, String path, int from, int to) {
+        int len = to - from;
+        int n = Math.min(literal.length(), len);
+        for (int i = 0; i < n; i++) {
+            int c = literal.charAt(i) - path.charAt(from + i);
+            if (c != 0) {
+                return c;
+            }
+        }
+        return literal.length() - len;
+    }
+
+    private static final class Node {
+        private static final String[] NO_STRINGS = new String[0];
+        private static final Node[] NO_NODES = new Node[0];
+
+        final String[] literals;
+        final Node[] literalNodes;
+        final String[] globs;
+        final Node[] globNodes;
+        final Node single;
+        final Node doubleStar;
+        final int terminalMask;
+        /**
+         * 路径在本节点耗尽且以分隔符结尾时，由末段为 * 的模式接受
+         */
+        final int slashOnlyMask;
+
+        Node(String[] literals, Node[] literalNodes, String[] globs, Node[] globNodes,
+             Node single, Node doubleStar, int terminalMask, int slashOnlyMask) {
+            this.literals = literals;
+            this.literalNodes = literalNodes;
+            this.globs = globs;
+            this.globNodes = globNodes;
+            this.single = single;
+            this.doubleStar = doubleStar;
+            this.terminalMask = terminalMask;
+            this.slashOnlyMask = slashOnlyMask;
+        }
+
+        Node findLiteral(String path, int from, int to) {
+            int lo = 0;
+            int hi = literals.length - 1;
+            while (lo <= hi) {
+                int mid = (lo + hi) >>> 1;
+                int c = compareRegion(literals[mid], path, from, to);
+                if (c < 0) {
+                    lo = mid + 1;
+                } else if (c > 0) {
+                    hi = mid - 1;
+                } else {
+                    return literalNodes[mid];
+                }
+            }
+            return null;
+        }
+    }
+
+    private static final class Builder {
+        final List<String> keys = new ArrayList<>();
+        final List<Builder> children = new ArrayList<>();
+        int terminalMask;
+        int slashOnlyMask;
+
+        Builder child(String segment) {
+            int index = keys.indexOf(segment);
+            if (index >= 0) {
+                return children.get(index);
+            }
+            Builder child = new Builder();
+            keys.add(segment);
+            children.add(child);
+            return child;
+        }
+
+        Node build() {
+            List<Integer> literalIdx = new ArrayList<>();
+            List<Integer> globIdx = new ArrayList<>();
+            Node single = null;
+            Node doubleStar = null;
+            for (int i = 0; i < keys.size(); i++) {
+                String key = keys.get(i);
+                if ("**".equals(key)) {
+                    doubleStar = children.get(i).build();
+                } else if ("*".equals(key)) {
+                    single = children.get(i).build();
+                } else if (key.indexOf('*') >= 0 || key.indexOf('?') >= 0) {
+                    globIdx.add(i);
+                } else {
+                    literalIdx.add(i);
+                }
+            }
+            literalIdx.sort(Comparator.comparing(keys::get));
+            String[] literals = literalIdx.isEmpty() ? Node.NO_STRINGS : new String[literalIdx.size()];
+            Node[] literalNodes = literalIdx.isEmpty() ? Node.NO_NODES : new Node[literalIdx.size()];
+            for (int i = 0; i < literalIdx.size(); i++) {
+                literals[i] = keys.get(literalIdx.get(i));
+                literalNodes[i] = children.get(literalIdx.get(i)).build();
+            }
+            String[] globs = globIdx.isEmpty() ? Node.NO_STRINGS : new String[globIdx.size()];
+            Node[] globNodes = globIdx.isEmpty() ? Node.NO_NODES : new Node[globIdx.size()];
+            for (int i = 0; i < globIdx.size(); i++) {
+                globs[i] = keys.get(globIdx.get(i));
+                globNodes[i] = children.get(globIdx.get(i)).build();
+            }
+            return new Node(literals, literalNodes, globs, globNodes, single, doubleStar, terminalMask, slashOnlyMask);
+        }
+    }
+
+}
@@ -3,7 +3,13 @@ package com.xy.lucky.gateway.utils;
 import lombok.extern.slf4j.Slf4j;
 import org.springframework.util.DigestUtils;
 
+import javax.crypto.Mac;
+import javax.crypto.spec.SecretKeySpec;
 import java.nio.charset.StandardCharsets;
+import java.security.GeneralSecurityException;
+import java.util.Comparator;
+import java.util.HexFormat;
+import java.util.List;
 import java.util.Map;
 import java.util.SortedMap;
 import java.util.TreeMap;
@@ -40,4 +46,43 @@ public class SignUtils {
         // 4. MD5 转大写
         return DigestUtils.md5DigestAsHex(sb.toString().getBytes(StandardCharsets.UTF_8)).toUpperCase();
     }
-}
\ No newline at end of file
+
+    /**
+     * 构造流式验签的规范化请求串：
+     * METHOD\n路径\n按键值排序的查询串\n每个签名头 name:value\n（按名称排序）Body 的 SHA-256 十六进制摘要
+     */
+    public static String canonicalRequest(String method, String path, Map<String, List<String>> query,
+                                          SortedMap<String, String> headers, String contentSha256) {
+        StringBuilder sb = new StringBuilder(256);
+        sb.append(method).append('\n').append(path).append('\n');
+        SortedMap<String, List<String>> sortedQuery = new TreeMap<>(query);
+        boolean first = true;
+        for (Map.Entry<String, List<String>> entry : sortedQuery.entrySet()) {
+            List<String> values = entry.getValue().stream()
+                    .sorted(Comparator.nullsFirst(Comparator.naturalOrder())).toList();
+            for (String value : values) {
+                if (!first) sb.append('&');
+                sb.append(entry.getKey()).append('=').append(value == null ? "" : value);
+                first = false;
+            }
+        }
+        sb.append('\n');
+        for (Map.Entry<String, String> entry : headers.entrySet()) {
+            sb.append(entry.getKey()).append(':').append(entry.getValue()).append('\n');
+        }
+        return sb.append(contentSha256).toString();
+    }
+
+    /**
+     * HMAC-SHA256 签名，返回小写十六进制
+     */
+    public static String hmacSha256Hex(String data, String secret) {
+        try {
+            Mac mac = Mac.getInstance("HmacSHA256");
+            mac.init(new SecretKeySpec(secret.getBytes(StandardCharsets.UTF_8), "HmacSHA256"));
+            return HexFormat.of().formatHex(mac.doFinal(data.getBytes(StandardCharsets.UTF_8)));
+        } catch (GeneralSecurityException e) {
+            throw new IllegalStateException(e);
+        }
+    }
+}
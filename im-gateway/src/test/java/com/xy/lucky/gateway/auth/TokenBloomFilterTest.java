@@ -0,0 +1,53 @@
+package com.xy.lucky.gateway.auth;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+class TokenBloomFilterTest {
+
+    @Test
+    void everyInsertedDigestShouldBeReported() {
+        TokenBloomFilter filter = TokenBloomFilter.create(10_000, 0.001);
+        List<byte[]> digests = new ArrayList<>();
+        for (int i = 0; i < 10_000; i++) {
+            byte[] digest = TokenDigest.sha256("token-" + i);
+            digests.add(digest);
+            filter.put(digest);
+        }
+
+        for (byte[] digest : digests) {
+            assertThat(filter.mightContain(digest)).isTrue();
+        }
+    }
+
+    @Test
+    void falsePositiveRateShouldStayNearConfiguredRate() {
+        TokenBloomFilter filter = TokenBloomFilter.create(10_000, 0.01);
+        for (int i = 0; i < 10_000; i++) {
+            filter.put(TokenDigest.sha256("revoked-" + i));
+        }
+
+        int falsePositives = 0;
+        int probes = 100_000;
+        for (int i = 0; i < probes; i++) {
+            if (filter.mightContain(TokenDigest.sha256("valid-" + i))) {
+                falsePositives++;
+            }
+        }
+        // 期望约 1%，留足余量避免偶发波动
+        assertThat(falsePositives).isLessThan(probes * 3 / 100);
+    }
+
+    @Test
+    void emptyFilterShouldReportNothing() {
+        TokenBloomFilter filter = TokenBloomFilter.create(1_000, 0.001);
+
+        assertThat(filter.mightContain(TokenDigest.sha256("token"))).isFalse();
+        assertThat(filter.getBitSize()).isPositive().isEqualTo(filter.getBitSize() / 64 * 64);
+        assertThat(filter.getHashCount()).isPositive();
+    }
+}
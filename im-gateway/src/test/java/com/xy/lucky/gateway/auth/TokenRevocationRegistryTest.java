@@ -0,0 +1,106 @@
+package com.xy.lucky.gateway.auth;
+
+import com.xy.lucky.core.constants.IMConstant;
+import com.xy.lucky.gateway.config.GatewayAuthProperties;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.data.domain.Range;
+import org.springframework.data.redis.core.ReactiveStringRedisTemplate;
+import org.springframework.data.redis.core.ReactiveZSetOperations;
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+@ExtendWith(MockitoExtension.class)
+class TokenRevocationRegistryTest {
+
+    @Mock
+    private ReactiveStringRedisTemplate redisTemplate;
+    @Mock
+    private ReactiveZSetOperations<String, String> zSetOperations;
+
+    private VerifiedTokenCache verifiedTokenCache;
+    private TokenRevocationRegistry registry;
+
+    @BeforeEach
+    void setUp() {
+        GatewayAuthProperties properties = new GatewayAuthProperties();
+        properties.getAuth().setRevocationBloomCapacity(1_000);
+        verifiedTokenCache = new VerifiedTokenCache(properties);
+        registry = new TokenRevocationRegistry(properties, redisTemplate, verifiedTokenCache);
+    }
+
+    @Test
+    void shouldFallBackToRedisUntilIndexIsSeeded() {
+        when(redisTemplate.hasKey(IMConstant.TOKEN_REVOKED_SEEDED_KEY)).thenReturn(Mono.just(false));
+
+        registry.rebuild().block();
+
+        assertThat(registry.mightBeRevoked(TokenDigest.sha256("any-token"))).isTrue();
+        verify(redisTemplate, never()).opsForZSet();
+    }
+
+    @Test
+    void rebuildShouldSwapInFilterBuiltFromIndex() {
+        byte[] revoked = TokenDigest.sha256("revoked-token");
+        byte[] valid = TokenDigest.sha256("valid-token");
+        when(redisTemplate.hasKey(IMConstant.TOKEN_REVOKED_SEEDED_KEY)).thenReturn(Mono.just(true));
+        when(redisTemplate.opsForZSet()).thenReturn(zSetOperations);
+        when(zSetOperations.rangeByScore(eq(IMConstant.TOKEN_REVOKED_INDEX_KEY), any(Range.class)))
+                .thenReturn(Flux.just(TokenDigest.toHex(revoked)))
+                .thenReturn(Flux.empty());
+
+        registry.rebuild().block();
+
+        assertThat(registry.mightBeRevoked(revoked)).isTrue();
+        assertThat(registry.mightBeRevoked(valid)).isFalse();
+
+        // 索引项过期后重建，新过滤器整体替换旧过滤器
+        registry.rebuild().block();
+
+        assertThat(registry.mightBeRevoked(revoked)).isFalse();
+    }
+
+    @Test
+    void markerRemovedAfterSeedingShouldDisableFilterAgain() {
+        when(redisTemplate.hasKey(IMConstant.TOKEN_REVOKED_SEEDED_KEY))
+                .thenReturn(Mono.just(true))
+                .thenReturn(Mono.just(false));
+        when(redisTemplate.opsForZSet()).thenReturn(zSetOperations);
+        when(zSetOperations.rangeByScore(eq(IMConstant.TOKEN_REVOKED_INDEX_KEY), any(Range.class)))
+                .thenReturn(Flux.empty());
+        byte[] digest = TokenDigest.sha256("token");
+
+        registry.rebuild().block();
+        assertThat(registry.mightBeRevoked(digest)).isFalse();
+
+        registry.rebuild().block();
+        assertThat(registry.mightBeRevoked(digest)).isTrue();
+    }
+
+    @Test
+    void revocationBroadcastShouldUpdateFilterAndEvictVerifiedToken() {
+        when(redisTemplate.hasKey(IMConstant.TOKEN_REVOKED_SEEDED_KEY)).thenReturn(Mono.just(true));
+        when(redisTemplate.opsForZSet()).thenReturn(zSetOperations);
+        when(zSetOperations.rangeByScore(eq(IMConstant.TOKEN_REVOKED_INDEX_KEY), any(Range.class)))
+                .thenReturn(Flux.empty());
+        registry.rebuild().block();
+        String token = VerifiedTokenCacheTest.token("u1", 60);
+        byte[] digest = TokenDigest.sha256(token);
+        verifiedTokenCache.put(digest, token, "u1");
+
+        registry.onRevoked(TokenDigest.toHex(digest));
+
+        assertThat(registry.mightBeRevoked(digest)).isTrue();
+        assertThat(verifiedTokenCache.get(digest)).isNull();
+    }
+}
@@ -0,0 +1,72 @@
+package com.xy.lucky.gateway.auth;
+
+import com.xy.lucky.core.utils.JwtUtil;
+import com.xy.lucky.gateway.config.GatewayAuthProperties;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import java.time.temporal.ChronoUnit;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+class VerifiedTokenCacheTest {
+
+    private VerifiedTokenCache cache;
+
+    @BeforeEach
+    void setUp() {
+        cache = new VerifiedTokenCache(new GatewayAuthProperties());
+    }
+
+    @Test
+    void shouldReturnUserIdForCachedToken() {
+        String token = token("u1", 60);
+        byte[] digest = TokenDigest.sha256(token);
+
+        cache.put(digest, token, "u1");
+
+        assertThat(cache.get(digest)).isEqualTo("u1");
+        assertThat(cache.get(TokenDigest.sha256(token("u2", 60)))).isNull();
+    }
+
+    @Test
+    void expiredTokenShouldNotBeCached() {
+        String token = token("u1", -1);
+        byte[] digest = TokenDigest.sha256(token);
+
+        cache.put(digest, token, "u1");
+
+        assertThat(cache.get(digest)).isNull();
+        assertThat(cache.size()).isZero();
+    }
+
+    @Test
+    void entryShouldExpireWithToken() throws InterruptedException {
+        String token = token("u1", 1);
+        byte[] digest = TokenDigest.sha256(token);
+        cache.put(digest, token, "u1");
+
+        // exp 精度为秒，最多等待一个多秒即过期
+        long deadline = System.currentTimeMillis() + 3_000;
+        while (cache.get(digest) != null && System.currentTimeMillis() < deadline) {
+            Thread.sleep(50);
+        }
+
+        assertThat(cache.get(digest)).isNull();
+    }
+
+    @Test
+    void invalidateShouldEvictRevokedToken() {
+        String token = token("u1", 60);
+        byte[] digest = TokenDigest.sha256(token);
+        cache.put(digest, token, "u1");
+
+        cache.invalidate(digest);
+
+        assertThat(cache.get(digest)).isNull();
+    }
+
+    static String token(String userId, long seconds) {
+        return JwtUtil.createToken(userId, 1L, seconds, ChronoUnit.SECONDS);
+    }
+}
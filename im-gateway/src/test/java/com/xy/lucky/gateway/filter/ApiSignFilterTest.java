@@ -0,0 +1,77 @@
+package com.xy.lucky.gateway.filter;
+
+import org.junit.jupiter.api.Test;
+import org.springframework.core.io.buffer.DataBuffer;
+import org.springframework.core.io.buffer.DefaultDataBufferFactory;
+import org.springframework.web.server.ResponseStatusException;
+import reactor.core.publisher.Flux;
+
+import java.nio.charset.StandardCharsets;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+class ApiSignFilterTest {
+
+    private final DefaultDataBufferFactory bufferFactory = new DefaultDataBufferFactory();
+
+    @Test
+    void digestingBodyShouldPassThroughWhenDigestMatches() throws NoSuchAlgorithmException {
+        byte[] expected = sha256("hello, world");
+
+        List<String> chunks = ApiSignFilter.digestingBody(body("hello", ", ", "world"), expected)
+                .map(this::read)
+                .collectList()
+                .block();
+
+        assertThat(chunks).containsExactly("hello", ", ", "world");
+    }
+
+    @Test
+    void digestingBodyShouldWithholdLastBufferWhenDigestMismatches() throws NoSuchAlgorithmException {
+        byte[] expected = sha256("hello, world");
+        List<String> forwarded = new ArrayList<>();
+
+        assertThatThrownBy(() -> ApiSignFilter.digestingBody(body("hello", ", ", "w0rld"), expected)
+                .doOnNext(buffer -> forwarded.add(read(buffer)))
+                .blockLast())
+                .isInstanceOf(ResponseStatusException.class)
+                .hasMessageContaining("BODY_DIGEST_MISMATCH");
+        assertThat(forwarded).containsExactly("hello", ", ");
+    }
+
+    @Test
+    void digestingBodyShouldRejectSingleBufferBodyWithoutForwardingIt() throws NoSuchAlgorithmException {
+        byte[] expected = sha256("{\"a\":1}");
+        List<String> forwarded = new ArrayList<>();
+
+        assertThatThrownBy(() -> ApiSignFilter.digestingBody(body("{\"a\":2}"), expected)
+                .doOnNext(buffer -> forwarded.add(read(buffer)))
+                .blockLast())
+                .isInstanceOf(ResponseStatusException.class);
+        assertThat(forwarded).isEmpty();
+    }
+
+    @Test
+    void digestingBodyShouldAcceptEmptyBody() throws NoSuchAlgorithmException {
+        List<DataBuffer> buffers = ApiSignFilter.digestingBody(Flux.empty(), sha256("")).collectList().block();
+
+        assertThat(buffers).isEmpty();
+    }
+
+    private Flux<DataBuffer> body(String... chunks) {
+        return Flux.fromArray(chunks).map(chunk -> bufferFactory.wrap(chunk.getBytes(StandardCharsets.UTF_8)));
+    }
+
+    private String read(DataBuffer buffer) {
+        return buffer.toString(StandardCharsets.UTF_8);
+    }
+
+    private static byte[] sha256(String content) throws NoSuchAlgorithmException {
+        return MessageDigest.getInstance("SHA-256").digest(content.getBytes(StandardCharsets.UTF_8));
+    }
+}
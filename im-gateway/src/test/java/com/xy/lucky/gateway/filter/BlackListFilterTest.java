@@ -0,0 +1,121 @@
+package com.xy.lucky.gateway.filter;
+
+import com.xy.lucky.gateway.config.GatewayAuthProperties;
+import com.xy.lucky.gateway.config.IgnorePathMatcher;
+import com.xy.lucky.gateway.guard.LocalRateLimiter;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.data.redis.core.ReactiveStringRedisTemplate;
+import reactor.core.publisher.Flux;
+
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.ArgumentMatchers.anyList;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
+
+class BlackListFilterTest {
+
+    private static final String IP = "10.0.0.1";
+    private static final String PATH = "/api/v1/message/send";
+    private static final long WINDOW_MILLIS = 5_000L;
+    private static final long MAX_REQUESTS = 20;
+
+    /**
+     * 窗口起点，取窗口长度的整数倍
+     */
+    private static final long WINDOW_START = 1_700_000_000_000L / WINDOW_MILLIS * WINDOW_MILLIS;
+
+    private final Map<String, Long> counters = new HashMap<>();
+    private final Set<String> banned = new HashSet<>();
+
+    private BlackListFilter filter;
+
+    @BeforeEach
+    @SuppressWarnings("unchecked")
+    void setUp() {
+        GatewayAuthProperties properties = new GatewayAuthProperties();
+        properties.getIpGuard().setWindowSeconds(WINDOW_MILLIS / 1000);
+        properties.getIpGuard().setMaxRequests(MAX_REQUESTS);
+
+        ReactiveStringRedisTemplate redisTemplate = mock(ReactiveStringRedisTemplate.class);
+        when(redisTemplate.execute(eq(BlackListFilter.GUARD_SCRIPT), anyList(), anyList()))
+                .thenAnswer(invocation -> Flux.just(evalGuardScript(invocation.getArgument(1), invocation.getArgument(2))));
+
+        filter = new BlackListFilter(properties, mock(IgnorePathMatcher.class), redisTemplate, mock(LocalRateLimiter.class));
+    }
+
+    @Test
+    void scriptShouldCombineWeightedPreviousWindowWithCurrentCount() {
+        String script = BlackListFilter.GUARD_SCRIPT.getScriptAsString();
+
+        assertThat(script).contains("redis.call('EXISTS', KEYS[1])");
+        assertThat(script).contains("redis.call('INCR', KEYS[2])");
+        assertThat(script).contains("redis.call('GET', KEYS[3])");
+        assertThat(script).contains("previous * tonumber(ARGV[4]) + current > tonumber(ARGV[2])");
+    }
+
+    @Test
+    void requestsUpToLimitShouldPassAndNextShouldBanWithinOneWindow() {
+        for (long i = 1; i <= MAX_REQUESTS; i++) {
+            assertThat(check(WINDOW_START + i)).isEqualTo(i);
+        }
+
+        assertThat(check(WINDOW_START + 100)).isEqualTo(-2L);
+        assertThat(check(WINDOW_START + 101)).isEqualTo(-1L);
+    }
+
+    @Test
+    void previousWindowShouldCountByRemainingShareOfWindow() {
+        for (int i = 0; i < MAX_REQUESTS; i++) {
+            assertThat(check(WINDOW_START + i)).isPositive();
+        }
+
+        // 下一窗口过半：上一窗口 20 次按 0.5 计入，当前窗口只剩 10 次额度
+        long halfway = WINDOW_START + WINDOW_MILLIS + WINDOW_MILLIS / 2;
+        for (long i = 1; i <= MAX_REQUESTS / 2; i++) {
+            assertThat(check(halfway)).isEqualTo(i);
+        }
+        assertThat(check(halfway)).isEqualTo(-2L);
+    }
+
+    @Test
+    void requestsAfterFullIdleWindowShouldGetFullQuota() {
+        for (int i = 0; i < MAX_REQUESTS; i++) {
+            check(WINDOW_START + i);
+        }
+
+        long later = WINDOW_START + 2 * WINDOW_MILLIS;
+        for (long i = 1; i <= MAX_REQUESTS; i++) {
+            assertThat(check(later)).isEqualTo(i);
+        }
+        assertThat(check(later)).isEqualTo(-2L);
+    }
+
+    private long check(long now) {
+        return filter.checkRateLimit(IP, PATH, now).block();
+    }
+
+    /**
+     * 按 GUARD_SCRIPT 的逻辑在内存中执行，键与参数取自过滤器实际传给 Redis 的值
+     */
+    private Long evalGuardScript(List<String> keys, List<Object> args) {
+        if (banned.contains(keys.get(0))) {
+            return -1L;
+        }
+        long current = counters.merge(keys.get(1), 1L, Long::sum);
+        long previous = counters.getOrDefault(keys.get(2), 0L);
+        double weight = Double.parseDouble(args.get(3).toString());
+        if (previous * weight + current > Long.parseLong(args.get(1).toString())) {
+            banned.add(keys.get(0));
+            return -2L;
+        }
+        return current;
+    }
+}
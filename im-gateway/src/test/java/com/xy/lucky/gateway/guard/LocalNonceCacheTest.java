@@ -0,0 +1,43 @@
+package com.xy.lucky.gateway.guard;
+
+import com.xy.lucky.gateway.config.GatewayAuthProperties;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+class LocalNonceCacheTest {
+
+    private GatewayAuthProperties properties;
+
+    @BeforeEach
+    void setUp() {
+        properties = new GatewayAuthProperties();
+        properties.getSign().setExpireTimeSeconds(300);
+        properties.getSign().setNonceBucketSeconds(10);
+    }
+
+    @Test
+    void addShouldRejectRepeatedNonce() {
+        LocalNonceCache cache = new LocalNonceCache(properties);
+
+        assertThat(cache.add("app:n1")).isTrue();
+        assertThat(cache.add("app:n1")).isFalse();
+        assertThat(cache.add("app:n2")).isTrue();
+        assertThat(cache.add("other:n1")).isTrue();
+    }
+
+    @Test
+    void addShouldStopRecordingWhenBucketIsFull() {
+        properties.getSign().setNonceBucketMaxSize(2);
+        LocalNonceCache cache = new LocalNonceCache(properties);
+
+        assertThat(cache.add("app:n1")).isTrue();
+        assertThat(cache.add("app:n2")).isTrue();
+        // 桶已满：不再记录，本地判重放行，交由 Redis 判重
+        assertThat(cache.add("app:n3")).isTrue();
+        assertThat(cache.add("app:n3")).isTrue();
+        // 已记录的仍然被拒绝
+        assertThat(cache.add("app:n1")).isFalse();
+    }
+}
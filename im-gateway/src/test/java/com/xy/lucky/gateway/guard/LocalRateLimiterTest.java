@@ -0,0 +1,103 @@
+package com.xy.lucky.gateway.guard;
+
+import com.xy.lucky.gateway.config.GatewayAuthProperties;
+import org.junit.jupiter.api.Test;
+
+import java.util.concurrent.TimeUnit;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+class LocalRateLimiterTest {
+
+    @Test
+    void bucketShouldAllowBurstUpToCapacityThenReject() {
+        LocalRateLimiter.TokenBucket bucket = new LocalRateLimiter.TokenBucket(5, 1);
+        long now = System.nanoTime();
+
+        for (int i = 0; i < 5; i++) {
+            assertThat(bucket.tryAcquire(now)).isTrue();
+        }
+        assertThat(bucket.tryAcquire(now)).isFalse();
+    }
+
+    @Test
+    void bucketShouldRefillAtConfiguredRate() {
+        LocalRateLimiter.TokenBucket bucket = new LocalRateLimiter.TokenBucket(5, 2);
+        long now = System.nanoTime();
+        drain(bucket, now);
+
+        // 2 个/秒：600ms 补充 1.2 个令牌
+        long later = now + TimeUnit.MILLISECONDS.toNanos(600);
+        assertThat(bucket.tryAcquire(later)).isTrue();
+        assertThat(bucket.tryAcquire(later)).isFalse();
+
+        // 再过 500ms，余下的 0.2 个加上新补充的 1 个
+        assertThat(bucket.tryAcquire(later + TimeUnit.MILLISECONDS.toNanos(500))).isTrue();
+    }
+
+    @Test
+    void refillShouldBeCappedAtBurstCapacity() {
+        LocalRateLimiter.TokenBucket bucket = new LocalRateLimiter.TokenBucket(5, 100);
+        long now = System.nanoTime();
+        drain(bucket, now);
+
+        long muchLater = now + TimeUnit.SECONDS.toNanos(60);
+        for (int i = 0; i < 5; i++) {
+            assertThat(bucket.tryAcquire(muchLater)).isTrue();
+        }
+        assertThat(bucket.tryAcquire(muchLater)).isFalse();
+    }
+
+    @Test
+    void zeroRateBucketShouldNeverRefill() {
+        LocalRateLimiter.TokenBucket bucket = new LocalRateLimiter.TokenBucket(2, 0);
+        long now = System.nanoTime();
+        drain(bucket, now);
+
+        assertThat(bucket.tryAcquire(now + TimeUnit.HOURS.toNanos(1))).isFalse();
+    }
+
+    @Test
+    void clockGoingBackwardsShouldNotRefill() {
+        LocalRateLimiter.TokenBucket bucket = new LocalRateLimiter.TokenBucket(1, 1);
+        long now = System.nanoTime();
+        drain(bucket, now);
+
+        assertThat(bucket.tryAcquire(now - TimeUnit.SECONDS.toNanos(10))).isFalse();
+        assertThat(bucket.tryAcquire(now)).isFalse();
+    }
+
+    @Test
+    void limiterShouldKeepSeparateBucketsPerIp() {
+        GatewayAuthProperties properties = new GatewayAuthProperties();
+        properties.getIpGuard().setLocalLimitEnabled(true);
+        properties.getIpGuard().setLocalBurst(3);
+        properties.getIpGuard().setLocalRatePerSecond(0);
+        LocalRateLimiter limiter = new LocalRateLimiter(properties);
+
+        for (int i = 0; i < 3; i++) {
+            assertThat(limiter.tryAcquire("10.0.0.1")).isTrue();
+        }
+        assertThat(limiter.tryAcquire("10.0.0.1")).isFalse();
+        assertThat(limiter.tryAcquire("10.0.0.2")).isTrue();
+    }
+
+    @Test
+    void limiterShouldPassEverythingWhenDisabled() {
+        GatewayAuthProperties properties = new GatewayAuthProperties();
+        properties.getIpGuard().setLocalLimitEnabled(false);
+        properties.getIpGuard().setLocalBurst(1);
+        properties.getIpGuard().setLocalRatePerSecond(0);
+        LocalRateLimiter limiter = new LocalRateLimiter(properties);
+
+        for (int i = 0; i < 10; i++) {
+            assertThat(limiter.tryAcquire("10.0.0.1")).isTrue();
+        }
+    }
+
+    private static void drain(LocalRateLimiter.TokenBucket bucket, long now) {
+        while (bucket.tryAcquire(now)) {
+            // 耗尽令牌
+        }
+    }
+}
@@ -0,0 +1,81 @@
+package com.xy.lucky.gateway.lb;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.ObjectProvider;
+import org.springframework.cloud.client.DefaultServiceInstance;
+import org.springframework.cloud.client.ServiceInstance;
+import org.springframework.cloud.loadbalancer.core.ServiceInstanceListSupplier;
+import org.springframework.data.redis.core.ReactiveRedisTemplate;
+import org.springframework.data.redis.core.ReactiveStringRedisTemplate;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import java.util.List;
+import java.util.Map;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.within;
+import static org.mockito.Mockito.mock;
+
+class NacosWebsocketClusterChooseRuleTest {
+
+    private static final long SLOW_START_MS = 10_000L;
+
+    private NacosWebsocketClusterChooseRule rule;
+    private ConnectNodeLoadTracker loadTracker;
+
+    @BeforeEach
+    @SuppressWarnings("unchecked")
+    void setUp() {
+        rule = new NacosWebsocketClusterChooseRule(mock(ObjectProvider.class), mock(ReactiveRedisTemplate.class),
+                mock(ReactiveStringRedisTemplate.class), 1000, 5000, 2000);
+        ReflectionTestUtils.setField(rule, "slowStartMs", SLOW_START_MS);
+        loadTracker = (ConnectNodeLoadTracker) ReflectionTestUtils.getField(rule, "loadTracker");
+    }
+
+    @Test
+    void nodeWithoutStatsOrFirstSeenShouldBeCold() {
+        assertThat(rule.warmupFactor(instance("b1"), System.currentTimeMillis())).isEqualTo(0.1);
+    }
+
+    @Test
+    void nodesPresentAtFirstObservationShouldBeWarm() {
+        loadTracker.observe(List.of("b1", "b2"));
+
+        long now = System.currentTimeMillis();
+        assertThat(rule.warmupFactor(instance("b1"), now)).isEqualTo(1);
+        assertThat(rule.warmupFactor(instance("b2"), now)).isEqualTo(1);
+    }
+
+    @Test
+    void nodeFirstSeenLaterShouldWarmUpFromFirstSeenTime() {
+        loadTracker.observe(List.of("b1"));
+        long before = System.currentTimeMillis();
+        loadTracker.observe(List.of("b1", "b2"));
+
+        Long since = loadTracker.onlineSince("b2");
+        assertThat(since).isGreaterThanOrEqualTo(before);
+        assertThat(rule.warmupFactor(instance("b2"), since)).isEqualTo(0.1);
+        assertThat(rule.warmupFactor(instance("b2"), since + SLOW_START_MS / 2)).isCloseTo(0.5, within(1e-9));
+        assertThat(rule.warmupFactor(instance("b2"), since + SLOW_START_MS)).isEqualTo(1);
+        assertThat(rule.warmupFactor(instance("b1"), since)).isEqualTo(1);
+    }
+
+    @Test
+    void nodeRemovedAndReaddedShouldWarmUpAgain() {
+        loadTracker.observe(List.of("b1", "b2"));
+        loadTracker.observe(List.of("b1"));
+        assertThat(loadTracker.onlineSince("b2")).isNull();
+
+        long before = System.currentTimeMillis();
+        loadTracker.observe(List.of("b1", "b2"));
+
+        assertThat(loadTracker.onlineSince("b2")).isGreaterThanOrEqualTo(before);
+        assertThat(rule.warmupFactor(instance("b2"), before)).isEqualTo(0.1);
+    }
+
+    private static ServiceInstance instance(String brokerId) {
+        return new DefaultServiceInstance(brokerId, "im-connect", "127.0.0.1", 19000, false,
+                Map.of("brokerId", brokerId));
+    }
+}
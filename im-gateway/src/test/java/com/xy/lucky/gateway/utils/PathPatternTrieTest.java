@@ -0,0 +1,112 @@
+package com.xy.lucky.gateway.utils;
+
+import org.junit.jupiter.api.Test;
+import org.springframework.util.AntPathMatcher;
+
+import java.util.List;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+class PathPatternTrieTest {
+
+    private static final AntPathMatcher ANT = new AntPathMatcher();
+
+    private static final List<String> PATHS = List.of(
+            "", "/", "//", "a", "a/", "/a", "/a/", "//a", "/a//b", "/a/b", "/a/b/", "a/b", "a/b/", "/a/b/c", "/a/b/c/",
+            "/a/x/y/b", "/users", "/users/", "/users/42", "/users/42/", "/users/42/profile", "/users/abc",
+            "/static/app.js", "/static/app.css", "/static/.js", "/static/js", "/v1/users", "/v10/users", "/v/users",
+            "/x.html", "/docs/x.html", "/files/abc", "/files/ac");
+
+    @Test
+    void doubleStarShouldMatchParentWithoutTrailingSeparator() {
+        assertMatch("/a/**", "/a", true);
+        assertMatch("/a/**", "/a/", true);
+        assertMatch("/a/**", "/a/b/c/", true);
+        assertMatch("/a/**", "/ab", false);
+        assertMatch("/**", "/", true);
+        assertMatch("/a/**/b", "/a/b", true);
+        assertMatch("/a/**/b", "/a/x/y/b", true);
+        assertMatch("/**/*.html", "/x.html", true);
+    }
+
+    @Test
+    void trailingStarShouldMatchSeparatorOnlyPath() {
+        assertMatch("/a/*", "/a/", true);
+        assertMatch("a/*", "a/", true);
+        assertMatch("/a/*", "/a", false);
+        assertMatch("/a/*", "/a/b", true);
+        assertMatch("/a/*", "/a/b/", false);
+        assertMatch("/a/*", "/a/b/c", false);
+    }
+
+    @Test
+    void leadingAndTrailingSeparatorsShouldAgree() {
+        assertMatch("/a/b", "a/b", false);
+        assertMatch("a/b", "/a/b", false);
+        assertMatch("a/b", "a/b", true);
+        assertMatch("/a/b", "/a/b/", false);
+        assertMatch("/a/b/", "/a/b", false);
+        assertMatch("/a/b/", "/a/b/", true);
+        assertMatch("/a/b", "/a//b", true);
+    }
+
+    @Test
+    void plainVariableShouldMatchOneSegment() {
+        assertMatch("/users/{id}", "/users/42", true);
+        assertMatch("/users/{id}", "/users/", false);
+        assertMatch("/users/{id}", "/users/42/profile", false);
+        assertMatch("/users/{id}/profile", "/users/42/profile", true);
+    }
+
+    @Test
+    void inSegmentGlobShouldMatchWithinSegment() {
+        assertMatch("/static/*.js", "/static/app.js", true);
+        assertMatch("/static/*.js", "/static/.js", true);
+        assertMatch("/static/*.js", "/static/app.css", false);
+        assertMatch("/static/*.js", "/static/js", false);
+        assertMatch("/v?/users", "/v1/users", true);
+        assertMatch("/v?/users", "/v10/users", false);
+        assertMatch("/v?/users", "/v/users", false);
+    }
+
+    @Test
+    void regexAndMixedVariablesShouldFallBack() {
+        PathPatternTrie trie = PathPatternTrie.compile(List.of("/users/{id:\\d+}", "/files/a{b}c", "/a/b"));
+
+        assertThat(trie.getFallbackPatterns()).containsExactly("/users/{id:\\d+}", "/files/a{b}c");
+        assertThat(trie.matches("/users/42")).isFalse();
+        assertThat(matchesWithFallback(trie, "/users/42")).isTrue();
+        assertThat(matchesWithFallback(trie, "/users/abc")).isFalse();
+        assertThat(matchesWithFallback(trie, "/files/abc")).isTrue();
+        assertThat(matchesWithFallback(trie, "/a/b")).isTrue();
+    }
+
+    @Test
+    void combinedPatternSetShouldAgreeWithAntPathMatcher() {
+        List<String> patterns = List.of("/a/**", "/a/*", "a/b", "/a/b/", "/users/{id}", "/users/{id}/profile",
+                "/static/*.js", "/v?/users", "/**/*.html", "/a/**/b", "/users/{id:\\d+}", "/files/a{b}c");
+        PathPatternTrie trie = PathPatternTrie.compile(patterns);
+
+        for (String path : PATHS) {
+            boolean expected = patterns.stream().anyMatch(pattern -> ANT.match(pattern, path));
+            assertThat(matchesWithFallback(trie, path)).as("path '%s'", path).isEqualTo(expected);
+        }
+    }
+
+    @Test
+    void emptyTrieShouldMatchNothing() {
+        for (String path : PATHS) {
+            assertThat(PathPatternTrie.empty().matches(path)).isFalse();
+        }
+    }
+
+    private static void assertMatch(String pattern, String path, boolean expected) {
+        assertThat(ANT.match(pattern, path)).as("AntPathMatcher '%s' vs '%s'", pattern, path).isEqualTo(expected);
+        assertThat(PathPatternTrie.compile(List.of(pattern)).matches(path))
+                .as("PathPatternTrie '%s' vs '%s'", pattern, path).isEqualTo(expected);
+    }
+
+    private static boolean matchesWithFallback(PathPatternTrie trie, String path) {
+        return trie.matches(path) || trie.getFallbackPatterns().stream().anyMatch(pattern -> ANT.match(pattern, path));
+    }
+}
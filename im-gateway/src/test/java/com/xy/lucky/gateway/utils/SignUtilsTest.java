@@ -0,0 +1,59 @@
+package com.xy.lucky.gateway.utils;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.Arrays;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.SortedMap;
+import java.util.TreeMap;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+class SignUtilsTest {
+
+    @Test
+    void canonicalRequestShouldSortQueryKeysAndValues() {
+        Map<String, List<String>> query = new LinkedHashMap<>();
+        query.put("b", List.of("2", "1"));
+        query.put("a", Arrays.asList("x", null));
+        SortedMap<String, String> headers = new TreeMap<>();
+        headers.put("x-timestamp", "1700000000");
+        headers.put("x-app-id", "app");
+
+        String canonical = SignUtils.canonicalRequest("POST", "/api/v1/msg", query, headers, "abc");
+
+        assertThat(canonical).isEqualTo("POST\n/api/v1/msg\n"
+                + "a=&a=x&b=1&b=2\n"
+                + "x-app-id:app\n"
+                + "x-timestamp:1700000000\n"
+                + "abc");
+    }
+
+    @Test
+    void canonicalRequestShouldKeepEmptyQueryLine() {
+        String canonical = SignUtils.canonicalRequest("GET", "/", Map.of(), new TreeMap<>(), "e3b0");
+
+        assertThat(canonical).isEqualTo("GET\n/\n\ne3b0");
+    }
+
+    @Test
+    void canonicalRequestShouldNotDependOnQueryInsertionOrder() {
+        Map<String, List<String>> first = new LinkedHashMap<>();
+        first.put("z", List.of("1"));
+        first.put("a", List.of("2"));
+        Map<String, List<String>> second = new LinkedHashMap<>();
+        second.put("a", List.of("2"));
+        second.put("z", List.of("1"));
+
+        assertThat(SignUtils.canonicalRequest("GET", "/p", first, new TreeMap<>(), "d"))
+                .isEqualTo(SignUtils.canonicalRequest("GET", "/p", second, new TreeMap<>(), "d"));
+    }
+
+    @Test
+    void hmacSha256HexShouldMatchKnownVector() {
+        assertThat(SignUtils.hmacSha256Hex("The quick brown fox jumps over the lazy dog", "key"))
+                .isEqualTo("f7bc83f430538424b13298e6aa6fb143ef4d59a14946175997479dbc2d1a3cd8");
+    }
+}
@@ -34,6 +34,16 @@ public interface ImIdDubboService {
      */
     List<IMetaId> generateIds(String type, String key, Integer count);
 
+    /**
+     * 批量获取长整型ID，以原始 long 数组传输，序列化体积远小于 IMetaId 列表
+     *
+     * @param type  策略类型：snowflake | redis | uid
+     * @param key   业务标识
+     * @param count 获取数量，取值 1~1000，超出范围抛出 IllegalArgumentException
+     * @return ID数组
+     */
+    long[] generateLongIds(String type, String key, Integer count);
+
 
     /**
      * 通用类型安全的获取 ID 方法，带缓存机制
@@ -12,6 +12,7 @@ import io.swagger.v3.oas.annotations.tags.Tag;
 import jakarta.annotation.Resource;
 import jakarta.validation.constraints.Max;
 import jakarta.validation.constraints.Min;
+import org.springframework.http.MediaType;
 import org.springframework.validation.annotation.Validated;
 import org.springframework.web.bind.annotation.GetMapping;
 import org.springframework.web.bind.annotation.RequestMapping;
@@ -19,6 +20,7 @@ import org.springframework.web.bind.annotation.RequestParam;
 import org.springframework.web.bind.annotation.RestController;
 import reactor.core.publisher.Mono;
 
+import java.nio.ByteBuffer;
 import java.util.List;
 
 /**
@@ -72,7 +74,33 @@ public class IdController {
     public Mono<List<IMetaId>> generateBatchIds(
             @Parameter(description = "策略类型") @RequestParam("type") String type,
             @Parameter(description = "业务标识") @RequestParam("key") String key,
-            @Parameter(description = "生成数量") @RequestParam("count") @Min(1) @Max(1000) Integer count) {
+            @Parameter(description = "生成数量") @RequestParam("count") @Min(1) @Max(IdService.MAX_BATCH) Integer count) {
         return idService.generateIdsAsync(type, key, count);
     }
+
+    /**
+     * 批量获取长整型ID（紧凑格式）
+     * <p>
+     * 请求头 Accept: application/octet-stream 时命中，响应体为 count 个大端序 8 字节 long 依次排列，
+     * 不包含 JSON 包装与字段名；仅适用于 snowflake | redis | uid。
+     * </p>
+     *
+     * @param type  策略类型：snowflake | redis | uid
+     * @param key   业务标识
+     * @param count 获取数量
+     * @return 打包后的字节数组
+     */
+    @Operation(summary = "批量生成ID（紧凑格式）", description = "以大端序 long 数组的二进制形式返回，Accept: application/octet-stream")
+    @GetMapping(value = "/ids", produces = MediaType.APPLICATION_OCTET_STREAM_VALUE)
+    public Mono<byte[]> generatePackedIds(
+            @Parameter(description = "策略类型") @RequestParam("type") String type,
+            @Parameter(description = "业务标识") @RequestParam("key") String key,
+            @Parameter(description = "生成数量") @RequestParam("count") @Min(1) @Max(IdService.MAX_BATCH) Integer count) {
+        return idService.generateLongIdsAsync(type, key, count)
+                .map(ids -> {
+                    ByteBuffer buffer = ByteBuffer.allocate(ids.length * Long.BYTES);
+                    buffer.asLongBuffer().put(ids);
+                    return buffer.array();
+                });
+    }
 }
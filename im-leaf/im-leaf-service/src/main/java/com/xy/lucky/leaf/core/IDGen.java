@@ -3,6 +3,9 @@ package com.xy.lucky.leaf.core;
 import com.xy.lucky.core.model.IMetaId;
 import reactor.core.publisher.Mono;
 
+import java.util.ArrayList;
+import java.util.List;
+
 /**
  * ID生成器接口
  * 定义ID生成器的标准接口，支持同步和异步两种方式
@@ -24,6 +27,44 @@ public interface IDGen {
      */
     IMetaId getId(String key);
 
+    /**
+     * 同步批量获取ID，默认逐个调用 {@link #getId(String)}
+     *
+     * @param key   业务key
+     * @param count 获取数量
+     * @return ID对象列表
+     */
+    default List<IMetaId> getIds(String key, int count) {
+        List<IMetaId> ids = new ArrayList<>(count);
+        for (int i = 0; i < count; i++) {
+            IMetaId id = getId(key);
+            if (id != null) {
+                ids.add(id);
+            }
+        }
+        return ids;
+    }
+
+    /**
+     * 同步批量获取长整型ID，以原始数组返回，避免逐个包装对象
+     *
+     * @param key   业务key
+     * @param count 获取数量
+     * @return 长整型ID数组
+     * @throws IllegalArgumentException 策略不生成长整型ID时抛出
+     */
+    default long[] getLongIds(String key, int count) {
+        long[] ids = new long[count];
+        for (int i = 0; i < count; i++) {
+            IMetaId id = getId(key);
+            if (id == null || id.getLongId() == null) {
+                throw new IllegalArgumentException("该策略不支持长整型ID");
+            }
+            ids[i] = id.getLongId();
+        }
+        return ids;
+    }
+
     /**
      * 初始化生成器
      *
@@ -0,0 +1,67 @@
+package com.xy.lucky.leaf.core;
+
+/**
+ * 号段步长自适应策略
+ * <p>
+ * 参考美团 Leaf-segment 的动态步长：以相邻两次号段加载的间隔近似一个号段的消耗时长，
+ * - 间隔小于目标时长：步长翻倍，直到上限
+ * - 间隔介于目标时长与两倍目标时长之间：保持不变
+ * - 间隔超过两倍目标时长：步长减半，直到下限（业务 key 配置的基础步长）
+ * </p>
+ */
+public final class SegmentStepPolicy {
+
+    private final long targetDurationMs;
+    private final int maxStep;
+
+    /**
+     * 构造函数
+     *
+     * @param targetDurationMs 期望一个号段维持的时长（毫秒）
+     * @param maxStep          步长上限
+     */
+    public SegmentStepPolicy(long targetDurationMs, int maxStep) {
+        if (targetDurationMs <= 0 || maxStep <= 0) {
+            throw new IllegalArgumentException("targetDurationMs and maxStep must be positive");
+        }
+        this.targetDurationMs = targetDurationMs;
+        this.maxStep = maxStep;
+    }
+
+    /**
+     * 计算下一个号段的步长
+     *
+     * @param currentStep 上一个号段的步长
+     * @param minStep     步长下限
+     * @param durationMs  上一个号段的消耗时长（毫秒）
+     * @return 下一个号段的步长
+     */
+    public int nextStep(int currentStep, int minStep, long durationMs) {
+        int min = Math.max(1, minStep);
+        int max = Math.max(maxStep, min);
+        int step = bound(currentStep, min);
+        if (durationMs < targetDurationMs) {
+            return (int) Math.min((long) step * 2, max);
+        }
+        if (durationMs < targetDurationMs * 2) {
+            return step;
+        }
+        return Math.max(step / 2, min);
+    }
+
+    /**
+     * 将步长限制在 [minStep, maxStep] 内，用于没有消耗时长可参考的首次加载
+     */
+    public int bound(int step, int minStep) {
+        int min = Math.max(1, minStep);
+        return Math.min(Math.max(step, min), Math.max(maxStep, min));
+    }
+
+    public long getTargetDurationMs() {
+        return targetDurationMs;
+    }
+
+    public int getMaxStep() {
+        return maxStep;
+    }
+}
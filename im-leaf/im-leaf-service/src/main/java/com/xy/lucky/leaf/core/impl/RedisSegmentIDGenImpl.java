@@ -1,15 +1,20 @@
 package com.xy.lucky.leaf.core.impl;
 
 
-import com.fasterxml.jackson.core.type.TypeReference;
-import com.fasterxml.jackson.databind.ObjectMapper;
 import com.xy.lucky.core.model.IMetaId;
 import com.xy.lucky.leaf.core.IDGen;
+import com.xy.lucky.leaf.core.SegmentStepPolicy;
+import com.xy.lucky.leaf.core.store.LocalSegment;
+import com.xy.lucky.leaf.core.store.MappedSegmentStore;
+import com.xy.lucky.leaf.core.store.SegmentBuffer;
+import com.xy.lucky.leaf.core.store.SegmentState;
 import com.xy.lucky.leaf.model.IdMetaInfo;
 import com.xy.lucky.leaf.repository.IdMetaInfoRepository;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
 import jakarta.annotation.PreDestroy;
 import jakarta.annotation.Resource;
-import lombok.Data;
 import lombok.SneakyThrows;
 import lombok.extern.slf4j.Slf4j;
 import org.redisson.api.RLock;
@@ -20,16 +25,12 @@ import org.springframework.stereotype.Component;
 import reactor.core.publisher.Mono;
 import reactor.core.scheduler.Schedulers;
 
-import java.io.File;
 import java.nio.file.Paths;
 import java.time.Duration;
 import java.time.LocalDateTime;
 import java.util.Map;
 import java.util.concurrent.*;
-import java.util.concurrent.atomic.AtomicBoolean;
-import java.util.concurrent.atomic.AtomicLong;
 import java.util.concurrent.locks.LockSupport;
-import java.util.stream.Collectors;
 
 /**
  * 高性能 Redis Segment ID 生成器
@@ -37,38 +38,37 @@ import java.util.stream.Collectors;
  * 特性：
  * - 双缓冲区设计，提高并发性能
  * - 异步预加载，减少等待时间
+ * - 步长随消耗速度自适应（{@link SegmentStepPolicy}），突发流量下减少加载次数与等待
  * - 本地缓存和持久化，提高系统可靠性
  * - 基于Redis的分布式锁，确保多节点安全
  * <p>
  * 核心设计：
- * - LocalSegment 使用 AtomicLong，无锁 next()
+ * - LocalSegment 段内分配为一次 getAndIncrement；双缓冲切换由 {@link SegmentBuffer} 以 VarHandle CAS 完成，发号路径无锁
  * - 使用共享 loaderPool 来异步加载号段
- * - 持久化到文件使用定时批量 flush，避免每次 get 请求都写文件
+ * - 号段水位写入内存映射文件（{@link MappedSegmentStore}），按 lease 摊销写入；
+ *   任何 ID 返回前其水位已落入页缓存，进程崩溃重启后从水位继续分配，不重复发号
  */
 @Slf4j
 @Component("redisSegmentIDGen")
 public class RedisSegmentIDGenImpl implements IDGen {
 
-    // 本地持久化文件（用于快速恢复）
-    private static final String CACHE_FILE = "idgen-segments.json";
-    private static final long DEFAULT_PERSIST_INTERVAL_SECONDS = 5L;
-
     private static final String LOCK_PREFIX = "lock:idgen:calibrate:";
 
     // 本地缓存的段
     private final ConcurrentHashMap<String, SegmentPair> segmentCache = new ConcurrentHashMap<>();
 
-    private final ObjectMapper objectMapper = new ObjectMapper();
-
     // 线程池
     // loaderPool: 固定大小，避免过多并发 DB/Redis 操作；默认 CPU*2
     private final ExecutorService loaderPool;
 
-    // 定时任务调度器（用于持久化）
+    // 定时任务调度器（用于持久化 meta）
     private final ScheduledExecutorService scheduler;
 
-    // 持久化脏数据标记
-    private final AtomicBoolean dirty = new AtomicBoolean(false);
+    // 号段水位存储，打开失败时为 null（退化为不持久化）
+    private MappedSegmentStore segmentStore;
+
+    // 步长自适应策略，关闭时为 null（始终使用 meta 配置的步长）
+    private SegmentStepPolicy stepPolicy;
 
     @Resource
     private ReactiveRedisTemplate<String, Object> reactiveRedisTemplate;
@@ -79,6 +79,9 @@ public class RedisSegmentIDGenImpl implements IDGen {
     @Resource
     private RedissonClient redissonClient;
 
+    @Resource
+    private MeterRegistry meterRegistry;
+
     @Value("${generate.step:1000}")
     private int defaultStep;
 
@@ -94,6 +97,39 @@ public class RedisSegmentIDGenImpl implements IDGen {
     @Value("${generate.lockLeaseSeconds:60}")
     private long lockLeaseSeconds;
 
+    @Value("${generate.store.path:idgen-segments.dat}")
+    private String storePath;
+
+    @Value("${generate.store.max-keys:1024}")
+    private int storeMaxKeys;
+
+    /**
+     * 每次写入水位时预留的 ID 比例（相对步长），越大写入越少，重启时跳过的 ID 越多
+     */
+    @Value("${generate.store.lease-ratio:0.1}")
+    private double leaseRatio;
+
+    /**
+     * 每次写入后是否 msync 刷盘；关闭时只保证进程崩溃安全，开启后可抵御掉电
+     */
+    @Value("${generate.store.force:false}")
+    private boolean storeForce;
+
+    @Value("${generate.adaptive.enabled:true}")
+    private boolean adaptiveEnabled;
+
+    /**
+     * 期望一个号段维持的时长，消耗快于该值时步长翻倍，慢于两倍时减半
+     */
+    @Value("${generate.adaptive.target-duration-ms:900000}")
+    private long adaptiveTargetDurationMs;
+
+    /**
+     * 自适应步长上限，下限为业务 key 在 meta 中配置的步长
+     */
+    @Value("${generate.adaptive.max-step:1000000}")
+    private int adaptiveMaxStep;
+
     /**
      * 构造函数
      * 初始化线程池
@@ -117,12 +153,12 @@ public class RedisSegmentIDGenImpl implements IDGen {
     @Override
     @SneakyThrows
     public boolean init() {
-        // 从文件快速加载状态（尽力而为）
-        loadCacheFromFile();
+        if (adaptiveEnabled) {
+            stepPolicy = new SegmentStepPolicy(adaptiveTargetDurationMs, adaptiveMaxStep);
+        }
 
-        // 安排定期持久化任务（防抖动）
-        scheduler.scheduleAtFixedRate(this::persistCacheIfDirty, DEFAULT_PERSIST_INTERVAL_SECONDS,
-                DEFAULT_PERSIST_INTERVAL_SECONDS, TimeUnit.SECONDS);
+        // 从号段存储恢复状态，恢复的段无需访问 Redis 即可继续发号
+        loadSegmentsFromStore();
 
         // 在后台测试redis连接（不阻塞启动）
         loaderPool.submit(() -> {
@@ -136,53 +172,26 @@ public class RedisSegmentIDGenImpl implements IDGen {
             }
         });
 
-        log.info("RedisSegmentIDGen initialized (loaderPool={}, persistInterval={}s)",
-                ((ThreadPoolExecutor) loaderPool).getCorePoolSize(), DEFAULT_PERSIST_INTERVAL_SECONDS);
+        log.info("RedisSegmentIDGen initialized (loaderPool={}, store={}, adaptiveStep={})",
+                ((ThreadPoolExecutor) loaderPool).getCorePoolSize(), segmentStore != null ? storePath : "disabled",
+                stepPolicy != null ? "max=" + adaptiveMaxStep + ",target=" + adaptiveTargetDurationMs + "ms" : "disabled");
         return true;
     }
 
     /**
-     * 从文件加载缓存
+     * 打开号段存储并恢复各 key 的段对
      */
-    private void loadCacheFromFile() {
+    private void loadSegmentsFromStore() {
         try {
-            File f = Paths.get(CACHE_FILE).toFile();
-            if (!f.exists()) return;
-            Map<String, SegmentSnapshot> map = objectMapper.readValue(f,
-                    new TypeReference<Map<String, SegmentSnapshot>>() {
-                    });
-            if (map != null && !map.isEmpty()) {
-                map.forEach((k, v) -> {
-                    SegmentPair pair = new SegmentPair(k, v);
-                    segmentCache.put(k, pair);
-                });
-                log.info("Loaded {} segment snapshots from {}", map.size(), CACHE_FILE);
-            }
+            segmentStore = new MappedSegmentStore(Paths.get(storePath), storeMaxKeys, storeForce);
         } catch (Throwable t) {
-            log.warn("Failed to load segment cache from file: {}", t.getMessage());
+            log.error("Failed to open segment store {}, segments will not survive restart: {}", storePath, t.getMessage());
+            return;
         }
-    }
-
-    /**
-     * 定期持久化（如果数据有变化）
-     */
-    private void persistCacheIfDirty() {
-        if (!dirty.getAndSet(false)) return;
-        persistCacheToFile();
-    }
-
-    /**
-     * 持久化缓存到文件
-     */
-    private synchronized void persistCacheToFile() {
-        try {
-            Map<String, SegmentSnapshot> snap = segmentCache.entrySet().stream()
-                    .collect(Collectors.toMap(Map.Entry::getKey, e -> e.getValue().snapshot()));
-            objectMapper.writeValue(new File(CACHE_FILE), snap);
-            log.debug("Persisted {} segments to {}", snap.size(), CACHE_FILE);
-        } catch (Throwable t) {
-            log.error("Persist cache to file failed: {}", t.getMessage(), t);
-            dirty.set(true); // 标记为脏数据，用于重试
+        Map<String, SegmentState> states = segmentStore.loadAll();
+        states.forEach((k, v) -> segmentCache.put(k, new SegmentPair(k, v)));
+        if (!states.isEmpty()) {
+            log.info("Loaded {} segment states from {}", states.size(), storePath);
         }
     }
 
@@ -197,8 +206,6 @@ public class RedisSegmentIDGenImpl implements IDGen {
         // 快速路径获取或创建段对
         SegmentPair pair = segmentCache.computeIfAbsent(key, SegmentPair::new);
         long id = pair.nextId();
-        // 防抖动持久化：标记为脏数据，实际写入定期执行
-        dirty.set(true);
         return IMetaId.builder().longId(id).build();
     }
 
@@ -215,121 +222,166 @@ public class RedisSegmentIDGenImpl implements IDGen {
             scheduler.shutdownNow();
         } catch (Throwable ignored) {
         }
+        if (segmentStore != null) {
+            try {
+                segmentStore.close();
+            } catch (Throwable t) {
+                log.warn("Close segment store failed: {}", t.getMessage());
+            }
+        }
     }
 
     // ----------------------------
-    // 用于持久化的快照结构
+    // 段对和本地段
     // ----------------------------
-    @Data
-    public static class SegmentSnapshot {
-        private long currentStart;
-        private long currentEnd;
-        private long currentCursor; // 下一个要使用的值
-        private int currentStep;
-
-        private Long nextStart;
-        private Long nextEnd;
-        private Integer nextStep;
-    }
+    private class SegmentPair {
+        private final String key;
 
-    /**
-     * 本地段：内存轻量、线程安全、无锁的号段实现
-     */
-    private static final class LocalSegment {
-        static final long EXHAUSTED = Long.MIN_VALUE;
-
-        final long start;
-        final long end;
-        final int step;
-        final AtomicLong cursor; // 下一个要返回的ID
-
-        LocalSegment(long start, long end, int step) {
-            this.start = start;
-            this.end = end;
-            this.step = step;
-            this.cursor = new AtomicLong(Math.max(start, start)); // 下一个要返回的
-        }
+        // 当前段与预加载段，切换无锁；this 锁只用于串行化号段存储的写入
+        private final SegmentBuffer buffer;
 
-        // 使用已知当前游标构造
-        LocalSegment(long start, long end, int step, long currentCursor) {
-            this.start = start;
-            this.end = end;
-            this.step = step;
-            this.cursor = new AtomicLong(Math.max(currentCursor, start));
+        // 最近一次写入存储的状态，受 this 锁保护
+        private SegmentState lastState;
+
+        // 自适应步长：最近一次加载的步长（0 表示尚未加载）、加载时间与按加载间隔估算的消耗速率（ID/s）
+        private volatile int dynamicStep;
+        private volatile long lastLoadAt;
+        private volatile double consumeRate;
+
+        private Timer loadTimer;
+        private Timer waitTimer;
+
+        SegmentPair(String key) {
+            this.key = key;
+            registerMetrics();
+            // 同步加载初始段，但在loaderPool中执行以避免阻塞调用线程（如果DB/Redis较慢）
+            Future<LocalSegment> f = loaderPool.submit(this::loadSegmentBlocking);
+            LocalSegment initial;
+            boolean loaded = true;
+            try {
+                initial = f.get(3, TimeUnit.SECONDS); // 初始加载的小超时
+            } catch (Throwable t) {
+                log.warn("[{}] initial load slow or failed, creating fallback empty segment", key);
+                // 回退到一个空段，将在首次访问时触发异步加载
+                initial = newSegment(initialId + 1, initialId, defaultStep, initialId + 1, initialId);
+                loaded = false;
+            }
+            this.buffer = new SegmentBuffer(initial, null, prefetchThreshold, this::triggerAsyncLoad);
+            if (!loaded) {
+                triggerAsyncLoad(); // 主动加载
+            }
         }
 
         /**
-         * 获取下一个ID
-         *
-         * @return 下一个ID，如果段已耗尽则返回EXHAUSTED
+         * 从存储恢复：当前段从 allocatedMax + 1 继续，水位以内的 ID 可能已发放，直接跳过
          */
-        long next() {
-            while (true) {
-                long cur = cursor.get();
-                if (cur > end) return EXHAUSTED;
-                if (cursor.compareAndSet(cur, cur + 1)) {
-                    return cur;
-                }
-                // CAS 失败，重试（极少数情况）
-            }
+        SegmentPair(String key, SegmentState state) {
+            this.key = key;
+            this.lastState = state;
+            this.dynamicStep = state.hasNext() ? state.nextStep() : state.currentStep();
+            registerMetrics();
+            LocalSegment cur = newSegment(state.currentStart(), state.currentEnd(), state.currentStep(),
+                    state.allocatedMax() + 1, state.allocatedMax());
+            LocalSegment next = state.hasNext()
+                    ? newSegment(state.nextStart(), state.nextEnd(), state.nextStep(), state.nextStart(), state.nextStart() - 1)
+                    : null;
+            this.buffer = new SegmentBuffer(cur, next, prefetchThreshold, this::triggerAsyncLoad);
         }
 
         /**
-         * 获取剩余ID数量
-         *
-         * @return 剩余ID数量
+         * 按 key 注册步长、消耗速率、剩余量、加载耗时与调用方等待耗时指标
          */
-        long remaining() {
-            long cur = cursor.get();
-            long rem = end - cur + 1;
-            return Math.max(0, rem);
+        private void registerMetrics() {
+            Gauge.builder("im_leaf_segment_step", this, p -> p.buffer == null ? 0 : p.buffer.current().getStep())
+                    .description("step of the serving segment")
+                    .tag("key", key)
+                    .register(meterRegistry);
+            Gauge.builder("im_leaf_segment_consume_rate", this, p -> p.consumeRate)
+                    .description("segment consumption rate estimated from load interval (ids/s)")
+                    .tag("key", key)
+                    .register(meterRegistry);
+            Gauge.builder("im_leaf_segment_remaining", this, p -> p.buffer == null ? 0 : p.buffer.current().remaining())
+                    .description("ids left in the serving segment")
+                    .tag("key", key)
+                    .register(meterRegistry);
+            this.loadTimer = Timer.builder("im_leaf_segment_load_latency")
+                    .description("segment load latency including calibrate lock wait")
+                    .tag("key", key)
+                    .publishPercentiles(0.5, 0.99)
+                    .register(meterRegistry);
+            this.waitTimer = Timer.builder("im_leaf_segment_wait")
+                    .description("caller time blocked waiting for a segment to load")
+                    .tag("key", key)
+                    .publishPercentiles(0.5, 0.99)
+                    .register(meterRegistry);
         }
 
         /**
-         * 获取步长
-         *
-         * @return 步长
+         * 计算本次加载的步长，首次加载沿用 meta 配置或恢复的步长
          */
-        int getStep() {
-            return this.step;
+        private int resolveStep(int baseStep, long now) {
+            int prev = dynamicStep > 0 ? dynamicStep : baseStep;
+            if (stepPolicy == null) {
+                return baseStep;
+            }
+            long last = lastLoadAt;
+            if (last == 0) {
+                return stepPolicy.bound(prev, baseStep);
+            }
+            int step = stepPolicy.nextStep(prev, baseStep, now - last);
+            if (step != prev) {
+                log.info("[{}] segment step {} -> {} (last segment lasted {}ms)", key, prev, step, now - last);
+            }
+            return step;
         }
-    }
-
-    // ----------------------------
-    // 段对和本地段
-    // ----------------------------
-    private class SegmentPair {
-        private final String key;
 
-        // 加载标记
-        private final AtomicBoolean loading = new AtomicBoolean(false);
+        private LocalSegment newSegment(long start, long end, int step, long cursor, long persistedMax) {
+            long lease = Math.max(1L, (long) (step * leaseRatio));
+            return new LocalSegment(start, end, step, cursor, persistedMax, lease,
+                    segmentStore == null ? null : this::checkpoint);
+        }
 
-        // 使用volatile保证可见性；LocalSegment是线程安全的
-        private volatile LocalSegment current;
-        private volatile LocalSegment nextSegment;
+        /**
+         * 水位推进回调：在 ID 返回前写入存储
+         * <p>
+         * 同一段的水位推进已由 LocalSegment 串行化，这里再加段对锁，与预加载段写入互斥
+         * </p>
+         */
+        private synchronized void checkpoint(LocalSegment seg, long allocatedMax) {
+            LocalSegment n = buffer.next();
+            writeState(new SegmentState(seg.getStart(), seg.getEnd(), seg.getStep(), allocatedMax,
+                    n == null ? 0 : n.getStart(), n == null ? 0 : n.getEnd(), n == null ? 0 : n.getStep()));
+        }
 
-        SegmentPair(String key) {
-            this.key = key;
-            // 同步加载初始段，但在loaderPool中执行以避免阻塞调用线程（如果DB/Redis较慢）
-            Future<LocalSegment> f = loaderPool.submit(this::loadSegmentBlocking);
+        /**
+         * 预加载段写入存储，当前段沿用最近一次写入的水位
+         * <p>
+         * 调用方需持有 this 锁，且必须在段安装到缓冲之前写入：段一旦可被切换为当前段就可能产生水位写入，
+         * 之后再写入"预加载段"会让重启后把它当作未使用的段重新发号
+         * </p>
+         */
+        private void recordNextSegment(LocalSegment n) {
+            if (segmentStore == null) {
+                return;
+            }
+            SegmentState last = this.lastState;
+            LocalSegment cur = buffer.current();
+            SegmentState state = last != null
+                    ? new SegmentState(last.currentStart(), last.currentEnd(), last.currentStep(), last.allocatedMax(),
+                    n.getStart(), n.getEnd(), n.getStep())
+                    : new SegmentState(cur.getStart(), cur.getEnd(), cur.getStep(), cur.getStart() - 1,
+                    n.getStart(), n.getEnd(), n.getStep());
             try {
-                this.current = f.get(3, TimeUnit.SECONDS); // 初始加载的小超时
+                writeState(state);
             } catch (Throwable t) {
-                log.warn("[{}] initial load slow or failed, creating fallback empty segment", key);
-                // 回退到一个空段，将在首次访问时触发异步加载
-                this.current = new LocalSegment(initialId + 1, initialId, defaultStep);
-                triggerAsyncLoad(); // 主动加载
+                // 预加载段未记录只会在重启后浪费该段，不影响唯一性
+                log.warn("[{}] record next segment failed: {}", key, t.getMessage());
             }
         }
 
-        SegmentPair(String key, SegmentSnapshot snap) {
-            this.key = key;
-            this.current = new LocalSegment(snap.getCurrentStart(), snap.getCurrentEnd(),
-                    snap.getCurrentStep(), snap.getCurrentCursor());
-            if (snap.getNextStart() != null) {
-                this.nextSegment = new LocalSegment(snap.getNextStart(), snap.getNextEnd(),
-                        snap.getNextStep());
-            }
+        private void writeState(SegmentState state) {
+            segmentStore.write(key, state);
+            this.lastState = state;
         }
 
         /**
@@ -338,81 +390,62 @@ public class RedisSegmentIDGenImpl implements IDGen {
          * @return 下一个ID
          */
         long nextId() {
-            int retry = 0;
-
-            while (true) {
-                // 快速路径：读取 current（可能被其他线程更新）
-                LocalSegment seg = this.current;
-                long id = seg.next(); // 调用 LocalSegment.next() 方法
+            long id = buffer.nextId();
+            if (id != LocalSegment.EXHAUSTED) {
+                return id;
+            }
 
+            // 当前段耗尽且预加载段未就绪（SegmentBuffer 已触发加载），短暂退避等待
+            long waitBegin = System.nanoTime();
+            for (int retry = 1; retry <= 200; retry++) { // 可配置的上限
+                // 逐步增加等待时间以降低 CPU 占用，最多 1ms
+                LockSupport.parkNanos(Math.min(1_000L * retry, 1_000_000L));
+                id = buffer.nextId();
                 if (id != LocalSegment.EXHAUSTED) {
-                    // 当剩余量低于阈值时触发异步加载（非阻塞）
-                    if (seg.remaining() < seg.getStep() * prefetchThreshold) {
-                        triggerAsyncLoad();
-                    }
+                    waitTimer.record(System.nanoTime() - waitBegin, TimeUnit.NANOSECONDS);
                     return id;
                 }
-
-                // 当前段耗尽，尝试快速切换到已加载的 nextSegment（如果存在）
-                LocalSegment ns = this.nextSegment;
-                if (ns != null) {
-                    // 在临界区内再次确认并执行切换（双重检查）
-                    synchronized (this) {
-                        if (this.current == seg && this.nextSegment != null) {
-                            this.current = this.nextSegment;
-                            this.nextSegment = null;
-                            // 切换成功，立即重试以从新的 current 取值
-                            continue;
-                        }
-                    }
-                    // 如果在同步区发现已经被切换走，loop 将重试并读取新的 current
-                    continue;
-                }
-
-                // 没有可切换的 nextSegment，则触发异步加载（若尚未进行）
-                triggerAsyncLoad();
-
-                // 轻量等待：短自旋 + 退避（避免忙等）
-                retry++;
-                if (retry > 200) { // 可配置的上限
-                    throw new IllegalStateException("Segment exhausted and new segment not ready for key=" + key);
-                }
-                // parkNanos 做短暂停顿，避免调用线程完全忙等
-                // 逐步增加等待时间以降低 CPU 占用（指数退避或线性退避都可）
-                long backoffNanos = Math.min(1_000L * retry, 1_000_000L); // 最多 1ms
-                LockSupport.parkNanos(backoffNanos);
-                // 重试循环会再次检查 current/nextSegment
             }
+            waitTimer.record(System.nanoTime() - waitBegin, TimeUnit.NANOSECONDS);
+            throw new IllegalStateException("Segment exhausted and new segment not ready for key=" + key);
         }
 
         /**
          * 触发异步加载
          */
         private void triggerAsyncLoad() {
-            // 仅当 nextSegment 为空并且没有正在加载时提交加载任务
-            if (this.nextSegment == null && loading.compareAndSet(false, true)) {
-                loaderPool.submit(() -> {
-                    try {
-                        LocalSegment seg = loadSegmentBlocking();
-                        // 将加载到的新段放入 nextSegment（在 synchronized 中双重检查）
-                        synchronized (this) {
-                            if (this.nextSegment == null) {
-                                this.nextSegment = seg;
-                            } else {
-                                // 如果已有 nextSegment（极小概率），丢弃新加载段或可合并策略
+            // 仅当没有预加载段并且该 key 没有正在进行的加载时提交加载任务
+            if (buffer.next() == null && buffer.tryStartLoading()) {
+                try {
+                    loaderPool.submit(() -> {
+                        try {
+                            LocalSegment seg = loadSegmentBlocking();
+                            boolean installed;
+                            // 先写存储再安装，与水位写入在同一把锁下串行化
+                            synchronized (this) {
+                                installed = buffer.next() == null;
+                                if (installed) {
+                                    recordNextSegment(seg);
+                                    buffer.offerNext(seg);
+                                }
+                            }
+                            if (!installed) {
+                                // 如果已有预加载段（极小概率），丢弃新加载段
                                 log.debug("[{}] nextSegment already present, discarding loaded segment {}-{}",
-                                        key, seg.start, seg.end);
+                                        key, seg.getStart(), seg.getEnd());
+                            } else if (log.isDebugEnabled()) {
+                                log.debug("[{}] async prefetch done: {}-{}", key, seg.getStart(), seg.getEnd());
                             }
+                        } catch (Throwable t) {
+                            log.error("[{}] async load failed", key, t);
+                        } finally {
+                            buffer.finishLoading();
                         }
-                        if (log.isDebugEnabled()) {
-                            log.debug("[{}] async prefetch done: {}-{}", key, seg.start, seg.end);
-                        }
-                    } catch (Throwable t) {
-                        log.error("[{}] async load failed", key, t);
-                    } finally {
-                        loading.set(false);
-                    }
-                });
+                    });
+                } catch (RejectedExecutionException rx) {
+                    buffer.finishLoading();
+                    log.warn("[{}] async load rejected: {}", key, rx.getMessage());
+                }
             }
         }
 
@@ -425,6 +458,7 @@ public class RedisSegmentIDGenImpl implements IDGen {
             String lockName = LOCK_PREFIX + key;
             RLock lock = redissonClient.getLock(lockName);
             boolean locked = false;
+            long begin = System.nanoTime();
             try {
                 locked = lock.tryLock(lockWaitSeconds, lockLeaseSeconds, TimeUnit.SECONDS);
                 if (!locked) {
@@ -443,7 +477,9 @@ public class RedisSegmentIDGenImpl implements IDGen {
                     return m;
                 });
 
-                int step = Math.max(1, meta.getStep() == null ? defaultStep : meta.getStep());
+                int baseStep = Math.max(1, meta.getStep() == null ? defaultStep : meta.getStep());
+                long now = System.currentTimeMillis();
+                int step = resolveStep(baseStep, now);
 
                 // 2. 检查redis当前值（在此阻塞但在线程池中运行）
                 Object redisValObj = reactiveRedisTemplate.opsForValue().get(key).block(Duration.ofSeconds(2));
@@ -460,6 +496,14 @@ public class RedisSegmentIDGenImpl implements IDGen {
                 long start = newMax - step + 1;
                 long end = newMax;
 
+                // 以相邻两次加载的间隔估算上一个号段的消耗速率
+                long last = lastLoadAt;
+                if (last != 0) {
+                    consumeRate = dynamicStep * 1000.0 / Math.max(1, now - last);
+                }
+                dynamicStep = step;
+                lastLoadAt = now;
+
                 // 4. 异步持久化meta.maxId（不阻塞调用者）
                 try {
                     scheduler.submit(() -> {
@@ -476,11 +520,12 @@ public class RedisSegmentIDGenImpl implements IDGen {
                 }
 
                 // 返回新的本地段
-                return new LocalSegment(start, end, step);
+                return newSegment(start, end, step, start, start - 1);
             } catch (InterruptedException ie) {
                 Thread.currentThread().interrupt();
                 throw new RuntimeException("Interrupted while acquiring lock", ie);
             } finally {
+                loadTimer.record(System.nanoTime() - begin, TimeUnit.NANOSECONDS);
                 if (locked && lock.isHeldByCurrentThread()) {
                     try {
                         lock.unlock();
@@ -489,26 +534,5 @@ public class RedisSegmentIDGenImpl implements IDGen {
                 }
             }
         }
-
-        /**
-         * 创建快照
-         *
-         * @return 段快照
-         */
-        SegmentSnapshot snapshot() {
-            SegmentSnapshot snap = new SegmentSnapshot();
-            LocalSegment cur = current;
-            snap.setCurrentStart(cur.start);
-            snap.setCurrentEnd(cur.end);
-            snap.setCurrentCursor(cur.cursor.get());
-            snap.setCurrentStep(cur.step);
-            LocalSegment n = nextSegment;
-            if (n != null) {
-                snap.setNextStart(n.start);
-                snap.setNextEnd(n.end);
-                snap.setNextStep(n.step);
-            }
-            return snap;
-        }
     }
 }
@@ -2,8 +2,9 @@ package com.xy.lucky.leaf.core.impl;
 
 import com.xy.lucky.core.model.IMetaId;
 import com.xy.lucky.leaf.core.IDGen;
-import com.xy.lucky.leaf.model.IdRingBuffer;
+import com.xy.lucky.leaf.model.UidRingBuffer;
 import com.xy.lucky.leaf.work.WorkerIdAssigner;
+import jakarta.annotation.PreDestroy;
 import jakarta.annotation.Resource;
 import lombok.extern.slf4j.Slf4j;
 import org.springframework.beans.factory.annotation.Value;
@@ -11,13 +12,19 @@ import org.springframework.stereotype.Component;
 import reactor.core.publisher.Mono;
 
 import java.time.Instant;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
 import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.locks.LockSupport;
 
 /**
  * 基于 Snowflake 算法的高性能 UID 生成器实现类
  * <p>
  * 特性：
- * - 使用 RingBuffer 缓存预生成ID，提高性能
+ * - 使用 long[] 槽位的 RingBuffer 缓存预生成ID，取号无锁、无装箱
+ * - 剩余量低于阈值时由单独的填充线程异步补充，取号线程不参与生成
  * - 支持动态配置参数
  * - 处理时钟回拨问题
  */
@@ -29,7 +36,14 @@ public class UIDGenImpl implements IDGen {
      * 当前工作节点 ID
      */
     private final AtomicLong workerId = new AtomicLong(-1);
-    private final AtomicLong sequence = new AtomicLong(0L); // 当前序列号
+    private long sequence = 0L; // 当前序列号，仅由填充线程读写
+
+    private final ExecutorService paddingExecutor = Executors.newSingleThreadExecutor(r -> {
+        Thread t = new Thread(r, "UID-Padding");
+        t.setDaemon(true);
+        return t;
+    });
+    private final AtomicBoolean paddingInProgress = new AtomicBoolean(false);
 
     // 起始时间戳（通常为项目统一设置的时间）
     @Value("${uid.epoch:1577836800000}")
@@ -55,14 +69,17 @@ public class UIDGenImpl implements IDGen {
     @Value("${uid.padding-factor:0.2}")
     private double paddingFactor;
 
+    // 缓存区为空时取号线程等待填充的最长时间（毫秒）
+    @Value("${uid.take-timeout-ms:1000}")
+    private long takeTimeoutMs;
+
     private long maxWorkerId; // 最大允许的 workerId
     private long maxSequence; // 最大允许的序列号
     private int timestampShift; // 时间戳向左移动的位数
     private int workerShift;    // workerId 向左移动的位数
-    private volatile long lastTimestamp = -1L; // 上一次生成 ID 的时间戳
+    private long lastTimestamp = -1L; // 上一次生成 ID 的时间戳，仅由填充线程读写
 
-    private IdRingBuffer<Long> ringBuffer; // UID 缓存区
-    private int bufferSize; // 实际缓存区大小
+    private volatile UidRingBuffer ringBuffer; // UID 缓存区
 
     @Resource
     private WorkerIdAssigner workerIdAssigner;
@@ -74,8 +91,7 @@ public class UIDGenImpl implements IDGen {
      */
     @Override
     public boolean init() {
-        // 初始化阶段可选择填充一部分
-        // fillBuffer();
+        // 首次取号时加载 workerId 并异步填充缓存区
         return true;
     }
 
@@ -96,10 +112,6 @@ public class UIDGenImpl implements IDGen {
         this.workerShift = sequenceBits;
         this.timestampShift = sequenceBits + workerBits;
 
-        // 初始化 RingBuffer
-        this.bufferSize = 1 << bufferSizeBits;
-        this.ringBuffer = new IdRingBuffer<>(bufferSize);
-
         workerIdAssigner.load();
 
         long id = workerIdAssigner.getWorkerId();
@@ -110,6 +122,12 @@ public class UIDGenImpl implements IDGen {
         }
         workerId.set(id);
 
+        // 初始化 RingBuffer，workerId 就绪后再发布，取号线程据此判断是否需要加载
+        UidRingBuffer buffer = new UidRingBuffer(1 << bufferSizeBits, paddingFactor);
+        buffer.setPaddingHandler(this::asyncPadding);
+        this.ringBuffer = buffer;
+        asyncPadding();
+
         log.info("加载完成，workerId = {}", id);
     }
 
@@ -122,13 +140,7 @@ public class UIDGenImpl implements IDGen {
      */
     @Override
     public Mono<IMetaId> get(String key) {
-        loadWorkerId();
-
-        if (ringBuffer.size() < (int) (bufferSize * paddingFactor)) {
-            fillBuffer(); // 剩余不足阈值时填充
-        }
-
-        Long nextId = ringBuffer.take();
+        long nextId = take();
 
         if (log.isDebugEnabled()) {
             log.debug("[{}] 获取 ID：{}", key, nextId);
@@ -146,13 +158,7 @@ public class UIDGenImpl implements IDGen {
      */
     @Override
     public IMetaId getId(String key) {
-        loadWorkerId();
-
-        if (ringBuffer.size() < (int) (bufferSize * paddingFactor)) {
-            fillBuffer(); // 剩余不足阈值时填充
-        }
-
-        Long nextId = ringBuffer.take();
+        long nextId = take();
 
         if (log.isDebugEnabled()) {
             log.debug("[{}] 获取 ID：{}", key, nextId);
@@ -162,20 +168,64 @@ public class UIDGenImpl implements IDGen {
     }
 
     /**
-     * 批量填充 UID 缓存区直到满为止
+     * 从缓存区取出一个 UID，缓存区为空时等待填充线程补充
+     *
+     * @return UID
      */
-    private synchronized void fillBuffer() {
-        while (!ringBuffer.isFull()) {
-            ringBuffer.put(nextId());
+    private long take() {
+        if (ringBuffer == null) {
+            loadWorkerId();
+        }
+        UidRingBuffer buffer = ringBuffer;
+        long uid = buffer.poll();
+        if (uid != UidRingBuffer.EMPTY) {
+            return uid;
+        }
+        long deadline = System.nanoTime() + TimeUnit.MILLISECONDS.toNanos(takeTimeoutMs);
+        while ((uid = buffer.poll()) == UidRingBuffer.EMPTY) {
+            if (System.nanoTime() - deadline > 0) {
+                throw new IllegalStateException("UID buffer exhausted, padding did not catch up in " + takeTimeoutMs + "ms");
+            }
+            LockSupport.parkNanos(TimeUnit.MICROSECONDS.toNanos(50));
         }
+        return uid;
     }
 
     /**
-     * 生成下一个唯一 ID（Snowflake 核心逻辑）
+     * 提交异步填充任务，同一时刻只有一个填充任务在执行
+     */
+    private void asyncPadding() {
+        if (paddingInProgress.compareAndSet(false, true)) {
+            paddingExecutor.execute(() -> {
+                try {
+                    paddingBuffer();
+                } catch (Exception e) {
+                    log.error("UID 缓存区填充失败", e);
+                } finally {
+                    paddingInProgress.set(false);
+                }
+            });
+        }
+    }
+
+    /**
+     * 批量填充 UID 缓存区直到满为止，仅在填充线程中执行
+     */
+    private void paddingBuffer() {
+        UidRingBuffer buffer = ringBuffer;
+        while (!buffer.isFull()) {
+            if (!buffer.put(nextId())) {
+                return;
+            }
+        }
+    }
+
+    /**
+     * 生成下一个唯一 ID（Snowflake 核心逻辑），仅在填充线程中执行
      *
      * @return 生成的ID
      */
-    private synchronized long nextId() {
+    private long nextId() {
         long timestamp = currentTime();
 
         // 如果系统时钟回拨，抛出异常
@@ -187,20 +237,20 @@ public class UIDGenImpl implements IDGen {
 
         // 相同毫秒内
         if (timestamp == lastTimestamp) {
-            long seq = (sequence.incrementAndGet()) & maxSequence;
-            if (seq == 0) {
+            sequence = (sequence + 1) & maxSequence;
+            if (sequence == 0) {
                 // 序列号溢出，等待下一毫秒
                 timestamp = waitNextMillis(lastTimestamp);
             }
         } else {
-            sequence.set(0L); // 时间改变，重置序列号
+            sequence = 0L; // 时间改变，重置序列号
         }
 
         lastTimestamp = timestamp;
         long diff = timestamp - epoch;
         return (diff << timestampShift)
                 | (workerId.get() << workerShift)
-                | sequence.get();
+                | sequence;
     }
 
     /**
@@ -225,4 +275,9 @@ public class UIDGenImpl implements IDGen {
     private long currentTime() {
         return Instant.now().toEpochMilli();
     }
+
+    @PreDestroy
+    public void shutdown() {
+        paddingExecutor.shutdownNow();
+    }
 }
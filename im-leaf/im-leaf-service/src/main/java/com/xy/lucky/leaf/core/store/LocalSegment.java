@@ -0,0 +1,114 @@
+package com.xy.lucky.leaf.core.store;
+
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * 本地号段：内存轻量、线程安全、无锁的号段实现，带持久化水位
+ * <p>
+ * 分配出的 ID 超过已持久化水位 persistedMax 时，先通过 {@link Checkpoint} 将水位推进 lease 个 ID 并写入存储，
+ * 写入完成后才返回该 ID；水位推进按 lease 摊销，绝大多数分配只有一次 getAndIncrement。
+ * 重启时从水位 + 1 继续分配，水位以内可能已发放的 ID 直接跳过。
+ * </p>
+ */
+public final class LocalSegment {
+
+    public static final long EXHAUSTED = Long.MIN_VALUE;
+
+    /**
+     * 水位持久化回调
+     */
+    @FunctionalInterface
+    public interface Checkpoint {
+        /**
+         * 持久化号段的新水位，返回即表示写入完成
+         *
+         * @param segment      号段
+         * @param allocatedMax 新水位
+         */
+        void persist(LocalSegment segment, long allocatedMax);
+    }
+
+    private final long start;
+    private final long end;
+    private final int step;
+    private final AtomicLong cursor; // 下一个要返回的ID
+    private final long lease;
+    private final Checkpoint checkpoint;
+    private volatile long persistedMax;
+
+    /**
+     * 构造函数
+     *
+     * @param start        起始ID
+     * @param end          结束ID（含）
+     * @param step         步长
+     * @param cursor       下一个要返回的ID
+     * @param persistedMax 已持久化水位，新号段为 start - 1
+     * @param lease        每次推进水位的 ID 数量
+     * @param checkpoint   水位持久化回调，为空表示不持久化
+     */
+    public LocalSegment(long start, long end, int step, long cursor, long persistedMax, long lease, Checkpoint checkpoint) {
+        this.start = start;
+        this.end = end;
+        this.step = step;
+        this.cursor = new AtomicLong(Math.max(cursor, start));
+        this.lease = Math.max(1, lease);
+        this.checkpoint = checkpoint;
+        this.persistedMax = checkpoint == null ? end : persistedMax;
+    }
+
+    /**
+     * 获取下一个ID
+     *
+     * @return 下一个ID，如果段已耗尽则返回EXHAUSTED
+     */
+    public long next() {
+        // 单次 getAndIncrement，耗尽后游标会越过 end，只影响 remaining() 的下限截断
+        long cur = cursor.getAndIncrement();
+        if (cur > end) return EXHAUSTED;
+        if (cur > persistedMax) {
+            ensurePersisted(cur);
+        }
+        return cur;
+    }
+
+    /**
+     * 获取剩余ID数量
+     *
+     * @return 剩余ID数量
+     */
+    public long remaining() {
+        long cur = cursor.get();
+        long rem = end - cur + 1;
+        return Math.max(0, rem);
+    }
+
+    public long getStart() {
+        return start;
+    }
+
+    public long getEnd() {
+        return end;
+    }
+
+    public int getStep() {
+        return step;
+    }
+
+    public long getCursor() {
+        return Math.min(cursor.get(), end + 1);
+    }
+
+    public long getPersistedMax() {
+        return persistedMax;
+    }
+
+    private synchronized void ensurePersisted(long id) {
+        if (id <= persistedMax) {
+            return;
+        }
+        long target = Math.min(end, id + lease - 1);
+        checkpoint.persist(this, target);
+        persistedMax = target;
+    }
+}
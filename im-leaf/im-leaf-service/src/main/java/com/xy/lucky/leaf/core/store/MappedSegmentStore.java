@@ -0,0 +1,218 @@
+package com.xy.lucky.leaf.core.store;
+
+import java.io.Closeable;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.zip.CRC32C;
+
+/**
+ * 基于内存映射文件的号段状态存储
+ * <p>
+ * 文件为固定布局：64 字节文件头 + maxKeys 条记录，每条记录对应一个业务 key，包含 A/B 两个 128 字节槽位。
+ * 每次写入只覆盖该 key 世代号较旧的槽位，并在槽位末尾写入 CRC32C；进程在写入中途崩溃时，
+ * 残缺槽位校验失败，加载时回退到另一个槽位中的上一版本。
+ * </p>
+ * <p>
+ * 调用方在分配任何大于已写入 allocatedMax 的 ID 之前必须先完成写入（见 {@link LocalSegment}），
+ * 因此回退到上一版本也不会重复发放 ID。写入落在页缓存中，进程崩溃不丢失；需要抵御掉电时开启 force。
+ * </p>
+ */
+public final class MappedSegmentStore implements Closeable {
+
+    private static final int MAGIC = 0x49445347; // "IDSG"
+    private static final int VERSION = 1;
+    private static final int HEADER_SIZE = 64;
+    private static final int SLOT_SIZE = 128;
+    private static final int RECORD_SIZE = SLOT_SIZE * 2;
+    private static final int MAX_KEY_BYTES = 64;
+
+    // 槽位内偏移
+    private static final int GENERATION = 0;
+    private static final int CURRENT_START = 8;
+    private static final int CURRENT_END = 16;
+    private static final int ALLOCATED_MAX = 24;
+    private static final int CURRENT_STEP = 32;
+    private static final int NEXT_STEP = 36;
+    private static final int NEXT_START = 40;
+    private static final int NEXT_END = 48;
+    private static final int KEY_LENGTH = 56;
+    private static final int KEY = 58;
+    private static final int CHECKSUM = KEY + MAX_KEY_BYTES;
+
+    private final FileChannel channel;
+    private final MappedByteBuffer mapped;
+    private final int maxKeys;
+    private final boolean force;
+
+    private final Map<String, Record> records = new ConcurrentHashMap<>();
+    private int nextFreeRecord;
+
+    /**
+     * 打开（不存在则创建）存储文件
+     *
+     * @param path    文件路径
+     * @param maxKeys 最多容纳的业务 key 数量
+     * @param force   每次写入后是否强制刷盘
+     */
+    public MappedSegmentStore(Path path, int maxKeys, boolean force) throws IOException {
+        this.maxKeys = maxKeys;
+        this.force = force;
+        Path parent = path.toAbsolutePath().getParent();
+        if (parent != null) {
+            Files.createDirectories(parent);
+        }
+        this.channel = FileChannel.open(path, StandardOpenOption.CREATE, StandardOpenOption.READ, StandardOpenOption.WRITE);
+        long size = HEADER_SIZE + (long) RECORD_SIZE * maxKeys;
+        boolean fresh = channel.size() == 0;
+        if (!fresh) {
+            verifyHeader(path, size);
+        }
+        this.mapped = channel.map(FileChannel.MapMode.READ_WRITE, 0, size);
+        if (fresh) {
+            mapped.putInt(0, MAGIC);
+            mapped.putInt(4, VERSION);
+            mapped.putInt(8, maxKeys);
+            mapped.force(0, HEADER_SIZE);
+        }
+    }
+
+    /**
+     * 读取全部 key 的最新有效状态，并建立 key 到记录位置的索引
+     */
+    public synchronized Map<String, SegmentState> loadAll() {
+        Map<String, SegmentState> result = new HashMap<>();
+        records.clear();
+        nextFreeRecord = 0;
+        for (int i = 0; i < maxKeys; i++) {
+            int base = recordOffset(i);
+            Slot a = readSlot(base);
+            Slot b = readSlot(base + SLOT_SIZE);
+            Slot latest = a == null ? b : (b == null ? a : (a.generation >= b.generation ? a : b));
+            if (latest == null) {
+                continue;
+            }
+            Record record = new Record(i);
+            record.generationA = a == null ? 0 : a.generation;
+            record.generationB = b == null ? 0 : b.generation;
+            records.put(latest.key, record);
+            result.put(latest.key, latest.state);
+            nextFreeRecord = i + 1;
+        }
+        return result;
+    }
+
+    /**
+     * 写入 key 的状态，覆盖世代号较旧的槽位
+     *
+     * @throws IllegalStateException key 过长或记录已满
+     */
+    public void write(String key, SegmentState state) {
+        Record record = records.computeIfAbsent(key, this::allocateRecord);
+        byte[] keyBytes = key.getBytes(StandardCharsets.UTF_8);
+        synchronized (record) {
+            boolean toA = record.generationA <= record.generationB;
+            long generation = Math.max(record.generationA, record.generationB) + 1;
+
+            ByteBuffer slot = ByteBuffer.allocate(SLOT_SIZE);
+            slot.putLong(GENERATION, generation)
+                    .putLong(CURRENT_START, state.currentStart())
+                    .putLong(CURRENT_END, state.currentEnd())
+                    .putLong(ALLOCATED_MAX, state.allocatedMax())
+                    .putInt(CURRENT_STEP, state.currentStep())
+                    .putInt(NEXT_STEP, state.nextStep())
+                    .putLong(NEXT_START, state.nextStart())
+                    .putLong(NEXT_END, state.nextEnd())
+                    .putShort(KEY_LENGTH, (short) keyBytes.length)
+                    .put(KEY, keyBytes);
+            slot.putInt(CHECKSUM, checksum(slot.array()));
+
+            int offset = recordOffset(record.index) + (toA ? 0 : SLOT_SIZE);
+            mapped.put(offset, slot.array());
+            if (force) {
+                mapped.force(offset, SLOT_SIZE);
+            }
+            if (toA) {
+                record.generationA = generation;
+            } else {
+                record.generationB = generation;
+            }
+        }
+    }
+
+    @Override
+    public void close() throws IOException {
+        mapped.force();
+        channel.close();
+    }
+
+    private synchronized Record allocateRecord(String key) {
+        if (key.getBytes(StandardCharsets.UTF_8).length > MAX_KEY_BYTES) {
+            throw new IllegalStateException("segment key too long: " + key);
+        }
+        if (nextFreeRecord >= maxKeys) {
+            throw new IllegalStateException("segment store is full, maxKeys=" + maxKeys);
+        }
+        return new Record(nextFreeRecord++);
+    }
+
+    private Slot readSlot(int offset) {
+        byte[] bytes = new byte[SLOT_SIZE];
+        mapped.get(offset, bytes);
+        ByteBuffer slot = ByteBuffer.wrap(bytes);
+        long generation = slot.getLong(GENERATION);
+        if (generation <= 0 || slot.getInt(CHECKSUM) != checksum(bytes)) {
+            return null;
+        }
+        int keyLength = slot.getShort(KEY_LENGTH);
+        if (keyLength <= 0 || keyLength > MAX_KEY_BYTES) {
+            return null;
+        }
+        String key = new String(bytes, KEY, keyLength, StandardCharsets.UTF_8);
+        SegmentState state = new SegmentState(slot.getLong(CURRENT_START), slot.getLong(CURRENT_END),
+                slot.getInt(CURRENT_STEP), slot.getLong(ALLOCATED_MAX),
+                slot.getLong(NEXT_START), slot.getLong(NEXT_END), slot.getInt(NEXT_STEP));
+        return new Slot(generation, key, state);
+    }
+
+    private void verifyHeader(Path path, long expectedSize) throws IOException {
+        ByteBuffer header = ByteBuffer.allocate(12);
+        channel.read(header, 0);
+        if (header.getInt(0) != MAGIC || header.getInt(4) != VERSION || header.getInt(8) != maxKeys
+                || channel.size() != expectedSize) {
+            throw new IOException("incompatible segment store file: " + path
+                    + " (expected maxKeys=" + maxKeys + ", size=" + expectedSize + ")");
+        }
+    }
+
+    private static int recordOffset(int index) {
+        return HEADER_SIZE + index * RECORD_SIZE;
+    }
+
+    private static int checksum(byte[] slot) {
+        CRC32C crc = new CRC32C();
+        crc.update(slot, 0, CHECKSUM);
+        return (int) crc.getValue();
+    }
+
+    private static final class Record {
+        final int index;
+        long generationA;
+        long generationB;
+
+        Record(int index) {
+            this.index = index;
+        }
+    }
+
+    private record Slot(long generation, String key, SegmentState state) {
+    }
+}
@@ -0,0 +1,119 @@
+package com.xy.lucky.leaf.core.store;
+
+import java.lang.invoke.MethodHandles;
+import java.lang.invoke.VarHandle;
+
+/**
+ * 单个业务 key 的号段双缓冲
+ * <p>
+ * 当前段与预加载段放在不可变的 {@link Buffers} 中，切换与安装预加载段都通过 VarHandle CAS 整体替换，
+ * 发号路径上不持有任何锁：
+ * - 段内分配为 LocalSegment 的一次 getAndIncrement
+ * - 当前段耗尽时 CAS 将 (current, next) 替换为 (next, null)，CAS 失败说明其他线程已完成切换，重读即可
+ * - 预加载段只在 next 为空时安装；切换只在 next 非空时发生，两者不会相互覆盖
+ * 加载标记同样按 key 独立，由调用方通过 {@link #tryStartLoading()} / {@link #finishLoading()} 保证同一 key 只有一个加载任务。
+ * </p>
+ */
+public final class SegmentBuffer {
+
+    private static final VarHandle BUFFERS;
+    private static final VarHandle LOADING;
+
+    static {
+        try {
+            MethodHandles.Lookup lookup = MethodHandles.lookup();
+            BUFFERS = lookup.findVarHandle(SegmentBuffer.class, "buffers", Buffers.class);
+            LOADING = lookup.findVarHandle(SegmentBuffer.class, "loading", int.class);
+        } catch (ReflectiveOperationException e) {
+            throw new ExceptionInInitializerError(e);
+        }
+    }
+
+    private final double prefetchThreshold;
+    private final Runnable prefetch;
+
+    private volatile Buffers buffers;
+    private volatile int loading;
+
+    /**
+     * 构造函数
+     *
+     * @param current           当前段
+     * @param next              预加载段，可为空
+     * @param prefetchThreshold 当前段剩余量低于 step * prefetchThreshold 且没有预加载段时触发预加载
+     * @param prefetch          预加载回调，需自行异步执行并通过加载标记去重
+     */
+    public SegmentBuffer(LocalSegment current, LocalSegment next, double prefetchThreshold, Runnable prefetch) {
+        this.buffers = new Buffers(current, next);
+        this.prefetchThreshold = prefetchThreshold;
+        this.prefetch = prefetch;
+    }
+
+    /**
+     * 获取下一个ID
+     *
+     * @return 下一个ID；当前段耗尽且预加载段尚未就绪时返回 {@link LocalSegment#EXHAUSTED}，由调用方决定等待策略
+     */
+    public long nextId() {
+        while (true) {
+            Buffers b = buffers;
+            LocalSegment seg = b.current;
+            long id = seg.next();
+            if (id != LocalSegment.EXHAUSTED) {
+                if (b.next == null && seg.remaining() < seg.getStep() * prefetchThreshold) {
+                    prefetch.run();
+                }
+                return id;
+            }
+            if (b.next == null) {
+                prefetch.run();
+                return LocalSegment.EXHAUSTED;
+            }
+            BUFFERS.compareAndSet(this, b, new Buffers(b.next, null));
+        }
+    }
+
+    /**
+     * 安装预加载段
+     *
+     * @return 已存在预加载段时返回 false，新段被丢弃
+     */
+    public boolean offerNext(LocalSegment next) {
+        while (true) {
+            Buffers b = buffers;
+            if (b.next != null) {
+                return false;
+            }
+            if (BUFFERS.compareAndSet(this, b, new Buffers(b.current, next))) {
+                return true;
+            }
+        }
+    }
+
+    /**
+     * 尝试获取该 key 的加载标记
+     *
+     * @return 已有加载任务时返回 false
+     */
+    public boolean tryStartLoading() {
+        return LOADING.compareAndSet(this, 0, 1);
+    }
+
+    public void finishLoading() {
+        loading = 0;
+    }
+
+    public LocalSegment current() {
+        return buffers.current;
+    }
+
+    public LocalSegment next() {
+        return buffers.next;
+    }
+
+    /**
+     * 当前段与预加载段的不可变快照
+     */
+    private record Buffers(LocalSegment current, LocalSegment next) {
+    }
+}
@@ -0,0 +1,20 @@
+package com.xy.lucky.leaf.core.store;
+
+/**
+ * 单个业务 key 的号段持久化状态
+ *
+ * @param currentStart 当前段起始ID
+ * @param currentEnd   当前段结束ID（含）
+ * @param currentStep  当前段步长
+ * @param allocatedMax 当前段已允许分配的最大ID，重启后从 allocatedMax + 1 继续，保证不重复
+ * @param nextStart    预加载段起始ID
+ * @param nextEnd      预加载段结束ID（含）
+ * @param nextStep     预加载段步长，0 表示没有预加载段
+ */
+public record SegmentState(long currentStart, long currentEnd, int currentStep, long allocatedMax,
+                           long nextStart, long nextEnd, int nextStep) {
+
+    public boolean hasNext() {
+        return nextStep > 0;
+    }
+}
@@ -0,0 +1,34 @@
+package com.xy.lucky.leaf.model;
+
+import java.io.Serial;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * 填充到独占缓存行的 AtomicLong
+ * <p>
+ * 子类字段排在父类 value 之后，6 个 long 填充使 value 与相邻对象不落在同一 64 字节缓存行，
+ * 避免生产者写 tail、消费者写 cursor 时互相使对方缓存行失效（伪共享）。
+ * </p>
+ */
+public class PaddedAtomicLong extends AtomicLong {
+
+    @Serial
+    private static final long serialVersionUID = -3415778863941386253L;
+
+    public volatile long p1, p2, p3, p4, p5, p6 = 7L;
+
+    public PaddedAtomicLong() {
+        super();
+    }
+
+    public PaddedAtomicLong(long initialValue) {
+        super(initialValue);
+    }
+
+    /**
+     * 读取填充字段，防止被 JIT 当作无用字段消除
+     */
+    public long sumPaddingToPreventOptimisation() {
+        return p1 + p2 + p3 + p4 + p5 + p6;
+    }
+}
@@ -0,0 +1,169 @@
+package com.xy.lucky.leaf.model;
+
+/**
+ * 基于 long[] 的 UID 环形缓冲区
+ * <p>
+ * 参考百度 uid-generator 的 RingBuffer：
+ * - ID 以原始 long 存放在槽位数组中，不装箱、不分配链表节点
+ * - tail 为最后一个已发布的序号，仅由单个填充线程推进；cursor 为最后一个已消费的序号，消费者 CAS 推进
+ * - tail / cursor / 槽位标志均独占缓存行，生产者与消费者之间没有伪共享
+ * - 每个槽位带 CAN_PUT / CAN_TAKE 标志，防止填充覆盖尚未被读取的槽位
+ * - 消费后剩余量低于填充阈值时回调 paddingHandler，由调用方异步补充
+ * </p>
+ */
+public class UidRingBuffer {
+
+    /**
+     * 缓冲区为空时 {@link #poll()} 的返回值，UID 均为非负数
+     */
+    public static final long EMPTY = -1L;
+
+    private static final long START_POINT = -1L;
+    private static final long CAN_PUT_FLAG = 0L;
+    private static final long CAN_TAKE_FLAG = 1L;
+
+    private final int bufferSize;
+    private final long indexMask;
+    private final long[] slots;
+    private final PaddedAtomicLong[] flags;
+
+    private final PaddedAtomicLong tail = new PaddedAtomicLong(START_POINT);
+    private final PaddedAtomicLong cursor = new PaddedAtomicLong(START_POINT);
+
+    /**
+     * 剩余量低于该值时触发填充
+     */
+    private final int paddingThreshold;
+
+    private volatile Runnable paddingHandler = () -> {
+    };
+
+    /**
+     * 构造函数
+     *
+     * @param bufferSize    缓冲区容量，必须是 2 的幂
+     * @param paddingFactor 填充阈值比例 (0, 1]，如 0.2 表示剩余量低于 20% 时触发填充
+     */
+    public UidRingBuffer(int bufferSize, double paddingFactor) {
+        if (bufferSize <= 0 || Integer.bitCount(bufferSize) != 1) {
+            throw new IllegalArgumentException("bufferSize must be a positive power of 2");
+        }
+        if (paddingFactor <= 0 || paddingFactor > 1) {
+            throw new IllegalArgumentException("paddingFactor must be in (0, 1]");
+        }
+        this.bufferSize = bufferSize;
+        this.indexMask = bufferSize - 1;
+        this.slots = new long[bufferSize];
+        this.flags = new PaddedAtomicLong[bufferSize];
+        for (int i = 0; i < bufferSize; i++) {
+            flags[i] = new PaddedAtomicLong(CAN_PUT_FLAG);
+        }
+        this.paddingThreshold = Math.max(1, (int) (bufferSize * paddingFactor));
+    }
+
+    /**
+     * 设置剩余量低于阈值时的回调，回调需自行保证异步与去重
+     */
+    public void setPaddingHandler(Runnable paddingHandler) {
+        this.paddingHandler = paddingHandler;
+    }
+
+    /**
+     * 发布一个 UID 到下一个槽位
+     * <p>
+     * 只允许单个填充线程调用；同步只用于防止误用时多生产者并发，消费路径不参与该锁。
+     * </p>
+     *
+     * @param uid UID
+     * @return 缓冲区已满或槽位尚未被消费时返回 false
+     */
+    public synchronized boolean put(long uid) {
+        long currentTail = tail.get();
+        long currentCursor = cursor.get();
+        if (currentTail - currentCursor >= bufferSize) {
+            return false;
+        }
+        int index = indexOf(currentTail + 1);
+        if (flags[index].get() != CAN_PUT_FLAG) {
+            return false;
+        }
+        slots[index] = uid;
+        // 标志的 volatile 写保证消费者看到 CAN_TAKE 时一定能读到槽位中的值
+        flags[index].set(CAN_TAKE_FLAG);
+        tail.incrementAndGet();
+        return true;
+    }
+
+    /**
+     * 无锁获取一个 UID
+     *
+     * @return UID；缓冲区为空时返回 {@link #EMPTY}
+     */
+    public long poll() {
+        long currentCursor;
+        long nextCursor;
+        do {
+            currentCursor = cursor.get();
+            if (currentCursor >= tail.get()) {
+                paddingHandler.run();
+                return EMPTY;
+            }
+            nextCursor = currentCursor + 1;
+        } while (!cursor.compareAndSet(currentCursor, nextCursor));
+
+        if (tail.get() - nextCursor < paddingThreshold) {
+            paddingHandler.run();
+        }
+
+        int index = indexOf(nextCursor);
+        PaddedAtomicLong flag = flags[index];
+        // tail 先于 cursor 越过该序号，标志已是 CAN_TAKE；自旋只为防御极端的重排序窗口
+        while (flag.get() != CAN_TAKE_FLAG) {
+            Thread.onSpinWait();
+        }
+        long uid = slots[index];
+        flag.set(CAN_PUT_FLAG);
+        return uid;
+    }
+
+    /**
+     * 获取一个 UID
+     *
+     * @return UID
+     * @throws IllegalStateException 当缓冲区为空时抛出
+     */
+    public long take() {
+        long uid = poll();
+        if (uid == EMPTY) {
+            throw new IllegalStateException("RingBuffer is empty");
+        }
+        return uid;
+    }
+
+    /**
+     * 当前可消费的 UID 数量
+     */
+    public int size() {
+        return (int) Math.max(0, tail.get() - cursor.get());
+    }
+
+    public boolean isFull() {
+        return size() >= bufferSize;
+    }
+
+    public boolean isEmpty() {
+        return size() == 0;
+    }
+
+    public int getBufferSize() {
+        return bufferSize;
+    }
+
+    public int getPaddingThreshold() {
+        return paddingThreshold;
+    }
+
+    private int indexOf(long sequence) {
+        return (int) (sequence & indexMask);
+    }
+}
@@ -19,7 +19,6 @@ import reactor.core.scheduler.Schedulers;
 import java.time.Duration;
 import java.time.LocalDateTime;
 import java.time.format.DateTimeFormatter;
-import java.util.ArrayList;
 import java.util.List;
 
 /**
@@ -29,6 +28,11 @@ import java.util.List;
 @DubboService
 public class IdService implements ImIdDubboService {
 
+    /**
+     * 单次批量获取的最大数量，REST 与 Dubbo 入口共用
+     */
+    public static final int MAX_BATCH = 1000;
+
     private final ReactiveRedisTemplate<String, Object> reactiveRedisTemplate;
 
     private final IdMetaInfoRepository idMetaInfoRepo;
@@ -92,14 +96,7 @@ public class IdService implements ImIdDubboService {
      * @return 生成的ID列表
      */
     public List<IMetaId> generateIds(String type, String key, Integer count) {
-        List<IMetaId> ids = new ArrayList<>();
-        for (int i = 0; i < count; i++) {
-            IMetaId id = generateId(type, key);
-            if (id != null) {
-                ids.add(id);
-            }
-        }
-        return ids;
+        return strategyContext.getStrategy(type).getIds(key, count == null ? 0 : count);
     }
 
     public Mono<List<IMetaId>> generateIdsAsync(String type, String key, Integer count) {
@@ -108,6 +105,33 @@ public class IdService implements ImIdDubboService {
                 .collectList();
     }
 
+    /**
+     * 根据类型和业务标识批量生成长整型ID
+     *
+     * @param type  策略类型
+     * @param key   业务标识
+     * @param count 生成数量
+     * @return 生成的ID数组
+     */
+    public long[] generateLongIds(String type, String key, Integer count) {
+        checkBatchCount(count);
+        return strategyContext.getStrategy(type).getLongIds(key, count);
+    }
+
+    public Mono<long[]> generateLongIdsAsync(String type, String key, Integer count) {
+        return Mono.fromCallable(() -> generateLongIds(type, key, count))
+                .subscribeOn(Schedulers.boundedElastic());
+    }
+
+    /**
+     * 校验批量数量在 [1, MAX_BATCH]，与 REST 入口的 @Min/@Max 约束一致
+     */
+    private static void checkBatchCount(Integer count) {
+        if (count == null || count < 1 || count > MAX_BATCH) {
+            throw new IllegalArgumentException("count must be between 1 and " + MAX_BATCH + ": " + count);
+        }
+    }
+
     /**
      * 获取用户ID（号段模式+Redis原子操作）
      *
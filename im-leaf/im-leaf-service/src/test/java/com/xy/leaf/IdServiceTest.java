@@ -0,0 +1,50 @@
+package com.xy.leaf;
+
+import com.xy.lucky.leaf.core.IDGen;
+import com.xy.lucky.leaf.repository.IdMetaInfoRepository;
+import com.xy.lucky.leaf.service.IdService;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.data.redis.core.ReactiveRedisTemplate;
+
+import static org.junit.jupiter.api.Assertions.assertArrayEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.mockito.ArgumentMatchers.anyInt;
+import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+class IdServiceTest {
+
+    private IDGen snowflakeGen;
+    private IdService idService;
+
+    @BeforeEach
+    @SuppressWarnings("unchecked")
+    void setUp() {
+        snowflakeGen = mock(IDGen.class);
+        idService = new IdService(snowflakeGen, mock(IDGen.class), mock(IDGen.class), mock(IDGen.class),
+                mock(ReactiveRedisTemplate.class), mock(IdMetaInfoRepository.class));
+    }
+
+    @Test
+    void generateLongIdsAcceptsBatchBounds() {
+        when(snowflakeGen.getLongIds("k", 1)).thenReturn(new long[]{1L});
+        when(snowflakeGen.getLongIds("k", IdService.MAX_BATCH)).thenReturn(new long[IdService.MAX_BATCH]);
+
+        assertArrayEquals(new long[]{1L}, idService.generateLongIds("snowflake", "k", 1));
+        assertArrayEquals(new long[IdService.MAX_BATCH], idService.generateLongIds("snowflake", "k", IdService.MAX_BATCH));
+    }
+
+    @Test
+    void generateLongIdsRejectsCountOutOfRange() {
+        assertThrows(IllegalArgumentException.class, () -> idService.generateLongIds("snowflake", "k", null));
+        assertThrows(IllegalArgumentException.class, () -> idService.generateLongIds("snowflake", "k", 0));
+        assertThrows(IllegalArgumentException.class, () -> idService.generateLongIds("snowflake", "k", -1));
+        assertThrows(IllegalArgumentException.class,
+                () -> idService.generateLongIds("snowflake", "k", IdService.MAX_BATCH + 1));
+        verify(snowflakeGen, never()).getLongIds(anyString(), anyInt());
+    }
+}
@@ -0,0 +1,167 @@
+package com.xy.leaf;
+
+import com.xy.lucky.leaf.core.store.LocalSegment;
+import com.xy.lucky.leaf.core.store.MappedSegmentStore;
+import com.xy.lucky.leaf.core.store.SegmentState;
+import org.junit.jupiter.api.Test;
+
+import java.io.BufferedReader;
+import java.io.IOException;
+import java.io.InputStreamReader;
+import java.io.PrintStream;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.nio.file.StandardOpenOption;
+import java.util.HashSet;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class MappedSegmentStoreTest {
+
+    private static final String KEY = "order";
+    private static final int STEP = 1000;
+    private static final long LEASE = 100;
+
+    @Test
+    void reloadsLatestState() throws IOException {
+        Path file = Files.createTempFile("segments", ".dat");
+        Files.delete(file);
+        try (MappedSegmentStore store = new MappedSegmentStore(file, 4, false)) {
+            store.loadAll();
+            store.write("a", new SegmentState(1, 1000, 1000, 10, 0, 0, 0));
+            store.write("a", new SegmentState(1, 1000, 1000, 20, 1001, 2000, 1000));
+            store.write("b", new SegmentState(5, 6, 2, 5, 0, 0, 0));
+        }
+        try (MappedSegmentStore store = new MappedSegmentStore(file, 4, false)) {
+            Map<String, SegmentState> states = store.loadAll();
+            assertEquals(new SegmentState(1, 1000, 1000, 20, 1001, 2000, 1000), states.get("a"));
+            assertEquals(new SegmentState(5, 6, 2, 5, 0, 0, 0), states.get("b"));
+        } finally {
+            Files.deleteIfExists(file);
+        }
+    }
+
+    /**
+     * 模拟写入中途崩溃：最新槽位损坏时回退到上一版本
+     */
+    @Test
+    void tornSlotFallsBackToPreviousGeneration() throws IOException {
+        Path file = Files.createTempFile("segments", ".dat");
+        Files.delete(file);
+        try (MappedSegmentStore store = new MappedSegmentStore(file, 1, false)) {
+            store.loadAll();
+            store.write(KEY, new SegmentState(1, 1000, 1000, 100, 0, 0, 0)); // 槽位 A
+            store.write(KEY, new SegmentState(1, 1000, 1000, 200, 0, 0, 0)); // 槽位 B
+        }
+        try (FileChannel channel = FileChannel.open(file, StandardOpenOption.WRITE)) {
+            // 记录从 64 开始，槽位 B 从 64 + 128 开始，破坏其 allocatedMax
+            channel.write(ByteBuffer.wrap(new byte[]{0x7f}), 64 + 128 + 24);
+        }
+        try (MappedSegmentStore store = new MappedSegmentStore(file, 1, false)) {
+            assertEquals(100, store.loadAll().get(KEY).allocatedMax());
+        } finally {
+            Files.deleteIfExists(file);
+        }
+    }
+
+    /**
+     * 子进程持续发号并逐个输出，强杀后在本进程重新打开存储继续发号，两批 ID 不得重叠
+     */
+    @Test
+    void noDuplicatesAfterKill() throws Exception {
+        Path file = Files.createTempFile("segments", ".dat");
+        Files.delete(file);
+        Path javaBin = Paths.get(System.getProperty("java.home"), "bin", "java");
+        Process child = new ProcessBuilder(javaBin.toString(), "-cp", System.getProperty("java.class.path"),
+                MappedSegmentStoreTest.class.getName(), file.toString())
+                .redirectError(ProcessBuilder.Redirect.INHERIT)
+                .start();
+
+        Set<Long> issued = new HashSet<>();
+        try (BufferedReader reader = new BufferedReader(new InputStreamReader(child.getInputStream(), StandardCharsets.UTF_8))) {
+            String line;
+            // 跨过若干段、若干次水位推进后在任意位置强杀，并读完被杀前已输出的全部 ID
+            while ((line = reader.readLine()) != null) {
+                assertTrue(issued.add(Long.parseLong(line)));
+                if (issued.size() == 5_555) {
+                    // 经 ProcessHandle 发送 SIGKILL，Process.destroyForcibly 会同时关闭输出流
+                    child.toHandle().destroyForcibly();
+                }
+            }
+        }
+        assertTrue(child.waitFor(30, TimeUnit.SECONDS));
+        assertTrue(issued.size() >= 5_555);
+
+        try (MappedSegmentStore store = new MappedSegmentStore(file, 4, false)) {
+            Issuer issuer = new Issuer(store);
+            for (int i = 0; i < 10_000; i++) {
+                assertFalse(issued.contains(issuer.next()), "id reissued after restart");
+            }
+        } finally {
+            Files.deleteIfExists(file);
+        }
+    }
+
+    /**
+     * 子进程入口：无限发号直到被杀
+     */
+    public static void main(String[] args) throws IOException {
+        PrintStream out = new PrintStream(System.out, false, StandardCharsets.UTF_8);
+        MappedSegmentStore store = new MappedSegmentStore(Paths.get(args[0]), 4, false);
+        Issuer issuer = new Issuer(store);
+        while (true) {
+            out.println(issuer.next());
+            out.flush();
+        }
+    }
+
+    /**
+     * 与 RedisSegmentIDGenImpl 相同的恢复与水位写入方式，号段分配器以存储中的最大段尾为起点模拟 Redis INCR
+     */
+    private static final class Issuer {
+        private final MappedSegmentStore store;
+        private LocalSegment current;
+        private long allocated;
+
+        Issuer(MappedSegmentStore store) {
+            this.store = store;
+            SegmentState state = store.loadAll().get(KEY);
+            if (state == null) {
+                this.current = newSegment(0);
+            } else {
+                this.allocated = state.currentEnd();
+                this.current = new LocalSegment(state.currentStart(), state.currentEnd(), state.currentStep(),
+                        state.allocatedMax() + 1, state.allocatedMax(), LEASE, this::checkpoint);
+            }
+        }
+
+        long next() {
+            while (true) {
+                long id = current.next();
+                if (id != LocalSegment.EXHAUSTED) {
+                    return id;
+                }
+                current = newSegment(allocated);
+            }
+        }
+
+        private LocalSegment newSegment(long after) {
+            long start = after + 1;
+            allocated = after + STEP;
+            return new LocalSegment(start, allocated, STEP, start, start - 1, LEASE, this::checkpoint);
+        }
+
+        private void checkpoint(LocalSegment seg, long allocatedMax) {
+            store.write(KEY, new SegmentState(seg.getStart(), seg.getEnd(), seg.getStep(), allocatedMax, 0, 0, 0));
+        }
+    }
+}
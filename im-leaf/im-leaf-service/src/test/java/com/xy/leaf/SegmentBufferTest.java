@@ -0,0 +1,257 @@
+package com.xy.leaf;
+
+import com.xy.lucky.leaf.core.store.LocalSegment;
+import com.xy.lucky.leaf.core.store.SegmentBuffer;
+import org.junit.jupiter.api.Tag;
+import org.junit.jupiter.api.Test;
+
+import java.util.Arrays;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.LongSupplier;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class SegmentBufferTest {
+
+    private static final int KEYS = 16;
+    private static final int[] THREADS = {1, 4, 16, 64};
+    private static final int IDS_PER_THREAD = 20_000;
+    private static final int PERF_IDS_PER_THREAD = 200_000;
+    // 小步长让切换与预加载足够频繁
+    private static final int STEP = 1_000;
+    private static final double PREFETCH_THRESHOLD = 0.2;
+
+    @Test
+    void switchesToPrefetchedSegment() {
+        AtomicLong prefetches = new AtomicLong();
+        SegmentBuffer buffer = new SegmentBuffer(segment(1, 10), null, PREFETCH_THRESHOLD, prefetches::incrementAndGet);
+        for (long i = 1; i <= 10; i++) {
+            assertEquals(i, buffer.nextId());
+        }
+        assertTrue(prefetches.get() > 0);
+        assertEquals(LocalSegment.EXHAUSTED, buffer.nextId());
+
+        assertTrue(buffer.offerNext(segment(101, 110)));
+        assertFalse(buffer.offerNext(segment(201, 210)));
+        assertEquals(101, buffer.nextId());
+        assertNull(buffer.next());
+    }
+
+    @Test
+    void loadingFlagIsExclusive() {
+        SegmentBuffer buffer = new SegmentBuffer(segment(1, 10), null, PREFETCH_THRESHOLD, () -> {
+        });
+        assertTrue(buffer.tryStartLoading());
+        assertFalse(buffer.tryStartLoading());
+        buffer.finishLoading();
+        assertTrue(buffer.tryStartLoading());
+    }
+
+    /**
+     * 16 个 key、16 线程并发发号，每个 key 的 ID 不重复
+     */
+    @Test
+    void issuesUniqueIdsAcrossKeysAndThreads() throws Exception {
+        run(16, IDS_PER_THREAD, true);
+    }
+
+    /**
+     * 与原 synchronized 切换实现对比吞吐，仅输出不断言；
+     * 默认不随单元测试执行，使用 -Dgroups=perf -Dsurefire.excludedGroups= 单独运行
+     */
+    @Test
+    @Tag("perf")
+    void scalesAcrossKeysAndThreads() throws Exception {
+        for (int threads : THREADS) {
+            double casRate = run(threads, PERF_IDS_PER_THREAD, true);
+            double syncRate = run(threads, PERF_IDS_PER_THREAD, false);
+            System.out.printf("keys=%d threads=%-2d SegmentBuffer %,14.0f ids/s | synchronized switch %,14.0f ids/s%n",
+                    KEYS, threads, casRate, syncRate);
+        }
+    }
+
+    private static double run(int threads, int idsPerThread, boolean cas) throws Exception {
+        ExecutorService loader = Executors.newFixedThreadPool(4);
+        ExecutorService pool = Executors.newFixedThreadPool(threads);
+        try {
+            AtomicLong[] allocators = new AtomicLong[KEYS];
+            LongSupplier[] sources = new LongSupplier[KEYS];
+            for (int k = 0; k < KEYS; k++) {
+                allocators[k] = new AtomicLong();
+                sources[k] = cas ? casSource(allocators[k], loader) : synchronizedSource(allocators[k], loader);
+            }
+            long[][] issued = new long[threads][idsPerThread];
+            CountDownLatch start = new CountDownLatch(1);
+            CountDownLatch done = new CountDownLatch(threads);
+            for (int t = 0; t < threads; t++) {
+                int index = t;
+                pool.execute(() -> {
+                    try {
+                        start.await();
+                        long[] local = issued[index];
+                        for (int i = 0; i < idsPerThread; i++) {
+                            // 每个 ID 带上 key 编号，便于校验各 key 的唯一性
+                            int key = (index + i) % KEYS;
+                            local[i] = sources[key].getAsLong() * KEYS + key;
+                        }
+                    } catch (InterruptedException e) {
+                        Thread.currentThread().interrupt();
+                    } finally {
+                        done.countDown();
+                    }
+                });
+            }
+            long begin = System.nanoTime();
+            start.countDown();
+            assertTrue(done.await(120, TimeUnit.SECONDS));
+            long elapsed = System.nanoTime() - begin;
+
+            long total = (long) threads * idsPerThread;
+            long[] all = new long[(int) total];
+            for (int t = 0; t < threads; t++) {
+                System.arraycopy(issued[t], 0, all, t * idsPerThread, idsPerThread);
+            }
+            Arrays.sort(all);
+            for (int i = 1; i < all.length; i++) {
+                assertTrue(all[i] != all[i - 1], "duplicate id at " + threads + " threads");
+            }
+            return total * 1e9 / elapsed;
+        } finally {
+            shutdown(pool);
+            shutdown(loader);
+        }
+    }
+
+    private static void shutdown(ExecutorService executor) {
+        executor.shutdownNow();
+        try {
+            executor.awaitTermination(5, TimeUnit.SECONDS);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+
+    private static LongSupplier casSource(AtomicLong allocator, ExecutorService loader) {
+        SegmentBuffer[] holder = new SegmentBuffer[1];
+        Runnable prefetch = () -> {
+            SegmentBuffer buffer = holder[0];
+            if (buffer.next() == null && buffer.tryStartLoading()) {
+                loader.execute(() -> {
+                    try {
+                        buffer.offerNext(allocate(allocator));
+                    } finally {
+                        buffer.finishLoading();
+                    }
+                });
+            }
+        };
+        holder[0] = new SegmentBuffer(allocate(allocator), null, PREFETCH_THRESHOLD, prefetch);
+        return () -> {
+            long id;
+            while ((id = holder[0].nextId()) == LocalSegment.EXHAUSTED) {
+                Thread.onSpinWait();
+            }
+            return id;
+        };
+    }
+
+    private static LongSupplier synchronizedSource(AtomicLong allocator, ExecutorService loader) {
+        SynchronizedPair pair = new SynchronizedPair(allocator, loader);
+        return pair::nextId;
+    }
+
+    private static LocalSegment allocate(AtomicLong allocator) {
+        long end = allocator.addAndGet(STEP);
+        return segment(end - STEP + 1, end);
+    }
+
+    private static LocalSegment segment(long start, long end) {
+        return new LocalSegment(start, end, (int) (end - start + 1), start, start - 1, 1, null);
+    }
+
+    /**
+     * 改造前的双缓冲：CAS 循环分配 + volatile 字段 + synchronized 双重检查切换
+     */
+    private static final class SynchronizedPair {
+        private final AtomicLong allocator;
+        private final ExecutorService loader;
+        private final AtomicBoolean loading = new AtomicBoolean();
+        private volatile CasLoopSegment current;
+        private volatile CasLoopSegment nextSegment;
+
+        SynchronizedPair(AtomicLong allocator, ExecutorService loader) {
+            this.allocator = allocator;
+            this.loader = loader;
+            this.current = new CasLoopSegment(allocator.addAndGet(STEP));
+        }
+
+        long nextId() {
+            while (true) {
+                CasLoopSegment seg = this.current;
+                long id = seg.next();
+                if (id != LocalSegment.EXHAUSTED) {
+                    if (seg.end - seg.cursor.get() + 1 < STEP * PREFETCH_THRESHOLD) {
+                        triggerAsyncLoad();
+                    }
+                    return id;
+                }
+                if (this.nextSegment != null) {
+                    synchronized (this) {
+                        if (this.current == seg && this.nextSegment != null) {
+                            this.current = this.nextSegment;
+                            this.nextSegment = null;
+                        }
+                    }
+                    continue;
+                }
+                triggerAsyncLoad();
+                Thread.onSpinWait();
+            }
+        }
+
+        private void triggerAsyncLoad() {
+            if (this.nextSegment == null && loading.compareAndSet(false, true)) {
+                loader.execute(() -> {
+                    try {
+                        CasLoopSegment seg = new CasLoopSegment(allocator.addAndGet(STEP));
+                        synchronized (this) {
+                            if (this.nextSegment == null) {
+                                this.nextSegment = seg;
+                            }
+                        }
+                    } finally {
+                        loading.set(false);
+                    }
+                });
+            }
+        }
+    }
+
+    private static final class CasLoopSegment {
+        final long end;
+        final AtomicLong cursor;
+
+        CasLoopSegment(long end) {
+            this.end = end;
+            this.cursor = new AtomicLong(end - STEP + 1);
+        }
+
+        long next() {
+            while (true) {
+                long cur = cursor.get();
+                if (cur > end) return LocalSegment.EXHAUSTED;
+                if (cursor.compareAndSet(cur, cur + 1)) {
+                    return cur;
+                }
+            }
+        }
+    }
+}
@@ -0,0 +1,37 @@
+package com.xy.leaf;
+
+import com.xy.lucky.leaf.core.SegmentStepPolicy;
+import org.junit.jupiter.api.Test;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+class SegmentStepPolicyTest {
+
+    private final SegmentStepPolicy policy = new SegmentStepPolicy(60_000, 8_000);
+
+    @Test
+    void growsWhenSegmentConsumedFasterThanTarget() {
+        assertEquals(2_000, policy.nextStep(1_000, 1_000, 10_000));
+        assertEquals(8_000, policy.nextStep(4_000, 1_000, 10_000));
+        assertEquals(8_000, policy.nextStep(8_000, 1_000, 10_000));
+    }
+
+    @Test
+    void keepsStepWithinTargetWindow() {
+        assertEquals(4_000, policy.nextStep(4_000, 1_000, 60_000));
+        assertEquals(4_000, policy.nextStep(4_000, 1_000, 119_999));
+    }
+
+    @Test
+    void shrinksWhenIdleButNotBelowMinStep() {
+        assertEquals(2_000, policy.nextStep(4_000, 1_000, 120_000));
+        assertEquals(1_000, policy.nextStep(1_000, 1_000, 3_600_000));
+    }
+
+    @Test
+    void minStepAboveMaxStepWins() {
+        assertEquals(10_000, policy.nextStep(1_000, 10_000, 1_000));
+        assertEquals(10_000, policy.bound(50_000, 10_000));
+        assertEquals(8_000, policy.bound(50_000, 1_000));
+    }
+}
@@ -0,0 +1,156 @@
+package com.xy.leaf;
+
+import com.xy.lucky.leaf.config.NacosSnowflakeWorkerIdAllocator;
+import com.xy.lucky.leaf.core.impl.SnowflakeIDGenImpl;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import java.util.Set;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
+
+class SnowflakeIDGenImplTest {
+
+    private static final long EPOCH = 1622505600000L;
+    private static final int WORKER_BITS = 10;
+    private static final int SEQUENCE_BITS = 12;
+    private static final long WORKER_ID = 7;
+
+    private NacosSnowflakeWorkerIdAllocator workerIdAllocator;
+
+    @BeforeEach
+    void setUp() {
+        workerIdAllocator = mock(NacosSnowflakeWorkerIdAllocator.class);
+        when(workerIdAllocator.getWorkerId()).thenReturn(WORKER_ID);
+    }
+
+    @Test
+    void batchesAreStrictlyIncreasingWithinAndAcrossCalls() {
+        SnowflakeIDGenImpl idGen = new SnowflakeIDGenImpl(workerIdAllocator);
+        long previous = -1;
+        for (int round = 0; round < 200; round++) {
+            long[] ids = round % 3 == 0
+                    ? new long[]{idGen.getId("k").getLongId()}
+                    : idGen.getLongIds("k", ThreadLocalRandom.current().nextInt(1, 5_000));
+            for (long id : ids) {
+                assertTrue(id > previous, "ids must increase: " + previous + " -> " + id);
+                assertEquals(WORKER_ID, workerId(id));
+                previous = id;
+            }
+        }
+    }
+
+    @Test
+    void concurrentBatchAndSingleCallersGetUniqueIds() throws Exception {
+        SnowflakeIDGenImpl idGen = new SnowflakeIDGenImpl(workerIdAllocator);
+        int threads = 8;
+        int rounds = 50;
+        int batch = 1_000;
+        Set<Long> seen = ConcurrentHashMap.newKeySet();
+        AtomicLong total = new AtomicLong();
+        ExecutorService pool = Executors.newFixedThreadPool(threads);
+        try {
+            CountDownLatch done = new CountDownLatch(threads);
+            for (int t = 0; t < threads; t++) {
+                boolean single = t % 2 == 0;
+                pool.execute(() -> {
+                    try {
+                        for (int r = 0; r < rounds; r++) {
+                            if (single) {
+                                for (int i = 0; i < batch; i++) {
+                                    seen.add(idGen.getId("k").getLongId());
+                                }
+                            } else {
+                                for (long id : idGen.getLongIds("k", batch)) {
+                                    seen.add(id);
+                                }
+                            }
+                            total.addAndGet(batch);
+                        }
+                    } finally {
+                        done.countDown();
+                    }
+                });
+            }
+            assertTrue(done.await(60, TimeUnit.SECONDS));
+        } finally {
+            pool.shutdownNow();
+            pool.awaitTermination(5, TimeUnit.SECONDS);
+        }
+        assertEquals((long) threads * rounds * batch, total.get());
+        assertEquals(total.get(), seen.size());
+    }
+
+    @Test
+    void batchBorrowsNextMillisecondAndSingleCallWaitsForClock() throws Exception {
+        long start = 1_700_000_000_000L;
+        AtomicLong clock = new AtomicLong(start);
+        SnowflakeIDGenImpl idGen = new FixedClockIDGen(workerIdAllocator, clock);
+
+        int perMs = 1 << SEQUENCE_BITS;
+        long[] ids = idGen.getLongIds("k", perMs + 100);
+
+        assertEquals(perMs + 100, ids.length);
+        for (int i = 1; i < ids.length; i++) {
+            assertTrue(ids[i] > ids[i - 1]);
+        }
+        assertEquals(start, timestamp(ids[0]));
+        assertEquals(0, sequence(ids[0]));
+        assertEquals(start, timestamp(ids[perMs - 1]));
+        assertEquals(perMs - 1, sequence(ids[perMs - 1]));
+        assertEquals(start + 1, timestamp(ids[perMs]));
+        assertEquals(0, sequence(ids[perMs]));
+        assertEquals(start + 1, timestamp(ids[ids.length - 1]));
+        assertEquals(99, sequence(ids[ids.length - 1]));
+
+        // 时钟仍停在 start，单个请求必须等到被预支的毫秒到来后接着序列号分配
+        CompletableFuture<Long> next = CompletableFuture.supplyAsync(() -> idGen.getId("k").getLongId());
+        Thread.sleep(50);
+        assertFalse(next.isDone(), "single id must wait for the borrowed millisecond");
+        clock.set(start + 1);
+        long id = next.get(5, TimeUnit.SECONDS);
+
+        assertTrue(id > ids[ids.length - 1]);
+        assertEquals(start + 1, timestamp(id));
+        assertEquals(100, sequence(id));
+    }
+
+    private static long timestamp(long id) {
+        return (id >>> (SEQUENCE_BITS + WORKER_BITS)) + EPOCH;
+    }
+
+    private static long workerId(long id) {
+        return (id >>> SEQUENCE_BITS) & ~(-1L << WORKER_BITS);
+    }
+
+    private static long sequence(long id) {
+        return id & ~(-1L << SEQUENCE_BITS);
+    }
+
+    private static class FixedClockIDGen extends SnowflakeIDGenImpl {
+
+        private final AtomicLong clock;
+
+        FixedClockIDGen(NacosSnowflakeWorkerIdAllocator allocator, AtomicLong clock) {
+            super(allocator);
+            this.clock = clock;
+        }
+
+        @Override
+        protected long timeGen() {
+            return clock.get();
+        }
+    }
+}
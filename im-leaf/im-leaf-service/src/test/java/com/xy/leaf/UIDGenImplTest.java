@@ -0,0 +1,124 @@
+package com.xy.leaf;
+
+import com.xy.lucky.leaf.core.impl.UIDGenImpl;
+import com.xy.lucky.leaf.work.WorkerIdAssigner;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNotNull;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+class UIDGenImplTest {
+
+    private static final long EPOCH = 1577836800000L;
+    private static final int WORKER_BITS = 10;
+    private static final int SEQUENCE_BITS = 12;
+    private static final long WORKER_ID = 5;
+
+    private WorkerIdAssigner workerIdAssigner;
+    private UIDGenImpl idGen;
+
+    @BeforeEach
+    void setUp() {
+        workerIdAssigner = mock(WorkerIdAssigner.class);
+        when(workerIdAssigner.getWorkerId()).thenReturn(WORKER_ID);
+        idGen = newIdGen(workerIdAssigner);
+    }
+
+    @AfterEach
+    void tearDown() {
+        idGen.shutdown();
+    }
+
+    @Test
+    void idsIncreaseAndCarryWorkerIdAndTimestamp() {
+        long before = System.currentTimeMillis();
+        long previous = -1;
+        for (int i = 0; i < 10_000; i++) {
+            long id = idGen.getId("uid").getLongId();
+            assertTrue(id > previous, "ids must increase for a single consumer");
+            previous = id;
+        }
+        long after = System.currentTimeMillis();
+
+        assertEquals(WORKER_ID, (previous >>> SEQUENCE_BITS) & ~(-1L << WORKER_BITS));
+        long timestamp = (previous >>> (SEQUENCE_BITS + WORKER_BITS)) + EPOCH;
+        assertTrue(timestamp >= before && timestamp <= after, "timestamp out of range: " + timestamp);
+        verify(workerIdAssigner, times(1)).load();
+    }
+
+    @Test
+    void reactiveGetReturnsId() {
+        Long id = idGen.get("uid").map(meta -> meta.getLongId()).block();
+        assertNotNull(id);
+        assertTrue(id > 0);
+    }
+
+    @Test
+    void concurrentCallersGetUniqueIds() throws Exception {
+        int threads = 8;
+        int perThread = 20_000;
+        Set<Long> seen = ConcurrentHashMap.newKeySet();
+        ExecutorService pool = Executors.newFixedThreadPool(threads);
+        try {
+            CountDownLatch done = new CountDownLatch(threads);
+            for (int t = 0; t < threads; t++) {
+                pool.execute(() -> {
+                    try {
+                        for (int i = 0; i < perThread; i++) {
+                            seen.add(idGen.getId("uid").getLongId());
+                        }
+                    } finally {
+                        done.countDown();
+                    }
+                });
+            }
+            assertTrue(done.await(60, TimeUnit.SECONDS));
+        } finally {
+            pool.shutdownNow();
+            pool.awaitTermination(5, TimeUnit.SECONDS);
+        }
+        assertEquals(threads * perThread, seen.size());
+    }
+
+    @Test
+    void rejectsWorkerIdOutOfRange() {
+        WorkerIdAssigner assigner = mock(WorkerIdAssigner.class);
+        when(assigner.getWorkerId()).thenReturn(1L << WORKER_BITS);
+        UIDGenImpl invalid = newIdGen(assigner);
+        try {
+            assertThrows(IllegalArgumentException.class, () -> invalid.getId("uid"));
+        } finally {
+            invalid.shutdown();
+        }
+    }
+
+    private static UIDGenImpl newIdGen(WorkerIdAssigner assigner) {
+        UIDGenImpl gen = new UIDGenImpl();
+        ReflectionTestUtils.setField(gen, "epoch", EPOCH);
+        ReflectionTestUtils.setField(gen, "timeBits", 41);
+        ReflectionTestUtils.setField(gen, "workerBits", WORKER_BITS);
+        ReflectionTestUtils.setField(gen, "sequenceBits", SEQUENCE_BITS);
+        ReflectionTestUtils.setField(gen, "bufferSizeBits", 10);
+        ReflectionTestUtils.setField(gen, "paddingFactor", 0.2);
+        ReflectionTestUtils.setField(gen, "takeTimeoutMs", 5_000L);
+        ReflectionTestUtils.setField(gen, "workerIdAssigner", assigner);
+        gen.init();
+        return gen;
+    }
+}
@@ -0,0 +1,241 @@
+package com.xy.leaf;
+
+import com.xy.lucky.leaf.model.IdRingBuffer;
+import com.xy.lucky.leaf.model.UidRingBuffer;
+import org.junit.jupiter.api.Tag;
+import org.junit.jupiter.api.Test;
+
+import java.lang.management.ManagementFactory;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.LongSupplier;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class UidRingBufferTest {
+
+    private static final int[] THREADS = {1, 8, 32};
+    private static final int IDS_PER_THREAD = 50_000;
+    private static final int PERF_IDS_PER_THREAD = 200_000;
+
+    @Test
+    void putAndTakeInOrder() {
+        UidRingBuffer buffer = new UidRingBuffer(8, 0.5);
+        for (long i = 0; i < 8; i++) {
+            assertTrue(buffer.put(i));
+        }
+        assertTrue(buffer.isFull());
+        assertFalse(buffer.put(8));
+        for (long i = 0; i < 8; i++) {
+            assertEquals(i, buffer.take());
+        }
+        assertEquals(UidRingBuffer.EMPTY, buffer.poll());
+        assertThrows(IllegalStateException.class, buffer::take);
+    }
+
+    @Test
+    void paddingHandlerFiresBelowThreshold() {
+        UidRingBuffer buffer = new UidRingBuffer(8, 0.5);
+        AtomicLong fired = new AtomicLong();
+        buffer.setPaddingHandler(fired::incrementAndGet);
+        for (long i = 0; i < 8; i++) {
+            buffer.put(i);
+        }
+        buffer.take();
+        buffer.take();
+        assertEquals(0, fired.get());
+        buffer.take();
+        buffer.take();
+        buffer.take();
+        assertTrue(fired.get() > 0);
+    }
+
+    @Test
+    void concurrentTakeYieldsUniqueIds() throws Exception {
+        for (int threads : THREADS) {
+            Set<Long> seen = ConcurrentHashMap.newKeySet();
+            try (Source source = newPrimitiveSource()) {
+                run(threads, IDS_PER_THREAD, source, seen);
+            }
+            assertEquals((long) threads * IDS_PER_THREAD, seen.size(), "duplicate or lost ids at " + threads + " threads");
+        }
+    }
+
+    /**
+     * 与原 ConcurrentLinkedQueue 实现在相同生产/消费模型下对比吞吐与分配量，仅输出结果不做断言；
+     * 默认不随单元测试执行，使用 -Dgroups=perf -Dsurefire.excludedGroups= 单独运行
+     */
+    @Test
+    @Tag("perf")
+    void compareWithQueueBackedBuffer() throws Exception {
+        for (int threads : THREADS) {
+            Result primitive;
+            Result boxed;
+            try (Source source = newPrimitiveSource()) {
+                primitive = run(threads, PERF_IDS_PER_THREAD, source, null);
+            }
+            try (Source source = newBoxedSource()) {
+                boxed = run(threads, PERF_IDS_PER_THREAD, source, null);
+            }
+            System.out.printf("threads=%-2d UidRingBuffer %,12.0f ids/s %8.1f bytes/id | IdRingBuffer<Long> %,12.0f ids/s %8.1f bytes/id%n",
+                    threads, primitive.idsPerSecond(), primitive.bytesPerId(), boxed.idsPerSecond(), boxed.bytesPerId());
+        }
+    }
+
+    /**
+     * 单填充线程 + 阈值触发的异步补充，与 UIDGenImpl 的使用方式一致
+     */
+    private static Source newPrimitiveSource() {
+        UidRingBuffer buffer = new UidRingBuffer(1 << 12, 0.2);
+        AtomicLong generator = new AtomicLong();
+        ExecutorService padding = paddingExecutor();
+        AtomicBoolean running = new AtomicBoolean();
+        Runnable fill = () -> {
+            while (!buffer.isFull() && buffer.put(generator.getAndIncrement())) {
+                // keep filling
+            }
+        };
+        buffer.setPaddingHandler(() -> asyncPadding(padding, running, fill));
+        fill.run();
+        return new Source(() -> {
+            long id;
+            while ((id = buffer.poll()) == UidRingBuffer.EMPTY) {
+                Thread.onSpinWait();
+            }
+            return id;
+        }, padding);
+    }
+
+    private static Source newBoxedSource() {
+        int capacity = 1 << 12;
+        IdRingBuffer<Long> buffer = new IdRingBuffer<>(capacity);
+        AtomicLong generator = new AtomicLong();
+        ExecutorService padding = paddingExecutor();
+        AtomicBoolean running = new AtomicBoolean();
+        Runnable fill = () -> {
+            while (!buffer.isFull()) {
+                try {
+                    buffer.put(generator.getAndIncrement());
+                } catch (IllegalStateException full) {
+                    return;
+                }
+            }
+        };
+        fill.run();
+        return new Source(() -> {
+            if (buffer.size() < capacity * 0.2) {
+                asyncPadding(padding, running, fill);
+            }
+            while (true) {
+                try {
+                    return buffer.take();
+                } catch (IllegalStateException empty) {
+                    asyncPadding(padding, running, fill);
+                    Thread.onSpinWait();
+                }
+            }
+        }, padding);
+    }
+
+    private static ExecutorService paddingExecutor() {
+        return Executors.newSingleThreadExecutor(r -> {
+            Thread t = new Thread(r, "test-padding");
+            t.setDaemon(true);
+            return t;
+        });
+    }
+
+    private static void asyncPadding(ExecutorService padding, AtomicBoolean running, Runnable fill) {
+        if (running.compareAndSet(false, true)) {
+            padding.execute(() -> {
+                try {
+                    fill.run();
+                } finally {
+                    running.set(false);
+                }
+            });
+        }
+    }
+
+    private static Result run(int threads, int idsPerThread, Source source, Set<Long> seen) throws Exception {
+        ExecutorService pool = Executors.newFixedThreadPool(threads);
+        try {
+            CountDownLatch start = new CountDownLatch(1);
+            CountDownLatch done = new CountDownLatch(threads);
+            for (int t = 0; t < threads; t++) {
+                pool.execute(() -> {
+                    try {
+                        start.await();
+                        long[] local = seen == null ? null : new long[idsPerThread];
+                        for (int i = 0; i < idsPerThread; i++) {
+                            long id = source.ids().getAsLong();
+                            if (local != null) {
+                                local[i] = id;
+                            }
+                        }
+                        if (local != null) {
+                            for (long id : local) {
+                                seen.add(id);
+                            }
+                        }
+                    } catch (InterruptedException e) {
+                        Thread.currentThread().interrupt();
+                    } finally {
+                        done.countDown();
+                    }
+                });
+            }
+            long allocatedBefore = allocatedBytes();
+            long begin = System.nanoTime();
+            start.countDown();
+            assertTrue(done.await(60, TimeUnit.SECONDS));
+            long elapsed = System.nanoTime() - begin;
+            long allocated = allocatedBytes() - allocatedBefore;
+            long total = (long) threads * idsPerThread;
+            return new Result(total * 1e9 / elapsed, allocated / (double) total);
+        } finally {
+            shutdown(pool);
+        }
+    }
+
+    private static void shutdown(ExecutorService executor) {
+        executor.shutdownNow();
+        try {
+            executor.awaitTermination(5, TimeUnit.SECONDS);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+
+    /**
+     * 所有存活线程累计分配字节数（HotSpot 扩展接口），包含填充线程的装箱分配；不可用时返回 0
+     */
+    private static long allocatedBytes() {
+        if (ManagementFactory.getThreadMXBean() instanceof com.sun.management.ThreadMXBean bean) {
+            return bean.getTotalThreadAllocatedBytes();
+        }
+        return 0;
+    }
+
+    /**
+     * 取号函数及其填充线程，用完即关闭
+     */
+    private record Source(LongSupplier ids, ExecutorService padding) implements AutoCloseable {
+        @Override
+        public void close() {
+            shutdown(padding);
+        }
+    }
+
+    private record Result(double idsPerSecond, double bytesPerId) {
+    }
+}
@@ -3,12 +3,15 @@ package com.xy.lucky.message.controller;
 import com.xy.lucky.message.domain.dto.ChatDto;
 import com.xy.lucky.message.domain.dto.MessageAckDto;
 import com.xy.lucky.message.domain.dto.MessageReplayDto;
+import com.xy.lucky.message.domain.dto.MessageStatusQueryDto;
+import com.xy.lucky.message.domain.dto.UndeliveredQueryDto;
 import com.xy.lucky.message.domain.dto.validation.ValidationGroups;
 import com.xy.lucky.message.service.MessageService;
 import com.xy.lucky.core.model.IMGroupMessage;
 import com.xy.lucky.core.model.IMSingleMessage;
 import com.xy.lucky.core.model.IMVideoMessage;
 import com.xy.lucky.core.model.IMessageAction;
+import com.xy.lucky.domain.CursorPage;
 import com.xy.lucky.domain.po.ImGroupMessagePo;
 import com.xy.lucky.domain.po.ImSingleMessagePo;
 import io.swagger.v3.oas.annotations.Operation;
@@ -134,5 +137,50 @@ public class MessageController {
         return messageService.groupList(chatDto);
     }
 
+    @PostMapping("/single/page")
+    @Operation(summary = "分页拉取私聊消息", description = "按 (消息时间, 消息ID) 游标分页拉取私聊消息")
+    @Parameters({
+            @Parameter(name = "chatDto", description = "查询条件", required = true, in = ParameterIn.DEFAULT)
+    })
+    public CursorPage<ImSingleMessagePo> singlePage(@RequestBody @Validated({ValidationGroups.Query.class, ValidationGroups.Page.class}) ChatDto chatDto) {
+        return messageService.singlePage(chatDto);
+    }
+
+    @PostMapping("/group/page")
+    @Operation(summary = "分页拉取群聊消息", description = "按 (消息时间, 消息ID) 游标分页拉取群聊消息")
+    @Parameters({
+            @Parameter(name = "chatDto", description = "查询条件", required = true, in = ParameterIn.DEFAULT)
+    })
+    public CursorPage<ImGroupMessagePo> groupPage(@RequestBody @Validated({ValidationGroups.Query.class, ValidationGroups.Page.class}) ChatDto chatDto) {
+        return messageService.groupPage(chatDto);
+    }
+
+    @PostMapping("/status/read")
+    @Operation(summary = "查询已读用户", description = "查询已确认（已读）指定消息的用户列表")
+    @Parameters({
+            @Parameter(name = "statusQueryDto", description = "查询条件", required = true, in = ParameterIn.DEFAULT)
+    })
+    public List<String> readUsers(@Valid @RequestBody MessageStatusQueryDto statusQueryDto) {
+        return messageService.readUsers(statusQueryDto.getMessageId());
+    }
+
+    @PostMapping("/status/delivered")
+    @Operation(summary = "查询已投递用户", description = "查询指定消息已投递成功的用户列表")
+    @Parameters({
+            @Parameter(name = "statusQueryDto", description = "查询条件", required = true, in = ParameterIn.DEFAULT)
+    })
+    public List<String> deliveredUsers(@Valid @RequestBody MessageStatusQueryDto statusQueryDto) {
+        return messageService.deliveredUsers(statusQueryDto.getMessageId());
+    }
+
+    @PostMapping("/status/undelivered")
+    @Operation(summary = "查询未投递消息", description = "查询用户尚未投递成功的消息 ID，按消息序号从旧到新")
+    @Parameters({
+            @Parameter(name = "undeliveredQueryDto", description = "查询条件", required = true, in = ParameterIn.DEFAULT)
+    })
+    public List<String> undeliveredMessages(@Valid @RequestBody UndeliveredQueryDto undeliveredQueryDto) {
+        return messageService.undeliveredMessages(undeliveredQueryDto.getUserId(), undeliveredQueryDto.getLimit());
+    }
+
 
 }
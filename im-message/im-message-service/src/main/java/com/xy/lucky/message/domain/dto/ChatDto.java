@@ -2,6 +2,8 @@ package com.xy.lucky.message.domain.dto;
 
 import com.xy.lucky.message.domain.dto.validation.ValidationGroups;
 import io.swagger.v3.oas.annotations.media.Schema;
+import jakarta.validation.constraints.Max;
+import jakarta.validation.constraints.Min;
 import jakarta.validation.constraints.NotBlank;
 import jakarta.validation.constraints.NotNull;
 import jakarta.validation.constraints.Size;
@@ -52,4 +54,13 @@ public class ChatDto implements Serializable {
 
     @Schema(description = "消息序列号（用于增量查询）")
     private Long sequence;
+
+    @Schema(description = "续页令牌（首页不传）")
+    private String cursor;
+
+    @NotNull(message = "页大小不能为空", groups = {ValidationGroups.Page.class})
+    @Min(value = 1, message = "页大小不能小于1", groups = {ValidationGroups.Page.class})
+    @Max(value = 500, message = "页大小不能超过500", groups = {ValidationGroups.Page.class})
+    @Schema(description = "页大小")
+    private Integer pageSize;
 }
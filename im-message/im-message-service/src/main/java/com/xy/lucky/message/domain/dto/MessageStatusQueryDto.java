@@ -0,0 +1,17 @@
+package com.xy.lucky.message.domain.dto;
+
+import jakarta.validation.constraints.NotBlank;
+import lombok.Data;
+
+/**
+ * 消息状态查询请求（已读/已投递用户列表）。
+ */
+@Data
+public class MessageStatusQueryDto {
+
+    /**
+     * 消息 ID。
+     */
+    @NotBlank(message = "messageId 不能为空")
+    private String messageId;
+}
@@ -0,0 +1,26 @@
+package com.xy.lucky.message.domain.dto;
+
+import jakarta.validation.constraints.Max;
+import jakarta.validation.constraints.Min;
+import jakarta.validation.constraints.NotBlank;
+import lombok.Data;
+
+/**
+ * 未投递消息查询请求。
+ */
+@Data
+public class UndeliveredQueryDto {
+
+    /**
+     * 用户 ID。
+     */
+    @NotBlank(message = "userId 不能为空")
+    private String userId;
+
+    /**
+     * 最大返回数量，未传时取默认值。
+     */
+    @Min(value = 1, message = "limit 不能小于1")
+    @Max(value = 500, message = "limit 不能超过500")
+    private Integer limit;
+}
@@ -1,6 +1,7 @@
 package com.xy.lucky.message.message;
 
 import com.xy.lucky.core.constants.IMConstant;
+import com.xy.lucky.core.model.IMConnectNodeStats;
 import com.xy.lucky.core.model.IMRegisterUser;
 import com.xy.lucky.core.model.IMessageWrap;
 import com.xy.lucky.message.message.dispatch.LightweightTimeWheel;
@@ -23,14 +24,13 @@ import org.springframework.amqp.core.ReturnedMessage;
 import org.springframework.amqp.rabbit.connection.CorrelationData;
 import org.springframework.amqp.rabbit.core.RabbitTemplate;
 import org.springframework.beans.factory.annotation.Value;
-import org.springframework.data.redis.core.Cursor;
 import org.springframework.data.redis.core.RedisCallback;
 import org.springframework.data.redis.core.RedisTemplate;
-import org.springframework.data.redis.core.ScanOptions;
 import org.springframework.stereotype.Component;
 import org.springframework.util.CollectionUtils;
 import org.springframework.util.StringUtils;
 
+import java.nio.charset.StandardCharsets;
 import java.util.*;
 import java.util.concurrent.*;
 
@@ -56,7 +56,7 @@ public class DefaultMessageLifecycleOrchestrator implements MessageLifecycleOrch
     private final RedisTemplate<String, Object> redisTemplate;
     private BlockingQueue<MessageDispatchTask> dispatchQueue;
     private final Map<String, MessageDispatchTask> pendingTaskMap = new ConcurrentHashMap<>();
-    private final Map<String, Long> pendingTaskStartMap = new ConcurrentHashMap<>();
+    private final Map<String, LightweightTimeWheel.Timeout> pendingTimeoutMap = new ConcurrentHashMap<>();
 
     @Resource(name = "messagePushExecutor")
     private ExecutorService messagePushExecutor;
@@ -85,13 +85,12 @@ public class DefaultMessageLifecycleOrchestrator implements MessageLifecycleOrch
     @Value("${message.dispatch.confirm-timeout-ms:5000}")
     private long confirmTimeoutMs;
 
-    @Value("${message.dispatch.confirm-timeout-check-interval-ms:1000}")
-    private long confirmTimeoutCheckIntervalMs;
-
-    @Value("${message.dispatch.connection-count-refresh-interval-seconds:60}")
+    @Value("${message.dispatch.connection-count-refresh-interval-seconds:10}")
     private long connectionCountRefreshIntervalSeconds;
-    @Value("${message.dispatch.connection-count-scan-enabled:false}")
-    private boolean connectionCountScanEnabled;
+    @Value("${message.dispatch.connection-count-enabled:true}")
+    private boolean connectionCountEnabled;
+    @Value("${message.dispatch.connection-count-stale-ms:30000}")
+    private long connectionCountStaleMs;
 
     private RabbitTemplate rabbitTemplate;
     private LightweightTimeWheel retryTimeWheel;
@@ -107,17 +106,13 @@ public class DefaultMessageLifecycleOrchestrator implements MessageLifecycleOrch
         messageMetricsRecorder.bindDispatchQueue(dispatchQueue);
         retryTimeWheel = new LightweightTimeWheel(retryWheelTickMs, retryWheelSlots, scheduledExecutor, messagePushExecutor);
         retryTimeWheel.start();
-        if (connectionCountScanEnabled && connectionCountRefreshIntervalSeconds > 0) {
-            long refreshSeconds = Math.max(10L, connectionCountRefreshIntervalSeconds);
+        if (connectionCountEnabled && connectionCountRefreshIntervalSeconds > 0) {
+            long refreshSeconds = Math.max(1L, connectionCountRefreshIntervalSeconds);
             scheduledExecutor.scheduleWithFixedDelay(this::refreshConnectionCount, 0, refreshSeconds, TimeUnit.SECONDS);
         } else {
-            log.info("在线连接数 SCAN 统计已禁用: enabled={}, intervalSeconds={}",
-                    connectionCountScanEnabled, connectionCountRefreshIntervalSeconds);
+            log.info("在线连接数统计已禁用: enabled={}, intervalSeconds={}",
+                    connectionCountEnabled, connectionCountRefreshIntervalSeconds);
         }
-        scheduledExecutor.scheduleWithFixedDelay(this::checkPendingTimeoutTasks,
-                Math.max(500L, confirmTimeoutCheckIntervalMs),
-                Math.max(500L, confirmTimeoutCheckIntervalMs),
-                TimeUnit.MILLISECONDS);
         int size = Math.max(1, workerSize);
         for (int i = 0; i < size; i++) {
             messagePushExecutor.execute(this::dispatchLoop);
@@ -155,11 +150,13 @@ public class DefaultMessageLifecycleOrchestrator implements MessageLifecycleOrch
         }
         messageStatusService.markPending(messageId, deduplicatedUserIds);
         RoutingPlan plan = resolveRoutingPlan(deduplicatedUserIds);
+        List<MessageDispatchTask> tasks = new ArrayList<>(plan.onlineBrokerUsers.size());
         for (Map.Entry<String, List<String>> entry : plan.onlineBrokerUsers.entrySet()) {
-            enqueueOnlineDispatch(messageType, payload, messageId, entry.getKey(), entry.getValue());
+            tasks.add(createOnlineDispatchTask(messageType, payload, messageId, entry.getKey(), entry.getValue()));
         }
-        for (String offlineUserId : plan.offlineUsers) {
-            storeOfflineMessage(offlineUserId, messageId, messageType, buildPayload(messageType, payload, List.of(offlineUserId)));
+        submitDispatchTasks(tasks);
+        if (!plan.offlineUsers.isEmpty()) {
+            storeOfflineMessage(plan.offlineUsers, messageId, messageType, buildPayload(messageType, payload, Collections.emptyList()));
         }
     }
 
@@ -199,8 +196,21 @@ public class DefaultMessageLifecycleOrchestrator implements MessageLifecycleOrch
             return;
         }
         List<OfflineMessageRecord> records = offlineMessageService.pull(userId, OFFLINE_REPLAY_BATCH_SIZE);
-        for (OfflineMessageRecord record : records) {
-            enqueueDispatch(record.messageId(), onlineUser.getBrokerId(), List.of(userId), record.payload(), 0, System.currentTimeMillis());
+        if (records.isEmpty()) {
+            return;
+        }
+        try {
+            List<MessageDispatchTask> tasks = new ArrayList<>(records.size());
+            for (OfflineMessageRecord record : records) {
+                String payload = bindPayloadTarget(record.payload(), userId);
+                tasks.add(createDispatchTask(record.messageId(), onlineUser.getBrokerId(), List.of(userId), payload, 0, System.currentTimeMillis()));
+            }
+            submitDispatchTasks(tasks);
+        } catch (RuntimeException e) {
+            // 离线记录已被拉取移除，Outbox 未落库时整批放回，等待下次上线重放
+            log.warn("离线消息补发失败，已放回离线队列: userId={}, size={}", userId, records.size(), e);
+            offlineMessageService.restore(userId, records);
+            throw e;
         }
     }
 
@@ -223,13 +233,13 @@ public class DefaultMessageLifecycleOrchestrator implements MessageLifecycleOrch
 
     private void send(MessageDispatchTask task) {
         pendingTaskMap.put(task.correlationId(), task);
-        pendingTaskStartMap.put(task.correlationId(), System.currentTimeMillis());
+        trackConfirmDeadline(task.correlationId());
         try {
             rabbitTemplate.convertAndSend(IMConstant.MQ_EXCHANGE_NAME, task.brokerId(), task.payload(),
                     new CorrelationData(task.correlationId()));
         } catch (Exception e) {
             pendingTaskMap.remove(task.correlationId());
-            pendingTaskStartMap.remove(task.correlationId());
+            cancelConfirmDeadline(task.correlationId());
             scheduleRetry(task, e.getMessage());
         }
     }
@@ -240,7 +250,7 @@ public class DefaultMessageLifecycleOrchestrator implements MessageLifecycleOrch
             return;
         }
         MessageDispatchTask task = pendingTaskMap.remove(correlationId);
-        pendingTaskStartMap.remove(correlationId);
+        cancelConfirmDeadline(correlationId);
         if (task == null) {
             return;
         }
@@ -265,7 +275,7 @@ public class DefaultMessageLifecycleOrchestrator implements MessageLifecycleOrch
             return;
         }
         MessageDispatchTask task = pendingTaskMap.remove(correlationId);
-        pendingTaskStartMap.remove(correlationId);
+        cancelConfirmDeadline(correlationId);
         if (task == null) {
             return;
         }
@@ -334,24 +344,24 @@ public class DefaultMessageLifecycleOrchestrator implements MessageLifecycleOrch
     }
 
     /**
-     * 在线用户分发入口：负责组装 payload 并入队。
+     * 在线用户分发入口：负责组装 payload 并生成分发任务。
      */
-    private void enqueueOnlineDispatch(Integer messageType, Object payload, String messageId, String brokerId, List<String> userIds) {
+    private MessageDispatchTask createOnlineDispatchTask(Integer messageType, Object payload, String messageId, String brokerId, List<String> userIds) {
         String payloadJson = buildPayload(messageType, payload, userIds);
-        enqueueDispatch(messageId, brokerId, userIds, payloadJson, 0, System.currentTimeMillis());
+        return createDispatchTask(messageId, brokerId, userIds, payloadJson, 0, System.currentTimeMillis());
     }
 
     /**
      * 统一创建 Outbox 记录并生成分发任务，避免 dispatch/replay 逻辑重复。
      */
-    private void enqueueDispatch(String messageId, String brokerId, List<String> userIds, String payload, int attempt, long firstEnqueueAt) {
+    private MessageDispatchTask createDispatchTask(String messageId, String brokerId, List<String> userIds, String payload, int attempt, long firstEnqueueAt) {
         Long outboxId = outboxRecordService.createPending(
                 messageId,
                 payload,
                 IMConstant.MQ_EXCHANGE_NAME,
                 brokerId
         );
-        MessageDispatchTask task = MessageDispatchTask.builder()
+        return MessageDispatchTask.builder()
                 .correlationId(buildCorrelationId(messageId, brokerId))
                 .messageId(messageId)
                 .outboxId(outboxId)
@@ -361,15 +371,28 @@ public class DefaultMessageLifecycleOrchestrator implements MessageLifecycleOrch
                 .attempt(attempt)
                 .firstEnqueueAt(firstEnqueueAt)
                 .build();
-        offerDispatch(task);
-        messageMetricsRecorder.onDispatchCreated();
     }
 
     /**
-     * 将离线用户消息落库到 Redis，供后续上线补发。
+     * 按 Outbox 写入模式确认记录落库后再统一入队，保证同一批分发的 Outbox 记录合并为一次批量写入；
+     * 记录写入失败时抛出异常，整批放弃分发。
+     */
+    private void submitDispatchTasks(List<MessageDispatchTask> tasks) {
+        if (tasks.isEmpty()) {
+            return;
+        }
+        outboxRecordService.awaitDurable(tasks.stream().map(MessageDispatchTask::outboxId).toList());
+        for (MessageDispatchTask task : tasks) {
+            offerDispatch(task);
+            messageMetricsRecorder.onDispatchCreated();
+        }
+    }
+
+    /**
+     * 将离线用户消息批量存储，多个用户共享同一份载荷，供后续上线补发。
      */
-    private void storeOfflineMessage(String userId, String messageId, Integer messageType, String payload) {
-        offlineMessageService.store(userId, OfflineMessageRecord.builder()
+    private void storeOfflineMessage(List<String> userIds, String messageId, Integer messageType, String payload) {
+        offlineMessageService.storeBatch(userIds, OfflineMessageRecord.builder()
                 .messageId(messageId)
                 .messageType(messageType)
                 .payload(payload)
@@ -377,12 +400,22 @@ public class DefaultMessageLifecycleOrchestrator implements MessageLifecycleOrch
     }
 
     /**
-     * 在重试耗尽后，按用户维度降级为离线消息存储。
+     * 在重试耗尽后，降级为离线消息批量存储。
      */
     private void storeOfflinePayloadForUsers(List<String> userIds, String messageId, String payload) {
-        for (String userId : userIds) {
-            storeOfflineMessage(userId, messageId, null, payload);
+        storeOfflineMessage(userIds, messageId, null, payload);
+    }
+
+    /**
+     * 离线载荷为多个用户共享，补发前将接收人改写为当前用户，避免 connect 节点向载荷中其他用户重复推送。
+     */
+    private String bindPayloadTarget(String payload, String userId) {
+        IMessageWrap<?> wrapper = JacksonUtils.parseObject(payload, IMessageWrap.class);
+        if (wrapper == null) {
+            return payload;
         }
+        wrapper.setIds(List.of(userId));
+        return JacksonUtils.toJSONString(wrapper);
     }
 
     private IMRegisterUser getOnlineUser(String userId) {
@@ -400,60 +433,83 @@ public class DefaultMessageLifecycleOrchestrator implements MessageLifecycleOrch
         return messageId + ":" + brokerId + ":" + IdUtils.snowflakeIdStr();
     }
 
-    private void refreshConnectionCount() {
-        int count = countOnlineConnectionsByScan();
-        messageMetricsRecorder.setOnlineConnectionCount(count);
+    /**
+     * 汇总各连接节点上报的统计，结果缓存在连接数指标中，直到下一次刷新。
+     */
+    void refreshConnectionCount() {
+        try {
+            messageMetricsRecorder.setOnlineConnectionCount(aggregateConnectionCount(System.currentTimeMillis()));
+        } catch (Exception e) {
+            log.warn("汇总在线连接数失败", e);
+        }
     }
 
-    private int countOnlineConnectionsByScan() {
-        String pattern = IMConstant.USER_CACHE_PREFIX + "*";
+    /**
+     * 一次 HGETALL 读取全部节点统计并求和；超过存活阈值未上报的节点视为已下线，顺带删除其字段。
+     * 直接读写原始字节，避免与 RedisTemplate 的 Jackson 类型化序列化冲突。
+     */
+    int aggregateConnectionCount(long now) {
+        byte[] key = IMConstant.CONNECT_NODE_STATS_KEY.getBytes(StandardCharsets.UTF_8);
         Integer count = redisTemplate.execute((RedisCallback<Integer>) connection -> {
+            Map<byte[], byte[]> entries = connection.hashCommands().hGetAll(key);
+            if (CollectionUtils.isEmpty(entries)) {
+                return 0;
+            }
             int total = 0;
-            ScanOptions options = ScanOptions.scanOptions()
-                    .match(pattern)
-                    .count(1000)
-                    .build();
-            try (Cursor<byte[]> cursor = connection.keyCommands().scan(options)) {
-                while (cursor.hasNext()) {
-                    cursor.next();
-                    total++;
+            List<byte[]> staleFields = new ArrayList<>();
+            for (Map.Entry<byte[], byte[]> entry : entries.entrySet()) {
+                String brokerId = new String(entry.getKey(), StandardCharsets.UTF_8);
+                IMConnectNodeStats stats = entry.getValue() == null ? null
+                        : IMConnectNodeStats.decode(brokerId, new String(entry.getValue(), StandardCharsets.UTF_8));
+                if (stats == null || now - stats.getReportedAt() > connectionCountStaleMs) {
+                    staleFields.add(entry.getKey());
+                    continue;
                 }
-            } catch (Exception e) {
-                log.warn("统计在线连接数失败", e);
+                total += Math.max(0, stats.getConnections());
+            }
+            if (!staleFields.isEmpty()) {
+                connection.hashCommands().hDel(key, staleFields.toArray(new byte[0][]));
             }
             return total;
         });
         return count == null ? 0 : Math.max(0, count);
     }
 
-    private void checkPendingTimeoutTasks() {
-        if (pendingTaskStartMap.isEmpty()) {
+    /**
+     * 在时间轮中登记 Broker 确认截止时间，到期时只触达真正超时的任务，替代对全部在途任务的周期扫描。
+     */
+    private void trackConfirmDeadline(String correlationId) {
+        long timeoutMs = Math.max(1000L, confirmTimeoutMs);
+        if (retryTimeWheel == null) {
+            scheduledExecutor.schedule(() -> onConfirmTimeout(correlationId), timeoutMs, TimeUnit.MILLISECONDS);
             return;
         }
-        long now = System.currentTimeMillis();
-        long timeoutMs = Math.max(1000L, confirmTimeoutMs);
-        List<String> timeoutCorrelationIds = new ArrayList<>();
-        for (Map.Entry<String, Long> entry : pendingTaskStartMap.entrySet()) {
-            Long start = entry.getValue();
-            if (start == null || now - start < timeoutMs) {
-                continue;
-            }
-            String correlationId = entry.getKey();
-            if (!StringUtils.hasText(correlationId)) {
-                continue;
+        try {
+            LightweightTimeWheel.Timeout timeout = retryTimeWheel.schedule(() -> onConfirmTimeout(correlationId), timeoutMs);
+            if (timeout != null) {
+                pendingTimeoutMap.put(correlationId, timeout);
             }
-            timeoutCorrelationIds.add(correlationId);
+        } catch (Exception e) {
+            log.warn("时间轮登记确认超时失败，回退线程池调度: correlationId={}", correlationId, e);
+            scheduledExecutor.schedule(() -> onConfirmTimeout(correlationId), timeoutMs, TimeUnit.MILLISECONDS);
         }
-        if (timeoutCorrelationIds.isEmpty()) {
-            return;
+    }
+
+    /**
+     * 收到确认或发送失败时取消截止时间，已取消的条目在到期槽位中被直接丢弃。
+     */
+    private void cancelConfirmDeadline(String correlationId) {
+        LightweightTimeWheel.Timeout timeout = pendingTimeoutMap.remove(correlationId);
+        if (timeout != null) {
+            timeout.cancel();
         }
-        // ConcurrentHashMap 的迭代器不支持 remove，这里采用二段式收集+删除，避免调度线程异常退出。
-        for (String correlationId : timeoutCorrelationIds) {
-            MessageDispatchTask task = pendingTaskMap.remove(correlationId);
-            pendingTaskStartMap.remove(correlationId);
-            if (task != null) {
-                scheduleRetry(task, "broker confirm timeout");
-            }
+    }
+
+    private void onConfirmTimeout(String correlationId) {
+        pendingTimeoutMap.remove(correlationId);
+        MessageDispatchTask task = pendingTaskMap.remove(correlationId);
+        if (task != null) {
+            scheduleRetry(task, "broker confirm timeout");
         }
     }
 
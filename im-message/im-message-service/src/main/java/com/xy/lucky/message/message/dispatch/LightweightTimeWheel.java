@@ -26,7 +26,7 @@ public class LightweightTimeWheel {
     private final int wheelSize;
     private final ScheduledExecutorService scheduler;
     private final Executor taskExecutor;
-    private final List<ConcurrentLinkedQueue<TimeoutTask>> buckets;
+    private final List<ConcurrentLinkedQueue<Timeout>> buckets;
     private final AtomicLong currentTick = new AtomicLong(0);
     private final AtomicBoolean started = new AtomicBoolean(false);
     private volatile ScheduledFuture<?> tickerFuture;
@@ -78,7 +78,7 @@ public class LightweightTimeWheel {
         if (future != null) {
             future.cancel(false);
         }
-        for (ConcurrentLinkedQueue<TimeoutTask> bucket : buckets) {
+        for (ConcurrentLinkedQueue<Timeout> bucket : buckets) {
             bucket.clear();
         }
         log.info("时间轮已停止");
@@ -89,13 +89,14 @@ public class LightweightTimeWheel {
      *
      * @param task    待执行任务
      * @param delayMs 延迟毫秒
+     * @return 任务句柄，可用于到期前取消；task 为空时返回 null
      */
-    public void schedule(Runnable task, long delayMs) {
+    public Timeout schedule(Runnable task, long delayMs) {
         if (!started.get()) {
             throw new IllegalStateException("time wheel not started");
         }
         if (task == null) {
-            return;
+            return null;
         }
         long safeDelay = Math.max(0, delayMs);
         long ticks = Math.max(1, (safeDelay + tickMs - 1) / tickMs);
@@ -103,20 +104,31 @@ public class LightweightTimeWheel {
         long baseTick = currentTick.get();
         long targetTick = baseTick + ticks;
         int slot = (int) (targetTick % wheelSize);
-        buckets.get(slot).offer(new TimeoutTask(task, rounds));
+        Timeout timeout = new Timeout(task, rounds);
+        buckets.get(slot).offer(timeout);
+        return timeout;
     }
 
     private void onTick() {
+        advance();
+    }
+
+    /**
+     * 前进一个 tick，只处理当前槽位内的任务。
+     *
+     * @return 本次 tick 触达的任务数（含已取消与尚未到轮次的任务）
+     */
+    int advance() {
         if (!started.get()) {
-            return;
+            return 0;
         }
         long tick = currentTick.incrementAndGet();
         int slot = (int) (tick % wheelSize);
-        ConcurrentLinkedQueue<TimeoutTask> bucket = buckets.get(slot);
+        ConcurrentLinkedQueue<Timeout> bucket = buckets.get(slot);
         int size = bucket.size();
         for (int i = 0; i < size; i++) {
-            TimeoutTask timeoutTask = bucket.poll();
-            if (timeoutTask == null) {
+            Timeout timeoutTask = bucket.poll();
+            if (timeoutTask == null || timeoutTask.cancelled) {
                 continue;
             }
             if (timeoutTask.rounds > 0) {
@@ -126,6 +138,7 @@ public class LightweightTimeWheel {
             }
             taskExecutor.execute(() -> runSafely(timeoutTask.task));
         }
+        return size;
     }
 
     private void runSafely(Runnable task) {
@@ -136,13 +149,28 @@ public class LightweightTimeWheel {
         }
     }
 
-    private static class TimeoutTask {
+    /**
+     * 时间轮任务句柄。取消只打标记，由到期槽位在 tick 时直接丢弃，不会再提交到任务执行器。
+     */
+    public static final class Timeout {
         private final Runnable task;
         private long rounds;
+        private volatile boolean cancelled;
 
-        private TimeoutTask(Runnable task, long rounds) {
+        private Timeout(Runnable task, long rounds) {
             this.task = task;
             this.rounds = rounds;
         }
+
+        /**
+         * 取消尚未执行的任务。
+         */
+        public void cancel() {
+            cancelled = true;
+        }
+
+        public boolean isCancelled() {
+            return cancelled;
+        }
     }
 }
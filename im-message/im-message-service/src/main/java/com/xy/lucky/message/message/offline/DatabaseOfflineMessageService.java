@@ -25,6 +25,7 @@ public class DatabaseOfflineMessageService implements OfflineMessageService {
 
     private static final int MAX_PULL_LIMIT = 500;
     private static final Duration OFFLINE_TTL = Duration.ofDays(7);
+    private static final int STORE_BATCH_SIZE = 500;
 
     @DubboReference
     private IMOfflineMessageDubboService offlineMessageDubboService;
@@ -56,6 +57,42 @@ public class DatabaseOfflineMessageService implements OfflineMessageService {
         }
     }
 
+    /**
+     * 同一消息的多用户离线记录按批次一次 RPC 批量入库，失败批次降级到 Redis 批量存储。
+     */
+    @Override
+    public void storeBatch(List<String> userIds, OfflineMessageRecord record) {
+        if (CollectionUtils.isEmpty(userIds) || record == null || !StringUtils.hasText(record.messageId()) || !StringUtils.hasText(record.payload())) {
+            return;
+        }
+        long now = DateTimeUtils.getCurrentUTCTimestamp();
+        List<String> validUserIds = userIds.stream().filter(StringUtils::hasText).distinct().toList();
+        for (int i = 0; i < validUserIds.size(); i += STORE_BATCH_SIZE) {
+            List<String> chunk = validUserIds.subList(i, Math.min(validUserIds.size(), i + STORE_BATCH_SIZE));
+            List<IMOfflineMessagePo> list = new ArrayList<>(chunk.size());
+            for (String userId : chunk) {
+                list.add(new IMOfflineMessagePo()
+                        .setId(IdUtils.snowflakeId())
+                        .setUserId(userId)
+                        .setMessageId(record.messageId())
+                        .setMessageType(record.messageType())
+                        .setPayload(record.payload())
+                        .setCreatedAt(now)
+                        .setExpireAt(now + OFFLINE_TTL.toMillis()));
+            }
+            try {
+                Boolean created = offlineMessageDubboService.createBatch(list);
+                if (!Boolean.TRUE.equals(created)) {
+                    log.warn("离线消息批量入库返回失败: messageId={}, size={}", record.messageId(), chunk.size());
+                    redisOfflineMessageService.storeBatch(new ArrayList<>(chunk), record);
+                }
+            } catch (Exception e) {
+                log.error("离线消息批量入库失败: messageId={}, size={}", record.messageId(), chunk.size(), e);
+                redisOfflineMessageService.storeBatch(new ArrayList<>(chunk), record);
+            }
+        }
+    }
+
     @Override
     public List<OfflineMessageRecord> pull(String userId, int max) {
         if (!StringUtils.hasText(userId) || max <= 0) {
@@ -93,4 +130,36 @@ public class DatabaseOfflineMessageService implements OfflineMessageService {
         }
         return result;
     }
+
+    /**
+     * 放回的记录重新入库，创建时间按原顺序递增；入库失败时降级放回 Redis。
+     */
+    @Override
+    public void restore(String userId, List<OfflineMessageRecord> records) {
+        if (!StringUtils.hasText(userId) || CollectionUtils.isEmpty(records)) {
+            return;
+        }
+        long now = DateTimeUtils.getCurrentUTCTimestamp();
+        List<IMOfflineMessagePo> list = new ArrayList<>(records.size());
+        for (int i = 0; i < records.size(); i++) {
+            OfflineMessageRecord record = records.get(i);
+            list.add(new IMOfflineMessagePo()
+                    .setId(IdUtils.snowflakeId())
+                    .setUserId(userId)
+                    .setMessageId(record.messageId())
+                    .setMessageType(record.messageType())
+                    .setPayload(record.payload())
+                    .setCreatedAt(now - records.size() + i)
+                    .setExpireAt(now + OFFLINE_TTL.toMillis()));
+        }
+        try {
+            if (Boolean.TRUE.equals(offlineMessageDubboService.createBatch(list))) {
+                return;
+            }
+            log.warn("离线消息放回入库返回失败: userId={}, size={}", userId, records.size());
+        } catch (Exception e) {
+            log.error("离线消息放回入库失败: userId={}, size={}", userId, records.size(), e);
+        }
+        redisOfflineMessageService.restore(userId, records);
+    }
 }
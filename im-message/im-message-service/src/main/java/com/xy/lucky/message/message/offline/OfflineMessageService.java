@@ -15,6 +15,14 @@ public interface OfflineMessageService {
      */
     void store(String userId, OfflineMessageRecord record);
 
+    /**
+     * 将同一条离线消息批量存储给多个用户，实现方应合并为批量写入而非逐用户往返。
+     *
+     * @param userIds 用户 ID 列表
+     * @param record  离线消息记录（多个用户共享）
+     */
+    void storeBatch(List<String> userIds, OfflineMessageRecord record);
+
     /**
      * 拉取并移除离线消息。
      *
@@ -23,4 +31,12 @@ public interface OfflineMessageService {
      * @return 离线消息列表
      */
     List<OfflineMessageRecord> pull(String userId, int max);
+
+    /**
+     * 将已拉取但未能补发的离线消息放回用户队列，放回后再次拉取的顺序与原先一致。
+     *
+     * @param userId  用户 ID
+     * @param records 由 {@link #pull(String, int)} 返回的离线消息，保持原顺序
+     */
+    void restore(String userId, List<OfflineMessageRecord> records);
 }
@@ -2,11 +2,16 @@ package com.xy.lucky.message.message.offline;
 
 import com.xy.lucky.utils.json.JacksonUtils;
 import lombok.RequiredArgsConstructor;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.data.redis.core.RedisCallback;
 import org.springframework.data.redis.core.RedisTemplate;
 import org.springframework.data.redis.core.script.DefaultRedisScript;
+import org.springframework.data.redis.serializer.RedisSerializer;
 import org.springframework.stereotype.Service;
+import org.springframework.util.CollectionUtils;
 import org.springframework.util.StringUtils;
 
+import java.nio.charset.StandardCharsets;
 import java.time.Duration;
 import java.util.ArrayList;
 import java.util.Collections;
@@ -14,14 +19,24 @@ import java.util.List;
 
 /**
  * 基于 Redis List 的离线消息实现，按用户维度存储并在补发时弹出。
+ * <p>
+ * 消息体只在 {@code im:offline:payload:{messageId}} 下存一份，用户列表仅保存消息 ID，
+ * 大群离线存储按批流水线写入，以 LTRIM 限制单用户积压长度。
+ * 每条命令与脚本只访问单个 key，集群模式下不会出现跨槽位访问。
+ * </p>
  */
 @Service
 @RequiredArgsConstructor
 public class RedisOfflineMessageService implements OfflineMessageService {
 
     private static final String OFFLINE_KEY_PREFIX = "im:offline:message:";
+    private static final String OFFLINE_PAYLOAD_KEY_PREFIX = "im:offline:payload:";
     private static final Duration OFFLINE_TTL = Duration.ofDays(1);
     private static final int MAX_PULL_LIMIT = 500;
+    private static final int STORE_BATCH_SIZE = 500;
+    /**
+     * 从单个用户列表尾部弹出最多 ARGV[1] 条消息 ID，只访问 KEYS[1]
+     */
     private static final DefaultRedisScript<List> BATCH_POP_SCRIPT = new DefaultRedisScript<>(
             "local key = KEYS[1]\n"
                     + "local cnt = tonumber(ARGV[1])\n"
@@ -44,6 +59,9 @@ public class RedisOfflineMessageService implements OfflineMessageService {
 
     private final RedisTemplate<String, Object> redisTemplate;
 
+    @Value("${message.offline.max-per-user:1000}")
+    private int maxPerUser;
+
     /**
      * 将离线消息写入用户对应的 Redis List，并刷新过期时间。
      *
@@ -52,12 +70,48 @@ public class RedisOfflineMessageService implements OfflineMessageService {
      */
     @Override
     public void store(String userId, OfflineMessageRecord record) {
-        if (!StringUtils.hasText(userId) || record == null) {
+        if (!StringUtils.hasText(userId)) {
             return;
         }
-        String key = buildKey(userId);
-        redisTemplate.opsForList().leftPush(key, JacksonUtils.toJSONString(record));
-        redisTemplate.expire(key, OFFLINE_TTL);
+        storeBatch(List.of(userId), record);
+    }
+
+    /**
+     * 消息体写入一次，消息 ID 推入每个用户列表；超大用户列表按批拆分为多次流水线，避免单批占用连接过久。
+     *
+     * @param userIds 用户 ID 列表
+     * @param record  离线消息记录
+     */
+    @Override
+    public void storeBatch(List<String> userIds, OfflineMessageRecord record) {
+        if (CollectionUtils.isEmpty(userIds) || record == null || !StringUtils.hasText(record.messageId())) {
+            return;
+        }
+        List<String> targets = userIds.stream().filter(StringUtils::hasText).toList();
+        if (targets.isEmpty()) {
+            return;
+        }
+        byte[] payloadKey = bytes(buildPayloadKey(record.messageId()));
+        byte[] payload = bytes(JacksonUtils.toJSONString(record));
+        byte[] messageId = bytes(record.messageId());
+        long ttlSeconds = OFFLINE_TTL.toSeconds();
+        long maxLen = Math.max(1, maxPerUser);
+        for (int from = 0; from < targets.size(); from += STORE_BATCH_SIZE) {
+            List<String> batch = targets.subList(from, Math.min(from + STORE_BATCH_SIZE, targets.size()));
+            boolean first = from == 0;
+            redisTemplate.executePipelined((RedisCallback<Object>) connection -> {
+                if (first) {
+                    connection.stringCommands().setEx(payloadKey, ttlSeconds, payload);
+                }
+                for (String userId : batch) {
+                    byte[] key = bytes(buildKey(userId));
+                    connection.listCommands().lPush(key, messageId);
+                    connection.listCommands().lTrim(key, 0, maxLen - 1);
+                    connection.keyCommands().expire(key, ttlSeconds);
+                }
+                return null;
+            });
+        }
     }
 
     /**
@@ -75,27 +129,99 @@ public class RedisOfflineMessageService implements OfflineMessageService {
         }
         int pullLimit = Math.min(MAX_PULL_LIMIT, max);
         String key = buildKey(userId);
-        List<?> values = redisTemplate.execute(BATCH_POP_SCRIPT, Collections.singletonList(key), String.valueOf(pullLimit));
+        List<?> values = redisTemplate.execute(BATCH_POP_SCRIPT, RedisSerializer.string(), RedisSerializer.string(),
+                Collections.singletonList(key), String.valueOf(pullLimit));
         if (values == null || values.isEmpty()) {
             return records;
         }
+        // 旧版本按用户存储的整条 JSON 记录直接解析，其余按消息 ID 逐个读取消息体
+        List<String> messageIds = new ArrayList<>(values.size());
+        for (Object value : values) {
+            if (isMessageId(value)) {
+                messageIds.add((String) value);
+            }
+        }
+        List<Object> payloads = messageIds.isEmpty() ? Collections.emptyList()
+                : redisTemplate.executePipelined((RedisCallback<Object>) connection -> {
+            for (String messageId : messageIds) {
+                connection.stringCommands().get(bytes(buildPayloadKey(messageId)));
+            }
+            return null;
+        }, RedisSerializer.string());
+        int next = 0;
         for (Object value : values) {
-            addIfValidRecord(records, value);
+            if (isMessageId(value)) {
+                addIfValidRecord(records, next < payloads.size() ? payloads.get(next) : null);
+                next++;
+            } else {
+                addIfValidRecord(records, value);
+            }
         }
         return records;
     }
 
+    /**
+     * 拉取从列表尾部取走 [startIdx, size - 1]，按原顺序 RPUSH 回尾部即可还原；消息体一并重写，防止期间过期。
+     *
+     * @param userId  用户 ID
+     * @param records 由 pull 返回的离线消息
+     */
+    @Override
+    public void restore(String userId, List<OfflineMessageRecord> records) {
+        if (!StringUtils.hasText(userId) || CollectionUtils.isEmpty(records)) {
+            return;
+        }
+        byte[] key = bytes(buildKey(userId));
+        long ttlSeconds = OFFLINE_TTL.toSeconds();
+        redisTemplate.executePipelined((RedisCallback<Object>) connection -> {
+            for (OfflineMessageRecord record : records) {
+                if (record == null || !StringUtils.hasText(record.messageId())) {
+                    continue;
+                }
+                connection.stringCommands().setEx(bytes(buildPayloadKey(record.messageId())), ttlSeconds,
+                        bytes(JacksonUtils.toJSONString(record)));
+                connection.listCommands().rPush(key, bytes(record.messageId()));
+            }
+            connection.keyCommands().expire(key, ttlSeconds);
+            return null;
+        });
+    }
+
     /**
      * 仅在反序列化成功时写入结果，避免脏数据中断补发链路。
+     * <p>
+     * 消息体已过期时读到 null，直接跳过；旧版本按用户存储的整条 JSON 记录仍可兼容解析。
+     * </p>
      */
     private void addIfValidRecord(List<OfflineMessageRecord> records, Object value) {
-        OfflineMessageRecord record = JacksonUtils.parseObject(value, OfflineMessageRecord.class);
+        if (!(value instanceof String text) || text.isEmpty()) {
+            return;
+        }
+        if (text.charAt(0) == '"') {
+            text = JacksonUtils.parseObject(text, String.class);
+        }
+        if (text == null || text.isEmpty() || text.charAt(0) != '{') {
+            return;
+        }
+        OfflineMessageRecord record = JacksonUtils.parseObject(text, OfflineMessageRecord.class);
         if (record != null) {
             records.add(record);
         }
     }
 
+    private static boolean isMessageId(Object value) {
+        return value instanceof String text && !text.isEmpty() && text.charAt(0) != '{' && text.charAt(0) != '"';
+    }
+
     private String buildKey(String userId) {
         return OFFLINE_KEY_PREFIX + userId;
     }
+
+    private String buildPayloadKey(String messageId) {
+        return OFFLINE_PAYLOAD_KEY_PREFIX + messageId;
+    }
+
+    private static byte[] bytes(String value) {
+        return value.getBytes(StandardCharsets.UTF_8);
+    }
 }
@@ -0,0 +1,287 @@
+package com.xy.lucky.message.message.outbox;
+
+import com.xy.lucky.domain.po.IMOutboxPo;
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+import jakarta.annotation.Resource;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.context.annotation.Primary;
+import org.springframework.stereotype.Service;
+import org.springframework.util.StringUtils;
+
+import java.util.*;
+import java.util.concurrent.*;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.locks.ReentrantLock;
+
+/**
+ * 本地预暂存的 Outbox 写入器。
+ * <p>
+ * 待发送记录与状态流转先写入有界缓冲，再按批量大小或刷新周期合并为批量插入与带状态守卫的批量更新，
+ * 将每次分发一次 RPC、每次状态流转两次 RPC 的开销摊薄为每批一次。
+ * 持久化语义由 {@link OutboxWriteMode} 控制：SYNC 退化为逐条同步写入；FLUSH_BEFORE_ACK 在
+ * {@link #awaitDurable(Collection)} 时强制刷盘，指定记录写入失败则抛出异常；ASYNC 完全依赖周期刷新。
+ * 客户端确认始终同步更新，以便调用方根据更新结果回滚去重标记。
+ * </p>
+ */
+@Slf4j
+@Primary
+@Service
+@RequiredArgsConstructor
+public class BufferedOutboxRecordService implements OutboxRecordService {
+
+    private final DubboOutboxRecordService delegate;
+    private final OutboxWriteProperties properties;
+    private final ReentrantLock flushLock = new ReentrantLock();
+    private final AtomicBoolean flushTriggered = new AtomicBoolean(false);
+    private BlockingQueue<IMOutboxPo> pendingBuffer;
+    private BlockingQueue<OutboxTransition> transitionBuffer;
+    /**
+     * FLUSH_BEFORE_ACK 模式下写入失败、尚未被 awaitDurable 取走的记录
+     */
+    private final Set<Long> failedPendingIds = ConcurrentHashMap.newKeySet();
+    private ScheduledFuture<?> flushFuture;
+
+    @Resource(name = "messagePushExecutor")
+    private ExecutorService messagePushExecutor;
+
+    @Resource(name = "scheduledExecutor")
+    private ScheduledExecutorService scheduledExecutor;
+
+    /**
+     * 非同步模式下初始化缓冲区并启动周期刷新。
+     */
+    @PostConstruct
+    public void init() {
+        if (isSync()) {
+            log.info("Outbox 写入模式: {}", properties.getMode());
+            return;
+        }
+        int capacity = Math.max(100, properties.getBufferCapacity());
+        pendingBuffer = new ArrayBlockingQueue<>(capacity);
+        transitionBuffer = new ArrayBlockingQueue<>(capacity);
+        long interval = Math.max(10L, properties.getFlushIntervalMs());
+        flushFuture = scheduledExecutor.scheduleWithFixedDelay(this::flushQuietly, interval, interval, TimeUnit.MILLISECONDS);
+        log.info("Outbox 写入模式: {}, bufferCapacity={}, batchSize={}, flushIntervalMs={}",
+                properties.getMode(), capacity, batchSize(), interval);
+    }
+
+    /**
+     * 停止周期刷新，并将剩余缓冲写入数据库。
+     */
+    @PreDestroy
+    public void destroy() {
+        if (flushFuture != null) {
+            flushFuture.cancel(false);
+        }
+        if (!isSync()) {
+            flushQuietly();
+        }
+    }
+
+    @Override
+    public Long createPending(String messageId, String payload, String exchange, String routingKey) {
+        if (isSync()) {
+            return delegate.createPending(messageId, payload, exchange, routingKey);
+        }
+        IMOutboxPo po = delegate.buildPending(messageId, payload, exchange, routingKey);
+        if (!offer(pendingBuffer, po)) {
+            delegate.createPendingBatch(List.of(po));
+        }
+        return po.getId();
+    }
+
+    @Override
+    public void markSent(Long outboxId, int attempts) {
+        transit(outboxId, OutboxEvent.BROKER_ACK, attempts, null, null);
+    }
+
+    @Override
+    public void markPendingForRetry(Long outboxId, int attempts, long nextTryAt, String reason) {
+        transit(outboxId, OutboxEvent.BROKER_NACK, attempts, nextTryAt, reason);
+    }
+
+    @Override
+    public void markDlx(Long outboxId, int attempts, String reason) {
+        transit(outboxId, OutboxEvent.RETRY_EXHAUSTED, attempts, null, reason);
+    }
+
+    /**
+     * 确认同步执行守卫更新，返回值反映真实更新结果。
+     * <p>
+     * 确认可能先于缓冲中的待发送记录或 SENT 流转落库：首次未命中且缓冲非空时先刷新一次再重试。
+     * </p>
+     */
+    @Override
+    public boolean markDeliveredByMessageId(String messageId) {
+        if (!StringUtils.hasText(messageId)) {
+            return false;
+        }
+        boolean updated = delegate.markDeliveredByMessageId(messageId);
+        if (updated || isSync() || (pendingBuffer.isEmpty() && transitionBuffer.isEmpty())) {
+            return updated;
+        }
+        flushQuietly();
+        return delegate.markDeliveredByMessageId(messageId);
+    }
+
+    @Override
+    public void awaitDurable(Collection<Long> outboxIds) {
+        if (properties.getMode() != OutboxWriteMode.FLUSH_BEFORE_ACK) {
+            return;
+        }
+        flush();
+        List<Long> failed = new ArrayList<>();
+        for (Long outboxId : outboxIds) {
+            if (outboxId != null && failedPendingIds.remove(outboxId)) {
+                failed.add(outboxId);
+            }
+        }
+        if (!failed.isEmpty()) {
+            throw new IllegalStateException("Outbox 记录写入失败: outboxIds=" + failed);
+        }
+    }
+
+    /**
+     * 将缓冲内容全部写入数据库。
+     * <p>
+     * 按 状态流转 → 待发送 的顺序取出，再按 待发送 → 状态流转 的顺序写入：
+     * 任一已取出的流转对应记录必然先于它入队，从而保证守卫更新执行时记录已存在。
+     * </p>
+     */
+    public void flush() {
+        if (isSync()) {
+            return;
+        }
+        flushLock.lock();
+        try {
+            List<OutboxTransition> transitions = new ArrayList<>();
+            transitionBuffer.drainTo(transitions);
+            List<IMOutboxPo> pending = new ArrayList<>();
+            pendingBuffer.drainTo(pending);
+
+            flushPending(pending);
+            flushTransitions(transitions);
+        } finally {
+            flushLock.unlock();
+        }
+    }
+
+    private void transit(Long outboxId, OutboxEvent event, int attempts, Long nextTryAt, String reason) {
+        if (outboxId == null) {
+            return;
+        }
+        IMOutboxPo update = delegate.buildTransition(outboxId, event, attempts, nextTryAt, reason);
+        if (isSync() || !offer(transitionBuffer, new OutboxTransition(event, update))) {
+            delegate.applyTransitions(event, List.of(update));
+        }
+    }
+
+    /**
+     * 写入缓冲；缓冲已满时先在调用线程同步刷新一次形成背压，仍失败则由调用方直接落库。
+     */
+    private <T> boolean offer(BlockingQueue<T> buffer, T item) {
+        if (!buffer.offer(item)) {
+            flushQuietly();
+            if (!buffer.offer(item)) {
+                return false;
+            }
+        }
+        if (buffer.size() >= batchSize()) {
+            triggerFlush();
+        }
+        return true;
+    }
+
+    private void triggerFlush() {
+        if (!flushTriggered.compareAndSet(false, true)) {
+            return;
+        }
+        try {
+            messagePushExecutor.execute(() -> {
+                try {
+                    flushQuietly();
+                } finally {
+                    flushTriggered.set(false);
+                }
+            });
+        } catch (RejectedExecutionException e) {
+            flushTriggered.set(false);
+        }
+    }
+
+    private void flushQuietly() {
+        try {
+            flush();
+        } catch (Exception e) {
+            log.error("Outbox 缓冲刷新异常", e);
+        }
+    }
+
+    private void flushPending(List<IMOutboxPo> pending) {
+        for (List<IMOutboxPo> chunk : partition(pending)) {
+            try {
+                delegate.createPendingBatch(chunk);
+            } catch (Exception e) {
+                log.warn("Outbox 批量写入失败，降级逐条写入: size={}", chunk.size(), e);
+                for (IMOutboxPo po : chunk) {
+                    try {
+                        delegate.createPendingBatch(List.of(po));
+                    } catch (Exception ex) {
+                        log.error("Outbox 写入失败: outboxId={}, messageId={}", po.getId(), po.getMessageId(), ex);
+                        if (properties.getMode() == OutboxWriteMode.FLUSH_BEFORE_ACK) {
+                            failedPendingIds.add(po.getId());
+                        }
+                    }
+                }
+            }
+        }
+    }
+
+    /**
+     * 同一记录的多次流转只保留最后一次（守卫条件取最后事件的来源状态），再按事件分组批量更新。
+     */
+    private void flushTransitions(List<OutboxTransition> transitions) {
+        if (transitions.isEmpty()) {
+            return;
+        }
+        Map<Long, OutboxTransition> latest = new LinkedHashMap<>();
+        for (OutboxTransition transition : transitions) {
+            latest.put(transition.update().getId(), transition);
+        }
+        Map<OutboxEvent, List<IMOutboxPo>> byEvent = new EnumMap<>(OutboxEvent.class);
+        for (OutboxTransition transition : latest.values()) {
+            byEvent.computeIfAbsent(transition.event(), ignored -> new ArrayList<>()).add(transition.update());
+        }
+        for (Map.Entry<OutboxEvent, List<IMOutboxPo>> entry : byEvent.entrySet()) {
+            for (List<IMOutboxPo> chunk : partition(entry.getValue())) {
+                try {
+                    delegate.applyTransitions(entry.getKey(), chunk);
+                } catch (Exception e) {
+                    log.error("Outbox 批量状态流转失败: event={}, size={}", entry.getKey(), chunk.size(), e);
+                }
+            }
+        }
+    }
+
+    private <T> List<List<T>> partition(List<T> list) {
+        int size = batchSize();
+        List<List<T>> chunks = new ArrayList<>((list.size() + size - 1) / size);
+        for (int i = 0; i < list.size(); i += size) {
+            chunks.add(new ArrayList<>(list.subList(i, Math.min(list.size(), i + size))));
+        }
+        return chunks;
+    }
+
+    private int batchSize() {
+        return Math.max(1, properties.getBatchSize());
+    }
+
+    private boolean isSync() {
+        return properties.getMode() == null || properties.getMode() == OutboxWriteMode.SYNC;
+    }
+
+    private record OutboxTransition(OutboxEvent event, IMOutboxPo update) {
+    }
+}
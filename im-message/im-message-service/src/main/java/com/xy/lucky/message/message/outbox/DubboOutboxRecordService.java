@@ -10,8 +10,15 @@ import org.apache.dubbo.config.annotation.DubboReference;
 import org.springframework.stereotype.Service;
 import org.springframework.util.StringUtils;
 
+import java.util.Collection;
+import java.util.List;
+
 /**
  * 基于 Dubbo 数据服务的 Outbox 记录实现，负责状态机驱动的状态更新。
+ * <p>
+ * 状态流转以 {@code UPDATE ... WHERE status IN (来源状态)} 的守卫方式下发，不再先查后写；
+ * 批量接口供 {@link BufferedOutboxRecordService} 合并刷新使用。
+ * </p>
  */
 @Slf4j
 @Service
@@ -34,21 +41,9 @@ public class DubboOutboxRecordService implements OutboxRecordService {
      */
     @Override
     public Long createPending(String messageId, String payload, String exchange, String routingKey) {
-        Long outboxId = IdUtils.snowflakeId();
-        long now = DateTimeUtils.getCurrentUTCTimestamp();
-        IMOutboxPo po = new IMOutboxPo()
-                .setId(outboxId)
-                .setMessageId(messageId)
-                .setPayload(payload)
-                .setExchange(exchange)
-                .setRoutingKey(routingKey)
-                .setAttempts(0)
-                .setStatus(stateMachine.transit(null, OutboxEvent.CREATE).value())
-                .setCreatedAt(now)
-                .setUpdatedAt(now)
-                .setNextTryAt(now);
+        IMOutboxPo po = buildPending(messageId, payload, exchange, routingKey);
         outboxDubboService.creat(po);
-        return outboxId;
+        return po.getId();
     }
 
     /**
@@ -59,7 +54,7 @@ public class DubboOutboxRecordService implements OutboxRecordService {
      */
     @Override
     public void markSent(Long outboxId, int attempts) {
-        updateById(outboxId, current -> stateMachine.transit(current, OutboxEvent.BROKER_ACK), attempts, null, null);
+        applyTransitions(OutboxEvent.BROKER_ACK, List.of(buildTransition(outboxId, OutboxEvent.BROKER_ACK, attempts, null, null)));
     }
 
     /**
@@ -72,7 +67,7 @@ public class DubboOutboxRecordService implements OutboxRecordService {
      */
     @Override
     public void markPendingForRetry(Long outboxId, int attempts, long nextTryAt, String reason) {
-        updateById(outboxId, current -> stateMachine.transit(current, OutboxEvent.BROKER_NACK), attempts, nextTryAt, reason);
+        applyTransitions(OutboxEvent.BROKER_NACK, List.of(buildTransition(outboxId, OutboxEvent.BROKER_NACK, attempts, nextTryAt, reason)));
     }
 
     /**
@@ -84,7 +79,7 @@ public class DubboOutboxRecordService implements OutboxRecordService {
      */
     @Override
     public void markDlx(Long outboxId, int attempts, String reason) {
-        updateById(outboxId, current -> stateMachine.transit(current, OutboxEvent.RETRY_EXHAUSTED), attempts, null, reason);
+        applyTransitions(OutboxEvent.RETRY_EXHAUSTED, List.of(buildTransition(outboxId, OutboxEvent.RETRY_EXHAUSTED, attempts, null, reason)));
     }
 
     /**
@@ -109,45 +104,86 @@ public class DubboOutboxRecordService implements OutboxRecordService {
     }
 
     /**
-     * 读取当前记录并按状态机规则更新状态。
-     *
-     * @param outboxId           Outbox 主键 ID
-     * @param nextStateSupplier  下一个状态计算函数
-     * @param attempts           尝试次数
-     * @param nextTryAt          下次重试时间戳
-     * @param reason             失败原因
+     * 同步实现每次调用都已直接落库，无需额外刷新。
      */
-    private void updateById(Long outboxId,
-                            java.util.function.Function<OutboxStatus, OutboxStatus> nextStateSupplier,
-                            int attempts,
-                            Long nextTryAt,
-                            String reason) {
-        if (outboxId == null) {
-            return;
-        }
-        IMOutboxPo original = outboxDubboService.queryOne(outboxId);
-        if (original == null) {
-            return;
-        }
-        OutboxStatus current = OutboxStatus.from(original.getStatus());
-        OutboxStatus next = nextStateSupplier.apply(current);
+    @Override
+    public void awaitDurable(Collection<Long> outboxIds) {
+    }
+
+    /**
+     * 构建待发送记录，主键在本地生成，便于缓冲写入时提前返回 outboxId。
+     */
+    IMOutboxPo buildPending(String messageId, String payload, String exchange, String routingKey) {
         long now = DateTimeUtils.getCurrentUTCTimestamp();
+        return new IMOutboxPo()
+                .setId(IdUtils.snowflakeId())
+                .setMessageId(messageId)
+                .setPayload(payload)
+                .setExchange(exchange)
+                .setRoutingKey(routingKey)
+                .setAttempts(0)
+                .setStatus(stateMachine.transit(null, OutboxEvent.CREATE).value())
+                .setCreatedAt(now)
+                .setUpdatedAt(now)
+                .setNextTryAt(now);
+    }
+
+    /**
+     * 构建一次状态流转对应的更新记录，目标状态由状态机按事件推导。
+     */
+    IMOutboxPo buildTransition(Long outboxId, OutboxEvent event, int attempts, Long nextTryAt, String reason) {
         IMOutboxPo update = new IMOutboxPo()
                 .setId(outboxId)
-                .setStatus(next.value())
+                .setStatus(stateMachine.targetOf(event).value())
                 .setAttempts(Math.max(0, attempts))
-                .setUpdatedAt(now);
+                .setUpdatedAt(DateTimeUtils.getCurrentUTCTimestamp());
         if (nextTryAt != null) {
             update.setNextTryAt(nextTryAt);
         }
         if (StringUtils.hasText(reason)) {
-            String trimmed = reason.length() > 1024 ? reason.substring(0, 1024) : reason;
-            update.setLastError(trimmed);
+            update.setLastError(reason.length() > 1024 ? reason.substring(0, 1024) : reason);
+        }
+        return update;
+    }
+
+    /**
+     * 批量写入待发送记录。
+     *
+     * @param records 待发送记录
+     */
+    void createPendingBatch(List<IMOutboxPo> records) {
+        if (CollectionUtils.isEmpty(records)) {
+            return;
+        }
+        if (records.size() == 1) {
+            outboxDubboService.creat(records.get(0));
+            return;
+        }
+        outboxDubboService.creatBatch(records);
+    }
+
+    /**
+     * 以状态守卫批量应用同一事件的状态流转。
+     *
+     * @param event   状态机事件
+     * @param updates 更新记录（id 为空的记录会被忽略）
+     */
+    void applyTransitions(OutboxEvent event, List<IMOutboxPo> updates) {
+        List<IMOutboxPo> valid = updates.stream()
+                .filter(update -> update.getId() != null)
+                .toList();
+        if (valid.isEmpty()) {
+            return;
         }
-        outboxDubboService.modify(update);
-        if (next == OutboxStatus.DLX) {
-            log.warn("outbox 进入 DLX: outboxId={}, messageId={}, attempts={}, reason={}",
-                    outboxId, original.getMessageId(), attempts, update.getLastError());
+        List<String> fromStatuses = stateMachine.sourcesOf(event).stream()
+                .map(OutboxStatus::value)
+                .toList();
+        outboxDubboService.modifyStatusBatch(valid, fromStatuses);
+        if (event == OutboxEvent.RETRY_EXHAUSTED) {
+            for (IMOutboxPo update : valid) {
+                log.warn("outbox 进入 DLX: outboxId={}, attempts={}, reason={}",
+                        update.getId(), update.getAttempts(), update.getLastError());
+            }
         }
     }
 }
@@ -1,5 +1,7 @@
 package com.xy.lucky.message.message.outbox;
 
+import java.util.Collection;
+
 /**
  * Outbox 记录服务，负责消息投递状态在数据库中的流转。
  */
@@ -47,6 +49,15 @@ public interface OutboxRecordService {
      * 按业务消息 ID 标记 Outbox 已被客户端确认。
      *
      * @param messageId 业务消息 ID
+     * @return 是否有记录由 SENT 更新为已确认；调用方据此回滚去重标记
      */
     boolean markDeliveredByMessageId(String messageId);
+
+    /**
+     * 在分发之前，按写入模式保证指定 Outbox 记录已落库。
+     *
+     * @param outboxIds 本次分发创建的 Outbox 主键 ID
+     * @throws IllegalStateException 记录写入失败，调用方应放弃本次分发
+     */
+    void awaitDurable(Collection<Long> outboxIds);
 }
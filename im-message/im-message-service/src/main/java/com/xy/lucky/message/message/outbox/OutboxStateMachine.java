@@ -2,7 +2,9 @@ package com.xy.lucky.message.message.outbox;
 
 import org.springframework.stereotype.Component;
 
+import java.util.ArrayList;
 import java.util.EnumMap;
+import java.util.List;
 import java.util.Map;
 
 @Component
@@ -26,6 +28,32 @@ public class OutboxStateMachine {
         return transitions.getOrDefault(current, Map.of()).getOrDefault(event, OutboxStatus.FAILED);
     }
 
+    /**
+     * 返回允许触发该事件的来源状态，用作 {@code UPDATE ... WHERE status IN (...)} 的守卫条件。
+     */
+    public List<OutboxStatus> sourcesOf(OutboxEvent event) {
+        List<OutboxStatus> sources = new ArrayList<>();
+        for (Map.Entry<OutboxStatus, Map<OutboxEvent, OutboxStatus>> entry : transitions.entrySet()) {
+            if (entry.getValue().containsKey(event)) {
+                sources.add(entry.getKey());
+            }
+        }
+        return sources;
+    }
+
+    /**
+     * 返回事件的目标状态；当前状态机中同一事件无论来源状态如何都流向同一目标。
+     */
+    public OutboxStatus targetOf(OutboxEvent event) {
+        for (Map<OutboxEvent, OutboxStatus> byEvent : transitions.values()) {
+            OutboxStatus target = byEvent.get(event);
+            if (target != null) {
+                return target;
+            }
+        }
+        return OutboxStatus.FAILED;
+    }
+
     private void put(OutboxStatus from, OutboxEvent event, OutboxStatus to) {
         transitions.computeIfAbsent(from, ignored -> new EnumMap<>(OutboxEvent.class)).put(event, to);
     }
@@ -0,0 +1,11 @@
+package com.xy.lucky.message.message.outbox;
+
+// Outbox 写入持久化模式
+public enum OutboxWriteMode {
+    // 每次写入同步调用数据服务
+    SYNC,
+    // 本地缓冲批量刷新，但在向发送方确认前强制刷盘
+    FLUSH_BEFORE_ACK,
+    // 完全异步，按批量大小或刷新周期落库，宕机时可能丢失一个刷新周期内的写入
+    ASYNC
+}
@@ -0,0 +1,18 @@
+package com.xy.lucky.message.message.outbox;
+
+import lombok.Getter;
+import lombok.Setter;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+import org.springframework.stereotype.Component;
+
+@Getter
+@Setter
+@Component
+@ConfigurationProperties(prefix = "message.outbox.write")
+public class OutboxWriteProperties {
+
+    private OutboxWriteMode mode = OutboxWriteMode.FLUSH_BEFORE_ACK;
+    private int bufferCapacity = 10000;
+    private int batchSize = 200;
+    private long flushIntervalMs = 50;
+}
@@ -0,0 +1,34 @@
+package com.xy.lucky.message.message.status;
+
+import java.util.List;
+
+/**
+ * 消息状态批量查询，用于已读列表与未投递补偿。
+ */
+public interface MessageStatusQueryService {
+
+    /**
+     * 查询已确认（已读）消息的用户。
+     *
+     * @param messageId 消息 ID
+     * @return 用户 ID 列表
+     */
+    List<String> findReadUsers(String messageId);
+
+    /**
+     * 查询已投递消息的用户。
+     *
+     * @param messageId 消息 ID
+     * @return 用户 ID 列表
+     */
+    List<String> findDeliveredUsers(String messageId);
+
+    /**
+     * 查询用户尚未投递成功的消息，按消息序号从旧到新返回。
+     *
+     * @param userId 用户 ID
+     * @param limit  最大返回数量
+     * @return 消息 ID 列表
+     */
+    List<String> findUndeliveredMessages(String userId, int limit);
+}
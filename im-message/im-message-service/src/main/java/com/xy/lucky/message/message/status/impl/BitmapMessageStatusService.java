@@ -0,0 +1,365 @@
+package com.xy.lucky.message.message.status.impl;
+
+import com.xy.lucky.message.message.status.MessageStatusQueryService;
+import com.xy.lucky.message.message.status.MessageStatusService;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.context.annotation.Primary;
+import org.springframework.data.redis.connection.BitFieldSubCommands;
+import org.springframework.data.redis.connection.RedisConnection;
+import org.springframework.data.redis.core.RedisCallback;
+import org.springframework.data.redis.core.RedisTemplate;
+import org.springframework.data.redis.core.script.DefaultRedisScript;
+import org.springframework.data.redis.serializer.RedisSerializer;
+import org.springframework.stereotype.Service;
+import org.springframework.util.CollectionUtils;
+import org.springframework.util.StringUtils;
+
+import java.nio.charset.StandardCharsets;
+import java.time.Duration;
+import java.util.*;
+
+/**
+ * 基于位图的消息状态存储实现。
+ * <p>
+ * 以接收人集合（名册）为单位分配消息序号，投递/确认/失败各用一组按序号分段的位图记录，
+ * 每条消息每个成员仅占 1 位，替代每消息一个 Hash、每接收人一个字段的存储方式。
+ * 通过 {@code message.status.store=bitmap} 启用。
+ * </p>
+ * <pre>
+ * im-msg-status:r:{rid}:members       名册成员列表（下标即成员序号）
+ * im-msg-status:r:{rid}:ord           成员 → 序号
+ * im-msg-status:r:{rid}:seq           名册消息序号计数
+ * im-msg-status:r:{rid}:msgs:{range}  段内序号 → 消息 ID
+ * im-msg-status:r:{rid}:{state}:{range} 状态位图
+ * im-msg-status:m:{messageId}         消息 → "rid:seq"
+ * im-msg-status:r:{rid}:utouch        用户名册集合续期标记
+ * im-msg-status:u:{userId}            用户所在名册集合
+ * </pre>
+ */
+@Slf4j
+@Primary
+@Service
+@RequiredArgsConstructor
+@ConditionalOnProperty(prefix = "message.status", name = "store", havingValue = "bitmap")
+public class BitmapMessageStatusService implements MessageStatusService, MessageStatusQueryService {
+
+    private static final String ROSTER_KEY_PREFIX = "im-msg-status:r:";
+    private static final String MESSAGE_KEY_PREFIX = "im-msg-status:m:";
+    private static final String USER_KEY_PREFIX = "im-msg-status:u:";
+    private static final String STATE_DELIVERED = "dlv";
+    private static final String STATE_ACKED = "ack";
+    private static final String STATE_FAILED = "fail";
+    private static final String ROSTER_MISSING = "?";
+    private static final Duration STATUS_TTL = Duration.ofDays(7);
+    private static final int MARK_BATCH_SIZE = 1000;
+
+    private static final String RANGE_MISMATCH = "~";
+    private static final int PENDING_MAX_ATTEMPTS = 8;
+
+    /**
+     * 分配名册内序号。所有 key 均经 KEYS 传入且同属 {rid} 槽位：
+     * KEYS[1] members，KEYS[2] ord，KEYS[3] seq，KEYS[4] 调用方预估分段的 msgs，KEYS[5] 用户名册集合续期标记；
+     * ARGV[1] ttl，ARGV[2] 消息 ID，ARGV[3] rid，ARGV[4] 预估分段，ARGV[5] 每段行数，ARGV[6..] 名册成员（仅创建名册时携带）。
+     * 名册缺失且未携带成员时返回 {'?'}；当前序号不在预估分段时返回 {'~', 当前序号}，由调用方换 key 重试；
+     * 成功返回 {ref, 是否需要续期用户名册集合}
+     */
+    private static final DefaultRedisScript<List> PENDING_SCRIPT = new DefaultRedisScript<>(
+            "local ttl = tonumber(ARGV[1])\n"
+                    + "if redis.call('EXISTS', KEYS[1]) == 0 then\n"
+                    + "  if #ARGV < 6 then\n"
+                    + "    return {'" + ROSTER_MISSING + "'}\n"
+                    + "  end\n"
+                    + "  for i = 6, #ARGV do\n"
+                    + "    redis.call('RPUSH', KEYS[1], ARGV[i])\n"
+                    + "    redis.call('HSET', KEYS[2], ARGV[i], i - 6)\n"
+                    + "  end\n"
+                    + "end\n"
+                    + "local seq = tonumber(redis.call('GET', KEYS[3]) or '0')\n"
+                    + "if math.floor(seq / tonumber(ARGV[5])) ~= tonumber(ARGV[4]) then\n"
+                    + "  return {'" + RANGE_MISMATCH + "', tostring(seq)}\n"
+                    + "end\n"
+                    + "redis.call('INCR', KEYS[3])\n"
+                    + "redis.call('RPUSH', KEYS[4], ARGV[2])\n"
+                    + "redis.call('EXPIRE', KEYS[1], ttl)\n"
+                    + "redis.call('EXPIRE', KEYS[2], ttl)\n"
+                    + "redis.call('EXPIRE', KEYS[3], ttl)\n"
+                    + "redis.call('EXPIRE', KEYS[4], ttl)\n"
+                    + "local refresh = redis.call('SET', KEYS[5], '1', 'EX', math.max(1, math.floor(ttl / 2)), 'NX') and '1' or '0'\n"
+                    + "return {ARGV[3] .. ':' .. seq, refresh}",
+            List.class
+    );
+
+    /**
+     * 置位状态位。KEYS[1] members，KEYS[2] ord，KEYS[3] 状态位图，同属 {rid} 槽位；
+     * ARGV[1] ttl，ARGV[2] 行号，ARGV[3..] 用户 ID
+     */
+    private static final DefaultRedisScript<Long> MARK_SCRIPT = new DefaultRedisScript<>(
+            "local size = redis.call('LLEN', KEYS[1])\n"
+                    + "if size == 0 then\n"
+                    + "  return 0\n"
+                    + "end\n"
+                    + "local row = tonumber(ARGV[2])\n"
+                    + "local ords = redis.call('HMGET', KEYS[2], unpack(ARGV, 3))\n"
+                    + "local n = 0\n"
+                    + "for i = 1, #ords do\n"
+                    + "  if ords[i] then\n"
+                    + "    redis.call('SETBIT', KEYS[3], row * size + tonumber(ords[i]), 1)\n"
+                    + "    n = n + 1\n"
+                    + "  end\n"
+                    + "end\n"
+                    + "if n > 0 then\n"
+                    + "  redis.call('EXPIRE', KEYS[3], tonumber(ARGV[1]))\n"
+                    + "end\n"
+                    + "return n",
+            Long.class
+    );
+
+    private final RedisTemplate<String, Object> redisTemplate;
+
+    /**
+     * 为消息分配名册内序号；名册已存在时只传消息 ID，名册缺失时再携带成员列表创建。
+     * 待投递状态即三组位图均未置位，无需额外写入。
+     * 名册相关 key 在同一脚本内原子更新；消息索引与用户名册集合按 key 单独写入，不跨槽位。
+     */
+    @Override
+    public void markPending(String messageId, Collection<String> userIds) {
+        if (!StringUtils.hasText(messageId) || CollectionUtils.isEmpty(userIds)) {
+            return;
+        }
+        List<String> members = userIds.stream().filter(StringUtils::hasText).distinct().sorted().toList();
+        if (members.isEmpty()) {
+            return;
+        }
+        byte[] messageKey = bytes(MESSAGE_KEY_PREFIX + messageId);
+        if (redisTemplate.execute((RedisCallback<byte[]>) connection -> connection.stringCommands().get(messageKey)) != null) {
+            return;
+        }
+        String rid = StatusBitmapLayout.rosterId(members);
+        String base = rosterBase(rid);
+        byte[] seqValue = redisTemplate.execute((RedisCallback<byte[]>) connection ->
+                connection.stringCommands().get(bytes(base + "seq")));
+        long range = StatusBitmapLayout.rangeOf(seqValue == null ? 0L : Long.parseLong(string(seqValue)));
+        boolean withMembers = false;
+        for (int attempt = 0; attempt < PENDING_MAX_ATTEMPTS; attempt++) {
+            List<String> keys = List.of(base + "members", base + "ord", base + "seq", base + "msgs:" + range,
+                    base + "utouch");
+            List<String> args = new ArrayList<>(List.of(
+                    String.valueOf(STATUS_TTL.toSeconds()),
+                    messageId,
+                    rid,
+                    String.valueOf(range),
+                    String.valueOf(StatusBitmapLayout.ROWS_PER_RANGE)));
+            if (withMembers) {
+                args.addAll(members);
+            }
+            List<?> result = redisTemplate.execute(PENDING_SCRIPT, RedisSerializer.string(), RedisSerializer.string(),
+                    keys, args.toArray());
+            String head = CollectionUtils.isEmpty(result) ? null : String.valueOf(result.get(0));
+            if (ROSTER_MISSING.equals(head)) {
+                withMembers = true;
+                continue;
+            }
+            if (RANGE_MISMATCH.equals(head)) {
+                range = StatusBitmapLayout.rangeOf(Long.parseLong(String.valueOf(result.get(1))));
+                continue;
+            }
+            if (head == null) {
+                break;
+            }
+            long ttl = STATUS_TTL.toSeconds();
+            boolean refreshUsers = result.size() > 1 && "1".equals(String.valueOf(result.get(1)));
+            byte[] ridBytes = bytes(rid);
+            redisTemplate.executePipelined((RedisCallback<Object>) connection -> {
+                connection.stringCommands().setEx(messageKey, ttl, bytes(head));
+                if (refreshUsers) {
+                    // 每半个有效期续期一次，保证用户名册集合不早于名册过期
+                    for (String member : members) {
+                        byte[] userKey = bytes(USER_KEY_PREFIX + member);
+                        connection.setCommands().sAdd(userKey, ridBytes);
+                        connection.keyCommands().expire(userKey, ttl);
+                    }
+                }
+                return null;
+            });
+            return;
+        }
+        log.warn("消息状态序号分配失败: messageId={}, rid={}", messageId, rid);
+    }
+
+    @Override
+    public void markDelivered(String messageId, Collection<String> userIds) {
+        mark(messageId, userIds, STATE_DELIVERED);
+    }
+
+    @Override
+    public void markFailed(String messageId, Collection<String> userIds, String reason) {
+        mark(messageId, userIds, STATE_FAILED);
+        log.warn("消息投递失败: messageId={}, userCount={}, reason={}",
+                messageId, userIds == null ? 0 : userIds.size(), reason);
+    }
+
+    @Override
+    public void acknowledge(String messageId, String userId) {
+        if (!StringUtils.hasText(userId)) {
+            return;
+        }
+        mark(messageId, List.of(userId), STATE_ACKED);
+    }
+
+    @Override
+    public List<String> findReadUsers(String messageId) {
+        return findUsersByState(messageId, STATE_ACKED);
+    }
+
+    @Override
+    public List<String> findDeliveredUsers(String messageId) {
+        return findUsersByState(messageId, STATE_DELIVERED);
+    }
+
+    /**
+     * 遍历用户所在名册，从最新分段向前按列读取投递位（每段一次 BITFIELD），
+     * 遇到已过期分段即停止；名册已过期时顺带从用户名册集合中移除。
+     */
+    @Override
+    public List<String> findUndeliveredMessages(String userId, int limit) {
+        if (!StringUtils.hasText(userId) || limit <= 0) {
+            return Collections.emptyList();
+        }
+        List<String> result = redisTemplate.execute((RedisCallback<List<String>>) connection -> {
+            byte[] userKey = bytes(USER_KEY_PREFIX + userId);
+            Set<byte[]> rosterIds = connection.setCommands().sMembers(userKey);
+            List<String> undelivered = new ArrayList<>();
+            if (CollectionUtils.isEmpty(rosterIds)) {
+                return undelivered;
+            }
+            for (byte[] rosterId : rosterIds) {
+                if (undelivered.size() >= limit) {
+                    break;
+                }
+                String base = rosterBase(string(rosterId));
+                byte[] ordinal = connection.hashCommands().hGet(bytes(base + "ord"), bytes(userId));
+                Long size = connection.listCommands().lLen(bytes(base + "members"));
+                byte[] next = connection.stringCommands().get(bytes(base + "seq"));
+                if (ordinal == null || size == null || size == 0 || next == null) {
+                    connection.setCommands().sRem(userKey, rosterId);
+                    continue;
+                }
+                undelivered.addAll(collectUndelivered(connection, base, Integer.parseInt(string(ordinal)),
+                        size.intValue(), Long.parseLong(string(next)), limit - undelivered.size()));
+            }
+            return undelivered;
+        });
+        return result == null ? Collections.emptyList() : result;
+    }
+
+    private List<String> collectUndelivered(RedisConnection connection, String base, int ordinal, int size, long nextSeq, int limit) {
+        Deque<List<String>> ranges = new ArrayDeque<>();
+        int collected = 0;
+        for (long range = StatusBitmapLayout.rangeOf(nextSeq - 1); range >= 0 && collected < limit; range--) {
+            List<byte[]> messageIds = connection.listCommands().lRange(bytes(base + "msgs:" + range), 0, -1);
+            if (CollectionUtils.isEmpty(messageIds)) {
+                break;
+            }
+            BitFieldSubCommands commands = BitFieldSubCommands.create();
+            for (int row = 0; row < messageIds.size(); row++) {
+                commands = commands.get(BitFieldSubCommands.BitFieldType.unsigned(1))
+                        .valueAt(StatusBitmapLayout.bitOffset(row, size, ordinal));
+            }
+            List<Long> bits = connection.stringCommands().bitField(bytes(base + STATE_DELIVERED + ":" + range), commands);
+            List<String> pending = new ArrayList<>();
+            for (int row = 0; row < messageIds.size(); row++) {
+                Long bit = bits == null || row >= bits.size() ? null : bits.get(row);
+                if (bit == null || bit == 0L) {
+                    pending.add(string(messageIds.get(row)));
+                }
+            }
+            ranges.addFirst(pending);
+            collected += pending.size();
+        }
+        List<String> result = new ArrayList<>(collected);
+        ranges.forEach(result::addAll);
+        return result.size() > limit ? new ArrayList<>(result.subList(result.size() - limit, result.size())) : result;
+    }
+
+    /**
+     * 按消息定位名册与行号，仅截取该行所在字节区间解码。
+     */
+    private List<String> findUsersByState(String messageId, String state) {
+        if (!StringUtils.hasText(messageId)) {
+            return Collections.emptyList();
+        }
+        List<String> result = redisTemplate.execute((RedisCallback<List<String>>) connection -> {
+            byte[] ref = connection.stringCommands().get(bytes(MESSAGE_KEY_PREFIX + messageId));
+            if (ref == null) {
+                return Collections.emptyList();
+            }
+            String refText = string(ref);
+            int sep = refText.indexOf(':');
+            String base = rosterBase(refText.substring(0, sep));
+            long seq = Long.parseLong(refText.substring(sep + 1));
+            List<byte[]> members = connection.listCommands().lRange(bytes(base + "members"), 0, -1);
+            if (CollectionUtils.isEmpty(members)) {
+                return Collections.emptyList();
+            }
+            int size = members.size();
+            int row = StatusBitmapLayout.rowOf(seq);
+            long[] byteRange = StatusBitmapLayout.rowByteRange(row, size);
+            byte[] bits = connection.stringCommands().getRange(
+                    bytes(base + state + ":" + StatusBitmapLayout.rangeOf(seq)), byteRange[0], byteRange[1]);
+            List<String> users = new ArrayList<>();
+            for (Integer ordinal : StatusBitmapLayout.decodeRow(bits, byteRange[0], row, size)) {
+                users.add(string(members.get(ordinal)));
+            }
+            return users;
+        });
+        return result == null ? Collections.emptyList() : result;
+    }
+
+    private void mark(String messageId, Collection<String> userIds, String state) {
+        if (!StringUtils.hasText(messageId) || CollectionUtils.isEmpty(userIds)) {
+            return;
+        }
+        byte[] ref = redisTemplate.execute((RedisCallback<byte[]>) connection ->
+                connection.stringCommands().get(bytes(MESSAGE_KEY_PREFIX + messageId)));
+        if (ref == null) {
+            return;
+        }
+        String refText = string(ref);
+        int sep = refText.indexOf(':');
+        String base = rosterBase(refText.substring(0, sep));
+        long seq = Long.parseLong(refText.substring(sep + 1));
+        List<String> keys = List.of(base + "members", base + "ord",
+                base + state + ":" + StatusBitmapLayout.rangeOf(seq));
+        List<String> args = new ArrayList<>(Math.min(userIds.size(), MARK_BATCH_SIZE) + 2);
+        for (String userId : userIds) {
+            if (!StringUtils.hasText(userId)) {
+                continue;
+            }
+            if (args.isEmpty()) {
+                args.addAll(List.of(String.valueOf(STATUS_TTL.toSeconds()), String.valueOf(StatusBitmapLayout.rowOf(seq))));
+            }
+            args.add(userId);
+            if (args.size() >= MARK_BATCH_SIZE + 2) {
+                redisTemplate.execute(MARK_SCRIPT, RedisSerializer.string(), RedisSerializer.string(), keys, args.toArray());
+                args.clear();
+            }
+        }
+        if (args.size() > 2) {
+            redisTemplate.execute(MARK_SCRIPT, RedisSerializer.string(), RedisSerializer.string(), keys, args.toArray());
+        }
+    }
+
+    private static String rosterBase(String rid) {
+        return ROSTER_KEY_PREFIX + "{" + rid + "}:";
+    }
+
+    private static byte[] bytes(String value) {
+        return value.getBytes(StandardCharsets.UTF_8);
+    }
+
+    private static String string(byte[] value) {
+        return new String(value, StandardCharsets.UTF_8);
+    }
+}
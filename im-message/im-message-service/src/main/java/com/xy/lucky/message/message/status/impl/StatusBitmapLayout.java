@@ -0,0 +1,96 @@
+package com.xy.lucky.message.message.status.impl;
+
+import org.springframework.util.DigestUtils;
+
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * 位图状态存储的布局计算。
+ * <p>
+ * 同一接收人集合（名册）下的消息按序号分段，每段一个 Redis 位图：第 row 行对应段内第 row 条消息，
+ * 每行 rosterSize 位、第 ordinal 位对应名册中第 ordinal 个成员，即 bit = row * rosterSize + ordinal。
+ * 位序与 Redis SETBIT 一致：offset n 落在第 n / 8 字节的 0x80 &gt;&gt;&gt; (n % 8) 位。
+ * </p>
+ */
+final class StatusBitmapLayout {
+
+    /**
+     * 每个位图段包含的消息行数
+     */
+    static final int ROWS_PER_RANGE = 1024;
+
+    private StatusBitmapLayout() {
+    }
+
+    static long rangeOf(long seq) {
+        return seq / ROWS_PER_RANGE;
+    }
+
+    static int rowOf(long seq) {
+        return (int) (seq % ROWS_PER_RANGE);
+    }
+
+    static long bitOffset(int row, int rosterSize, int ordinal) {
+        return (long) row * rosterSize + ordinal;
+    }
+
+    /**
+     * 满段位图的字节数
+     */
+    static long rangeBytes(int rosterSize) {
+        return ((long) ROWS_PER_RANGE * rosterSize + 7) / 8;
+    }
+
+    /**
+     * 名册 ID：有序成员列表的摘要，成员集合不变时同一会话的消息落在同一名册下。
+     */
+    static String rosterId(List<String> sortedMembers) {
+        String joined = String.join("\n", sortedMembers);
+        return DigestUtils.md5DigestAsHex(joined.getBytes(StandardCharsets.UTF_8)).substring(0, 16);
+    }
+
+    /**
+     * 按 Redis 位序置位，供本地构造位图使用。
+     */
+    static void setBit(byte[] bitmap, long offset) {
+        bitmap[(int) (offset >>> 3)] |= (byte) (0x80 >>> (offset & 7));
+    }
+
+    /**
+     * 解码一行中已置位的成员序号。
+     *
+     * @param bytes      从 byteStart 开始截取的位图字节（可能因 Redis 位图未写满而更短）
+     * @param byteStart  截取起始字节在整段位图中的位置
+     * @param row        行号
+     * @param rosterSize 名册大小
+     */
+    static List<Integer> decodeRow(byte[] bytes, long byteStart, int row, int rosterSize) {
+        List<Integer> ordinals = new ArrayList<>();
+        if (bytes == null || bytes.length == 0) {
+            return ordinals;
+        }
+        long rowStart = bitOffset(row, rosterSize, 0);
+        for (int ordinal = 0; ordinal < rosterSize; ordinal++) {
+            long offset = rowStart + ordinal - (byteStart << 3);
+            int index = (int) (offset >>> 3);
+            if (index >= bytes.length) {
+                break;
+            }
+            if ((bytes[index] & (0x80 >>> (offset & 7))) != 0) {
+                ordinals.add(ordinal);
+            }
+        }
+        return ordinals;
+    }
+
+    /**
+     * 一行在整段位图中的字节区间 [start, end]。
+     */
+    static long[] rowByteRange(int row, int rosterSize) {
+        long first = bitOffset(row, rosterSize, 0);
+        long last = first + rosterSize - 1;
+        return new long[]{first >>> 3, last >>> 3};
+    }
+}
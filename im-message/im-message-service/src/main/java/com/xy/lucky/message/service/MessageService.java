@@ -3,6 +3,7 @@ package com.xy.lucky.message.service;
 
 import com.xy.lucky.message.domain.dto.ChatDto;
 import com.xy.lucky.core.model.*;
+import com.xy.lucky.domain.CursorPage;
 import com.xy.lucky.domain.po.ImGroupMessagePo;
 import com.xy.lucky.domain.po.ImSingleMessagePo;
 
@@ -80,4 +81,45 @@ public interface MessageService {
      * @return 群聊消息列表
      */
     List<ImGroupMessagePo> groupList(ChatDto chatDto);
+
+    /**
+     * 按游标分页查询单聊消息。
+     *
+     * @param chatDto 查询条件（含续页令牌与页大小）
+     * @return 单聊消息分页结果
+     */
+    CursorPage<ImSingleMessagePo> singlePage(ChatDto chatDto);
+
+    /**
+     * 按游标分页查询群聊消息。
+     *
+     * @param chatDto 查询条件（含续页令牌与页大小）
+     * @return 群聊消息分页结果
+     */
+    CursorPage<ImGroupMessagePo> groupPage(ChatDto chatDto);
+
+    /**
+     * 查询已确认（已读）消息的用户。
+     *
+     * @param messageId 消息 ID
+     * @return 用户 ID 列表
+     */
+    List<String> readUsers(String messageId);
+
+    /**
+     * 查询已投递消息的用户。
+     *
+     * @param messageId 消息 ID
+     * @return 用户 ID 列表
+     */
+    List<String> deliveredUsers(String messageId);
+
+    /**
+     * 查询用户尚未投递成功的消息。
+     *
+     * @param userId 用户 ID
+     * @param limit  最大返回数量，为空时取默认值
+     * @return 消息 ID 列表，按消息序号从旧到新
+     */
+    List<String> undeliveredMessages(String userId, Integer limit);
 }
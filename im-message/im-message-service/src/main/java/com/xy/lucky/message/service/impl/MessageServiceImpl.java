@@ -6,6 +6,7 @@ import com.xy.lucky.core.enums.IMessageContentType;
 import com.xy.lucky.core.enums.IMessageReadStatus;
 import com.xy.lucky.core.enums.IMessageType;
 import com.xy.lucky.core.model.*;
+import com.xy.lucky.domain.CursorPage;
 import com.xy.lucky.domain.po.*;
 import com.xy.lucky.message.common.LockExecutor;
 import com.xy.lucky.message.config.IdGeneratorConstant;
@@ -13,6 +14,7 @@ import com.xy.lucky.message.domain.dto.ChatDto;
 import com.xy.lucky.message.domain.mapper.MessageBeanMapper;
 import com.xy.lucky.message.exception.MessageException;
 import com.xy.lucky.message.message.MessageLifecycleOrchestrator;
+import com.xy.lucky.message.message.status.MessageStatusQueryService;
 import com.xy.lucky.message.service.MessageService;
 import com.xy.lucky.message.service.MuteService;
 import com.xy.lucky.rpc.api.database.chat.ImChatDubboService;
@@ -25,10 +27,12 @@ import com.xy.lucky.utils.time.DateTimeUtils;
 import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
 import org.apache.dubbo.config.annotation.DubboReference;
+import org.springframework.beans.factory.ObjectProvider;
 import org.springframework.stereotype.Service;
 import org.springframework.util.CollectionUtils;
 import org.springframework.util.StringUtils;
 
+import java.util.ArrayList;
 import java.util.Collections;
 import java.util.List;
 import java.util.Objects;
@@ -53,6 +57,10 @@ public class MessageServiceImpl implements MessageService {
      * 撤回消息时间限制（毫秒）
      */
     private static final long RECALL_TIMEOUT_MS = 2 * 60 * 1000L;
+    /**
+     * 未投递消息查询的默认返回数量
+     */
+    private static final int DEFAULT_UNDELIVERED_LIMIT = 100;
 
     private final LockExecutor lockExecutor;
     @DubboReference
@@ -70,6 +78,10 @@ public class MessageServiceImpl implements MessageService {
 
     private final MessageBeanMapper messageBeanMapper;
     private final MessageLifecycleOrchestrator messageLifecycleOrchestrator;
+    /**
+     * 仅位图状态存储（message.status.store=bitmap）提供批量查询
+     */
+    private final ObjectProvider<MessageStatusQueryService> messageStatusQueryProvider;
 
     /**
      * 发送单聊消息
@@ -280,14 +292,77 @@ public class MessageServiceImpl implements MessageService {
         return groupMessageDubboService.queryList(dto.getFromId(), dto.getSequence());
     }
 
+    /**
+     * 按游标分页查询私聊消息
+     *
+     * @param dto 查询条件（已在 Controller 层校验）
+     * @return 消息分页结果
+     */
+    @Override
+    public CursorPage<ImSingleMessagePo> singlePage(ChatDto dto) {
+        return singleMessageDubboService.queryPage(dto.getFromId(), dto.getSequence(), dto.getCursor(), dto.getPageSize());
+    }
+
+    /**
+     * 按游标分页查询群聊消息
+     *
+     * @param dto 查询条件（已在 Controller 层校验）
+     * @return 消息分页结果
+     */
+    @Override
+    public CursorPage<ImGroupMessagePo> groupPage(ChatDto dto) {
+        return groupMessageDubboService.queryPage(dto.getFromId(), dto.getSequence(), dto.getCursor(), dto.getPageSize());
+    }
+
+    /**
+     * 查询已读用户
+     *
+     * @param messageId 消息 ID
+     * @return 用户 ID 列表
+     */
+    @Override
+    public List<String> readUsers(String messageId) {
+        return statusQueryService().findReadUsers(messageId);
+    }
+
+    /**
+     * 查询已投递用户
+     *
+     * @param messageId 消息 ID
+     * @return 用户 ID 列表
+     */
+    @Override
+    public List<String> deliveredUsers(String messageId) {
+        return statusQueryService().findDeliveredUsers(messageId);
+    }
+
+    /**
+     * 查询用户未投递消息
+     *
+     * @param userId 用户 ID
+     * @param limit  最大返回数量，为空时取默认值
+     * @return 消息 ID 列表
+     */
+    @Override
+    public List<String> undeliveredMessages(String userId, Integer limit) {
+        return statusQueryService().findUndeliveredMessages(userId, limit != null ? limit : DEFAULT_UNDELIVERED_LIMIT);
+    }
+
+    private MessageStatusQueryService statusQueryService() {
+        MessageStatusQueryService queryService = messageStatusQueryProvider.getIfAvailable();
+        if (queryService == null) {
+            throw new MessageException("当前消息状态存储不支持批量查询，请启用 message.status.store=bitmap");
+        }
+        return queryService;
+    }
+
     // ==================== 私有方法 ====================
 
     private void persistSingleMessage(IMSingleMessage dto, Long messageTime) {
         ImSingleMessagePo po = messageBeanMapper.toImSingleMessagePo(dto);
         po.setDelFlag(IMStatus.YES.getCode());
         saveSingleMessage(po);
-        upsertChatSequence(dto.getFromId(), dto.getToId(), messageTime, IMessageType.SINGLE_MESSAGE.getCode());
-        upsertChatSequence(dto.getToId(), dto.getFromId(), messageTime, IMessageType.SINGLE_MESSAGE.getCode());
+        upsertSingleChatProjections(po, messageTime, 1);
     }
 
     private void persistGroupMessage(IMGroupMessage dto, Long messageTime, List<ImGroupMemberPo> members) {
@@ -295,9 +370,7 @@ public class MessageServiceImpl implements MessageService {
         po.setDelFlag(IMStatus.YES.getCode());
         saveGroupMessage(po);
         setGroupMessageReadStatus(dto.getMessageId(), dto.getGroupId(), members);
-        for (ImGroupMemberPo member : members) {
-            upsertChatSequence(member.getMemberId(), dto.getGroupId(), messageTime, IMessageType.GROUP_MESSAGE.getCode());
-        }
+        upsertGroupChatProjections(members, po, messageTime, 1);
     }
 
     /**
@@ -319,6 +392,7 @@ public class MessageServiceImpl implements MessageService {
         msg.setMessageContentType(IMessageContentType.RECALL_MESSAGE.getCode());
         msg.setMessageBody(recallBody);
         singleMessageDubboService.modify(msg);
+        upsertSingleChatProjections(msg, msg.getMessageTime(), 0);
 
         // 发送撤回通知给接收者
         IMessageAction recallAction = buildRecallAction(dto.getFromId(), msg.getToId(), null,
@@ -352,7 +426,8 @@ public class MessageServiceImpl implements MessageService {
         // 通知群成员
         IMessageAction recallAction = buildRecallAction(dto.getFromId(), null, msg.getGroupId(),
                 dto.getMessageId(), recallTime, recallBody);
-        sendRecallToGroupMembers(msg.getGroupId(), recallAction);
+        List<ImGroupMemberPo> members = sendRecallToGroupMembers(msg.getGroupId(), recallAction);
+        upsertGroupChatProjections(members, msg, msg.getMessageTime(), 0);
 
         log.info("撤回群聊消息: messageId={}, fromId={}, groupId={}", dto.getMessageId(), dto.getFromId(), msg.getGroupId());
     }
@@ -418,10 +493,10 @@ public class MessageServiceImpl implements MessageService {
     /**
      * 发送撤回通知给群成员
      */
-    private void sendRecallToGroupMembers(String groupId, IMessageAction recallAction) {
+    private List<ImGroupMemberPo> sendRecallToGroupMembers(String groupId, IMessageAction recallAction) {
         List<ImGroupMemberPo> members = groupMemberDubboService.queryList(groupId);
         if (CollectionUtils.isEmpty(members)) {
-            return;
+            return Collections.emptyList();
         }
         List<String> targetUserIds = members.stream().map(ImGroupMemberPo::getMemberId).toList();
         messageLifecycleOrchestrator.dispatch(
@@ -430,6 +505,7 @@ public class MessageServiceImpl implements MessageService {
                 targetUserIds,
                 recallAction.getMessageId()
         );
+        return members;
     }
 
     // ==================== 辅助方法 ====================
@@ -450,14 +526,60 @@ public class MessageServiceImpl implements MessageService {
         }
     }
 
-    private void upsertChatSequence(String ownerId, String toId, Long messageTime, Integer chatType) {
+    /**
+     * 增量更新单聊双方的会话投影（最后一条消息、时序），接收方未读数增加 unreadIncrement
+     */
+    private void upsertSingleChatProjections(ImSingleMessagePo msg, Long messageTime, int unreadIncrement) {
+        try {
+            List<ImChatPo> chats = new ArrayList<>(2);
+            chats.add(buildChatProjection(msg.getFromId(), msg.getToId(), IMessageType.SINGLE_MESSAGE.getCode(),
+                    msg.getMessageId(), msg.getMessageBody(), msg.getMessageContentType(), messageTime, 0));
+            if (!msg.getFromId().equals(msg.getToId())) {
+                chats.add(buildChatProjection(msg.getToId(), msg.getFromId(), IMessageType.SINGLE_MESSAGE.getCode(),
+                        msg.getMessageId(), msg.getMessageBody(), msg.getMessageContentType(), messageTime, unreadIncrement));
+            }
+            chatDubboService.batchUpsertProjection(chats);
+        } catch (Exception e) {
+            log.error("更新单聊会话投影失败: fromId={}, toId={}", msg.getFromId(), msg.getToId(), e);
+        }
+    }
+
+    /**
+     * 增量更新群成员的会话投影，发送者本人不增加未读数
+     */
+    private void upsertGroupChatProjections(List<ImGroupMemberPo> members, ImGroupMessagePo msg, Long messageTime,
+                                            int unreadIncrement) {
+        if (CollectionUtils.isEmpty(members)) {
+            return;
+        }
         try {
-            chatDubboService.upsertSequence(ownerId, toId, chatType, messageTime, IdUtils.snowflakeIdStr());
+            List<ImChatPo> chats = members.stream()
+                    .map(m -> buildChatProjection(m.getMemberId(), msg.getGroupId(), IMessageType.GROUP_MESSAGE.getCode(),
+                            msg.getMessageId(), msg.getMessageBody(), msg.getMessageContentType(), messageTime,
+                            m.getMemberId().equals(msg.getFromId()) ? 0 : unreadIncrement))
+                    .collect(Collectors.toList());
+            chatDubboService.batchUpsertProjection(chats);
         } catch (Exception e) {
-            log.error("更新会话时序失败: ownerId={}, toId={}, chatType={}", ownerId, toId, chatType, e);
+            log.error("批量更新群会话投影失败: groupId={}, members={}", msg.getGroupId(), members.size(), e);
         }
     }
 
+    private ImChatPo buildChatProjection(String ownerId, String toId, Integer chatType, String messageId,
+                                         Object messageBody, Integer messageContentType, Long messageTime,
+                                         int unreadIncrement) {
+        return new ImChatPo()
+                .setChatId(IdUtils.snowflakeIdStr())
+                .setOwnerId(ownerId)
+                .setToId(toId)
+                .setChatType(chatType)
+                .setSequence(messageTime)
+                .setLastMessageId(messageId)
+                .setLastMessage(messageBody)
+                .setLastMessageContentType(messageContentType)
+                .setLastMessageTime(messageTime)
+                .setUnreadCount(unreadIncrement);
+    }
+
     private void setGroupMessageReadStatus(String messageId, String groupId, List<ImGroupMemberPo> members) {
         try {
             List<ImGroupMessageStatusPo> statusList = Optional.ofNullable(members)
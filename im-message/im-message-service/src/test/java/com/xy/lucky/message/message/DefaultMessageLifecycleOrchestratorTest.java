@@ -5,6 +5,7 @@ import com.xy.lucky.core.model.IMRegisterUser;
 import com.xy.lucky.message.message.monitor.MessageMetricsRecorder;
 import com.xy.lucky.message.message.offline.OfflineMessageRecord;
 import com.xy.lucky.message.message.offline.OfflineMessageService;
+import com.xy.lucky.message.message.dispatch.LightweightTimeWheel;
 import com.xy.lucky.message.message.dispatch.MessageDispatchTask;
 import com.xy.lucky.message.message.outbox.OutboxRecordService;
 import com.xy.lucky.message.message.status.MessageStatusService;
@@ -15,9 +16,14 @@ import org.junit.jupiter.api.Test;
 import org.junit.jupiter.api.extension.ExtendWith;
 import org.mockito.Mock;
 import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.data.redis.connection.RedisConnection;
+import org.springframework.data.redis.connection.RedisHashCommands;
+import org.springframework.data.redis.core.RedisCallback;
 import org.springframework.data.redis.core.RedisTemplate;
 import org.springframework.test.util.ReflectionTestUtils;
 
+import java.nio.charset.StandardCharsets;
+import java.util.LinkedHashMap;
 import java.util.List;
 import java.util.Map;
 import java.util.concurrent.ConcurrentMap;
@@ -26,7 +32,11 @@ import java.util.concurrent.Executors;
 import java.util.concurrent.ScheduledExecutorService;
 
 import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
 import static org.mockito.ArgumentMatchers.*;
+import static org.mockito.Mockito.doThrow;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.never;
 import static org.mockito.Mockito.verify;
 import static org.mockito.Mockito.when;
 
@@ -74,7 +84,7 @@ class DefaultMessageLifecycleOrchestratorTest {
         orchestrator.dispatch(1, Map.of("k", "v"), List.of("u1", "u2"), "m1");
 
         verify(messageStatusService).markPending(eq("m1"), anyCollection());
-        verify(offlineMessageService).store(eq("u2"), any(OfflineMessageRecord.class));
+        verify(offlineMessageService).storeBatch(eq(List.of("u2")), any(OfflineMessageRecord.class));
         BlockingQueue<?> queue = (BlockingQueue<?>) ReflectionTestUtils.getField(orchestrator, "dispatchQueue");
         assertThat(queue).isNotNull();
         assertThat(queue).hasSize(1);
@@ -94,6 +104,44 @@ class DefaultMessageLifecycleOrchestratorTest {
         BlockingQueue<?> queue = (BlockingQueue<?>) ReflectionTestUtils.getField(orchestrator, "dispatchQueue");
         assertThat(queue).isNotNull();
         assertThat(queue).hasSize(2);
+        verify(offlineMessageService, never()).restore(anyString(), anyList());
+    }
+
+    @Test
+    void replayOfflineMessagesShouldBindSharedPayloadToReplayingUser() {
+        IMRegisterUser onlineUser = new IMRegisterUser().setUserId("u1").setBrokerId("broker-1");
+        when(redisUtil.get(IMConstant.USER_CACHE_PREFIX + "u1")).thenReturn(onlineUser);
+        when(offlineMessageService.pull("u1", 200)).thenReturn(List.of(
+                new OfflineMessageRecord("m1", 1, "{\"code\":1,\"ids\":[\"u1\",\"u2\",\"u3\"]}")
+        ));
+
+        orchestrator.replayOfflineMessages("u1");
+
+        BlockingQueue<MessageDispatchTask> queue =
+                (BlockingQueue<MessageDispatchTask>) ReflectionTestUtils.getField(orchestrator, "dispatchQueue");
+        assertThat(queue).isNotNull();
+        MessageDispatchTask task = queue.poll();
+        assertThat(task).isNotNull();
+        assertThat(task.payload()).contains("\"ids\":[\"u1\"]");
+    }
+
+    @Test
+    void replayOfflineMessagesShouldRestoreRecordsWhenOutboxNotDurable() {
+        IMRegisterUser onlineUser = new IMRegisterUser().setUserId("u1").setBrokerId("broker-1");
+        when(redisUtil.get(IMConstant.USER_CACHE_PREFIX + "u1")).thenReturn(onlineUser);
+        List<OfflineMessageRecord> records = List.of(
+                new OfflineMessageRecord("m1", 1, "{}"),
+                new OfflineMessageRecord("m2", 1, "{}")
+        );
+        when(offlineMessageService.pull("u1", 200)).thenReturn(records);
+        doThrow(new IllegalStateException("outbox write failed")).when(outboxRecordService).awaitDurable(anyCollection());
+
+        assertThatThrownBy(() -> orchestrator.replayOfflineMessages("u1"))
+                .isInstanceOf(IllegalStateException.class);
+
+        verify(offlineMessageService).restore("u1", records);
+        BlockingQueue<?> queue = (BlockingQueue<?>) ReflectionTestUtils.getField(orchestrator, "dispatchQueue");
+        assertThat(queue).isEmpty();
     }
 
     @Test
@@ -108,8 +156,7 @@ class DefaultMessageLifecycleOrchestratorTest {
     }
 
     @Test
-    void checkPendingTimeoutTasksShouldHandleTimeoutTasksWithoutIteratorRemove() {
-        ReflectionTestUtils.setField(orchestrator, "confirmTimeoutMs", 1000L);
+    void confirmTimeoutShouldRetryOnlyTasksStillAwaitingConfirm() {
         ReflectionTestUtils.setField(orchestrator, "maxRetry", 3);
         ReflectionTestUtils.setField(orchestrator, "retryDelayMs", 100L);
 
@@ -126,17 +173,62 @@ class DefaultMessageLifecycleOrchestratorTest {
 
         ConcurrentMap<String, MessageDispatchTask> pendingTaskMap =
                 (ConcurrentMap<String, MessageDispatchTask>) ReflectionTestUtils.getField(orchestrator, "pendingTaskMap");
-        ConcurrentMap<String, Long> pendingTaskStartMap =
-                (ConcurrentMap<String, Long>) ReflectionTestUtils.getField(orchestrator, "pendingTaskStartMap");
         assertThat(pendingTaskMap).isNotNull();
-        assertThat(pendingTaskStartMap).isNotNull();
         pendingTaskMap.put("c1", task);
-        pendingTaskStartMap.put("c1", System.currentTimeMillis() - 5000L);
 
-        ReflectionTestUtils.invokeMethod(orchestrator, "checkPendingTimeoutTasks");
+        ReflectionTestUtils.invokeMethod(orchestrator, "onConfirmTimeout", "c1");
+        ReflectionTestUtils.invokeMethod(orchestrator, "onConfirmTimeout", "c2");
 
         assertThat(pendingTaskMap).doesNotContainKey("c1");
-        assertThat(pendingTaskStartMap).doesNotContainKey("c1");
         verify(outboxRecordService).markPendingForRetry(eq(1L), eq(1), anyLong(), eq("broker confirm timeout"));
     }
+
+    @Test
+    void cancelConfirmDeadlineShouldCancelWheelEntry() {
+        ScheduledExecutorService scheduler = Executors.newSingleThreadScheduledExecutor();
+        LightweightTimeWheel timeWheel = new LightweightTimeWheel(60_000L, 8, scheduler, Runnable::run);
+        timeWheel.start();
+        ReflectionTestUtils.setField(orchestrator, "retryTimeWheel", timeWheel);
+        ReflectionTestUtils.setField(orchestrator, "confirmTimeoutMs", 5000L);
+
+        ReflectionTestUtils.invokeMethod(orchestrator, "trackConfirmDeadline", "c1");
+        ConcurrentMap<String, LightweightTimeWheel.Timeout> pendingTimeoutMap =
+                (ConcurrentMap<String, LightweightTimeWheel.Timeout>) ReflectionTestUtils.getField(orchestrator, "pendingTimeoutMap");
+        assertThat(pendingTimeoutMap).isNotNull();
+        LightweightTimeWheel.Timeout timeout = pendingTimeoutMap.get("c1");
+        assertThat(timeout).isNotNull();
+
+        ReflectionTestUtils.invokeMethod(orchestrator, "cancelConfirmDeadline", "c1");
+
+        assertThat(timeout.isCancelled()).isTrue();
+        assertThat(pendingTimeoutMap).doesNotContainKey("c1");
+        timeWheel.stop();
+        scheduler.shutdownNow();
+    }
+
+    @Test
+    void aggregateConnectionCountShouldSumFreshNodesAndDropStaleOnes() {
+        ReflectionTestUtils.setField(orchestrator, "connectionCountStaleMs", 30_000L);
+        long now = 1_000_000L;
+        Map<byte[], byte[]> entries = new LinkedHashMap<>();
+        entries.put(bytes("broker-1"), bytes("120,100," + (now - 1_000L)));
+        entries.put(bytes("broker-2"), bytes("80,60," + (now - 5_000L)));
+        entries.put(bytes("broker-3"), bytes("999,999," + (now - 60_000L)));
+        RedisConnection connection = mock(RedisConnection.class);
+        RedisHashCommands hashCommands = mock(RedisHashCommands.class);
+        when(connection.hashCommands()).thenReturn(hashCommands);
+        when(hashCommands.hGetAll(any())).thenReturn(entries);
+        when(redisTemplate.execute(any(RedisCallback.class)))
+                .thenAnswer(invocation -> invocation.<RedisCallback<Integer>>getArgument(0).doInRedis(connection));
+
+        Integer total = ReflectionTestUtils.invokeMethod(orchestrator, "aggregateConnectionCount", now);
+
+        assertThat(total).isEqualTo(200);
+        verify(hashCommands).hGetAll(bytes(IMConstant.CONNECT_NODE_STATS_KEY));
+        verify(hashCommands).hDel(bytes(IMConstant.CONNECT_NODE_STATS_KEY), bytes("broker-3"));
+    }
+
+    private static byte[] bytes(String value) {
+        return value.getBytes(StandardCharsets.UTF_8);
+    }
 }
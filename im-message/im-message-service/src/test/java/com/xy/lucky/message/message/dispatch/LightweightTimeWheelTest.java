@@ -66,4 +66,64 @@ class LightweightTimeWheelTest {
                 .isInstanceOf(IllegalStateException.class)
                 .hasMessageContaining("not started");
     }
+
+    @Test
+    void cancelledTaskShouldNotRun() throws InterruptedException {
+        LightweightTimeWheel timeWheel = new LightweightTimeWheel(10, 64, scheduler, executor);
+        timeWheel.start();
+        AtomicInteger counter = new AtomicInteger(0);
+        CountDownLatch latch = new CountDownLatch(1);
+
+        LightweightTimeWheel.Timeout cancelled = timeWheel.schedule(counter::incrementAndGet, 30);
+        timeWheel.schedule(latch::countDown, 60);
+        cancelled.cancel();
+
+        assertThat(latch.await(800, TimeUnit.MILLISECONDS)).isTrue();
+        assertThat(counter.get()).isZero();
+        timeWheel.stop();
+    }
+
+    /**
+     * 100 万在途确认截止时间：每个 tick 只触达到期槽位内的条目，与在途总量无关
+     */
+    @Test
+    void tickShouldTouchOnlyDueEntriesWithOneMillionInFlight() {
+        int inFlight = 1_000_000;
+        int wheelSize = 512;
+        long tickMs = 60_000L;
+        LightweightTimeWheel timeWheel = new LightweightTimeWheel(tickMs, wheelSize, scheduler, Runnable::run);
+        timeWheel.start();
+        AtomicInteger fired = new AtomicInteger(0);
+        LightweightTimeWheel.Timeout[] timeouts = new LightweightTimeWheel.Timeout[inFlight];
+        for (int i = 0; i < inFlight; i++) {
+            timeouts[i] = timeWheel.schedule(fired::incrementAndGet, (long) (i % wheelSize + 1) * tickMs);
+        }
+        // 模拟绝大多数消息在超时前收到确认，只保留 1% 真正超时
+        for (int i = 0; i < inFlight; i++) {
+            if (i % 100 != 0) {
+                timeouts[i].cancel();
+            }
+        }
+
+        int inFirstSlot = 0;
+        int dueInFirstSlot = 0;
+        for (int i = 0; i < inFlight; i += wheelSize) {
+            inFirstSlot++;
+            if (i % 100 == 0) {
+                dueInFirstSlot++;
+            }
+        }
+        int touched = timeWheel.advance();
+        assertThat(touched).isEqualTo(inFirstSlot).isLessThan(inFlight / 100);
+        assertThat(fired.get()).isEqualTo(dueInFirstSlot);
+
+        long totalTouched = touched;
+        for (int i = 1; i < wheelSize; i++) {
+            totalTouched += timeWheel.advance();
+        }
+        // 一圈内每个条目恰好被触达一次
+        assertThat(totalTouched).isEqualTo(inFlight);
+        assertThat(fired.get()).isEqualTo(inFlight / 100);
+        timeWheel.stop();
+    }
 }
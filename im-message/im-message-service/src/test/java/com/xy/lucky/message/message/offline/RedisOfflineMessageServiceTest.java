@@ -0,0 +1,142 @@
+package com.xy.lucky.message.message.offline;
+
+import com.xy.lucky.utils.json.JacksonUtils;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.InOrder;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.data.redis.connection.RedisConnection;
+import org.springframework.data.redis.connection.RedisKeyCommands;
+import org.springframework.data.redis.connection.RedisListCommands;
+import org.springframework.data.redis.connection.RedisStringCommands;
+import org.springframework.data.redis.core.RedisCallback;
+import org.springframework.data.redis.core.RedisTemplate;
+import org.springframework.data.redis.core.script.RedisScript;
+import org.springframework.data.redis.serializer.RedisSerializer;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.stream.IntStream;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.AdditionalMatchers.aryEq;
+import static org.mockito.ArgumentMatchers.*;
+import static org.mockito.Mockito.*;
+
+@ExtendWith(MockitoExtension.class)
+class RedisOfflineMessageServiceTest {
+
+    @Mock
+    private RedisTemplate<String, Object> redisTemplate;
+    @Mock
+    private RedisConnection connection;
+    @Mock
+    private RedisStringCommands stringCommands;
+    @Mock
+    private RedisListCommands listCommands;
+    @Mock
+    private RedisKeyCommands keyCommands;
+
+    private RedisOfflineMessageService service;
+
+    @BeforeEach
+    void setUp() {
+        service = new RedisOfflineMessageService(redisTemplate);
+        ReflectionTestUtils.setField(service, "maxPerUser", 100);
+    }
+
+    @Test
+    void storeBatchShouldWritePayloadOnceAndPushIdToEachUserKey() {
+        runPipelinedCallbacks();
+
+        service.storeBatch(Arrays.asList("u1", "", "u2", null), record("m1"));
+
+        verify(stringCommands).setEx(aryEq(bytes("im:offline:payload:m1")), eq(86400L),
+                aryEq(bytes(JacksonUtils.toJSONString(record("m1")))));
+        for (String userId : List.of("u1", "u2")) {
+            byte[] key = bytes("im:offline:message:" + userId);
+            verify(listCommands).lPush(aryEq(key), aryEq(bytes("m1")));
+            verify(listCommands).lTrim(aryEq(key), eq(0L), eq(99L));
+            verify(keyCommands).expire(aryEq(key), eq(86400L));
+        }
+        verify(listCommands, times(2)).lPush(any(byte[].class), any(byte[].class));
+    }
+
+    @Test
+    void storeBatchShouldSplitLargeFanOutIntoPipelinesAndWritePayloadOnce() {
+        runPipelinedCallbacks();
+        List<String> userIds = IntStream.range(0, 1201).mapToObj(i -> "u" + i).toList();
+
+        service.storeBatch(userIds, record("m1"));
+
+        verify(redisTemplate, times(3)).executePipelined(any(RedisCallback.class));
+        verify(stringCommands, times(1)).setEx(any(byte[].class), anyLong(), any(byte[].class));
+        verify(listCommands, times(1201)).lPush(any(byte[].class), any(byte[].class));
+    }
+
+    @Test
+    void storeBatchShouldSkipWhenNoValidUser() {
+        service.storeBatch(Arrays.asList("", null), record("m1"));
+
+        verifyNoInteractions(redisTemplate);
+    }
+
+    @Test
+    @SuppressWarnings("unchecked")
+    void pullShouldResolvePayloadsAndSkipExpiredOnes() {
+        String legacy = JacksonUtils.toJSONString(record("m0"));
+        when(redisTemplate.execute(any(RedisScript.class), any(RedisSerializer.class), any(RedisSerializer.class),
+                eq(List.of("im:offline:message:u1")), eq("10")))
+                .thenReturn(List.of(legacy, "m1", "m2"));
+        List<Object> payloads = new ArrayList<>();
+        payloads.add(JacksonUtils.toJSONString(record("m1")));
+        payloads.add(null);
+        when(redisTemplate.executePipelined(any(RedisCallback.class), any(RedisSerializer.class))).thenReturn(payloads);
+
+        List<OfflineMessageRecord> records = service.pull("u1", 10);
+
+        assertThat(records).extracting(OfflineMessageRecord::messageId).containsExactly("m0", "m1");
+    }
+
+    @Test
+    void restoreShouldPushIdsBackToTailInPulledOrderAndRewritePayloads() {
+        runPipelinedCallbacks();
+        byte[] key = bytes("im:offline:message:u1");
+
+        service.restore("u1", List.of(record("m1"), record("m2")));
+
+        InOrder order = inOrder(listCommands);
+        order.verify(listCommands).rPush(aryEq(key), aryEq(bytes("m1")));
+        order.verify(listCommands).rPush(aryEq(key), aryEq(bytes("m2")));
+        verify(stringCommands).setEx(aryEq(bytes("im:offline:payload:m1")), eq(86400L),
+                aryEq(bytes(JacksonUtils.toJSONString(record("m1")))));
+        verify(stringCommands).setEx(aryEq(bytes("im:offline:payload:m2")), eq(86400L),
+                aryEq(bytes(JacksonUtils.toJSONString(record("m2")))));
+        verify(keyCommands).expire(aryEq(key), eq(86400L));
+        verify(listCommands, never()).lPush(any(byte[].class), any(byte[].class));
+    }
+
+    private void runPipelinedCallbacks() {
+        lenient().when(connection.stringCommands()).thenReturn(stringCommands);
+        lenient().when(connection.listCommands()).thenReturn(listCommands);
+        lenient().when(connection.keyCommands()).thenReturn(keyCommands);
+        when(redisTemplate.executePipelined(any(RedisCallback.class))).thenAnswer(invocation -> {
+            RedisCallback<?> callback = invocation.getArgument(0);
+            callback.doInRedis(connection);
+            return List.of();
+        });
+    }
+
+    private static OfflineMessageRecord record(String messageId) {
+        return OfflineMessageRecord.builder().messageId(messageId).messageType(1).payload("{\"text\":\"hi\"}").build();
+    }
+
+    private static byte[] bytes(String value) {
+        return value.getBytes(StandardCharsets.UTF_8);
+    }
+}
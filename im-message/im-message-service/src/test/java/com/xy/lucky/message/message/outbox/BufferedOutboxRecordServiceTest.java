@@ -0,0 +1,141 @@
+package com.xy.lucky.message.message.outbox;
+
+import com.xy.lucky.domain.po.IMOutboxPo;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.ArgumentCaptor;
+import org.mockito.InOrder;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import java.util.List;
+import java.util.concurrent.Executors;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+import static org.mockito.ArgumentMatchers.*;
+import static org.mockito.Mockito.*;
+
+@ExtendWith(MockitoExtension.class)
+class BufferedOutboxRecordServiceTest {
+
+    @Mock
+    private DubboOutboxRecordService delegate;
+
+    private OutboxWriteProperties properties;
+    private BufferedOutboxRecordService service;
+
+    @BeforeEach
+    void setUp() {
+        properties = new OutboxWriteProperties();
+        properties.setBatchSize(100);
+        properties.setFlushIntervalMs(60_000L);
+        service = new BufferedOutboxRecordService(delegate, properties);
+        ReflectionTestUtils.setField(service, "messagePushExecutor", Executors.newSingleThreadExecutor());
+        ReflectionTestUtils.setField(service, "scheduledExecutor", Executors.newSingleThreadScheduledExecutor());
+    }
+
+    @Test
+    void awaitDurableShouldFlushPendingRecordsAsOneBatchInFlushBeforeAckMode() {
+        properties.setMode(OutboxWriteMode.FLUSH_BEFORE_ACK);
+        service.init();
+        when(delegate.buildPending(anyString(), anyString(), anyString(), anyString()))
+                .thenReturn(new IMOutboxPo().setId(1L), new IMOutboxPo().setId(2L));
+
+        assertThat(service.createPending("m1", "{}", "ex", "b1")).isEqualTo(1L);
+        assertThat(service.createPending("m1", "{}", "ex", "b2")).isEqualTo(2L);
+        verify(delegate, never()).createPendingBatch(anyList());
+
+        service.awaitDurable(List.of(1L, 2L));
+
+        ArgumentCaptor<List<IMOutboxPo>> captor = ArgumentCaptor.forClass(List.class);
+        verify(delegate).createPendingBatch(captor.capture());
+        assertThat(captor.getValue()).extracting(IMOutboxPo::getId).containsExactly(1L, 2L);
+    }
+
+    @Test
+    void flushShouldCoalesceTransitionsAndWriteRecordsBeforeTransitions() {
+        properties.setMode(OutboxWriteMode.ASYNC);
+        service.init();
+        IMOutboxPo pending = new IMOutboxPo().setId(1L);
+        IMOutboxPo nack = new IMOutboxPo().setId(1L).setStatus(OutboxStatus.PENDING.value());
+        IMOutboxPo ack = new IMOutboxPo().setId(1L).setStatus(OutboxStatus.SENT.value());
+        when(delegate.buildPending(anyString(), anyString(), anyString(), anyString())).thenReturn(pending);
+        when(delegate.buildTransition(eq(1L), eq(OutboxEvent.BROKER_NACK), anyInt(), any(), any())).thenReturn(nack);
+        when(delegate.buildTransition(eq(1L), eq(OutboxEvent.BROKER_ACK), anyInt(), any(), any())).thenReturn(ack);
+
+        service.createPending("m1", "{}", "ex", "b1");
+        service.markPendingForRetry(1L, 1, 0L, "nack");
+        service.markSent(1L, 2);
+        service.awaitDurable(List.of(1L));
+        verifyNoMoreInteractions(ignoreStubs(delegate));
+
+        service.flush();
+
+        InOrder inOrder = inOrder(delegate);
+        inOrder.verify(delegate).createPendingBatch(List.of(pending));
+        inOrder.verify(delegate).applyTransitions(OutboxEvent.BROKER_ACK, List.of(ack));
+        verify(delegate, never()).applyTransitions(eq(OutboxEvent.BROKER_NACK), anyList());
+    }
+
+    @Test
+    void syncModeShouldDelegateDirectly() {
+        properties.setMode(OutboxWriteMode.SYNC);
+        service.init();
+        when(delegate.createPending("m1", "{}", "ex", "b1")).thenReturn(7L);
+        when(delegate.buildTransition(7L, OutboxEvent.BROKER_ACK, 1, null, null)).thenReturn(new IMOutboxPo().setId(7L));
+
+        assertThat(service.createPending("m1", "{}", "ex", "b1")).isEqualTo(7L);
+        service.markSent(7L, 1);
+
+        verify(delegate).applyTransitions(eq(OutboxEvent.BROKER_ACK), anyList());
+    }
+
+    @Test
+    void awaitDurableShouldThrowWhenOwnRecordFailsToPersist() {
+        properties.setMode(OutboxWriteMode.FLUSH_BEFORE_ACK);
+        service.init();
+        when(delegate.buildPending(anyString(), anyString(), anyString(), anyString()))
+                .thenReturn(new IMOutboxPo().setId(1L), new IMOutboxPo().setId(2L));
+        doThrow(new IllegalStateException("db down")).when(delegate).createPendingBatch(anyList());
+
+        service.createPending("m1", "{}", "ex", "b1");
+        service.createPending("m2", "{}", "ex", "b2");
+
+        assertThatThrownBy(() -> service.awaitDurable(List.of(1L, 2L)))
+                .isInstanceOf(IllegalStateException.class)
+                .hasMessageContaining("1")
+                .hasMessageContaining("2");
+        // 失败只报告一次，不影响之后的分发
+        service.awaitDurable(List.of(1L, 2L));
+    }
+
+    @Test
+    void markDeliveredShouldReportMissedUpdate() {
+        properties.setMode(OutboxWriteMode.ASYNC);
+        service.init();
+        when(delegate.markDeliveredByMessageId("m1")).thenReturn(false);
+
+        assertThat(service.markDeliveredByMessageId("m1")).isFalse();
+        verify(delegate, times(1)).markDeliveredByMessageId("m1");
+    }
+
+    @Test
+    void markDeliveredShouldFlushBufferedRecordsBeforeRetrying() {
+        properties.setMode(OutboxWriteMode.ASYNC);
+        service.init();
+        IMOutboxPo pending = new IMOutboxPo().setId(1L);
+        when(delegate.buildPending(anyString(), anyString(), anyString(), anyString())).thenReturn(pending);
+        when(delegate.markDeliveredByMessageId("m1")).thenReturn(false, true);
+
+        service.createPending("m1", "{}", "ex", "b1");
+
+        assertThat(service.markDeliveredByMessageId("m1")).isTrue();
+        InOrder inOrder = inOrder(delegate);
+        inOrder.verify(delegate).markDeliveredByMessageId("m1");
+        inOrder.verify(delegate).createPendingBatch(List.of(pending));
+        inOrder.verify(delegate).markDeliveredByMessageId("m1");
+    }
+}
@@ -0,0 +1,129 @@
+package com.xy.lucky.message.message.status.impl;
+
+import com.xy.lucky.message.config.RedisConfig;
+import org.junit.jupiter.api.Test;
+import org.springframework.data.redis.serializer.RedisSerializer;
+
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+class StatusBitmapLayoutTest {
+
+    @Test
+    void decodeRowShouldFollowRedisBitOrderAcrossUnalignedRows() {
+        int rosterSize = 13;
+        byte[] bitmap = new byte[(int) StatusBitmapLayout.rangeBytes(rosterSize)];
+        StatusBitmapLayout.setBit(bitmap, StatusBitmapLayout.bitOffset(2, rosterSize, 0));
+        StatusBitmapLayout.setBit(bitmap, StatusBitmapLayout.bitOffset(2, rosterSize, 7));
+        StatusBitmapLayout.setBit(bitmap, StatusBitmapLayout.bitOffset(2, rosterSize, 12));
+        StatusBitmapLayout.setBit(bitmap, StatusBitmapLayout.bitOffset(3, rosterSize, 0));
+
+        long[] range = StatusBitmapLayout.rowByteRange(2, rosterSize);
+        byte[] slice = Arrays.copyOfRange(bitmap, (int) range[0], (int) range[1] + 1);
+
+        assertThat(StatusBitmapLayout.decodeRow(slice, range[0], 2, rosterSize)).containsExactly(0, 7, 12);
+        assertThat(bitmap[0] & 0xFF).isZero();
+    }
+
+    @Test
+    void decodeRowShouldTolerateShortRedisStrings() {
+        int rosterSize = 16;
+        byte[] bitmap = new byte[1];
+        StatusBitmapLayout.setBit(bitmap, 3);
+
+        assertThat(StatusBitmapLayout.decodeRow(bitmap, 0, 0, rosterSize)).containsExactly(3);
+        assertThat(StatusBitmapLayout.decodeRow(new byte[0], 2, 1, rosterSize)).isEmpty();
+    }
+
+    @Test
+    void rosterIdShouldBeStableForSameMembers() {
+        List<String> members = List.of("u1", "u2", "u3");
+
+        assertThat(StatusBitmapLayout.rosterId(members)).isEqualTo(StatusBitmapLayout.rosterId(new ArrayList<>(members)));
+        assertThat(StatusBitmapLayout.rosterId(members)).isNotEqualTo(StatusBitmapLayout.rosterId(List.of("u1", "u2")));
+        assertThat(StatusBitmapLayout.rosterId(members)).hasSize(16);
+    }
+
+    /**
+     * 10k 条消息 × 500 成员，全部推进到已投递、已确认的终态，按两种模型实际写入 Redis 的 key 与值编码后比较字节数：
+     * Hash 模型用与 RedisMessageStatusService 相同的序列化器编码字段与值，位图模型按布局置位后取 SETBIT 产生的实际字符串长度，
+     * 并计入名册、分段消息列表与消息索引。两者都只计负载字节，未计 Redis 每个条目的结构开销（Hash 模型条目远多，实际差距更大）。
+     */
+    @Test
+    void bitmapPayloadShouldBeUnderOneTwentiethOfHashPayloadForTenThousandMessagesTimesFiveHundredMembers() {
+        int messages = 10_000;
+        int members = 500;
+        List<String> userIds = new ArrayList<>(members);
+        for (int i = 0; i < members; i++) {
+            userIds.add(String.valueOf(1_900_000_000_000_000L + i));
+        }
+        List<String> messageIds = new ArrayList<>(messages);
+        for (int m = 0; m < messages; m++) {
+            messageIds.add(String.valueOf(1_800_000_000_000_000_000L + m));
+        }
+
+        RedisSerializer<Object> hashValueSerializer = new RedisConfig().getSerializer();
+        long hashBytes = 0;
+        for (String messageId : messageIds) {
+            hashBytes += utf8("im-msg-status:" + messageId);
+            for (String userId : userIds) {
+                hashBytes += utf8(userId) + hashValueSerializer.serialize("ACKED").length;
+            }
+        }
+
+        String rid = StatusBitmapLayout.rosterId(userIds);
+        String base = "im-msg-status:r:{" + rid + "}:";
+        int ranges = (messages + StatusBitmapLayout.ROWS_PER_RANGE - 1) / StatusBitmapLayout.ROWS_PER_RANGE;
+        byte[][] delivered = new byte[ranges][(int) StatusBitmapLayout.rangeBytes(members)];
+        byte[][] acked = new byte[ranges][(int) StatusBitmapLayout.rangeBytes(members)];
+        long bitmapModelBytes = utf8(base + "members") + utf8(base + "ord") + utf8(base + "seq") + utf8(String.valueOf(messages));
+        for (int ordinal = 0; ordinal < members; ordinal++) {
+            bitmapModelBytes += 2L * utf8(userIds.get(ordinal)) + utf8(String.valueOf(ordinal));
+        }
+        for (int seq = 0; seq < messages; seq++) {
+            int range = (int) StatusBitmapLayout.rangeOf(seq);
+            int row = StatusBitmapLayout.rowOf(seq);
+            for (int ordinal = 0; ordinal < members; ordinal++) {
+                long offset = StatusBitmapLayout.bitOffset(row, members, ordinal);
+                StatusBitmapLayout.setBit(delivered[range], offset);
+                StatusBitmapLayout.setBit(acked[range], offset);
+            }
+            String messageId = messageIds.get(seq);
+            bitmapModelBytes += utf8(messageId)
+                    + utf8("im-msg-status:m:" + messageId) + utf8(rid + ":" + seq);
+        }
+        for (int range = 0; range < ranges; range++) {
+            bitmapModelBytes += utf8(base + "msgs:" + range)
+                    + utf8(base + "dlv:" + range) + redisStringLength(delivered[range])
+                    + utf8(base + "ack:" + range) + redisStringLength(acked[range]);
+        }
+
+        int lastRow = StatusBitmapLayout.rowOf(messages - 1);
+        long[] range = StatusBitmapLayout.rowByteRange(lastRow, members);
+        byte[] slice = Arrays.copyOfRange(acked[ranges - 1], (int) range[0], (int) range[1] + 1);
+        assertThat(StatusBitmapLayout.decodeRow(slice, range[0], lastRow, members)).hasSize(members);
+        // 最后一段只有 10000 - 9 * 1024 = 784 行，SETBIT 只把字符串扩展到最高置位所在字节
+        assertThat(redisStringLength(acked[ranges - 1])).isEqualTo((784L * members + 7) / 8);
+        assertThat(bitmapModelBytes * 20).isLessThan(hashBytes);
+    }
+
+    private static long utf8(String value) {
+        return value.getBytes(StandardCharsets.UTF_8).length;
+    }
+
+    /**
+     * SETBIT 写出的字符串长度：截止到最后一个非零字节
+     */
+    private static long redisStringLength(byte[] bitmap) {
+        for (int i = bitmap.length - 1; i >= 0; i--) {
+            if (bitmap[i] != 0) {
+                return i + 1;
+            }
+        }
+        return 0;
+    }
+}